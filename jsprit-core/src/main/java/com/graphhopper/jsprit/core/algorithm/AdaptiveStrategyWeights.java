@@ -0,0 +1,205 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapts the weights of the search strategies of a {@link SearchStrategyManager} in the manner of adaptive large
+ * neighborhood search (Ropke and Pisinger 2006), but scores strategies per second of wall time rather than per call.
+ * <p>
+ * <p>Each iteration the selected strategy earns a score: newBestScore if it found a new best solution,
+ * improvementScore if it improved the solution it started from, acceptanceScore if its solution was accepted. At the
+ * end of each segment, every strategy used in the segment gets the rate score/seconds. The weights of these
+ * strategies are then moved towards their share of the summed rates by the reaction factor, i.e.
+ * w = (1-r)*w + r*W*rate/sum(rates) where W is the summed weight of the strategies used. Thus, the weights still sum
+ * up to the same value, and expensive strategies that rarely help are throttled.
+ * <p>
+ * <p>Strategies with initial weight 0 stay switched off. To keep every strategy alive, no weight falls below
+ * minWeightShare times its initial weight.
+ */
+public class AdaptiveStrategyWeights implements IterationStartsListener, StrategySelectedListener {
+
+    private static Logger logger = LoggerFactory.getLogger(AdaptiveStrategyWeights.class);
+
+    private static class Stats {
+
+        final double initialWeight;
+
+        double score;
+
+        double seconds;
+
+        Stats(double initialWeight) {
+            this.initialWeight = initialWeight;
+        }
+
+    }
+
+    private final SearchStrategyManager strategyManager;
+
+    private final Map<String, Stats> stats = new HashMap<String, Stats>();
+
+    private int segmentLength = 100;
+
+    private double reactionFactor = 0.1;
+
+    private double newBestScore = 33.;
+
+    private double improvementScore = 9.;
+
+    private double acceptanceScore = 13.;
+
+    private double minWeightShare = 0.05;
+
+    private int iterationsInSegment = 0;
+
+    private long iterationStart;
+
+    private double costsAtIterationStart;
+
+    private double bestCosts = Double.MAX_VALUE;
+
+    public AdaptiveStrategyWeights(SearchStrategyManager strategyManager) {
+        this.strategyManager = strategyManager;
+        List<SearchStrategy> strategies = strategyManager.getStrategies();
+        List<Double> weights = strategyManager.getWeights();
+        for (int i = 0; i < strategies.size(); i++) {
+            stats.put(strategies.get(i).getId(), new Stats(weights.get(i)));
+        }
+    }
+
+    /**
+     * Sets the number of iterations after which weights are updated. Default is 100.
+     */
+    public void setSegmentLength(int segmentLength) {
+        if (segmentLength < 1) throw new IllegalArgumentException("segmentLength must be at least 1");
+        this.segmentLength = segmentLength;
+    }
+
+    /**
+     * Sets how strongly the rates of a segment change the weights. Default is 0.1.
+     */
+    public void setReactionFactor(double reactionFactor) {
+        if (reactionFactor < 0. || reactionFactor > 1.)
+            throw new IllegalArgumentException("reactionFactor must be in [0,1]");
+        this.reactionFactor = reactionFactor;
+    }
+
+    /**
+     * Sets the scores of new best, improving and accepted solutions. Defaults are 33, 9 and 13.
+     */
+    public void setScores(double newBestScore, double improvementScore, double acceptanceScore) {
+        if (newBestScore < 0. || improvementScore < 0. || acceptanceScore < 0.)
+            throw new IllegalArgumentException("scores must not be negative");
+        this.newBestScore = newBestScore;
+        this.improvementScore = improvementScore;
+        this.acceptanceScore = acceptanceScore;
+    }
+
+    /**
+     * Sets the lower bound of weights relative to the initial weights. Default is 0.05.
+     */
+    public void setMinWeightShare(double minWeightShare) {
+        if (minWeightShare < 0. || minWeightShare > 1.)
+            throw new IllegalArgumentException("minWeightShare must be in [0,1]");
+        this.minWeightShare = minWeightShare;
+    }
+
+    @Override
+    public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+        costsAtIterationStart = best == null ? Double.MAX_VALUE : best.getCost();
+        if (costsAtIterationStart < bestCosts) bestCosts = costsAtIterationStart;
+        iterationStart = System.nanoTime();
+    }
+
+    @Override
+    public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+        if (discoveredSolution == null) return;
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        double costs = discoveredSolution.getSolution().getCost();
+        double score = 0.;
+        if (costs < bestCosts) {
+            score = newBestScore;
+            bestCosts = costs;
+        } else if (costs < costsAtIterationStart) {
+            score = improvementScore;
+        } else if (discoveredSolution.isAccepted()) {
+            score = acceptanceScore;
+        }
+        record(discoveredSolution.getStrategyId(), score, seconds);
+    }
+
+    /**
+     * Records the score a strategy earned within the specified time and updates weights at the end of a segment.
+     */
+    void record(String strategyId, double score, double seconds) {
+        Stats s = stats.get(strategyId);
+        if (s != null) {
+            s.score += score;
+            s.seconds += seconds;
+        }
+        iterationsInSegment++;
+        if (iterationsInSegment >= segmentLength) {
+            updateWeights();
+            iterationsInSegment = 0;
+        }
+    }
+
+    private void updateWeights() {
+        double sumRates = 0.;
+        double sumWeights = 0.;
+        for (Map.Entry<String, Stats> e : stats.entrySet()) {
+            Stats s = e.getValue();
+            if (s.seconds <= 0. || s.initialWeight <= 0.) continue;
+            sumRates += s.score / s.seconds;
+            sumWeights += strategyManager.getWeight(e.getKey());
+        }
+        for (Map.Entry<String, Stats> e : stats.entrySet()) {
+            Stats s = e.getValue();
+            if (s.seconds > 0. && s.initialWeight > 0.) {
+                double weight = strategyManager.getWeight(e.getKey());
+                double target = sumRates > 0. ? sumWeights * (s.score / s.seconds) / sumRates : weight;
+                double newWeight = Math.max(minWeightShare * s.initialWeight, (1. - reactionFactor) * weight + reactionFactor * target);
+                strategyManager.informStrategyWeightChanged(e.getKey(), newWeight);
+                logger.debug("strategy {}: score/s={}, weight={}", e.getKey(), s.score / s.seconds, newWeight);
+            }
+            s.score = 0.;
+            s.seconds = 0.;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[name=adaptiveStrategyWeights][segmentLength=" + segmentLength + "][reactionFactor=" + reactionFactor + "]";
+    }
+
+}
@@ -0,0 +1,403 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.problem.AbstractActivity;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.util.Fingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Search state of a {@link VehicleRoutingAlgorithm} after a number of iterations, i.e. its solutions, the best solution
+ * ever found, the iteration counter and the states of its {@link Checkpointable} components.
+ * <p>
+ * <p>A checkpoint is captured on the search thread. Solutions are copied and component states are written to memory
+ * then, which is cheap compared to an iteration. Encoding the solutions and writing the file is left to a
+ * {@link Writer} running in the background.
+ * <p>
+ * <p>The file is gzipped binary. Solutions are stored as vehicle ids, job ids and activity indices plus activity
+ * times, thus a checkpoint can only be read with the same problem. This is verified with a fingerprint of the problem
+ * (if its transport costs can be fingerprinted) and the number of jobs and vehicles.
+ */
+public class AlgorithmCheckpoint {
+
+    /**
+     * Writes checkpoints to a file in the background. If a checkpoint is still being written when the next one
+     * arrives, the next one is skipped, i.e. the search never waits for the disk.
+     */
+    public static class Writer {
+
+        private final File file;
+
+        private final VehicleRoutingProblem vrp;
+
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "jsprit-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            }
+
+        });
+
+        private Future<?> pending;
+
+        public Writer(File file, VehicleRoutingProblem vrp) {
+            this.file = file;
+            this.vrp = vrp;
+        }
+
+        /**
+         * Writes the checkpoint in the background unless the previous one is still being written.
+         *
+         * @return true if checkpoint is written, false if it is skipped
+         */
+        public boolean submit(final AlgorithmCheckpoint checkpoint) {
+            if (pending != null && !pending.isDone()) {
+                logger.debug("skip checkpoint at iteration {}, previous one is still being written", checkpoint.iteration);
+                return false;
+            }
+            pending = executor.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        checkpoint.write(file, vrp);
+                    } catch (IOException e) {
+                        logger.warn("cannot write checkpoint {}: {}", file, e.toString());
+                    }
+                }
+
+            });
+            return true;
+        }
+
+        /**
+         * Waits until the pending checkpoint is written and stops the background thread.
+         */
+        public void close() {
+            try {
+                if (pending != null) pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.warn("cannot write checkpoint {}: {}", file, e.toString());
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(AlgorithmCheckpoint.class);
+
+    private static final int MAGIC = 0x4A535043;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Captures the search state. Solutions are copied, and the states of the components are written immediately.
+     *
+     * @param iteration      number of iterations completed
+     * @param solutions      current solutions
+     * @param bestEver       best solution ever found, or null
+     * @param checkpointables components whose states are captured
+     * @return the checkpoint
+     */
+    public static AlgorithmCheckpoint capture(int iteration, Collection<VehicleRoutingProblemSolution> solutions, VehicleRoutingProblemSolution bestEver,
+                                              List<Checkpointable> checkpointables) {
+        List<VehicleRoutingProblemSolution> copies = new ArrayList<VehicleRoutingProblemSolution>(solutions.size());
+        for (VehicleRoutingProblemSolution solution : solutions) {
+            copies.add(VehicleRoutingProblemSolution.copyOf(solution));
+        }
+        VehicleRoutingProblemSolution bestEverCopy = bestEver == null ? null : VehicleRoutingProblemSolution.copyOf(bestEver);
+        List<String> names = new ArrayList<String>(checkpointables.size());
+        List<byte[]> states = new ArrayList<byte[]>(checkpointables.size());
+        try {
+            for (Checkpointable checkpointable : checkpointables) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                checkpointable.writeState(out);
+                out.flush();
+                names.add(checkpointable.getClass().getName());
+                states.add(bytes.toByteArray());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new AlgorithmCheckpoint(iteration, copies, bestEverCopy, names, states);
+    }
+
+    /**
+     * Reads a checkpoint written for the specified problem.
+     *
+     * @param file the checkpoint file
+     * @param vrp  the problem the checkpoint was written for
+     * @return the checkpoint
+     * @throws IOException           if the file cannot be read
+     * @throws IllegalStateException if the checkpoint does not belong to the problem
+     */
+    public static AlgorithmCheckpoint read(File file, VehicleRoutingProblem vrp) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+        try {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a checkpoint");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported checkpoint version " + version);
+            String fingerprint = in.readUTF();
+            int noJobs = in.readInt();
+            int noVehicles = in.readInt();
+            String expected = fingerprintOf(vrp);
+            if (noJobs != vrp.getJobsInclusiveInitialJobsInRoutes().size() || noVehicles != vrp.getVehicles().size()
+                || (!fingerprint.isEmpty() && !expected.isEmpty() && !fingerprint.equals(expected))) {
+                throw new IllegalStateException("checkpoint " + file + " has been written for another problem");
+            }
+            Decoder decoder = new Decoder(vrp);
+            int iteration = in.readInt();
+            int noSolutions = in.readInt();
+            List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>(noSolutions);
+            for (int i = 0; i < noSolutions; i++) solutions.add(decoder.readSolution(in));
+            VehicleRoutingProblemSolution bestEver = in.readBoolean() ? decoder.readSolution(in) : null;
+            int noStates = in.readInt();
+            List<String> names = new ArrayList<String>(noStates);
+            List<byte[]> states = new ArrayList<byte[]>(noStates);
+            for (int i = 0; i < noStates; i++) {
+                names.add(in.readUTF());
+                byte[] state = new byte[in.readInt()];
+                in.readFully(state);
+                states.add(state);
+            }
+            return new AlgorithmCheckpoint(iteration, solutions, bestEver, names, states);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String fingerprintOf(VehicleRoutingProblem vrp) {
+        Fingerprint fingerprint = Fingerprint.ofProblem(vrp);
+        return fingerprint == null ? "" : fingerprint.toHexString();
+    }
+
+    private final int iteration;
+
+    private final List<VehicleRoutingProblemSolution> solutions;
+
+    private final VehicleRoutingProblemSolution bestEver;
+
+    private final List<String> names;
+
+    private final List<byte[]> states;
+
+    private AlgorithmCheckpoint(int iteration, List<VehicleRoutingProblemSolution> solutions, VehicleRoutingProblemSolution bestEver, List<String> names, List<byte[]> states) {
+        this.iteration = iteration;
+        this.solutions = solutions;
+        this.bestEver = bestEver;
+        this.names = names;
+        this.states = states;
+    }
+
+    /**
+     * Returns the number of iterations completed when the checkpoint was captured.
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    public List<VehicleRoutingProblemSolution> getSolutions() {
+        return solutions;
+    }
+
+    public VehicleRoutingProblemSolution getBestEver() {
+        return bestEver;
+    }
+
+    /**
+     * Restores the states of the components. They need to be the same (and in the same order) as when the checkpoint
+     * was captured, i.e. the algorithm needs to be built the same way.
+     *
+     * @param checkpointables components whose states are restored
+     * @throws IllegalStateException if the components do not match the checkpoint
+     */
+    public void restore(List<Checkpointable> checkpointables) {
+        if (checkpointables.size() != states.size()) {
+            throw new IllegalStateException("checkpoint has " + states.size() + " component states, but algorithm has " + checkpointables.size() + " components");
+        }
+        try {
+            for (int i = 0; i < checkpointables.size(); i++) {
+                Checkpointable checkpointable = checkpointables.get(i);
+                if (!checkpointable.getClass().getName().equals(names.get(i))) {
+                    throw new IllegalStateException("checkpoint has state of " + names.get(i) + ", but component is " + checkpointable.getClass().getName());
+                }
+                checkpointable.readState(new DataInputStream(new ByteArrayInputStream(states.get(i))));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file first and then moves it, i.e. the file is always complete.
+     */
+    void write(File file, VehicleRoutingProblem vrp) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName() + "-", ".tmp", directory);
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprintOf(vrp));
+            out.writeInt(vrp.getJobsInclusiveInitialJobsInRoutes().size());
+            out.writeInt(vrp.getVehicles().size());
+            out.writeInt(iteration);
+            out.writeInt(solutions.size());
+            for (VehicleRoutingProblemSolution solution : solutions) writeSolution(out, solution);
+            out.writeBoolean(bestEver != null);
+            if (bestEver != null) writeSolution(out, bestEver);
+            out.writeInt(states.size());
+            for (int i = 0; i < states.size(); i++) {
+                out.writeUTF(names.get(i));
+                out.writeInt(states.get(i).length);
+                out.write(states.get(i));
+            }
+            out.close();
+            out = null;
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.debug("wrote checkpoint at iteration {} to {}", iteration, file);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+            if (tmp.exists() && !tmp.delete()) tmp.deleteOnExit();
+        }
+    }
+
+    private static void writeSolution(DataOutput out, VehicleRoutingProblemSolution solution) throws IOException {
+        out.writeDouble(solution.getCost());
+        out.writeInt(solution.getRoutes().size());
+        for (VehicleRoute route : solution.getRoutes()) {
+            out.writeUTF(route.getVehicle().getId());
+            out.writeDouble(route.getStart().getEndTime());
+            out.writeDouble(route.getEnd().getArrTime());
+            out.writeInt(route.getActivities().size());
+            for (TourActivity act : route.getActivities()) {
+                out.writeUTF(((TourActivity.JobActivity) act).getJob().getId());
+                out.writeInt(act.getIndex());
+                out.writeDouble(act.getArrTime());
+                out.writeDouble(act.getEndTime());
+            }
+        }
+        out.writeInt(solution.getUnassignedJobs().size());
+        for (Job job : solution.getUnassignedJobs()) out.writeUTF(job.getId());
+    }
+
+    /**
+     * Rebuilds solutions from ids with activities of the problem.
+     */
+    private static class Decoder {
+
+        private final VehicleRoutingProblem vrp;
+
+        private final Map<String, Vehicle> vehicles = new HashMap<String, Vehicle>();
+
+        Decoder(VehicleRoutingProblem vrp) {
+            this.vrp = vrp;
+            for (Vehicle vehicle : vrp.getVehicles()) vehicles.put(vehicle.getId(), vehicle);
+        }
+
+        VehicleRoutingProblemSolution readSolution(DataInput in) throws IOException {
+            double cost = in.readDouble();
+            int noRoutes = in.readInt();
+            List<VehicleRoute> routes = new ArrayList<VehicleRoute>(noRoutes);
+            for (int r = 0; r < noRoutes; r++) {
+                Vehicle vehicle = vehicles.get(in.readUTF());
+                if (vehicle == null) throw new IllegalStateException("checkpoint refers to unknown vehicle");
+                double departureTime = in.readDouble();
+                double endArrTime = in.readDouble();
+                VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory()).build();
+                int noActivities = in.readInt();
+                for (int a = 0; a < noActivities; a++) {
+                    Job job = getJob(in.readUTF(), vehicle);
+                    TourActivity act = getActivity(job, in.readInt());
+                    act.setArrTime(in.readDouble());
+                    act.setEndTime(in.readDouble());
+                    route.getTourActivities().addActivity(act);
+                }
+                route.getStart().setEndTime(departureTime);
+                route.getEnd().setArrTime(endArrTime);
+                if (!vehicle.isReturnToDepot() && !route.isEmpty()) {
+                    route.getEnd().setLocation(route.getActivities().get(route.getActivities().size() - 1).getLocation());
+                }
+                routes.add(route);
+            }
+            int noUnassigned = in.readInt();
+            List<Job> unassigned = new ArrayList<Job>(noUnassigned);
+            for (int u = 0; u < noUnassigned; u++) unassigned.add(getJob(in.readUTF(), null));
+            return new VehicleRoutingProblemSolution(routes, unassigned, cost);
+        }
+
+        private Job getJob(String id, Vehicle vehicle) {
+            Job job = vrp.getJobsInclusiveInitialJobsInRoutes().get(id);
+            if (job == null && vehicle != null && vehicle.getBreak() != null && vehicle.getBreak().getId().equals(id)) {
+                job = vehicle.getBreak();
+            }
+            if (job == null) throw new IllegalStateException("checkpoint refers to unknown job " + id);
+            return job;
+        }
+
+        private TourActivity getActivity(Job job, int index) {
+            for (AbstractActivity act : vrp.copyAndGetActivities(job)) {
+                if (act.getIndex() == index) return act;
+            }
+            throw new IllegalStateException("checkpoint refers to unknown activity of job " + job.getId());
+        }
+
+    }
+
+}
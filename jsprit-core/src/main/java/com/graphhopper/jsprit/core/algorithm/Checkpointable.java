@@ -0,0 +1,50 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Component of an algorithm whose search state can be written to and restored from a checkpoint, e.g. acceptor
+ * thresholds, strategy weights or random number generators.
+ * <p>
+ * <p>{@link VehicleRoutingAlgorithm} checkpoints its search strategy manager, the acceptors of its strategies, its
+ * listeners and components added with addCheckpointable(...) if they implement this interface.
+ */
+public interface Checkpointable {
+
+    /**
+     * Writes the state. This is called on the search thread, i.e. the state must not change meanwhile.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    public void writeState(DataOutput out) throws IOException;
+
+    /**
+     * Restores the state written by writeState(...).
+     *
+     * @param in the input to read from
+     * @throws IOException if reading fails
+     */
+    public void readState(DataInput in) throws IOException;
+
+}
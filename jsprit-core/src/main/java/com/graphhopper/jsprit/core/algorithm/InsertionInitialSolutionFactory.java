@@ -60,6 +60,25 @@ public final class InsertionInitialSolutionFactory implements InitialSolutionFac
         return solution;
     }
 
+    /**
+     * Repairs a partial solution, e.g. a solution of a previous problem that has been mapped onto a changed problem.
+     * <p>
+     * <p>Routes are kept as they are and the unassigned jobs of the solution are inserted into them. Since insertion
+     * also updates states and activity times, the solution is ready to be searched afterwards. Its costs are
+     * re-calculated.
+     *
+     * @param solution the solution to be repaired in place
+     * @return the repaired solution
+     */
+    public VehicleRoutingProblemSolution repairSolution(VehicleRoutingProblemSolution solution) {
+        logger.info("repair initial solution with {} unassigned jobs", solution.getUnassignedJobs().size());
+        Collection<Job> badJobs = insertion.insertJobs(solution.getRoutes(), new ArrayList<Job>(solution.getUnassignedJobs()));
+        solution.getUnassignedJobs().clear();
+        solution.getUnassignedJobs().addAll(badJobs);
+        solution.setCost(solutionCostsCalculator.getCosts(solution));
+        return solution;
+    }
+
     private List<Job> getUnassignedJobs(VehicleRoutingProblem vrp) {
         ArrayList<Job> jobs = new ArrayList<Job>(vrp.getJobs().values());
 //        for (Vehicle v : vrp.getVehicles()) {
@@ -112,8 +112,13 @@ public class PrettyAlgorithmBuilder {
             vra.addListener(new AlgorithmStartsListener() {
                 @Override
                 public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+                    InsertionInitialSolutionFactory iniSolutionFactory = new InsertionInitialSolutionFactory(iniInsertionStrategy, iniObjFunction);
                     if (solutions.isEmpty()) {
-                        solutions.add(new InsertionInitialSolutionFactory(iniInsertionStrategy, iniObjFunction).createSolution(vrp));
+                        solutions.add(iniSolutionFactory.createSolution(vrp));
+                    } else {
+                        for (VehicleRoutingProblemSolution solution : solutions) {
+                            if (solution.getCost() == Double.MAX_VALUE) iniSolutionFactory.repairSolution(solution);
+                        }
                     }
                 }
             });
@@ -125,7 +125,8 @@ public class SearchStrategy {
      * <p>
      * <p>This involves three basic steps: 1) Selecting a solution from solutions (input parameter) according to {@link com.graphhopper.jsprit.core.algorithm.selector.SolutionSelector}, 2) running the modules
      * ({@link SearchStrategyModule}) on the selectedSolution and 3) accepting the new solution according to {@link com.graphhopper.jsprit.core.algorithm.acceptor.SolutionAcceptor}.
-     * <p> Note that after 1) the selected solution is copied, thus the original solution is not modified.
+     * <p> Note that after 1) the selected solution is copied, thus the original solution is not modified. The copy shares
+     * activities with the original until a route is modified (copy-on-write).
      * <p> Note also that 3) modifies the input parameter solutions by adding, removing, replacing the existing solutions or whatever is defined in the solutionAcceptor.
      *
      * @param vrp       the underlying vehicle routing problem
@@ -135,16 +136,39 @@ public class SearchStrategy {
      */
     @SuppressWarnings("UnusedParameters")
     public DiscoveredSolution run(VehicleRoutingProblem vrp, Collection<VehicleRoutingProblemSolution> solutions) {
+        return accept(solutions, discover(solutions));
+    }
+
+    /**
+     * Runs steps 1) and 2) of run(...), i.e. selects a solution, copies it and runs the modules on the copy. Neither
+     * solutions nor the selected solution are modified.
+     *
+     * @param solutions to select from
+     * @return new solution with its costs set
+     * @throws java.lang.IllegalStateException if selector cannot select any solution
+     */
+    public VehicleRoutingProblemSolution discover(Collection<VehicleRoutingProblemSolution> solutions) {
         VehicleRoutingProblemSolution solution = solutionSelector.selectSolution(solutions);
         if (solution == null) throw new IllegalStateException(getErrMsg());
-        VehicleRoutingProblemSolution lastSolution = VehicleRoutingProblemSolution.copyOf(solution);
+        VehicleRoutingProblemSolution lastSolution = VehicleRoutingProblemSolution.copyOnWriteOf(solution);
         for (SearchStrategyModule module : searchStrategyModules) {
             lastSolution = module.runAndGetSolution(lastSolution);
         }
         double costs = solutionCostCalculator.getCosts(lastSolution);
         lastSolution.setCost(costs);
-        boolean solutionAccepted = solutionAcceptor.acceptSolution(solutions, lastSolution);
-        return new DiscoveredSolution(lastSolution, solutionAccepted, getId());
+        return lastSolution;
+    }
+
+    /**
+     * Runs step 3) of run(...), i.e. lets the solutionAcceptor decide whether newSolution is added to solutions.
+     *
+     * @param solutions   which will be modified
+     * @param newSolution solution discovered by discover(...)
+     * @return discoveredSolution
+     */
+    public DiscoveredSolution accept(Collection<VehicleRoutingProblemSolution> solutions, VehicleRoutingProblemSolution newSolution) {
+        boolean solutionAccepted = solutionAcceptor.acceptSolution(solutions, newSolution);
+        return new DiscoveredSolution(newSolution, solutionAccepted, getId());
     }
 
     private String getErrMsg() {
@@ -23,10 +23,13 @@ import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 
-public class SearchStrategyManager {
+public class SearchStrategyManager implements Checkpointable {
 
     private final static Logger logger = LoggerFactory.getLogger(SearchStrategyManager.class);
 
@@ -127,4 +130,24 @@ public class SearchStrategyManager {
             s.addModuleListener(moduleListener);
         }
     }
+
+    /**
+     * Writes the weights of the strategies, since they might have been adapted during search.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(weights.size());
+        for (double weight : weights) out.writeDouble(weight);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        int noWeights = in.readInt();
+        if (noWeights != weights.size()) {
+            throw new IllegalStateException("checkpoint has " + noWeights + " strategy weights, but there are " + weights.size() + " strategies");
+        }
+        for (int i = 0; i < noWeights; i++) weights.set(i, in.readDouble());
+        updateSumWeights();
+    }
+
 }
@@ -33,8 +33,11 @@ import com.graphhopper.jsprit.core.util.Solutions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 
 /**
@@ -110,6 +113,16 @@ public class VehicleRoutingAlgorithm {
 
     private final SolutionCostCalculator objectiveFunction;
 
+    private final List<Checkpointable> checkpointables = new ArrayList<Checkpointable>();
+
+    private File checkpointFile;
+
+    private int checkpointInterval;
+
+    private AlgorithmCheckpoint resumeCheckpoint;
+
+    private boolean resuming = false;
+
     public VehicleRoutingAlgorithm(VehicleRoutingProblem problem, SearchStrategyManager searchStrategyManager) {
         super();
         this.problem = problem;
@@ -211,12 +224,43 @@ public class VehicleRoutingAlgorithm {
         double now = System.currentTimeMillis();
         int noIterationsThisAlgoIsRunning = maxIterations;
         counter.reset();
+        AlgorithmCheckpoint resume = resumeCheckpoint;
+        resumeCheckpoint = null;
         Collection<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>(initialSolutions);
-        algorithmStarts(problem, solutions);
+        if (resume != null) solutions = new ArrayList<VehicleRoutingProblemSolution>(resume.getSolutions());
+        resuming = resume != null;
+        try {
+            algorithmStarts(problem, solutions);
+        } finally {
+            resuming = false;
+        }
         bestEver = Solutions.bestOf(solutions);
+        int firstIteration = 0;
+        if (resume != null) {
+            resume.restore(getCheckpointables());
+            if (resume.getBestEver() != null) bestEver = resume.getBestEver();
+            firstIteration = resume.getIteration();
+            logger.info("resume at iteration {}", firstIteration + 1);
+        }
+        AlgorithmCheckpoint.Writer checkpointWriter = null;
+        if (checkpointFile != null) checkpointWriter = new AlgorithmCheckpoint.Writer(checkpointFile, problem);
         if (logger.isTraceEnabled()) log(solutions);
         logger.info("iterations start");
-        for (int i = 0; i < maxIterations; i++) {
+        try {
+            noIterationsThisAlgoIsRunning = search(solutions, firstIteration, checkpointWriter);
+        } finally {
+            if (checkpointWriter != null) checkpointWriter.close();
+        }
+        logger.info("iterations end at {} iterations", noIterationsThisAlgoIsRunning);
+        addBestEver(solutions);
+        algorithmEnds(problem, solutions);
+        logger.info("took {} seconds", ((System.currentTimeMillis() - now) / 1000.0));
+        return solutions;
+    }
+
+    private int search(Collection<VehicleRoutingProblemSolution> solutions, int firstIteration, AlgorithmCheckpoint.Writer checkpointWriter) {
+        int noIterationsThisAlgoIsRunning = maxIterations;
+        for (int i = firstIteration; i < maxIterations; i++) {
             iterationStarts(i + 1, problem, solutions);
             logger.debug("start iteration: {}", i);
             counter.incCounter();
@@ -231,12 +275,86 @@ public class VehicleRoutingAlgorithm {
                 break;
             }
             iterationEnds(i + 1, problem, solutions);
+            if (checkpointWriter != null && (i + 1) % checkpointInterval == 0) {
+                checkpointWriter.submit(AlgorithmCheckpoint.capture(i + 1, solutions, bestEver, getCheckpointables()));
+            }
         }
-        logger.info("iterations end at {} iterations", noIterationsThisAlgoIsRunning);
-        addBestEver(solutions);
-        algorithmEnds(problem, solutions);
-        logger.info("took {} seconds", ((System.currentTimeMillis() - now) / 1000.0));
-        return solutions;
+        return noIterationsThisAlgoIsRunning;
+    }
+
+    /**
+     * Writes a checkpoint to file every interval iterations, i.e. the current solutions, the best solution, the
+     * iteration counter and the states of {@link Checkpointable} components. It is written in the background, see
+     * {@link AlgorithmCheckpoint}. The search can be resumed from it with resumeFrom(...).
+     *
+     * @param file     the checkpoint file, it is replaced by each checkpoint
+     * @param interval number of iterations between two checkpoints
+     */
+    public void setCheckpoint(File file, int interval) {
+        if (interval < 1) throw new IllegalArgumentException("interval must be at least 1");
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Resumes the next search from the specified checkpoint. The algorithm needs to be built the same way and for the
+     * same problem as the one that wrote the checkpoint.
+     *
+     * @param file the checkpoint file
+     * @throws IllegalStateException if the checkpoint cannot be read or does not belong to the problem
+     */
+    public void resumeFrom(File file) {
+        try {
+            resumeCheckpoint = AlgorithmCheckpoint.read(file, problem);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot read checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Returns true while algorithm-starts listeners are informed about a search that resumes from a checkpoint.
+     * Listeners can skip expensive initialisations then, since their checkpointed state is restored afterwards.
+     *
+     * @return true if the search resumes from a checkpoint
+     */
+    public boolean isResuming() {
+        return resuming;
+    }
+
+    /**
+     * Adds a component whose state is checkpointed. The search strategy manager, the acceptors and listeners that
+     * implement {@link Checkpointable} are checkpointed anyway.
+     *
+     * @param checkpointable the component
+     */
+    public void addCheckpointable(Checkpointable checkpointable) {
+        checkpointables.add(checkpointable);
+    }
+
+    /**
+     * Returns all components whose states are checkpointed, in a fixed order.
+     */
+    public List<Checkpointable> getCheckpointables() {
+        List<Checkpointable> all = new ArrayList<Checkpointable>();
+        addCheckpointable(all, searchStrategyManager);
+        for (SearchStrategy strategy : searchStrategyManager.getStrategies()) {
+            addCheckpointable(all, strategy.getSolutionAcceptor());
+        }
+        for (VehicleRoutingAlgorithmListener listener : algoListeners.getAlgorithmListeners()) {
+            addCheckpointable(all, listener);
+        }
+        for (Checkpointable checkpointable : checkpointables) {
+            addCheckpointable(all, checkpointable);
+        }
+        return all;
+    }
+
+    private static void addCheckpointable(List<Checkpointable> checkpointables, Object o) {
+        if (!(o instanceof Checkpointable)) return;
+        for (Checkpointable c : checkpointables) {
+            if (c == o) return;
+        }
+        checkpointables.add((Checkpointable) o);
     }
 
     private void addBestEver(Collection<VehicleRoutingProblemSolution> solutions) {
@@ -17,6 +17,7 @@
  */
 package com.graphhopper.jsprit.core.algorithm.acceptor;
 
+import com.graphhopper.jsprit.core.algorithm.Checkpointable;
 import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmStartsListener;
 import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
@@ -25,6 +26,9 @@ import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolutio
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collection;
 
 
@@ -64,7 +68,7 @@ import java.util.Collection;
  *
  * @author schroeder
  */
-public class SchrimpfAcceptance implements SolutionAcceptor, IterationStartsListener, AlgorithmStartsListener {
+public class SchrimpfAcceptance implements SolutionAcceptor, IterationStartsListener, AlgorithmStartsListener, Checkpointable {
 
     private static Logger logger = LoggerFactory.getLogger(SchrimpfAcceptance.class.getName());
 
@@ -151,4 +155,17 @@ public class SchrimpfAcceptance implements SolutionAcceptor, IterationStartsList
         currentIteration = i;
     }
 
+    /**
+     * Writes the initial threshold. Current and max. iterations are set by the algorithm anyway.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(initialThreshold);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        initialThreshold = in.readDouble();
+    }
+
 }
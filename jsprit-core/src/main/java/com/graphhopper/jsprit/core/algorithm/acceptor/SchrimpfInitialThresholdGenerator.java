@@ -24,38 +24,83 @@ import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmStartsListener;
 import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Fingerprint;
+import com.graphhopper.jsprit.core.util.PreprocessingCache;
 import com.graphhopper.jsprit.core.util.Solutions;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collection;
 
 public class SchrimpfInitialThresholdGenerator implements AlgorithmStartsListener {
 
     private static Logger logger = LoggerFactory.getLogger(SchrimpfInitialThresholdGenerator.class.getName());
 
+    private static final String THRESHOLD_KIND = "schrimpf.threshold";
+
     private SchrimpfAcceptance schrimpfAcceptance;
 
     private int nOfRandomWalks;
 
+    private PreprocessingCache preprocessingCache;
+
     public SchrimpfInitialThresholdGenerator(SchrimpfAcceptance schrimpfAcceptance, int nOfRandomWalks) {
         super();
         this.schrimpfAcceptance = schrimpfAcceptance;
         this.nOfRandomWalks = nOfRandomWalks;
     }
 
+    /**
+     * Sets a cache for initial thresholds. If the threshold has been determined before for the same problem and
+     * number of random walks, it is read from cache instead of running the random walk again.
+     *
+     * @param preprocessingCache the cache
+     */
+    public void setPreprocessingCache(PreprocessingCache preprocessingCache) {
+        this.preprocessingCache = preprocessingCache;
+    }
+
     @Override
     public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+        if (algorithm != null && algorithm.isResuming()) {
+            logger.info("resume from checkpoint, i.e. initial threshold is restored");
+            return;
+        }
         logger.info("prepare schrimpfAcceptanceFunction, i.e. determine initial threshold");
         double now = System.currentTimeMillis();
 
+        String fingerprint = null;
+        if (preprocessingCache != null) {
+            Fingerprint problemFingerprint = Fingerprint.ofProblem(problem);
+            if (problemFingerprint != null) fingerprint = problemFingerprint.add(nOfRandomWalks).toHexString();
+        }
+        if (fingerprint != null) {
+            Double cachedThreshold = preprocessingCache.get(THRESHOLD_KIND, fingerprint, new PreprocessingCache.ArtefactReader<Double>() {
+
+                @Override
+                public Double read(DataInput in) throws IOException {
+                    return in.readDouble();
+                }
+
+            });
+            if (cachedThreshold != null) {
+                schrimpfAcceptance.setInitialThreshold(cachedThreshold);
+                logger.debug("initial threshold read from {}: {}", preprocessingCache, cachedThreshold);
+                return;
+            }
+        }
+
 		/*
          * randomWalk to determine standardDev
 		 */
         final double[] results = new double[nOfRandomWalks];
 
         Jsprit.Builder builder = new GreedySchrimpfFactory().createGreedyAlgorithmBuilder(problem);
+        builder.setPreprocessingCache(preprocessingCache);
         builder.setCustomAcceptor(new AcceptNewRemoveFirst(1));
         VehicleRoutingAlgorithm vra = builder.buildAlgorithm();
         vra.setMaxIterations(nOfRandomWalks);
@@ -73,9 +118,19 @@ public class SchrimpfInitialThresholdGenerator implements AlgorithmStartsListene
 
         StandardDeviation dev = new StandardDeviation();
         double standardDeviation = dev.evaluate(results);
-        double initialThreshold = standardDeviation / 2;
+        final double initialThreshold = standardDeviation / 2;
 
         schrimpfAcceptance.setInitialThreshold(initialThreshold);
+        if (fingerprint != null) {
+            preprocessingCache.put(THRESHOLD_KIND, fingerprint, new PreprocessingCache.ArtefactWriter() {
+
+                @Override
+                public void write(DataOutput out) throws IOException {
+                    out.writeDouble(initialThreshold);
+                }
+
+            });
+        }
 
         logger.info("took {} seconds", ((System.currentTimeMillis() - now) / 1000.0));
         logger.debug("initial threshold: {}", initialThreshold);
@@ -0,0 +1,513 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoodsFactory;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
+import com.graphhopper.jsprit.core.util.RandomStreams;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Route-based decomposition for very large problems, i.e. problems where ruin and recreate over the whole solution
+ * becomes too slow.
+ * <p>
+ * <p>In each round, the current solution is partitioned into sub-problems of neighboring routes. A random seed route
+ * and its nearest routes (by the centroids of their activity locations) form a sub-problem, until every route is part
+ * of one. Unassigned jobs and, if the fleet is finite, unused vehicles join the sub-problem with the nearest centroid.
+ * Each sub-problem is a small {@link VehicleRoutingProblem} that shares transport and activity costs with the
+ * problem. It starts with its routes of the current solution and is solved by its own algorithm, by default
+ * {@link Jsprit}. Sub-problems are solved in parallel, and their best solutions are stitched back together. Since
+ * seed routes are random, partitions vary from round to round.
+ * <p>
+ * <p>The stitched solution is evaluated with an objective function of the whole problem, since the objective
+ * functions of sub-problems price unassigned jobs differently. Locations need coordinates, otherwise routes are
+ * grouped at random. Problems with initial vehicle routes as well as dynamic problems are not supported.
+ * <p>
+ * <p>Sub-problems are built from the jobs and vehicles of the problem, which are thus re-indexed while searching.
+ * Their original indices are restored before searchSolutions() returns. Hence, the problem, its jobs and its
+ * vehicles must not be used elsewhere, e.g. by another algorithm, while searchSolutions() runs.
+ */
+public class DecompositionSearch {
+
+    /**
+     * Creates the algorithm of a sub-problem.
+     */
+    public interface SubProblemFactory {
+
+        public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem subProblem, Random random);
+
+    }
+
+    public static class Builder {
+
+        private final VehicleRoutingProblem vrp;
+
+        private int noThreads = Runtime.getRuntime().availableProcessors();
+
+        private int routesPerSubProblem = 6;
+
+        private int subProblemIterations = 100;
+
+        private long seed = 4711;
+
+        private ExecutorService executorService;
+
+        private SolutionCostCalculator objectiveFunction;
+
+        private SubProblemFactory subProblemFactory = new SubProblemFactory() {
+
+            @Override
+            public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem subProblem, Random random) {
+                return Jsprit.Builder.newInstance(subProblem).setRandom(random).buildAlgorithm();
+            }
+
+        };
+
+        public static Builder newInstance(VehicleRoutingProblem vrp) {
+            return new Builder(vrp);
+        }
+
+        private Builder(VehicleRoutingProblem vrp) {
+            this.vrp = vrp;
+        }
+
+        public Builder setNoThreads(int noThreads) {
+            if (noThreads < 1) throw new IllegalArgumentException("noThreads must be at least 1");
+            this.noThreads = noThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of neighboring routes that form a sub-problem. Default is 6.
+         */
+        public Builder setRoutesPerSubProblem(int routesPerSubProblem) {
+            if (routesPerSubProblem < 1) throw new IllegalArgumentException("routesPerSubProblem must be at least 1");
+            this.routesPerSubProblem = routesPerSubProblem;
+            return this;
+        }
+
+        /**
+         * Sets the iterations each sub-problem is searched per round. Default is 100.
+         */
+        public Builder setSubProblemIterations(int subProblemIterations) {
+            if (subProblemIterations < 0) throw new IllegalArgumentException("subProblemIterations must not be negative");
+            this.subProblemIterations = subProblemIterations;
+            return this;
+        }
+
+        /**
+         * Sets the master seed the random number generators of partitioning and sub-problems are derived from (see
+         * {@link RandomStreams}).
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder setSubProblemFactory(SubProblemFactory subProblemFactory) {
+            this.subProblemFactory = subProblemFactory;
+            return this;
+        }
+
+        /**
+         * Sets the executor solving the sub-problems. If no executor is set, one with noThreads threads is created and
+         * shut down internally.
+         */
+        public Builder setExecutorService(ExecutorService executorService) {
+            this.executorService = executorService;
+            return this;
+        }
+
+        /**
+         * Sets the objective function the stitched solutions are evaluated with. It is only called from the thread
+         * calling searchSolutions(). By default, it is the one of {@link Jsprit}.
+         */
+        public Builder setObjectiveFunction(SolutionCostCalculator objectiveFunction) {
+            this.objectiveFunction = objectiveFunction;
+            return this;
+        }
+
+        public DecompositionSearch build() {
+            if (!vrp.getInitialVehicleRoutes().isEmpty())
+                throw new IllegalArgumentException("decomposition of problems with initial vehicle routes is not supported");
+            if (vrp.isDynamic())
+                throw new IllegalArgumentException("decomposition of dynamic problems is not supported");
+            return new DecompositionSearch(this);
+        }
+
+    }
+
+    private static class Partition {
+
+        final List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+
+        final List<Job> unassignedJobs = new ArrayList<Job>();
+
+        final List<Vehicle> vehicles = new ArrayList<Vehicle>();
+
+        double x;
+
+        double y;
+
+        int noCoordinates;
+
+        void add(VehicleRoute route, Coordinate centroid) {
+            routes.add(route);
+            vehicles.add(route.getVehicle());
+            if (centroid != null) {
+                x += centroid.getX();
+                y += centroid.getY();
+                noCoordinates++;
+            }
+        }
+
+        Coordinate getCentroid() {
+            if (noCoordinates == 0) return null;
+            return Coordinate.newInstance(x / noCoordinates, y / noCoordinates);
+        }
+
+    }
+
+    private static class SubSolution {
+
+        final VehicleRoutingProblem subProblem;
+
+        final VehicleRoutingProblemSolution solution;
+
+        SubSolution(VehicleRoutingProblem subProblem, VehicleRoutingProblemSolution solution) {
+            this.subProblem = subProblem;
+            this.solution = solution;
+        }
+
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(DecompositionSearch.class);
+
+    private final VehicleRoutingProblem vrp;
+
+    private final int noThreads;
+
+    private final int routesPerSubProblem;
+
+    private final int subProblemIterations;
+
+    private final SubProblemFactory subProblemFactory;
+
+    private final ExecutorService executorService;
+
+    private final RandomStreams randomStreams;
+
+    private final Random random;
+
+    private final SolutionCostCalculator objectiveFunction;
+
+    private final List<VehicleRoutingProblemSolution> initialSolutions = new ArrayList<VehicleRoutingProblemSolution>();
+
+    private int maxIterations = 10;
+
+    private double maxTime = Double.MAX_VALUE;
+
+    private int noSubProblems = 0;
+
+    private DecompositionSearch(Builder builder) {
+        vrp = builder.vrp;
+        noThreads = builder.noThreads;
+        routesPerSubProblem = builder.routesPerSubProblem;
+        subProblemIterations = builder.subProblemIterations;
+        subProblemFactory = builder.subProblemFactory;
+        executorService = builder.executorService;
+        randomStreams = RandomStreams.newInstance(builder.seed);
+        random = randomStreams.newRandom("partition");
+        if (builder.objectiveFunction != null) {
+            objectiveFunction = builder.objectiveFunction;
+        } else {
+            JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), Math.min(20, vrp.getJobs().size()));
+            jobNeighborhoods.initialise();
+            objectiveFunction = Jsprit.createDefaultObjectiveFunction(vrp, jobNeighborhoods.getMaxDistance());
+        }
+    }
+
+    /**
+     * Sets the number of rounds, i.e. how often the solution is partitioned and its sub-problems are solved.
+     * Default is 10.
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Sets the max. time in seconds. No new round starts once it has elapsed.
+     */
+    public void setMaxTime(double maxTime) {
+        this.maxTime = maxTime;
+    }
+
+    /**
+     * Adds the solution to start with. If none is added, the initial solution is constructed with {@link Jsprit}.
+     */
+    public void addInitialSolution(VehicleRoutingProblemSolution solution) {
+        initialSolutions.add(solution);
+    }
+
+    /**
+     * Returns the number of sub-problems that have been solved so far.
+     */
+    public int getNoSubProblems() {
+        return noSubProblems;
+    }
+
+    /**
+     * Improves the initial solution round by round and returns the final solution.
+     *
+     * @return final solution
+     */
+    public Collection<VehicleRoutingProblemSolution> searchSolutions() {
+        long start = System.nanoTime();
+        long maxNanos = maxTime == Double.MAX_VALUE ? Long.MAX_VALUE : (long) (maxTime * 1e9);
+        ExecutorService executor = executorService;
+        if (executor == null) executor = Executors.newFixedThreadPool(noThreads);
+        try {
+            VehicleRoutingProblemSolution solution = initialSolutions.isEmpty() ? createInitialSolution() : Solutions.bestOf(initialSolutions);
+            solution = new VehicleRoutingProblemSolution(solution.getRoutes(), solution.getUnassignedJobs(), 0.);
+            solution.setCost(objectiveFunction.getCosts(solution));
+            logger.info("decomposition starts [costs={}][routes={}]", solution.getCost(), solution.getRoutes().size());
+            for (int round = 1; round <= maxIterations; round++) {
+                if (System.nanoTime() - start >= maxNanos) {
+                    logger.info("time is up after {} rounds", round - 1);
+                    break;
+                }
+                solution = improve(solution, round, executor);
+                logger.info("round {} [costs={}][routes={}][unassigned={}]", round, solution.getCost(), solution.getRoutes().size(), solution.getUnassignedJobs().size());
+            }
+            List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+            solutions.add(solution);
+            return solutions;
+        } finally {
+            restoreIndices();
+            if (executorService == null) executor.shutdown();
+        }
+    }
+
+    private VehicleRoutingProblemSolution createInitialSolution() {
+        VehicleRoutingAlgorithm construction = Jsprit.Builder.newInstance(vrp).setRandom(randomStreams.newRandom("construction")).buildAlgorithm();
+        construction.setMaxIterations(0);
+        return Solutions.bestOf(construction.searchSolutions());
+    }
+
+    private VehicleRoutingProblemSolution improve(VehicleRoutingProblemSolution solution, int round, ExecutorService executor) {
+        List<Partition> partitions = partition(solution);
+        if (partitions.isEmpty()) return solution;
+        // building a sub-problem re-indexes jobs and vehicles, thus all are built before any is searched
+        List<VehicleRoutingProblem> subProblems = new ArrayList<VehicleRoutingProblem>(partitions.size());
+        List<VehicleRoutingProblemSolution> subSolutions = new ArrayList<VehicleRoutingProblemSolution>(partitions.size());
+        for (Partition partition : partitions) {
+            VehicleRoutingProblem subProblem = createSubProblem(partition);
+            subProblems.add(subProblem);
+            subSolutions.add(WarmStart.repair(vrp, new VehicleRoutingProblemSolution(partition.routes, Double.MAX_VALUE), subProblem));
+        }
+        List<Future<SubSolution>> futures = new ArrayList<Future<SubSolution>>(partitions.size());
+        for (int i = 0; i < subProblems.size(); i++) {
+            final VehicleRoutingProblem subProblem = subProblems.get(i);
+            final VehicleRoutingProblemSolution subSolution = subSolutions.get(i);
+            final Random subRandom = randomStreams.newRandom("sub_problem." + round, noSubProblems++);
+            futures.add(executor.submit(new Callable<SubSolution>() {
+
+                @Override
+                public SubSolution call() throws Exception {
+                    VehicleRoutingAlgorithm vra = subProblemFactory.createAlgorithm(subProblem, subRandom);
+                    vra.setMaxIterations(subProblemIterations);
+                    vra.addInitialSolution(subSolution);
+                    return new SubSolution(subProblem, Solutions.bestOf(vra.searchSolutions()));
+                }
+
+            }));
+        }
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        List<Job> unassignedJobs = new ArrayList<Job>();
+        try {
+            for (Future<SubSolution> future : futures) {
+                SubSolution subSolution = future.get();
+                for (VehicleRoute subRoute : subSolution.solution.getRoutes()) {
+                    routes.add(toRoute(subSolution.subProblem, subRoute));
+                }
+                unassignedJobs.addAll(subSolution.solution.getUnassignedJobs());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        VehicleRoutingProblemSolution stitched = new VehicleRoutingProblemSolution(routes, unassignedJobs, 0.);
+        stitched.setCost(objectiveFunction.getCosts(stitched));
+        return stitched;
+    }
+
+    private List<Partition> partition(VehicleRoutingProblemSolution solution) {
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>(solution.getRoutes());
+        Collections.shuffle(routes, random);
+        final Map<VehicleRoute, Coordinate> centroids = new HashMap<VehicleRoute, Coordinate>();
+        for (VehicleRoute route : routes) centroids.put(route, centroid(route));
+        List<Partition> partitions = new ArrayList<Partition>();
+        LinkedList<VehicleRoute> remaining = new LinkedList<VehicleRoute>(routes);
+        while (!remaining.isEmpty()) {
+            final Coordinate seed = centroids.get(remaining.getFirst());
+            Partition partition = new Partition();
+            if (seed != null && remaining.size() > routesPerSubProblem) {
+                Collections.sort(remaining, new Comparator<VehicleRoute>() {
+
+                    @Override
+                    public int compare(VehicleRoute r1, VehicleRoute r2) {
+                        return Double.compare(distance(seed, centroids.get(r1)), distance(seed, centroids.get(r2)));
+                    }
+
+                });
+            }
+            for (int i = 0; i < routesPerSubProblem && !remaining.isEmpty(); i++) {
+                VehicleRoute route = remaining.removeFirst();
+                partition.add(route, centroids.get(route));
+            }
+            partitions.add(partition);
+            if (!remaining.isEmpty() && seed != null) Collections.shuffle(remaining, random);
+        }
+        if (partitions.isEmpty()) {
+            if (solution.getUnassignedJobs().isEmpty()) return partitions;
+            partitions.add(new Partition());
+        }
+        for (Job job : solution.getUnassignedJobs()) {
+            nearest(partitions, coordinate(job)).unassignedJobs.add(job);
+        }
+        if (vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE)) {
+            Set<Vehicle> usedVehicles = new HashSet<Vehicle>();
+            for (VehicleRoute route : solution.getRoutes()) usedVehicles.add(route.getVehicle());
+            for (Vehicle vehicle : vrp.getVehicles()) {
+                if (!usedVehicles.contains(vehicle)) {
+                    nearest(partitions, vehicle.getStartLocation().getCoordinate()).vehicles.add(vehicle);
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private VehicleRoutingProblem createSubProblem(Partition partition) {
+        VehicleRoutingProblem.Builder subBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setRoutingCost(vrp.getTransportCosts())
+            .setActivityCosts(vrp.getActivityCosts())
+            .setFleetSize(vrp.getFleetSize());
+        for (VehicleRoute route : partition.routes) subBuilder.addAllJobs(route.getTourActivities().getJobs());
+        subBuilder.addAllJobs(partition.unassignedJobs);
+        if (vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE)) {
+            subBuilder.addAllVehicles(partition.vehicles);
+        } else {
+            // every sub-problem indexes the shared vehicles the same way
+            subBuilder.addAllVehicles(vrp.getVehicles());
+        }
+        return subBuilder.build();
+    }
+
+    private VehicleRoute toRoute(VehicleRoutingProblem subProblem, VehicleRoute subRoute) {
+        VehicleRoute route = VehicleRoute.Builder.newInstance(subRoute.getVehicle(), subRoute.getDriver())
+            .setJobActivityFactory(vrp.getJobActivityFactory()).setDepartureTime(subRoute.getDepartureTime()).build();
+        for (TourActivity subAct : subRoute.getActivities()) {
+            Job job = ((TourActivity.JobActivity) subAct).getJob();
+            List<? extends TourActivity> subActs = subProblem.getActivities(job);
+            int position = 0;
+            while (subActs.get(position).getIndex() != subAct.getIndex()) position++;
+            TourActivity act = vrp.copyAndGetActivities(job).get(position);
+            act.setArrTime(subAct.getArrTime());
+            act.setEndTime(subAct.getEndTime());
+            route.getTourActivities().addActivity(act);
+        }
+        route.getStart().setEndTime(subRoute.getStart().getEndTime());
+        route.getEnd().setArrTime(subRoute.getEnd().getArrTime());
+        return route;
+    }
+
+    /**
+     * Re-indexes jobs and vehicles the way the problem builder indexed them, i.e. in the order they have been added.
+     */
+    private void restoreIndices() {
+        VehicleRoutingProblem.Builder.newInstance()
+            .addAllJobs(vrp.getJobsInclusiveInitialJobsInRoutes().values())
+            .addAllVehicles(vrp.getVehicles());
+    }
+
+    private static Partition nearest(List<Partition> partitions, Coordinate coordinate) {
+        Partition nearest = partitions.get(0);
+        double minDistance = Double.MAX_VALUE;
+        for (Partition partition : partitions) {
+            double distance = distance(coordinate, partition.getCentroid());
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearest = partition;
+            }
+        }
+        return nearest;
+    }
+
+    private static double distance(Coordinate c1, Coordinate c2) {
+        if (c1 == null || c2 == null) return Double.MAX_VALUE;
+        return EuclideanDistanceCalculator.calculateDistance(c1, c2);
+    }
+
+    private static Coordinate centroid(VehicleRoute route) {
+        double x = 0.;
+        double y = 0.;
+        int n = 0;
+        for (TourActivity act : route.getActivities()) {
+            Coordinate coordinate = act.getLocation().getCoordinate();
+            if (coordinate == null) continue;
+            x += coordinate.getX();
+            y += coordinate.getY();
+            n++;
+        }
+        if (n == 0) return null;
+        return Coordinate.newInstance(x / n, y / n);
+    }
+
+    private static Coordinate coordinate(Job job) {
+        Location location = null;
+        if (job instanceof Service) {
+            location = ((Service) job).getLocation();
+        } else if (job instanceof Shipment) {
+            location = ((Shipment) job).getPickupLocation();
+        }
+        return location == null ? null : location.getCoordinate();
+    }
+
+}
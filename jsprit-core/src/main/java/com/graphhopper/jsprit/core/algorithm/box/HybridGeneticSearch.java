@@ -0,0 +1,767 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.AlgorithmUtil;
+import com.graphhopper.jsprit.core.algorithm.RemoveEmptyVehicles;
+import com.graphhopper.jsprit.core.algorithm.ResetAndIniFleetManager;
+import com.graphhopper.jsprit.core.algorithm.module.LocalSearchModule;
+import com.graphhopper.jsprit.core.algorithm.recreate.AbstractInsertionStrategy;
+import com.graphhopper.jsprit.core.algorithm.recreate.InsertionBuilder;
+import com.graphhopper.jsprit.core.algorithm.recreate.VehicleSwitched;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoodsFactory;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.misc.ActivityContext;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.InfiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
+import com.graphhopper.jsprit.core.util.RandomStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Population-based search in the style of hybrid genetic search (HGS).
+ * <p>
+ * <p>Offspring are created by crossover of two parents that are selected by binary tournament. If all jobs are
+ * services, either an order crossover (OX) of the giant tours of the parents is applied, whose result is split into
+ * routes, or a route exchange (SREX-like): the child gets some routes of the first parent and the routes of the
+ * second parent without the jobs of these routes. Otherwise, only the route exchange is applied. Jobs that are left
+ * over are inserted with best insertion, and each offspring is improved with the {@link LocalSearchModule}. Offspring
+ * are created and improved in parallel, a batch per iteration.
+ * <p>
+ * <p>Survivors are selected by biased fitness, i.e. the rank of the costs of a solution plus the rank of its
+ * contribution to the diversity of the population (the avg. broken-pairs distance to its closest solutions). Once
+ * the population reaches populationSize + generationSize, solutions are removed until populationSize are left, clones
+ * first.
+ * <p>
+ * <p>The giant tour split is greedy: jobs are appended to the current route as long as the hard constraints are
+ * fulfilled. Problems with initial vehicle routes as well as dynamic problems are not supported.
+ */
+public class HybridGeneticSearch {
+
+    public static class Builder {
+
+        private final VehicleRoutingProblem vrp;
+
+        private int noThreads = Runtime.getRuntime().availableProcessors();
+
+        private int populationSize = 25;
+
+        private int generationSize = 40;
+
+        private int noElite = 4;
+
+        private int noClose = 5;
+
+        private int offspringPerIteration = 8;
+
+        private long seed = 4711;
+
+        private ExecutorService executorService;
+
+        private SolutionCostCalculator objectiveFunction;
+
+        public static Builder newInstance(VehicleRoutingProblem vrp) {
+            return new Builder(vrp);
+        }
+
+        private Builder(VehicleRoutingProblem vrp) {
+            this.vrp = vrp;
+        }
+
+        public Builder setNoThreads(int noThreads) {
+            if (noThreads < 1) throw new IllegalArgumentException("noThreads must be at least 1");
+            this.noThreads = noThreads;
+            return this;
+        }
+
+        /**
+         * Sets the min. size of the population, i.e. the number of solutions that survive a selection. Default is 25.
+         */
+        public Builder setPopulationSize(int populationSize) {
+            if (populationSize < 2) throw new IllegalArgumentException("populationSize must be at least 2");
+            this.populationSize = populationSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of offspring the population grows by until survivors are selected. Default is 40.
+         */
+        public Builder setGenerationSize(int generationSize) {
+            if (generationSize < 1) throw new IllegalArgumentException("generationSize must be at least 1");
+            this.generationSize = generationSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of elite solutions, i.e. how much costs outweigh diversity in the biased fitness. Default
+         * is 4.
+         */
+        public Builder setNoElite(int noElite) {
+            if (noElite < 0) throw new IllegalArgumentException("noElite must not be negative");
+            this.noElite = noElite;
+            return this;
+        }
+
+        /**
+         * Sets the number of closest solutions the diversity contribution of a solution is calculated with. Default
+         * is 5.
+         */
+        public Builder setNoClose(int noClose) {
+            if (noClose < 1) throw new IllegalArgumentException("noClose must be at least 1");
+            this.noClose = noClose;
+            return this;
+        }
+
+        /**
+         * Sets the number of offspring that are created and improved in parallel per iteration. Default is 8. The
+         * search does not depend on the number of threads, but on this number.
+         */
+        public Builder setOffspringPerIteration(int offspringPerIteration) {
+            if (offspringPerIteration < 1) throw new IllegalArgumentException("offspringPerIteration must be at least 1");
+            this.offspringPerIteration = offspringPerIteration;
+            return this;
+        }
+
+        /**
+         * Sets the master seed the random number generators of selection, crossover and insertion are derived from
+         * (see {@link RandomStreams}).
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets the executor creating the offspring. If no executor is set, one with noThreads threads is created and
+         * shut down internally.
+         */
+        public Builder setExecutorService(ExecutorService executorService) {
+            this.executorService = executorService;
+            return this;
+        }
+
+        /**
+         * Sets the objective function. It is only called from the thread calling searchSolutions(). By default, it is
+         * the one of {@link Jsprit}.
+         */
+        public Builder setObjectiveFunction(SolutionCostCalculator objectiveFunction) {
+            this.objectiveFunction = objectiveFunction;
+            return this;
+        }
+
+        public HybridGeneticSearch build() {
+            if (!vrp.getInitialVehicleRoutes().isEmpty())
+                throw new IllegalArgumentException("hybrid genetic search of problems with initial vehicle routes is not supported");
+            if (vrp.isDynamic())
+                throw new IllegalArgumentException("hybrid genetic search of dynamic problems is not supported");
+            return new HybridGeneticSearch(this);
+        }
+
+    }
+
+    /**
+     * What a worker needs to create a solution: either routes and jobs to insert, or a giant tour to split.
+     */
+    private static class Offspring {
+
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+
+        List<Job> jobsToInsert = new ArrayList<Job>();
+
+        List<Job> giantTour;
+
+        List<Vehicle> vehicles;
+
+        final Random random;
+
+        Offspring(Random random) {
+            this.random = random;
+        }
+
+    }
+
+    private static class Individual {
+
+        final VehicleRoutingProblemSolution solution;
+
+        final int[] successors;
+
+        final int[] predecessors;
+
+        final Map<Individual, Double> distances = new HashMap<Individual, Double>();
+
+        double fitness;
+
+        Individual(VehicleRoutingProblemSolution solution, int noJobIndices) {
+            this.solution = solution;
+            successors = new int[noJobIndices];
+            predecessors = new int[noJobIndices];
+            Arrays.fill(successors, -1);
+            Arrays.fill(predecessors, -1);
+            for (VehicleRoute route : solution.getRoutes()) {
+                int prev = 0;
+                for (TourActivity act : route.getActivities()) {
+                    if (!(act instanceof TourActivity.JobActivity)) continue;
+                    int index = ((TourActivity.JobActivity) act).getJob().getIndex();
+                    successors[prev] = index;
+                    predecessors[index] = prev;
+                    prev = index;
+                }
+                successors[prev] = 0;
+            }
+        }
+
+        double getCosts() {
+            return solution.getCost();
+        }
+
+        /**
+         * Returns the share of jobs whose neighbors in this solution are not neighbors in the other solution.
+         */
+        double brokenPairsDistance(Individual other) {
+            int noJobs = 0;
+            int noBrokenPairs = 0;
+            for (int index = 1; index < successors.length; index++) {
+                if (successors[index] < 0 && predecessors[index] < 0 && other.successors[index] < 0) continue;
+                noJobs++;
+                if (successors[index] != other.successors[index] && successors[index] != other.predecessors[index]) {
+                    noBrokenPairs++;
+                }
+            }
+            if (noJobs == 0) return 0.;
+            return (double) noBrokenPairs / noJobs;
+        }
+
+        double diversityContribution(int noClose) {
+            List<Double> closest = new ArrayList<Double>(distances.values());
+            Collections.sort(closest);
+            int n = Math.min(noClose, closest.size());
+            if (n == 0) return 0.;
+            double sum = 0.;
+            for (int i = 0; i < n; i++) sum += closest.get(i);
+            return sum / n;
+        }
+
+        boolean hasClone() {
+            for (Double distance : distances.values()) {
+                if (distance < 1e-9) return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Fleet manager that can be reset to a new one. The vehicles a fleet manager offers depend on its history, thus it
+     * is reset per offspring to make the result independent of which worker creates the offspring.
+     */
+    private static class ResettableFleetManager implements VehicleFleetManager {
+
+        private final VehicleRoutingProblem vrp;
+
+        private VehicleFleetManager fleetManager;
+
+        ResettableFleetManager(VehicleRoutingProblem vrp) {
+            this.vrp = vrp;
+            reset();
+        }
+
+        void reset() {
+            if (vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.INFINITE)) {
+                fleetManager = new InfiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+            } else {
+                fleetManager = new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+            }
+        }
+
+        @Override
+        public void lock(Vehicle vehicle) {
+            fleetManager.lock(vehicle);
+        }
+
+        @Override
+        public void unlock(Vehicle vehicle) {
+            fleetManager.unlock(vehicle);
+        }
+
+        @Override
+        public boolean isLocked(Vehicle vehicle) {
+            return fleetManager.isLocked(vehicle);
+        }
+
+        @Override
+        public void unlockAll() {
+            fleetManager.unlockAll();
+        }
+
+        @Override
+        public Collection<Vehicle> getAvailableVehicles() {
+            return fleetManager.getAvailableVehicles();
+        }
+
+        @Override
+        public Collection<Vehicle> getAvailableVehicles(Vehicle withoutThisType) {
+            return fleetManager.getAvailableVehicles(withoutThisType);
+        }
+
+        @Override
+        public Vehicle getAvailableVehicle(VehicleTypeKey vehicleTypeIdentifier) {
+            return fleetManager.getAvailableVehicle(vehicleTypeIdentifier);
+        }
+
+    }
+
+    /**
+     * Creates solutions of offspring with its own states, constraints, insertion and local search. Workers are reused
+     * across offspring, one per task running at a time, and reset their fleet manager for each offspring.
+     */
+    private class Worker {
+
+        private final StateManager stateManager;
+
+        private final ConstraintManager constraintManager;
+
+        private final AbstractInsertionStrategy insertion;
+
+        private final LocalSearchModule localSearch;
+
+        private final ResettableFleetManager fleetManager;
+
+        Worker() {
+            stateManager = new StateManager(vrp);
+            constraintManager = new ConstraintManager(vrp, stateManager);
+            AlgorithmUtil.addCoreConstraints(constraintManager, stateManager, vrp);
+            fleetManager = new ResettableFleetManager(vrp);
+            insertion = (AbstractInsertionStrategy) new InsertionBuilder(vrp, fleetManager, stateManager, constraintManager)
+                .setInsertionStrategy(InsertionBuilder.Strategy.BEST).build();
+            insertion.addListener(stateManager);
+            insertion.addListener(new ResetAndIniFleetManager(fleetManager));
+            insertion.addListener(new VehicleSwitched(fleetManager));
+            insertion.addListener(new RemoveEmptyVehicles(fleetManager));
+            localSearch = LocalSearchModule.Builder.newInstance(vrp)
+                .setStateAndConstraintManager(stateManager, constraintManager)
+                .setJobNeighborhoods(jobNeighborhoods)
+                .setSegmentMoves(true).build();
+        }
+
+        VehicleRoutingProblemSolution createSolution(Offspring offspring) {
+            List<VehicleRoute> routes = offspring.routes;
+            List<Job> jobsToInsert = offspring.jobsToInsert;
+            fleetManager.reset();
+            if (offspring.giantTour != null) split(offspring.giantTour, offspring.vehicles, routes, jobsToInsert);
+            insertion.setRandom(offspring.random);
+            Collection<Job> unassignedJobs = insertion.insertJobs(routes, jobsToInsert);
+            VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(routes, unassignedJobs, Double.MAX_VALUE);
+            return localSearch.runAndGetSolution(solution);
+        }
+
+        /**
+         * Appends jobs to the current route as long as this is feasible, and opens a route with the next vehicle
+         * otherwise. Vehicles are used cyclically if the fleet is infinite.
+         */
+        private void split(List<Job> giantTour, List<Vehicle> vehicles, List<VehicleRoute> routes, List<Job> unassignedJobs) {
+            boolean infiniteFleet = vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.INFINITE);
+            VehicleRoute route = null;
+            int vehicleIndex = 0;
+            for (Job job : giantTour) {
+                if (route != null && append(route, (Service) job)) continue;
+                if (vehicles.isEmpty() || (!infiniteFleet && vehicleIndex >= vehicles.size())) {
+                    unassignedJobs.add(job);
+                    continue;
+                }
+                VehicleRoute newRoute = VehicleRoute.Builder.newInstance(vehicles.get(vehicleIndex % vehicles.size()))
+                    .setJobActivityFactory(vrp.getJobActivityFactory()).build();
+                stateManager.reCalculateStates(newRoute);
+                if (append(newRoute, (Service) job)) {
+                    route = newRoute;
+                    routes.add(route);
+                    vehicleIndex++;
+                } else unassignedJobs.add(job);
+            }
+        }
+
+        private boolean append(VehicleRoute route, Service service) {
+            TourActivity act = vrp.copyAndGetActivities(service).get(0);
+            JobInsertionContext insertionContext = new JobInsertionContext(route, service, route.getVehicle(), route.getDriver(), route.getDepartureTime());
+            insertionContext.getAssociatedActivities().add(act);
+            if (!constraintManager.fulfilled(insertionContext)) return false;
+            List<TourActivity> activities = route.getActivities();
+            TourActivity prevAct = activities.isEmpty() ? route.getStart() : activities.get(activities.size() - 1);
+            for (TimeWindow timeWindow : service.getTimeWindows()) {
+                act.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
+                act.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
+                ActivityContext activityContext = new ActivityContext();
+                activityContext.setInsertionIndex(activities.size());
+                insertionContext.setActivityContext(activityContext);
+                ConstraintsStatus status = constraintManager.fulfilled(insertionContext, prevAct, act, route.getEnd(), prevAct.getEndTime());
+                if (status.equals(ConstraintsStatus.FULFILLED)) {
+                    route.getTourActivities().addActivity(act);
+                    stateManager.reCalculateStates(route);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(HybridGeneticSearch.class);
+
+    private final VehicleRoutingProblem vrp;
+
+    private final int noThreads;
+
+    private final int populationSize;
+
+    private final int generationSize;
+
+    private final int noElite;
+
+    private final int noClose;
+
+    private final int offspringPerIteration;
+
+    private final ExecutorService executorService;
+
+    private final RandomStreams randomStreams;
+
+    private final Random random;
+
+    private final JobNeighborhoods jobNeighborhoods;
+
+    private final SolutionCostCalculator objectiveFunction;
+
+    private final Queue<Worker> idleWorkers = new ConcurrentLinkedQueue<Worker>();
+
+    private final boolean servicesOnly;
+
+    private final List<VehicleRoutingProblemSolution> initialSolutions = new ArrayList<VehicleRoutingProblemSolution>();
+
+    private final List<Individual> population = new ArrayList<Individual>();
+
+    private Individual best;
+
+    private int maxIterations = 100;
+
+    private double maxTime = Double.MAX_VALUE;
+
+    private HybridGeneticSearch(Builder builder) {
+        vrp = builder.vrp;
+        noThreads = builder.noThreads;
+        populationSize = builder.populationSize;
+        generationSize = builder.generationSize;
+        noElite = builder.noElite;
+        noClose = builder.noClose;
+        offspringPerIteration = builder.offspringPerIteration;
+        executorService = builder.executorService;
+        randomStreams = RandomStreams.newInstance(builder.seed);
+        random = randomStreams.newRandom("selection");
+        jobNeighborhoods = new JobNeighborhoodsFactory().setParallel(noThreads > 1).createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), Math.min(20, vrp.getJobs().size()));
+        jobNeighborhoods.initialise();
+        if (builder.objectiveFunction != null) objectiveFunction = builder.objectiveFunction;
+        else objectiveFunction = Jsprit.createDefaultObjectiveFunction(vrp, jobNeighborhoods.getMaxDistance());
+        boolean servicesOnly = true;
+        for (Job job : vrp.getJobs().values()) {
+            if (!(job instanceof Service)) servicesOnly = false;
+        }
+        this.servicesOnly = servicesOnly;
+    }
+
+    /**
+     * Sets the number of iterations, i.e. of batches of offspring. Default is 100.
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Sets the max. time in seconds. No new iteration starts once it has elapsed.
+     */
+    public void setMaxTime(double maxTime) {
+        this.maxTime = maxTime;
+    }
+
+    /**
+     * Adds a solution to the initial population. It is improved by local search before it joins the population. The
+     * rest of the initial population is constructed with best insertion in random order.
+     */
+    public void addInitialSolution(VehicleRoutingProblemSolution solution) {
+        initialSolutions.add(solution);
+    }
+
+    /**
+     * Evolves the population and returns the best solution found.
+     *
+     * @return best solution
+     */
+    public Collection<VehicleRoutingProblemSolution> searchSolutions() {
+        long start = System.nanoTime();
+        long maxNanos = maxTime == Double.MAX_VALUE ? Long.MAX_VALUE : (long) (maxTime * 1e9);
+        ExecutorService executor = executorService;
+        if (executor == null) executor = Executors.newFixedThreadPool(noThreads);
+        population.clear();
+        best = null;
+        try {
+            List<Offspring> initialPopulation = new ArrayList<Offspring>();
+            int noInitial = 0;
+            for (VehicleRoutingProblemSolution solution : initialSolutions) {
+                Offspring offspring = new Offspring(randomStreams.newRandom("initial", noInitial++));
+                for (VehicleRoute route : solution.getRoutes()) offspring.routes.add(VehicleRoute.copyOf(route));
+                offspring.jobsToInsert.addAll(missingJobs(offspring.routes));
+                initialPopulation.add(offspring);
+            }
+            while (noInitial < populationSize) {
+                Offspring offspring = new Offspring(randomStreams.newRandom("initial", noInitial++));
+                offspring.jobsToInsert.addAll(vrp.getJobs().values());
+                initialPopulation.add(offspring);
+            }
+            addToPopulation(createSolutions(initialPopulation, executor));
+            logger.info("initial population [size={}][best costs={}]", population.size(), best.getCosts());
+            for (int iteration = 1; iteration <= maxIterations; iteration++) {
+                if (System.nanoTime() - start >= maxNanos) {
+                    logger.info("time is up after {} iterations", iteration - 1);
+                    break;
+                }
+                updateBiasedFitness();
+                List<Offspring> offspring = new ArrayList<Offspring>(offspringPerIteration);
+                for (int i = 0; i < offspringPerIteration; i++) {
+                    Individual parent1 = selectParent();
+                    Individual parent2 = selectParent();
+                    Random offspringRandom = randomStreams.newRandom("offspring." + iteration, i);
+                    if (servicesOnly && random.nextBoolean()) offspring.add(orderCrossover(parent1, parent2, offspringRandom));
+                    else offspring.add(routeExchange(parent1, parent2, offspringRandom));
+                }
+                addToPopulation(createSolutions(offspring, executor));
+                logger.debug("iteration {} [population={}][best costs={}]", iteration, population.size(), best.getCosts());
+            }
+            logger.info("hybrid genetic search ends [best costs={}]", best.getCosts());
+            List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+            solutions.add(VehicleRoutingProblemSolution.copyOf(best.solution));
+            return solutions;
+        } finally {
+            if (executorService == null) executor.shutdown();
+        }
+    }
+
+    private List<Individual> createSolutions(List<Offspring> offspring, ExecutorService executor) {
+        List<Future<VehicleRoutingProblemSolution>> futures = new ArrayList<Future<VehicleRoutingProblemSolution>>(offspring.size());
+        for (final Offspring o : offspring) {
+            futures.add(executor.submit(new Callable<VehicleRoutingProblemSolution>() {
+
+                @Override
+                public VehicleRoutingProblemSolution call() throws Exception {
+                    Worker worker = idleWorkers.poll();
+                    if (worker == null) worker = new Worker();
+                    try {
+                        return worker.createSolution(o);
+                    } finally {
+                        idleWorkers.offer(worker);
+                    }
+                }
+
+            }));
+        }
+        List<Individual> individuals = new ArrayList<Individual>(offspring.size());
+        try {
+            for (Future<VehicleRoutingProblemSolution> future : futures) {
+                VehicleRoutingProblemSolution solution = future.get();
+                solution.setCost(objectiveFunction.getCosts(solution));
+                individuals.add(new Individual(solution, vrp.getJobIndexCapacity() + 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        return individuals;
+    }
+
+    private void addToPopulation(List<Individual> individuals) {
+        for (Individual individual : individuals) {
+            for (Individual other : population) {
+                double distance = individual.brokenPairsDistance(other);
+                individual.distances.put(other, distance);
+                other.distances.put(individual, distance);
+            }
+            population.add(individual);
+            if (best == null || individual.getCosts() < best.getCosts()) best = individual;
+            if (population.size() >= populationSize + generationSize) selectSurvivors();
+        }
+    }
+
+    private void selectSurvivors() {
+        while (population.size() > populationSize) {
+            updateBiasedFitness();
+            Individual worst = null;
+            boolean worstHasClone = false;
+            for (Individual individual : population) {
+                boolean hasClone = individual.hasClone();
+                if (worst == null || (hasClone && !worstHasClone) || (hasClone == worstHasClone && individual.fitness > worst.fitness)) {
+                    worst = individual;
+                    worstHasClone = hasClone;
+                }
+            }
+            population.remove(worst);
+            for (Individual individual : population) individual.distances.remove(worst);
+        }
+    }
+
+    private void updateBiasedFitness() {
+        int size = population.size();
+        if (size == 1) {
+            population.get(0).fitness = 0.;
+            return;
+        }
+        List<Individual> byCosts = new ArrayList<Individual>(population);
+        Collections.sort(byCosts, new Comparator<Individual>() {
+
+            @Override
+            public int compare(Individual i1, Individual i2) {
+                return Double.compare(i1.getCosts(), i2.getCosts());
+            }
+
+        });
+        final Map<Individual, Double> diversity = new HashMap<Individual, Double>();
+        for (Individual individual : population) diversity.put(individual, individual.diversityContribution(noClose));
+        List<Individual> byDiversity = new ArrayList<Individual>(byCosts);
+        Collections.sort(byDiversity, new Comparator<Individual>() {
+
+            @Override
+            public int compare(Individual i1, Individual i2) {
+                return Double.compare(diversity.get(i2), diversity.get(i1));
+            }
+
+        });
+        double diversityWeight = Math.max(0., 1. - (double) noElite / size);
+        for (int rank = 0; rank < size; rank++) byCosts.get(rank).fitness = (double) rank / (size - 1);
+        for (int rank = 0; rank < size; rank++) byDiversity.get(rank).fitness += diversityWeight * rank / (size - 1);
+    }
+
+    private Individual selectParent() {
+        Individual i1 = population.get(random.nextInt(population.size()));
+        Individual i2 = population.get(random.nextInt(population.size()));
+        return i1.fitness <= i2.fitness ? i1 : i2;
+    }
+
+    private Offspring orderCrossover(Individual parent1, Individual parent2, Random offspringRandom) {
+        List<Job> tour1 = giantTour(parent1.solution);
+        List<Job> tour2 = giantTour(parent2.solution);
+        int n = tour1.size();
+        int from = random.nextInt(n);
+        int to = random.nextInt(n);
+        if (from > to) {
+            int tmp = from;
+            from = to;
+            to = tmp;
+        }
+        Job[] child = new Job[n];
+        Set<Job> inherited = new HashSet<Job>();
+        for (int i = from; i <= to; i++) {
+            child[i] = tour1.get(i);
+            inherited.add(tour1.get(i));
+        }
+        int position = (to + 1) % n;
+        for (int i = 0; i < n; i++) {
+            Job job = tour2.get((to + 1 + i) % n);
+            if (inherited.contains(job)) continue;
+            child[position] = job;
+            position = (position + 1) % n;
+        }
+        Offspring offspring = new Offspring(offspringRandom);
+        offspring.giantTour = Arrays.asList(child);
+        offspring.vehicles = new ArrayList<Vehicle>();
+        for (VehicleRoute route : parent1.solution.getRoutes()) offspring.vehicles.add(route.getVehicle());
+        for (Vehicle vehicle : vrp.getVehicles()) {
+            if (vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.INFINITE) || !offspring.vehicles.contains(vehicle)) {
+                offspring.vehicles.add(vehicle);
+            }
+        }
+        return offspring;
+    }
+
+    /**
+     * Jobs in route order, followed by unassigned jobs.
+     */
+    private List<Job> giantTour(VehicleRoutingProblemSolution solution) {
+        List<Job> tour = new ArrayList<Job>(vrp.getJobs().size());
+        for (VehicleRoute route : solution.getRoutes()) {
+            for (TourActivity act : route.getActivities()) {
+                if (act instanceof TourActivity.JobActivity) tour.add(((TourActivity.JobActivity) act).getJob());
+            }
+        }
+        tour.addAll(missingJobs(solution.getRoutes()));
+        return tour;
+    }
+
+    private Offspring routeExchange(Individual parent1, Individual parent2, Random offspringRandom) {
+        Offspring offspring = new Offspring(offspringRandom);
+        List<VehicleRoute> routes1 = new ArrayList<VehicleRoute>(parent1.solution.getRoutes());
+        Collections.shuffle(routes1, random);
+        int noRoutes = routes1.isEmpty() ? 0 : 1 + random.nextInt(Math.max(1, routes1.size() / 2));
+        Set<Job> inherited = new HashSet<Job>();
+        Set<Vehicle> usedVehicles = new HashSet<Vehicle>();
+        for (VehicleRoute route : routes1.subList(0, noRoutes)) {
+            offspring.routes.add(VehicleRoute.copyOf(route));
+            inherited.addAll(route.getTourActivities().getJobs());
+            usedVehicles.add(route.getVehicle());
+        }
+        boolean finiteFleet = vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE);
+        for (VehicleRoute route : parent2.solution.getRoutes()) {
+            if (finiteFleet && usedVehicles.contains(route.getVehicle())) continue;
+            VehicleRoute copy = VehicleRoute.copyOf(route);
+            for (Job job : route.getTourActivities().getJobs()) {
+                if (inherited.contains(job)) copy.getTourActivities().removeJob(job);
+            }
+            if (!copy.isEmpty()) offspring.routes.add(copy);
+        }
+        offspring.jobsToInsert.addAll(missingJobs(offspring.routes));
+        return offspring;
+    }
+
+    private List<Job> missingJobs(Collection<VehicleRoute> routes) {
+        Set<Job> served = new HashSet<Job>();
+        for (VehicleRoute route : routes) served.addAll(route.getTourActivities().getJobs());
+        List<Job> missing = new ArrayList<Job>();
+        for (Job job : vrp.getJobs().values()) {
+            if (!served.contains(job)) missing.add(job);
+        }
+        return missing;
+    }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.RandomStreams;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Island model, i.e. a number of independent {@link VehicleRoutingAlgorithm}s (islands) that search the same problem
+ * in parallel and exchange their best solutions periodically.
+ * <p>
+ * <p>Each island is created by an {@link IslandFactory} with its own random number generator, thus each island has
+ * its own state manager, strategies and acceptor. The problem is shared read-only. By default, islands are created
+ * with {@link Jsprit} and a single thread each.
+ * <p>
+ * <p>Every migrationInterval iterations (or migrationTime seconds, whichever comes first), an island publishes a copy
+ * of its best solution to an elite pool with one slot per island, and adopts the best solution of the other islands
+ * if it is better than its own best. The pool is lock-free, i.e. islands never wait for each other.
+ * <p>
+ * <p>searchSolutions() returns the solutions of all islands, i.e. Solutions.bestOf(...) returns the overall best.
+ */
+public class IslandModel {
+
+    /**
+     * Creates the algorithm of an island.
+     */
+    public interface IslandFactory {
+
+        public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, Random random);
+
+    }
+
+    public static class Builder {
+
+        private final VehicleRoutingProblem vrp;
+
+        private int noIslands = Runtime.getRuntime().availableProcessors();
+
+        private int migrationInterval = 100;
+
+        private double migrationTime = Double.MAX_VALUE;
+
+        private long seed = 4711;
+
+        private ExecutorService executorService;
+
+        private IslandFactory islandFactory = new IslandFactory() {
+
+            @Override
+            public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, Random random) {
+                return Jsprit.Builder.newInstance(vrp).setRandom(random).buildAlgorithm();
+            }
+
+        };
+
+        public static Builder newInstance(VehicleRoutingProblem vrp) {
+            return new Builder(vrp);
+        }
+
+        private Builder(VehicleRoutingProblem vrp) {
+            this.vrp = vrp;
+        }
+
+        public Builder setNoIslands(int noIslands) {
+            if (noIslands < 1) throw new IllegalArgumentException("noIslands must be at least 1");
+            this.noIslands = noIslands;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations between two migrations. Default is 100.
+         */
+        public Builder setMigrationInterval(int migrationInterval) {
+            if (migrationInterval < 1) throw new IllegalArgumentException("migrationInterval must be at least 1");
+            this.migrationInterval = migrationInterval;
+            return this;
+        }
+
+        /**
+         * Sets the max. time in seconds between two migrations. By default, migration only depends on iterations.
+         */
+        public Builder setMigrationTime(double migrationTime) {
+            if (migrationTime <= 0.) throw new IllegalArgumentException("migrationTime must be positive");
+            this.migrationTime = migrationTime;
+            return this;
+        }
+
+        /**
+         * Sets the master seed the random number generators of the islands are derived from (see {@link RandomStreams}).
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder setIslandFactory(IslandFactory islandFactory) {
+            this.islandFactory = islandFactory;
+            return this;
+        }
+
+        /**
+         * Sets the executor running the islands. It needs at least noIslands threads, since islands run until they
+         * terminate. If no executor is set, one is created and shut down internally.
+         */
+        public Builder setExecutorService(ExecutorService executorService) {
+            this.executorService = executorService;
+            return this;
+        }
+
+        public IslandModel build() {
+            return new IslandModel(this);
+        }
+
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(IslandModel.class);
+
+    private final List<VehicleRoutingAlgorithm> islands = new ArrayList<VehicleRoutingAlgorithm>();
+
+    private final AtomicReferenceArray<VehicleRoutingProblemSolution> elites;
+
+    private final ExecutorService executorService;
+
+    private final int migrationInterval;
+
+    private final long migrationNanos;
+
+    private final AtomicInteger noAdoptions = new AtomicInteger();
+
+    private IslandModel(Builder builder) {
+        this.executorService = builder.executorService;
+        this.migrationInterval = builder.migrationInterval;
+        this.migrationNanos = builder.migrationTime == Double.MAX_VALUE ? Long.MAX_VALUE : (long) (builder.migrationTime * 1e9);
+        this.elites = new AtomicReferenceArray<VehicleRoutingProblemSolution>(builder.noIslands);
+        RandomStreams randomStreams = RandomStreams.newInstance(builder.seed);
+        for (int i = 0; i < builder.noIslands; i++) {
+            VehicleRoutingAlgorithm island = builder.islandFactory.createAlgorithm(builder.vrp, randomStreams.newRandom("island", i));
+            island.addListener(new Migration(i));
+            islands.add(island);
+        }
+    }
+
+    /**
+     * Returns the algorithms of the islands, e.g. to set iterations or termination criteria.
+     */
+    public List<VehicleRoutingAlgorithm> getIslands() {
+        return islands;
+    }
+
+    /**
+     * Sets max. iterations of each island.
+     */
+    public void setMaxIterations(int maxIterations) {
+        for (VehicleRoutingAlgorithm island : islands) island.setMaxIterations(maxIterations);
+    }
+
+    /**
+     * Returns how often islands adopted a better solution of another island.
+     */
+    public int getNoAdoptions() {
+        return noAdoptions.get();
+    }
+
+    /**
+     * Runs all islands in parallel and returns their solutions.
+     *
+     * @return solutions of all islands
+     */
+    public Collection<VehicleRoutingProblemSolution> searchSolutions() {
+        ExecutorService executor = executorService;
+        if (executor == null) executor = Executors.newFixedThreadPool(islands.size());
+        try {
+            List<Future<Collection<VehicleRoutingProblemSolution>>> futures = new ArrayList<Future<Collection<VehicleRoutingProblemSolution>>>();
+            for (final VehicleRoutingAlgorithm island : islands) {
+                futures.add(executor.submit(new Callable<Collection<VehicleRoutingProblemSolution>>() {
+
+                    @Override
+                    public Collection<VehicleRoutingProblemSolution> call() throws Exception {
+                        return island.searchSolutions();
+                    }
+
+                }));
+            }
+            List<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+            for (Future<Collection<VehicleRoutingProblemSolution>> future : futures) {
+                solutions.addAll(future.get());
+            }
+            logger.info("islands finished [noIslands={}][noAdoptions={}]", islands.size(), noAdoptions.get());
+            return solutions;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (executorService == null) executor.shutdown();
+        }
+    }
+
+    /**
+     * Publishes the best solution of an island and adopts better solutions of other islands.
+     */
+    private class Migration implements IterationEndsListener {
+
+        private final int island;
+
+        private long lastMigration = System.nanoTime();
+
+        private double lastPublishedCosts = Double.MAX_VALUE;
+
+        Migration(int island) {
+            this.island = island;
+        }
+
+        @Override
+        public void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+            long now = System.nanoTime();
+            if (i % migrationInterval != 0 && now - lastMigration < migrationNanos) return;
+            lastMigration = now;
+            VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+            if (best == null) return;
+            if (best.getCost() < lastPublishedCosts) {
+                // islands only ever read published solutions, thus they are copied once more when adopted
+                elites.set(island, VehicleRoutingProblemSolution.copyOf(best));
+                lastPublishedCosts = best.getCost();
+            }
+            VehicleRoutingProblemSolution elite = null;
+            for (int j = 0; j < elites.length(); j++) {
+                if (j == island) continue;
+                VehicleRoutingProblemSolution candidate = elites.get(j);
+                if (candidate != null && (elite == null || candidate.getCost() < elite.getCost())) elite = candidate;
+            }
+            if (elite == null || elite.getCost() >= best.getCost()) return;
+            adopt(VehicleRoutingProblemSolution.copyOf(elite), solutions);
+            noAdoptions.incrementAndGet();
+        }
+
+        private void adopt(VehicleRoutingProblemSolution elite, Collection<VehicleRoutingProblemSolution> solutions) {
+            VehicleRoutingProblemSolution worst = null;
+            for (VehicleRoutingProblemSolution solution : solutions) {
+                if (worst == null || solution.getCost() > worst.getCost()) worst = solution;
+            }
+            Iterator<VehicleRoutingProblemSolution> iterator = solutions.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() == worst) {
+                    iterator.remove();
+                    break;
+                }
+            }
+            solutions.add(elite);
+        }
+
+    }
+
+}
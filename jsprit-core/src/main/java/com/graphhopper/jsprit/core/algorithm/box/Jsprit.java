@@ -18,6 +18,7 @@
 
 package com.graphhopper.jsprit.core.algorithm.box;
 
+import com.graphhopper.jsprit.core.algorithm.AdaptiveStrategyWeights;
 import com.graphhopper.jsprit.core.algorithm.PrettyAlgorithmBuilder;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
 import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
@@ -25,6 +26,8 @@ import com.graphhopper.jsprit.core.algorithm.acceptor.SchrimpfAcceptance;
 import com.graphhopper.jsprit.core.algorithm.acceptor.SolutionAcceptor;
 import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmEndsListener;
 import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.VehicleRoutingAlgorithmListener;
+import com.graphhopper.jsprit.core.algorithm.module.LocalSearchModule;
 import com.graphhopper.jsprit.core.algorithm.module.RuinAndRecreateModule;
 import com.graphhopper.jsprit.core.algorithm.recreate.*;
 import com.graphhopper.jsprit.core.algorithm.ruin.*;
@@ -32,8 +35,11 @@ import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipment
 import com.graphhopper.jsprit.core.algorithm.selector.SelectBest;
 import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.Constraint;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.SwitchNotFeasible;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.IncrementalSolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
@@ -42,11 +48,17 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
 import com.graphhopper.jsprit.core.problem.vehicle.InfiniteFleetManagerFactory;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.util.ExecutorServiceProvider;
 import com.graphhopper.jsprit.core.util.NoiseMaker;
+import com.graphhopper.jsprit.core.util.PreprocessingCache;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
+import com.graphhopper.jsprit.core.util.RandomStreams;
 import com.graphhopper.jsprit.core.util.Solutions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
@@ -82,7 +94,9 @@ public class Jsprit {
         WORST_BEST("worst_best"),
         WORST_REGRET("worst_regret"),
         CLUSTER_BEST("cluster_best"),
-        CLUSTER_REGRET("cluster_regret");
+        CLUSTER_REGRET("cluster_regret"),
+        STRING_BEST("string_best"),
+        STRING_REGRET("string_regret");
 
         String strategyName;
 
@@ -110,6 +124,14 @@ public class Jsprit {
         CLUSTER_MAX_SHARE("cluster.max_share"),
         WORST_MIN_SHARE("worst.min_share"),
         WORST_MAX_SHARE("worst.max_share"),
+        STRING_MIN_SHARE("string.min_share"),
+        STRING_MAX_SHARE("string.max_share"),
+        STRING_L_MAX("string.l_max"),
+        ADAPTIVE_RUIN_SHARE("ruin.adaptive_share"),
+        ADAPTIVE_RUIN_TIME_BUDGET("ruin.adaptive_time_budget"),
+        ADAPTIVE_WEIGHTS("strategy.adaptive_weights"),
+        ADAPTIVE_WEIGHTS_SEGMENT("strategy.segment_length"),
+        ADAPTIVE_WEIGHTS_REACTION("strategy.reaction_factor"),
         THRESHOLD_ALPHA("threshold.alpha"),
         THRESHOLD_INI("threshold.ini"),
         INSERTION_NOISE_LEVEL("insertion.noise_level"),
@@ -117,9 +139,17 @@ public class Jsprit {
         RUIN_WORST_NOISE_LEVEL("worst.noise_level"),
         RUIN_WORST_NOISE_PROB("worst.noise_prob"),
         FAST_REGRET("regret.fast"),
+        REGRET_K("regret.k"),
+        /**
+         * Skips routes whose lower bound of insertion costs exceeds the best insertion found so far. Since the bound
+         * only holds for the route's vehicle, this requires {@link #VEHICLE_SWITCH} to be false.
+         */
+        ROUTE_PRUNING("insertion.route_pruning"),
+        SEGMENT_FAST_PATH("insertion.segment_fast_path"),
         MAX_TRANSPORT_COSTS("max_transport_costs"),
         CONSTRUCTION("construction"),
-        BREAK_SCHEDULING("break_scheduling");
+        BREAK_SCHEDULING("break_scheduling"),
+        LOCAL_SEARCH("local_search");
 
         String paraName;
 
@@ -145,6 +175,8 @@ public class Jsprit {
 
         private Integer noThreads;
 
+        private ExecutorServiceProvider executorServiceProvider;
+
         private StateManager stateManager = null;
 
         private ConstraintManager constraintManager = null;
@@ -157,10 +189,14 @@ public class Jsprit {
 
         private Random random = RandomNumberGeneration.newInstance();
 
+        private RandomStreams randomStreams;
+
         private ActivityInsertionCostsCalculator activityInsertionCalculator;
 
         private SolutionAcceptor solutionAcceptor;
 
+        private PreprocessingCache preprocessingCache;
+
         public static Builder newInstance(VehicleRoutingProblem vrp) {
             return new Builder(vrp);
         }
@@ -180,6 +216,8 @@ public class Jsprit {
             defaults.put(Strategy.WORST_REGRET.toString(), "1.");
             defaults.put(Strategy.CLUSTER_BEST.toString(), "0.");
             defaults.put(Strategy.CLUSTER_REGRET.toString(), "1.");
+            defaults.put(Strategy.STRING_BEST.toString(), "0.");
+            defaults.put(Strategy.STRING_REGRET.toString(), "0.");
             defaults.put(Parameter.FIXED_COST_PARAM.toString(), "0.");
             defaults.put(Parameter.VEHICLE_SWITCH.toString(), "true");
             defaults.put(Parameter.ITERATIONS.toString(), "2000");
@@ -194,6 +232,14 @@ public class Jsprit {
             defaults.put(Parameter.WORST_MAX_SHARE.toString(), String.valueOf(maxShare));
             defaults.put(Parameter.CLUSTER_MIN_SHARE.toString(), String.valueOf(minShare));
             defaults.put(Parameter.CLUSTER_MAX_SHARE.toString(), String.valueOf(maxShare));
+            defaults.put(Parameter.STRING_MIN_SHARE.toString(), String.valueOf(minShare));
+            defaults.put(Parameter.STRING_MAX_SHARE.toString(), String.valueOf(maxShare));
+            defaults.put(Parameter.STRING_L_MAX.toString(), String.valueOf(10));
+            defaults.put(Parameter.ADAPTIVE_RUIN_SHARE.toString(), String.valueOf(false));
+            defaults.put(Parameter.ADAPTIVE_RUIN_TIME_BUDGET.toString(), String.valueOf(0.));
+            defaults.put(Parameter.ADAPTIVE_WEIGHTS.toString(), String.valueOf(false));
+            defaults.put(Parameter.ADAPTIVE_WEIGHTS_SEGMENT.toString(), String.valueOf(100));
+            defaults.put(Parameter.ADAPTIVE_WEIGHTS_REACTION.toString(), String.valueOf(0.1));
             int minShare_ = (int) Math.min(70, Math.max(5, vrp.getJobs().size() * 0.5));
             int maxShare_ = (int) Math.min(70, Math.max(5, vrp.getJobs().size() * 0.5));
             defaults.put(Parameter.RANDOM_REGRET_MIN_SHARE.toString(), String.valueOf(minShare_));
@@ -208,7 +254,11 @@ public class Jsprit {
             defaults.put(Parameter.RUIN_WORST_NOISE_PROB.toString(), String.valueOf(0.2));
             defaults.put(Parameter.VEHICLE_SWITCH.toString(), String.valueOf(true));
             defaults.put(Parameter.FAST_REGRET.toString(), String.valueOf(false));
+            defaults.put(Parameter.REGRET_K.toString(), String.valueOf(2));
+            defaults.put(Parameter.ROUTE_PRUNING.toString(), String.valueOf(false));
+            defaults.put(Parameter.SEGMENT_FAST_PATH.toString(), String.valueOf(false));
             defaults.put(Parameter.BREAK_SCHEDULING.toString(), String.valueOf(true));
+            defaults.put(Parameter.LOCAL_SEARCH.toString(), String.valueOf(false));
             defaults.put(Parameter.CONSTRUCTION.toString(), Construction.REGRET_INSERTION.toString());
             return defaults;
         }
@@ -220,16 +270,55 @@ public class Jsprit {
             return this;
         }
 
+        /**
+         * Sets the provider of the executor the concurrent insertion strategies run on. It is only used if
+         * Parameter.THREADS is greater than 1 and no executor has been set with setExecutorService(...).
+         * <p>
+         * <p>Use it to share one executor among many algorithms, to run insertion tasks on virtual threads or to limit
+         * the parallelism of concurrent algorithms globally (see {@link com.graphhopper.jsprit.core.util.ExecutorServiceProviders}).
+         *
+         * @param executorServiceProvider the provider
+         * @return builder
+         */
+        public Builder setExecutorServiceProvider(ExecutorServiceProvider executorServiceProvider) {
+            this.executorServiceProvider = executorServiceProvider;
+            return this;
+        }
+
         public Builder setCustomAcceptor(SolutionAcceptor acceptor){
             this.solutionAcceptor = acceptor;
             return this;
         }
 
+        /**
+         * Sets the random number generator the master seed is drawn from. Each component of the algorithm gets its
+         * own stream derived from this seed (see {@link RandomStreams}).
+         */
         public Builder setRandom(Random random) {
             this.random = random;
             return this;
         }
 
+        /**
+         * Sets the streams the components of the algorithm draw their random numbers from. This overrides setRandom.
+         */
+        public Builder setRandomStreams(RandomStreams randomStreams) {
+            this.randomStreams = randomStreams;
+            return this;
+        }
+
+        /**
+         * Sets a cache for preprocessing results such as job neighborhoods. They are then calculated only once per
+         * locations and transport costs, and read from cache in subsequent runs.
+         *
+         * @param preprocessingCache the cache
+         * @return this builder
+         */
+        public Builder setPreprocessingCache(PreprocessingCache preprocessingCache) {
+            this.preprocessingCache = preprocessingCache;
+            return this;
+        }
+
         public Builder setProperty(String key, String value) {
             properties.put(key, value);
             return this;
@@ -318,27 +407,36 @@ public class Jsprit {
 
     private boolean setupExecutorInternally = false;
 
+    private ExecutorServiceProvider executorServiceProvider;
+
+    private boolean executorAcquiredFromProvider = false;
+
     private boolean addCoreConstraints;
 
     private SolutionCostCalculator objectiveFunction = null;
 
     private Properties properties;
 
-    private Random random;
+    private RandomStreams randomStreams;
 
     private SolutionAcceptor acceptor;
 
+    private PreprocessingCache preprocessingCache;
+
     private Jsprit(Builder builder) {
         this.stateManager = builder.stateManager;
         this.constraintManager = builder.constraintManager;
         this.es = builder.es;
         this.noThreads = builder.noThreads;
+        this.executorServiceProvider = builder.executorServiceProvider;
         this.addCoreConstraints = builder.addConstraints;
         this.properties = builder.properties;
         this.objectiveFunction = builder.objectiveFunction;
-        this.random = builder.random;
+        if (builder.randomStreams != null) this.randomStreams = builder.randomStreams;
+        else this.randomStreams = RandomStreams.newInstance(builder.random.nextLong());
         this.activityInsertion = builder.activityInsertionCalculator;
         this.acceptor = builder.solutionAcceptor;
+        this.preprocessingCache = builder.preprocessingCache;
     }
 
     private VehicleRoutingAlgorithm create(final VehicleRoutingProblem vrp) {
@@ -347,13 +445,15 @@ public class Jsprit {
             fm = new InfiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
         } else {
             FiniteFleetManagerFactory finiteFleetManagerFactory = new FiniteFleetManagerFactory(vrp.getVehicles());
-            finiteFleetManagerFactory.setRandom(random);
+            finiteFleetManagerFactory.setRandom(randomStreams.newRandom("fleet"));
             fm = finiteFleetManagerFactory.createFleetManager();
         }
 
         if (stateManager == null) {
             stateManager = new StateManager(vrp);
         }
+        // segment moves of local search only check core constraints, thus they cannot be applied with custom ones
+        boolean coreConstraintsOnly = constraintManager == null && addCoreConstraints;
         if (constraintManager == null) {
             constraintManager = new ConstraintManager(vrp, stateManager);
         }
@@ -363,15 +463,20 @@ public class Jsprit {
         }
         if (noThreads > 1) {
             if (es == null) {
-                setupExecutorInternally = true;
-                es = Executors.newFixedThreadPool(noThreads);
+                if (executorServiceProvider != null) {
+                    executorAcquiredFromProvider = true;
+                    es = executorServiceProvider.acquire(noThreads);
+                } else {
+                    setupExecutorInternally = true;
+                    es = Executors.newFixedThreadPool(noThreads);
+                }
             }
         }
 
         double noiseLevel = toDouble(getProperty(Parameter.INSERTION_NOISE_LEVEL.toString()));
         double noiseProbability = toDouble(getProperty(Parameter.INSERTION_NOISE_PROB.toString()));
 
-        JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), (int) (vrp.getJobs().values().size() * 0.5));
+        JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().setParallel(noThreads > 1).createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), (int) (vrp.getJobs().values().size() * 0.5), preprocessingCache);
         jobNeighborhoods.initialise();
 
         final double maxCosts;
@@ -385,56 +490,42 @@ public class Jsprit {
         IterationStartsListener noiseConfigurator;
         if (noThreads > 1) {
             ConcurrentInsertionNoiseMaker noiseMaker = new ConcurrentInsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
-            noiseMaker.setRandom(random);
+            noiseMaker.setRandom(randomStreams.newRandom("insertion.noise"));
             constraintManager.addConstraint(noiseMaker);
             noiseConfigurator = noiseMaker;
         } else {
             InsertionNoiseMaker noiseMaker = new InsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
-            noiseMaker.setRandom(random);
+            noiseMaker.setRandom(randomStreams.newRandom("insertion.noise"));
             constraintManager.addConstraint(noiseMaker);
             noiseConfigurator = noiseMaker;
         }
 
+        List<VehicleRoutingAlgorithmListener> ruinShareListeners = new ArrayList<VehicleRoutingAlgorithmListener>();
         RuinRadial radial = new RuinRadial(vrp, vrp.getJobs().size(), jobNeighborhoods);
-        radial.setRandom(random);
-        radial.setRuinShareFactory(new RuinShareFactoryImpl(
-                toInteger(properties.getProperty(Parameter.RADIAL_MIN_SHARE.toString())),
-                toInteger(properties.getProperty(Parameter.RADIAL_MAX_SHARE.toString())),
-                random)
-        );
+        radial.setRandom(randomStreams.newRandom("ruin.radial"));
+        radial.setRuinShareFactory(createRuinShareFactory("ruin.radial.share", Parameter.RADIAL_MIN_SHARE, Parameter.RADIAL_MAX_SHARE, ruinShareListeners));
 
         final RuinRandom random_for_regret = new RuinRandom(vrp, 0.5);
-        random_for_regret.setRandom(random);
-        random_for_regret.setRuinShareFactory(new RuinShareFactoryImpl(
-                toInteger(properties.getProperty(Parameter.RANDOM_REGRET_MIN_SHARE.toString())),
-                toInteger(properties.getProperty(Parameter.RANDOM_REGRET_MAX_SHARE.toString())),
-                random)
-        );
+        random_for_regret.setRandom(randomStreams.newRandom("ruin.random_regret"));
+        random_for_regret.setRuinShareFactory(createRuinShareFactory("ruin.random_regret.share", Parameter.RANDOM_REGRET_MIN_SHARE, Parameter.RANDOM_REGRET_MAX_SHARE, ruinShareListeners));
 
         final RuinRandom random_for_best = new RuinRandom(vrp, 0.5);
-        random_for_best.setRandom(random);
-        random_for_best.setRuinShareFactory(new RuinShareFactoryImpl(
-                toInteger(properties.getProperty(Parameter.RANDOM_BEST_MIN_SHARE.toString())),
-                toInteger(properties.getProperty(Parameter.RANDOM_BEST_MAX_SHARE.toString())),
-                random)
-        );
+        random_for_best.setRandom(randomStreams.newRandom("ruin.random_best"));
+        random_for_best.setRuinShareFactory(createRuinShareFactory("ruin.random_best.share", Parameter.RANDOM_BEST_MIN_SHARE, Parameter.RANDOM_BEST_MAX_SHARE, ruinShareListeners));
 
         final RuinWorst worst = new RuinWorst(vrp, (int) (vrp.getJobs().values().size() * 0.5));
-        worst.setRandom(random);
-        worst.setRuinShareFactory(new RuinShareFactoryImpl(
-                toInteger(properties.getProperty(Parameter.WORST_MIN_SHARE.toString())),
-                toInteger(properties.getProperty(Parameter.WORST_MAX_SHARE.toString())),
-                random)
-        );
+        worst.setRandom(randomStreams.newRandom("ruin.worst"));
+        worst.setRuinShareFactory(createRuinShareFactory("ruin.worst.share", Parameter.WORST_MIN_SHARE, Parameter.WORST_MAX_SHARE, ruinShareListeners));
+        final Random worstNoiseRandom = randomStreams.newRandom("ruin.worst.noise");
         IterationStartsListener noise = new IterationStartsListener() {
             @Override
             public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
                 worst.setNoiseMaker(new NoiseMaker() {
 
                     public double makeNoise() {
-                        if (random.nextDouble() < toDouble(getProperty(Parameter.RUIN_WORST_NOISE_PROB.toString()))) {
+                        if (worstNoiseRandom.nextDouble() < toDouble(getProperty(Parameter.RUIN_WORST_NOISE_PROB.toString()))) {
                             return toDouble(getProperty(Parameter.RUIN_WORST_NOISE_LEVEL.toString()))
-                                * maxCosts * random.nextDouble();
+                                * maxCosts * worstNoiseRandom.nextDouble();
                         } else return 0.;
                     }
                 });
@@ -442,18 +533,36 @@ public class Jsprit {
         };
 
         final RuinClusters clusters = new RuinClusters(vrp, (int) (vrp.getJobs().values().size() * 0.5), jobNeighborhoods);
-        clusters.setRandom(random);
-        clusters.setRuinShareFactory(new RuinShareFactoryImpl(
-                toInteger(properties.getProperty(Parameter.WORST_MIN_SHARE.toString())),
-                toInteger(properties.getProperty(Parameter.WORST_MAX_SHARE.toString())),
-                random)
-        );
+        clusters.setRandom(randomStreams.newRandom("ruin.clusters"));
+        clusters.setRuinShareFactory(createRuinShareFactory("ruin.clusters.share", Parameter.WORST_MIN_SHARE, Parameter.WORST_MAX_SHARE, ruinShareListeners));
+
+        final RuinStrings strings = new RuinStrings(vrp, (int) (vrp.getJobs().values().size() * 0.5), jobNeighborhoods);
+        strings.setRandom(randomStreams.newRandom("ruin.strings"));
+        strings.setMaxStringLength(toInteger(properties.getProperty(Parameter.STRING_L_MAX.toString())));
+        strings.setRuinShareFactory(createRuinShareFactory("ruin.strings.share", Parameter.STRING_MIN_SHARE, Parameter.STRING_MAX_SHARE, ruinShareListeners));
 
         AbstractInsertionStrategy regret;
         final DefaultScorer scorer;
 
         boolean fastRegret = Boolean.parseBoolean(getProperty(Parameter.FAST_REGRET.toString()));
-        if (es != null) {
+        int regretK = toInteger(getProperty(Parameter.REGRET_K.toString()));
+        if (regretK > 2) {
+            InsertionBuilder insertionBuilder = new InsertionBuilder(vrp, fm, stateManager, constraintManager)
+                .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
+                .setRegretK(regretK)
+                .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
+                .setRouteSegmentsFastPath(toBoolean(getProperty(Parameter.SEGMENT_FAST_PATH.toString())))
+                .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
+                .setActivityInsertionCostCalculator(activityInsertion);
+            if (es != null) {
+                insertionBuilder.setConcurrentMode(es, noThreads);
+            }
+            KRegretInsertion regretInsertion = (KRegretInsertion) insertionBuilder.build();
+            scorer = getRegretScorer(vrp);
+            regretInsertion.setScoringFunction(scorer);
+            regretInsertion.setDependencyTypes(constraintManager.getDependencyTypes());
+            regret = regretInsertion;
+        } else if (es != null) {
             if(fastRegret){
                 RegretInsertionConcurrentFast regretInsertion = (RegretInsertionConcurrentFast) new InsertionBuilder(vrp, fm, stateManager, constraintManager)
                     .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
@@ -461,6 +570,7 @@ public class Jsprit {
                     .setFastRegret(true)
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
+                    .setRouteSegmentsFastPath(toBoolean(getProperty(Parameter.SEGMENT_FAST_PATH.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
                     .build();
                 scorer = getRegretScorer(vrp);
@@ -474,6 +584,7 @@ public class Jsprit {
                     .setConcurrentMode(es, noThreads)
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
+                    .setRouteSegmentsFastPath(toBoolean(getProperty(Parameter.SEGMENT_FAST_PATH.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
                     .build();
                 scorer = getRegretScorer(vrp);
@@ -486,6 +597,7 @@ public class Jsprit {
                     .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
                     .setFastRegret(true)
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
+                    .setRouteSegmentsFastPath(toBoolean(getProperty(Parameter.SEGMENT_FAST_PATH.toString())))
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
                     .build();
@@ -498,6 +610,7 @@ public class Jsprit {
                 RegretInsertion regretInsertion = (RegretInsertion) new InsertionBuilder(vrp, fm, stateManager, constraintManager)
                     .setInsertionStrategy(InsertionBuilder.Strategy.REGRET)
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
+                    .setRouteSegmentsFastPath(toBoolean(getProperty(Parameter.SEGMENT_FAST_PATH.toString())))
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
                     .build();
@@ -506,14 +619,20 @@ public class Jsprit {
                 regret = regretInsertion;
             }
         }
-        regret.setRandom(random);
+        regret.setRandom(randomStreams.newRandom("insertion.regret"));
 
+        boolean routePruning = toBoolean(getProperty(Parameter.ROUTE_PRUNING.toString()));
+        if (routePruning && toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString()))) {
+            throw new IllegalStateException(Parameter.ROUTE_PRUNING + "=true requires " + Parameter.VEHICLE_SWITCH + "=false");
+        }
         AbstractInsertionStrategy best;
         if (vrp.getJobs().size() < 250 || es == null) {
             BestInsertion bestInsertion = (BestInsertion) new InsertionBuilder(vrp, fm, stateManager, constraintManager)
                 .setInsertionStrategy(InsertionBuilder.Strategy.BEST)
                 .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
+                .setRouteSegmentsFastPath(toBoolean(getProperty(Parameter.SEGMENT_FAST_PATH.toString())))
+                .setRouteLowerBoundPruning(routePruning)
                 .setActivityInsertionCostCalculator(activityInsertion)
                 .build();
             best = bestInsertion;
@@ -522,12 +641,14 @@ public class Jsprit {
                 .setInsertionStrategy(InsertionBuilder.Strategy.BEST)
                 .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
+                .setRouteSegmentsFastPath(toBoolean(getProperty(Parameter.SEGMENT_FAST_PATH.toString())))
                 .setConcurrentMode(es, noThreads)
+                .setRouteLowerBoundPruning(routePruning)
                 .setActivityInsertionCostCalculator(activityInsertion)
                 .build();
             best = bestInsertion;
         }
-        best.setRandom(random);
+        best.setRandom(randomStreams.newRandom("insertion.best"));
 
         IterationStartsListener schrimpfThreshold = null;
         if(acceptor == null) {
@@ -569,9 +690,30 @@ public class Jsprit {
         final SearchStrategy clusters_best = new SearchStrategy(Strategy.CLUSTER_BEST.toString(), new SelectBest(), acceptor, objectiveFunction);
         clusters_best.addModule(new RuinAndRecreateModule(Strategy.CLUSTER_BEST.toString(), best, clusters));
 
+        SearchStrategy strings_regret = new SearchStrategy(Strategy.STRING_REGRET.toString(), new SelectBest(), acceptor, objectiveFunction);
+        strings_regret.addModule(new RuinAndRecreateModule(Strategy.STRING_REGRET.toString(), regret, strings));
+
+        SearchStrategy strings_best = new SearchStrategy(Strategy.STRING_BEST.toString(), new SelectBest(), acceptor, objectiveFunction);
+        strings_best.addModule(new RuinAndRecreateModule(Strategy.STRING_BEST.toString(), best, strings));
+
+        if (toBoolean(getProperty(Parameter.LOCAL_SEARCH.toString()))) {
+            LocalSearchModule.Builder localSearchBuilder = LocalSearchModule.Builder.newInstance(vrp)
+                .setStateAndConstraintManager(stateManager, createLocalSearchConstraintManager(vrp, noiseConfigurator))
+                .setJobNeighborhoods(jobNeighborhoods)
+                .setSegmentMoves(coreConstraintsOnly);
+            if (activityInsertion != null) {
+                localSearchBuilder.setActivityInsertionCostsCalculator(activityInsertion);
+            }
+            LocalSearchModule localSearch = localSearchBuilder.build();
+            for (SearchStrategy strategy : Arrays.asList(radial_regret, radial_best, random_best, random_regret, worst_best,
+                worst_regret, clusters_regret, clusters_best, strings_regret, strings_best)) {
+                strategy.addModule(localSearch);
+            }
+        }
+
 
         PrettyAlgorithmBuilder prettyBuilder = PrettyAlgorithmBuilder.newInstance(vrp, fm, stateManager, constraintManager);
-        prettyBuilder.setRandom(random);
+        prettyBuilder.setRandom(randomStreams.newRandom("strategy"));
         if (addCoreConstraints) {
             prettyBuilder.addCoreStateAndConstraintStuff();
         }
@@ -582,7 +724,9 @@ public class Jsprit {
             .withStrategy(worst_best, toDouble(getProperty(Strategy.WORST_BEST.toString())))
             .withStrategy(worst_regret, toDouble(getProperty(Strategy.WORST_REGRET.toString())))
             .withStrategy(clusters_regret, toDouble(getProperty(Strategy.CLUSTER_REGRET.toString())))
-            .withStrategy(clusters_best, toDouble(getProperty(Strategy.CLUSTER_BEST.toString())));
+            .withStrategy(clusters_best, toDouble(getProperty(Strategy.CLUSTER_BEST.toString())))
+            .withStrategy(strings_regret, toDouble(getProperty(Strategy.STRING_REGRET.toString())))
+            .withStrategy(strings_best, toDouble(getProperty(Strategy.STRING_BEST.toString())));
         if (getProperty(Parameter.CONSTRUCTION.toString()).equals(Construction.BEST_INSERTION.toString())) {
             prettyBuilder.constructInitialSolutionWith(best, objectiveFunction);
         } else {
@@ -598,10 +742,20 @@ public class Jsprit {
         vra.addListener(noiseConfigurator);
         vra.addListener(noise);
         vra.addListener(clusters);
+        for (VehicleRoutingAlgorithmListener ruinShareListener : ruinShareListeners) {
+            vra.addListener(ruinShareListener);
+        }
+        if (toBoolean(getProperty(Parameter.ADAPTIVE_WEIGHTS.toString()))) {
+            AdaptiveStrategyWeights adaptiveWeights = new AdaptiveStrategyWeights(vra.getSearchStrategyManager());
+            adaptiveWeights.setSegmentLength(toInteger(getProperty(Parameter.ADAPTIVE_WEIGHTS_SEGMENT.toString())));
+            adaptiveWeights.setReactionFactor(toDouble(getProperty(Parameter.ADAPTIVE_WEIGHTS_REACTION.toString())));
+            vra.addListener(adaptiveWeights);
+        }
 
         if(toBoolean(getProperty(Parameter.BREAK_SCHEDULING.toString()))) {
             vra.addListener(new BreakScheduling(vrp, stateManager, constraintManager));
         }
+        vra.addCheckpointable(randomStreams);
         handleExecutorShutdown(vra);
         vra.setMaxIterations(Integer.valueOf(properties.getProperty(Parameter.ITERATIONS.toString())));
 
@@ -609,6 +763,39 @@ public class Jsprit {
 
     }
 
+    /**
+     * Local search compares the costs of removing and re-inserting jobs, thus it cannot deal with insertion noise. It
+     * gets all constraints but the noise maker, i.e. true costs.
+     */
+    private ConstraintManager createLocalSearchConstraintManager(VehicleRoutingProblem vrp, Object noiseMaker) {
+        List<Constraint> constraints = new ArrayList<Constraint>();
+        for (Constraint c : constraintManager.getConstraints()) {
+            if (c != noiseMaker) constraints.add(c);
+        }
+        ConstraintManager localSearchConstraintManager = new ConstraintManager(vrp, stateManager, constraints);
+        if (addCoreConstraints) {
+            localSearchConstraintManager.addTimeWindowConstraint();
+            localSearchConstraintManager.addLoadConstraint();
+            localSearchConstraintManager.addSkillsConstraint();
+            localSearchConstraintManager.addConstraint(new SwitchNotFeasible(stateManager));
+        }
+        return localSearchConstraintManager;
+    }
+
+    private RuinShareFactory createRuinShareFactory(String component, Parameter minShare, Parameter maxShare, List<VehicleRoutingAlgorithmListener> listeners) {
+        Random random = randomStreams.newRandom(component);
+        int min = toInteger(getProperty(minShare.toString()));
+        int max = toInteger(getProperty(maxShare.toString()));
+        if (!toBoolean(getProperty(Parameter.ADAPTIVE_RUIN_SHARE.toString()))) {
+            return new RuinShareFactoryImpl(min, max, random);
+        }
+        AdaptiveRuinShareFactory ruinShareFactory = new AdaptiveRuinShareFactory(min, max);
+        ruinShareFactory.setRandom(random);
+        ruinShareFactory.setTimeBudget(toDouble(getProperty(Parameter.ADAPTIVE_RUIN_TIME_BUDGET.toString())));
+        listeners.add(ruinShareFactory);
+        return ruinShareFactory;
+    }
+
     private DefaultScorer getRegretScorer(VehicleRoutingProblem vrp) {
         DefaultScorer scorer = new DefaultScorer(vrp);
         scorer.setTimeWindowParam(Double.valueOf(properties.getProperty(Parameter.REGRET_TIME_WINDOW_SCORER.toString())));
@@ -618,6 +805,17 @@ public class Jsprit {
 
 
     private void handleExecutorShutdown(VehicleRoutingAlgorithm vra) {
+        if (executorAcquiredFromProvider) {
+            vra.addListener(new AlgorithmEndsListener() {
+
+                @Override
+                public void informAlgorithmEnds(VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                    executorServiceProvider.release(es);
+                }
+
+            });
+            return;
+        }
         if (setupExecutorInternally) {
             vra.addListener(new AlgorithmEndsListener() {
 
@@ -658,37 +856,49 @@ public class Jsprit {
 
     private SolutionCostCalculator getObjectiveFunction(final VehicleRoutingProblem vrp, final double maxCosts) {
         if (objectiveFunction != null) return objectiveFunction;
+        return createDefaultObjectiveFunction(vrp, maxCosts);
+    }
 
-        SolutionCostCalculator solutionCostCalculator = new SolutionCostCalculator() {
-            @Override
-            public double getCosts(VehicleRoutingProblemSolution solution) {
-                double costs = 0.;
+    /**
+     * Creates the default objective function, i.e. fixed, transport and activity costs of routes plus penalties for
+     * unassigned jobs and for required breaks that are not scheduled. Both penalties are based on maxCosts.
+     */
+    static SolutionCostCalculator createDefaultObjectiveFunction(final VehicleRoutingProblem vrp, final double maxCosts) {
+        // only routes touched by ruin and recreate are evaluated again
+        SolutionCostCalculator solutionCostCalculator = new IncrementalSolutionCostCalculator() {
 
-                for (VehicleRoute route : solution.getRoutes()) {
-                    costs += route.getVehicle().getType().getVehicleCostParams().fix;
-                    boolean hasBreak = false;
-                    TourActivity prevAct = route.getStart();
-                    for (TourActivity act : route.getActivities()) {
-                        if (act instanceof BreakActivity) hasBreak = true;
-                        costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), act.getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
-                        costs += vrp.getActivityCosts().getActivityCost(act, act.getArrTime(), route.getDriver(), route.getVehicle());
-                        prevAct = act;
-                    }
-                    costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), route.getEnd().getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
-                    if (route.getVehicle().getBreak() != null) {
-                        if (!hasBreak) {
-                            //break defined and required but not assigned penalty
-                            if (route.getEnd().getArrTime() > route.getVehicle().getBreak().getTimeWindow().getEnd()) {
-                                costs += 4 * (maxCosts * 2 + route.getVehicle().getBreak().getServiceDuration() * route.getVehicle().getType().getVehicleCostParams().perServiceTimeUnit);
-                            }
+            @Override
+            protected double getRouteCosts(VehicleRoute route) {
+                double costs = route.getVehicle().getType().getVehicleCostParams().fix;
+                boolean hasBreak = false;
+                TourActivity prevAct = route.getStart();
+                for (TourActivity act : route.getActivities()) {
+                    if (act instanceof BreakActivity) hasBreak = true;
+                    costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), act.getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
+                    costs += vrp.getActivityCosts().getActivityCost(act, act.getArrTime(), route.getDriver(), route.getVehicle());
+                    prevAct = act;
+                }
+                costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), route.getEnd().getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
+                if (route.getVehicle().getBreak() != null) {
+                    if (!hasBreak) {
+                        //break defined and required but not assigned penalty
+                        if (route.getEnd().getArrTime() > route.getVehicle().getBreak().getTimeWindow().getEnd()) {
+                            costs += 4 * (maxCosts * 2 + route.getVehicle().getBreak().getServiceDuration() * route.getVehicle().getType().getVehicleCostParams().perServiceTimeUnit);
                         }
                     }
                 }
-                for(Job j : solution.getUnassignedJobs()){
+                return costs;
+            }
+
+            @Override
+            protected double getUnassignedJobCosts(Collection<Job> unassignedJobs) {
+                double costs = 0.;
+                for(Job j : unassignedJobs){
                     costs += maxCosts * 2 * (4 - j.getPriority());
                 }
                 return costs;
             }
+
         };
         return solutionCostCalculator;
     }
@@ -0,0 +1,296 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy.DiscoveredSolution;
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.RandomStreams;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Runs several ruin-and-recreate iterations concurrently, one per worker, and commits their results in a fixed
+ * order.
+ * <p>
+ * <p>Each worker is a {@link VehicleRoutingAlgorithm} created by a {@link WorkerFactory} with its own random number
+ * generator, thus each worker has its own state manager, strategy selection, insertion noise and acceptor. By
+ * default, workers are created with {@link Jsprit} and a single thread each.
+ * <p>
+ * <p>The search proceeds in rounds. In a round, every worker copies the current solutions, selects a strategy and
+ * discovers a new solution from its copy (in parallel). Then, the new solutions are passed to the acceptors of the
+ * workers' strategies in worker order (sequentially). The outcome thus only depends on the seed and the number of
+ * workers, not on thread scheduling. The workers' listeners are informed with the round as iteration and the number
+ * of rounds as max. iterations, i.e. acceptors cool down as if each worker ran alone.
+ */
+public class SpeculativeSearch {
+
+    /**
+     * Creates the algorithm of a worker.
+     */
+    public interface WorkerFactory {
+
+        public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, Random random);
+
+    }
+
+    public static class Builder {
+
+        private final VehicleRoutingProblem vrp;
+
+        private int noWorkers = Runtime.getRuntime().availableProcessors();
+
+        private long seed = 4711;
+
+        private ExecutorService executorService;
+
+        private WorkerFactory workerFactory = new WorkerFactory() {
+
+            @Override
+            public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, Random random) {
+                return Jsprit.Builder.newInstance(vrp).setRandom(random).buildAlgorithm();
+            }
+
+        };
+
+        public static Builder newInstance(VehicleRoutingProblem vrp) {
+            return new Builder(vrp);
+        }
+
+        private Builder(VehicleRoutingProblem vrp) {
+            this.vrp = vrp;
+        }
+
+        /**
+         * Sets the number of workers, i.e. the number of iterations run concurrently. Results are reproducible for
+         * a given seed and number of workers.
+         */
+        public Builder setNoWorkers(int noWorkers) {
+            if (noWorkers < 1) throw new IllegalArgumentException("noWorkers must be at least 1");
+            this.noWorkers = noWorkers;
+            return this;
+        }
+
+        /**
+         * Sets the master seed the random number generators of the workers are derived from (see {@link RandomStreams}).
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder setWorkerFactory(WorkerFactory workerFactory) {
+            this.workerFactory = workerFactory;
+            return this;
+        }
+
+        /**
+         * Sets the executor running the workers. If no executor is set, one with noWorkers threads is created and
+         * shut down internally.
+         */
+        public Builder setExecutorService(ExecutorService executorService) {
+            this.executorService = executorService;
+            return this;
+        }
+
+        public SpeculativeSearch build() {
+            return new SpeculativeSearch(this);
+        }
+
+    }
+
+    private static class Candidate {
+
+        private SearchStrategy strategy;
+
+        private VehicleRoutingProblemSolution solution;
+
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(SpeculativeSearch.class);
+
+    private final VehicleRoutingProblem vrp;
+
+    private final List<VehicleRoutingAlgorithm> workers = new ArrayList<VehicleRoutingAlgorithm>();
+
+    private final Collection<VehicleRoutingProblemSolution> initialSolutions = new ArrayList<VehicleRoutingProblemSolution>();
+
+    private final Collection<PrematureAlgorithmTermination> terminationCriteria = new ArrayList<PrematureAlgorithmTermination>();
+
+    private final ExecutorService executorService;
+
+    private int maxIterations;
+
+    private SpeculativeSearch(Builder builder) {
+        this.vrp = builder.vrp;
+        this.executorService = builder.executorService;
+        RandomStreams randomStreams = RandomStreams.newInstance(builder.seed);
+        for (int i = 0; i < builder.noWorkers; i++) {
+            workers.add(builder.workerFactory.createAlgorithm(builder.vrp, randomStreams.newRandom("worker", i)));
+        }
+        maxIterations = workers.get(0).getMaxIterations();
+    }
+
+    /**
+     * Returns the algorithms of the workers.
+     */
+    public List<VehicleRoutingAlgorithm> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Sets max. number of iterations of all workers together. Default is max. iterations of the first worker.
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Adds a termination criterion. It is checked after each committed iteration.
+     */
+    public void addTerminationCriterion(PrematureAlgorithmTermination terminationCriterion) {
+        terminationCriteria.add(terminationCriterion);
+    }
+
+    public void addInitialSolution(VehicleRoutingProblemSolution solution) {
+        initialSolutions.add(solution);
+    }
+
+    /**
+     * Runs the workers and returns the solutions.
+     *
+     * @return solutions
+     */
+    public Collection<VehicleRoutingProblemSolution> searchSolutions() {
+        long start = System.currentTimeMillis();
+        int noWorkers = workers.size();
+        int noRounds = (maxIterations + noWorkers - 1) / noWorkers;
+        for (VehicleRoutingAlgorithm worker : workers) worker.setMaxIterations(noRounds);
+        ExecutorService executor = executorService;
+        if (executor == null) executor = Executors.newFixedThreadPool(noWorkers);
+        try {
+            final Collection<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>(initialSolutions);
+            workers.get(0).getAlgorithmListeners().algorithmStarts(vrp, workers.get(0), solutions);
+            List<Callable<Candidate>> starts = new ArrayList<Callable<Candidate>>();
+            for (int w = 1; w < noWorkers; w++) {
+                final VehicleRoutingAlgorithm worker = workers.get(w);
+                starts.add(new Callable<Candidate>() {
+
+                    @Override
+                    public Candidate call() throws Exception {
+                        worker.getAlgorithmListeners().algorithmStarts(vrp, worker, copyOf(solutions));
+                        return null;
+                    }
+
+                });
+            }
+            invokeAll(executor, starts);
+            VehicleRoutingProblemSolution bestEver = Solutions.bestOf(solutions);
+            int iteration = 0;
+            boolean terminated = false;
+            for (int round = 1; round <= noRounds && !terminated; round++) {
+                int noCandidates = Math.min(noWorkers, maxIterations - iteration);
+                List<Callable<Candidate>> tasks = new ArrayList<Callable<Candidate>>(noCandidates);
+                for (int w = 0; w < noCandidates; w++) {
+                    tasks.add(discover(workers.get(w), round, solutions));
+                }
+                List<Future<Candidate>> candidates = invokeAll(executor, tasks);
+                for (int w = 0; w < noCandidates; w++) {
+                    VehicleRoutingAlgorithm worker = workers.get(w);
+                    Candidate candidate = candidates.get(w).get();
+                    DiscoveredSolution discoveredSolution = candidate.strategy.accept(solutions, candidate.solution);
+                    iteration++;
+                    if (bestEver == null || discoveredSolution.getSolution().getCost() < bestEver.getCost()) {
+                        bestEver = discoveredSolution.getSolution();
+                    }
+                    worker.getAlgorithmListeners().selectedStrategy(discoveredSolution, vrp, solutions);
+                    if (isPrematureBreak(discoveredSolution)) {
+                        logger.info("premature termination at iteration {}", iteration);
+                        terminated = true;
+                        break;
+                    }
+                    worker.getAlgorithmListeners().iterationEnds(round, vrp, solutions);
+                }
+            }
+            if (bestEver != null) solutions.add(bestEver);
+            for (VehicleRoutingAlgorithm worker : workers) worker.getAlgorithmListeners().algorithmEnds(vrp, solutions);
+            logger.info("speculative search finished [noWorkers={}][iterations={}][took={} seconds]", noWorkers, iteration,
+                (System.currentTimeMillis() - start) / 1000.0);
+            return solutions;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (executorService == null) executor.shutdown();
+        }
+    }
+
+    private Callable<Candidate> discover(final VehicleRoutingAlgorithm worker, final int round, final Collection<VehicleRoutingProblemSolution> solutions) {
+        return new Callable<Candidate>() {
+
+            @Override
+            public Candidate call() throws Exception {
+                // solutions are only read during a round, thus each worker can copy them concurrently
+                Collection<VehicleRoutingProblemSolution> copies = copyOf(solutions);
+                worker.getAlgorithmListeners().iterationStarts(round, vrp, copies);
+                Candidate candidate = new Candidate();
+                candidate.strategy = worker.getSearchStrategyManager().getRandomStrategy();
+                candidate.solution = candidate.strategy.discover(copies);
+                return candidate;
+            }
+
+        };
+    }
+
+    private boolean isPrematureBreak(DiscoveredSolution discoveredSolution) {
+        for (PrematureAlgorithmTermination termination : terminationCriteria) {
+            if (termination.isPrematureBreak(discoveredSolution)) return true;
+        }
+        return false;
+    }
+
+    private static Collection<VehicleRoutingProblemSolution> copyOf(Collection<VehicleRoutingProblemSolution> solutions) {
+        Collection<VehicleRoutingProblemSolution> copies = new ArrayList<VehicleRoutingProblemSolution>(solutions.size());
+        for (VehicleRoutingProblemSolution solution : solutions) copies.add(VehicleRoutingProblemSolution.copyOf(solution));
+        return copies;
+    }
+
+    private static <T> List<Future<T>> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        List<Future<T>> futures = executor.invokeAll(tasks);
+        for (Future<T> future : futures) future.get();
+        return futures;
+    }
+
+}
@@ -0,0 +1,428 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithmFactory;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Re-optimises a solution after the problem has changed slightly, e.g. when orders come in or are cancelled, or a
+ * vehicle breaks down during the day.
+ * <p>
+ * <p>The changed problem is derived from the previous one and a {@link Delta}. It shares transport and activity costs
+ * with the previous problem, thus cached distances and, if the algorithm is configured with a
+ * {@link com.graphhopper.jsprit.core.util.PreprocessingCache}, preprocessed neighborhoods of unchanged locations are
+ * reused. The previous solution is mapped onto the changed problem, i.e. jobs that are still valid stay where they
+ * were, whereas new, modified and orphaned jobs (jobs of removed vehicles) become unassigned. The algorithm then
+ * inserts the unassigned jobs into the existing routes before it starts searching, which usually requires only a
+ * short search to get a good solution again.
+ * <p>
+ * <pre>
+ * WarmStart warmStart = WarmStart.Builder.newInstance(vrp, solution)
+ *     .setDelta(WarmStart.Delta.Builder.newInstance().addJob(newJob).removeJob("cancelled").build())
+ *     .build();
+ * VehicleRoutingProblemSolution newSolution = Solutions.bestOf(warmStart.createAlgorithm().searchSolutions());
+ * </pre>
+ * <p>
+ * <p>Jobs and vehicles are matched by id. A job (vehicle) of the changed problem that is not the same object as
+ * the one of the previous problem is considered to be modified. Problems with initial vehicle routes are not
+ * supported.
+ * <p>
+ * <p>Dynamic problems (see {@link VehicleRoutingProblem.Builder#setDynamic(boolean)}) are changed in place. Then,
+ * the problem is passed to setProblem(...), i.e. the previous and the changed problem are the same object.
+ */
+public class WarmStart {
+
+    /**
+     * Changes of a problem, i.e. added, removed and modified jobs and vehicles.
+     */
+    public static class Delta {
+
+        public static class Builder {
+
+            public static Builder newInstance() {
+                return new Builder();
+            }
+
+            private final Map<String, Job> addedJobs = new LinkedHashMap<String, Job>();
+
+            private final Set<String> removedJobs = new LinkedHashSet<String>();
+
+            private final Map<String, Job> modifiedJobs = new LinkedHashMap<String, Job>();
+
+            private final Map<String, Vehicle> addedVehicles = new LinkedHashMap<String, Vehicle>();
+
+            private final Set<String> removedVehicles = new LinkedHashSet<String>();
+
+            private final Map<String, Vehicle> modifiedVehicles = new LinkedHashMap<String, Vehicle>();
+
+            private Builder() {
+            }
+
+            public Builder addJob(Job job) {
+                verifyUntouched(job.getId(), addedJobs.keySet(), removedJobs, modifiedJobs.keySet());
+                addedJobs.put(job.getId(), job);
+                return this;
+            }
+
+            public Builder removeJob(String jobId) {
+                verifyUntouched(jobId, addedJobs.keySet(), removedJobs, modifiedJobs.keySet());
+                removedJobs.add(jobId);
+                return this;
+            }
+
+            /**
+             * Replaces the job with the same id.
+             *
+             * @param job the modified job
+             * @return this builder
+             */
+            public Builder modifyJob(Job job) {
+                verifyUntouched(job.getId(), addedJobs.keySet(), removedJobs, modifiedJobs.keySet());
+                modifiedJobs.put(job.getId(), job);
+                return this;
+            }
+
+            public Builder addVehicle(Vehicle vehicle) {
+                verifyUntouched(vehicle.getId(), addedVehicles.keySet(), removedVehicles, modifiedVehicles.keySet());
+                addedVehicles.put(vehicle.getId(), vehicle);
+                return this;
+            }
+
+            public Builder removeVehicle(String vehicleId) {
+                verifyUntouched(vehicleId, addedVehicles.keySet(), removedVehicles, modifiedVehicles.keySet());
+                removedVehicles.add(vehicleId);
+                return this;
+            }
+
+            /**
+             * Replaces the vehicle with the same id. Jobs of its routes become unassigned.
+             *
+             * @param vehicle the modified vehicle
+             * @return this builder
+             */
+            public Builder modifyVehicle(Vehicle vehicle) {
+                verifyUntouched(vehicle.getId(), addedVehicles.keySet(), removedVehicles, modifiedVehicles.keySet());
+                modifiedVehicles.put(vehicle.getId(), vehicle);
+                return this;
+            }
+
+            private void verifyUntouched(String id, Set<String> added, Set<String> removed, Set<String> modified) {
+                if (added.contains(id) || removed.contains(id) || modified.contains(id))
+                    throw new IllegalArgumentException("delta already contains a change of " + id);
+            }
+
+            public Delta build() {
+                return new Delta(this);
+            }
+
+        }
+
+        private final Map<String, Job> addedJobs;
+
+        private final Set<String> removedJobs;
+
+        private final Map<String, Job> modifiedJobs;
+
+        private final Map<String, Vehicle> addedVehicles;
+
+        private final Set<String> removedVehicles;
+
+        private final Map<String, Vehicle> modifiedVehicles;
+
+        private Delta(Builder builder) {
+            addedJobs = new LinkedHashMap<String, Job>(builder.addedJobs);
+            removedJobs = new LinkedHashSet<String>(builder.removedJobs);
+            modifiedJobs = new LinkedHashMap<String, Job>(builder.modifiedJobs);
+            addedVehicles = new LinkedHashMap<String, Vehicle>(builder.addedVehicles);
+            removedVehicles = new LinkedHashSet<String>(builder.removedVehicles);
+            modifiedVehicles = new LinkedHashMap<String, Vehicle>(builder.modifiedVehicles);
+        }
+
+        public Collection<Job> getAddedJobs() {
+            return Collections.unmodifiableCollection(addedJobs.values());
+        }
+
+        public Set<String> getRemovedJobs() {
+            return Collections.unmodifiableSet(removedJobs);
+        }
+
+        public Collection<Job> getModifiedJobs() {
+            return Collections.unmodifiableCollection(modifiedJobs.values());
+        }
+
+        public Collection<Vehicle> getAddedVehicles() {
+            return Collections.unmodifiableCollection(addedVehicles.values());
+        }
+
+        public Set<String> getRemovedVehicles() {
+            return Collections.unmodifiableSet(removedVehicles);
+        }
+
+        public Collection<Vehicle> getModifiedVehicles() {
+            return Collections.unmodifiableCollection(modifiedVehicles.values());
+        }
+
+    }
+
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingProblem previousProblem, VehicleRoutingProblemSolution previousSolution) {
+            return new Builder(previousProblem, previousSolution);
+        }
+
+        private final VehicleRoutingProblem previousProblem;
+
+        private final VehicleRoutingProblemSolution previousSolution;
+
+        private Delta delta;
+
+        private VehicleRoutingProblem problem;
+
+        private int iterations = 200;
+
+        private VehicleRoutingAlgorithmFactory algorithmFactory;
+
+        private Builder(VehicleRoutingProblem previousProblem, VehicleRoutingProblemSolution previousSolution) {
+            this.previousProblem = previousProblem;
+            this.previousSolution = previousSolution;
+        }
+
+        /**
+         * Sets the changes of the previous problem. The changed problem is derived with {@link #apply(VehicleRoutingProblem, Delta)}.
+         *
+         * @param delta the changes
+         * @return this builder
+         */
+        public Builder setDelta(Delta delta) {
+            this.delta = delta;
+            return this;
+        }
+
+        /**
+         * Sets the changed problem directly, i.e. as an alternative to setDelta(...).
+         *
+         * @param problem the changed problem
+         * @return this builder
+         */
+        public Builder setProblem(VehicleRoutingProblem problem) {
+            this.problem = problem;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations of the default algorithm (default: 200).
+         *
+         * @param iterations number of iterations
+         * @return this builder
+         */
+        public Builder setIterations(int iterations) {
+            if (iterations < 0) throw new IllegalArgumentException("iterations must not be negative");
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * Sets the factory of the algorithm that repairs and improves the previous solution. By default, it is
+         * {@link Jsprit} with the number of iterations set by setIterations(...).
+         *
+         * @param algorithmFactory the algorithm factory
+         * @return this builder
+         */
+        public Builder setAlgorithmFactory(VehicleRoutingAlgorithmFactory algorithmFactory) {
+            this.algorithmFactory = algorithmFactory;
+            return this;
+        }
+
+        public WarmStart build() {
+            if (delta != null && problem != null)
+                throw new IllegalStateException("either set delta or changed problem, but not both");
+            if (delta == null && problem == null)
+                throw new IllegalStateException("neither delta nor changed problem has been set");
+            if (problem == null) problem = apply(previousProblem, delta);
+            if (algorithmFactory == null) {
+                algorithmFactory = new VehicleRoutingAlgorithmFactory() {
+
+                    @Override
+                    public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp) {
+                        return Jsprit.Builder.newInstance(vrp)
+                            .setProperty(Jsprit.Parameter.ITERATIONS, String.valueOf(iterations))
+                            .buildAlgorithm();
+                    }
+
+                };
+            }
+            return new WarmStart(this);
+        }
+
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(WarmStart.class);
+
+    /**
+     * Derives the changed problem from the previous problem and the delta. The changed problem shares transport
+     * costs, activity costs and fleet size with the previous problem, as well as all jobs and vehicles that are not
+     * affected by the delta. Note that shared jobs and vehicles are re-indexed, i.e. the previous problem must not be
+     * solved anymore.
+     *
+     * @param previousProblem the previous problem
+     * @param delta           the changes
+     * @return the changed problem
+     * @throws IllegalArgumentException if the delta removes or modifies jobs or vehicles that are not part of the
+     *                                  previous problem
+     */
+    public static VehicleRoutingProblem apply(VehicleRoutingProblem previousProblem, Delta delta) {
+        if (!previousProblem.getInitialVehicleRoutes().isEmpty())
+            throw new IllegalArgumentException("warm start of problems with initial vehicle routes is not supported");
+        Map<String, Job> jobs = new LinkedHashMap<String, Job>(previousProblem.getJobs());
+        for (String jobId : delta.removedJobs) {
+            if (jobs.remove(jobId) == null) throw new IllegalArgumentException("cannot remove unknown job " + jobId);
+        }
+        for (Job job : delta.modifiedJobs.values()) {
+            if (!jobs.containsKey(job.getId()))
+                throw new IllegalArgumentException("cannot modify unknown job " + job.getId());
+            jobs.put(job.getId(), job);
+        }
+        Map<String, Vehicle> vehicles = new LinkedHashMap<String, Vehicle>();
+        for (Vehicle v : previousProblem.getVehicles()) vehicles.put(v.getId(), v);
+        for (String vehicleId : delta.removedVehicles) {
+            if (vehicles.remove(vehicleId) == null)
+                throw new IllegalArgumentException("cannot remove unknown vehicle " + vehicleId);
+        }
+        for (Vehicle v : delta.modifiedVehicles.values()) {
+            if (!vehicles.containsKey(v.getId()))
+                throw new IllegalArgumentException("cannot modify unknown vehicle " + v.getId());
+            vehicles.put(v.getId(), v);
+        }
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setRoutingCost(previousProblem.getTransportCosts())
+            .setActivityCosts(previousProblem.getActivityCosts())
+            .setFleetSize(previousProblem.getFleetSize())
+            .addAllJobs(jobs.values())
+            .addAllJobs(delta.addedJobs.values())
+            .addAllVehicles(vehicles.values())
+            .addAllVehicles(delta.addedVehicles.values());
+        return vrpBuilder.build();
+    }
+
+    /**
+     * Maps a solution of the previous problem onto the changed problem. Routes of vehicles that are still part of
+     * the changed problem keep the order of their remaining jobs. Removed jobs are dropped. New and modified jobs as
+     * well as jobs whose vehicle has been removed or modified are unassigned.
+     * <p>
+     * <p>The returned solution has not been evaluated yet, i.e. its costs are Double.MAX_VALUE. Algorithms built with
+     * {@link com.graphhopper.jsprit.core.algorithm.PrettyAlgorithmBuilder} (e.g. {@link Jsprit}) repair such initial
+     * solutions by inserting the unassigned jobs before searching.
+     *
+     * @param previousProblem  the previous problem
+     * @param previousSolution the solution of the previous problem
+     * @param problem          the changed problem
+     * @return the partial solution of the changed problem
+     */
+    public static VehicleRoutingProblemSolution repair(VehicleRoutingProblem previousProblem, VehicleRoutingProblemSolution previousSolution, VehicleRoutingProblem problem) {
+        Map<String, Vehicle> vehicles = new HashMap<String, Vehicle>();
+        for (Vehicle v : problem.getVehicles()) vehicles.put(v.getId(), v);
+        Set<Job> assignedJobs = new HashSet<Job>();
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (VehicleRoute previousRoute : previousSolution.getRoutes()) {
+            Vehicle vehicle = vehicles.get(previousRoute.getVehicle().getId());
+            if (vehicle != previousRoute.getVehicle()) continue;
+            VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle, previousRoute.getDriver())
+                .setJobActivityFactory(problem.getJobActivityFactory()).build();
+            for (TourActivity act : previousRoute.getActivities()) {
+                if (!(act instanceof TourActivity.JobActivity)) continue;
+                Job previousJob = ((TourActivity.JobActivity) act).getJob();
+                Job job = problem.getJobs().get(previousJob.getId());
+                if (job != previousJob) continue;
+                route.getTourActivities().addActivity(problem.copyAndGetActivities(job).get(position(previousProblem, previousJob, act)));
+                assignedJobs.add(job);
+            }
+            if (!route.isEmpty()) routes.add(route);
+        }
+        List<Job> unassignedJobs = new ArrayList<Job>();
+        for (Job job : problem.getJobs().values()) {
+            if (!assignedJobs.contains(job)) unassignedJobs.add(job);
+        }
+        logger.debug("mapped previous solution: [routes={}][unassigned={}]", routes.size(), unassignedJobs.size());
+        return new VehicleRoutingProblemSolution(routes, unassignedJobs, Double.MAX_VALUE);
+    }
+
+    private static int position(VehicleRoutingProblem previousProblem, Job job, TourActivity act) {
+        List<? extends TourActivity> acts = previousProblem.getActivities(job);
+        for (int i = 0; i < acts.size(); i++) {
+            if (acts.get(i).getIndex() == act.getIndex()) return i;
+        }
+        // job has been removed from and added to a dynamic problem again, i.e. its activities have new indices
+        for (int i = 0; i < acts.size(); i++) {
+            if (acts.get(i).getName().equals(act.getName())) return i;
+        }
+        throw new IllegalArgumentException("activity " + act + " does not belong to previous problem");
+    }
+
+    private final VehicleRoutingProblem problem;
+
+    private final VehicleRoutingProblemSolution initialSolution;
+
+    private final VehicleRoutingAlgorithmFactory algorithmFactory;
+
+    private WarmStart(Builder builder) {
+        problem = builder.problem;
+        initialSolution = repair(builder.previousProblem, builder.previousSolution, problem);
+        algorithmFactory = builder.algorithmFactory;
+    }
+
+    /**
+     * @return the changed problem
+     */
+    public VehicleRoutingProblem getProblem() {
+        return problem;
+    }
+
+    /**
+     * @return the previous solution mapped onto the changed problem, i.e. before unassigned jobs are inserted
+     */
+    public VehicleRoutingProblemSolution getInitialSolution() {
+        return initialSolution;
+    }
+
+    /**
+     * Creates an algorithm for the changed problem that starts with the previous solution. Each call creates a new
+     * algorithm with a fresh copy of the initial solution.
+     *
+     * @return the algorithm
+     */
+    public VehicleRoutingAlgorithm createAlgorithm() {
+        VehicleRoutingAlgorithm vra = algorithmFactory.createAlgorithm(problem);
+        VehicleRoutingProblemSolution solution = VehicleRoutingProblemSolution.copyOf(initialSolution);
+        solution.setCost(Double.MAX_VALUE);
+        vra.addInitialSolution(solution);
+        return vra;
+    }
+
+}
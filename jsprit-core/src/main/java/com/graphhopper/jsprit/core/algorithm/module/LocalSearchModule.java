@@ -0,0 +1,812 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.module;
+
+import com.graphhopper.jsprit.core.algorithm.AlgorithmUtil;
+import com.graphhopper.jsprit.core.algorithm.SearchStrategyModule;
+import com.graphhopper.jsprit.core.algorithm.listener.SearchStrategyModuleListener;
+import com.graphhopper.jsprit.core.algorithm.recreate.ActivityInsertionCostsCalculator;
+import com.graphhopper.jsprit.core.algorithm.recreate.LocalActivityInsertionCostsCalculator;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoodsFactory;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.RouteSegment;
+import com.graphhopper.jsprit.core.algorithm.state.RouteSegments;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.misc.ActivityContext;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Improves a solution by local search until it is a local optimum (or until the max. number of passes is reached).
+ * <p>
+ * <p>The following moves are applied, all restricted to the granular neighbourhood of a job, i.e. to its nearest
+ * neighbours according to {@link JobNeighborhoods}:
+ * <ul>
+ * <li>relocate: a job is moved next to (before or after) one of its neighbours, in the same or in another route</li>
+ * <li>swap*: a job and one of its neighbours in another route exchange routes, each being inserted at its best
+ * position next to its own neighbours in the other route or at the position the other job has left</li>
+ * <li>or-opt: a chain of two or three consecutive jobs starting or ending with the job is moved next to one of the
+ * job's neighbours in another route</li>
+ * <li>2-opt*: the tails of the job's route and of a neighbour's route are exchanged such that the job and its
+ * neighbour become adjacent</li>
+ * </ul>
+ * Relocate and swap* are evaluated like insertions, i.e. with the hard and soft constraints of the
+ * {@link ConstraintManager} and the {@link ActivityInsertionCostsCalculator}, such that each position is checked in
+ * constant time based on the states of the {@link StateManager}. The savings of removing a job are calculated from the
+ * states as well, without changing the route. Moves within a route and swaps can only be checked once the jobs are
+ * removed, which takes O(n) since states need to be updated. Thus, their costs are estimated first, and they are only
+ * checked if the estimation is improving. The first improving move is applied.
+ * <p>
+ * <p>Or-opt and 2-opt* (segment moves) are checked in constant time with the {@link RouteSegments} of the routes
+ * involved, i.e. against time windows and capacities, and against hard route constraints of the moved jobs. Their costs
+ * are the changes of transport costs and fixed costs. Thus they must only be enabled if there are no other hard
+ * activity constraints (see {@link Builder#setSegmentMoves(boolean)}). 2-opt* is only applied to routes whose vehicles
+ * share the same type identifier, and tails must consist of movable jobs only.
+ * <p>
+ * <p>Only services of the problem are moved. Shipments, breaks and jobs of initial routes stay where they are. The
+ * module modifies the solution it gets, but it does not update its costs. When used within a
+ * {@link com.graphhopper.jsprit.core.algorithm.SearchStrategy} this is done by the strategy; when used to
+ * post-optimise a solution, the costs need to be recalculated with the objective function.
+ */
+public class LocalSearchModule implements SearchStrategyModule {
+
+    public static class Builder {
+
+        public static Builder newInstance(VehicleRoutingProblem vrp) {
+            return new Builder(vrp);
+        }
+
+        private final VehicleRoutingProblem vrp;
+
+        private StateManager stateManager;
+
+        private ConstraintManager constraintManager;
+
+        private JobNeighborhoods jobNeighborhoods;
+
+        private ActivityInsertionCostsCalculator activityInsertionCostsCalculator;
+
+        private int noNeighbors = 15;
+
+        private int maxPasses = 10;
+
+        private Boolean segmentMoves;
+
+        private String name = "local_search";
+
+        private Builder(VehicleRoutingProblem vrp) {
+            this.vrp = vrp;
+        }
+
+        /**
+         * Sets the state manager and the constraint manager moves are evaluated with. If they are not set, the module
+         * creates its own ones with the core constraints (time windows, capacities and skills).
+         */
+        public Builder setStateAndConstraintManager(StateManager stateManager, ConstraintManager constraintManager) {
+            this.stateManager = stateManager;
+            this.constraintManager = constraintManager;
+            return this;
+        }
+
+        /**
+         * Sets the neighbourhoods moves are restricted to. If they are not set, they are calculated when building the
+         * module.
+         */
+        public Builder setJobNeighborhoods(JobNeighborhoods jobNeighborhoods) {
+            this.jobNeighborhoods = jobNeighborhoods;
+            return this;
+        }
+
+        public Builder setActivityInsertionCostsCalculator(ActivityInsertionCostsCalculator activityInsertionCostsCalculator) {
+            this.activityInsertionCostsCalculator = activityInsertionCostsCalculator;
+            return this;
+        }
+
+        /**
+         * Sets the number of nearest neighbours of a job that are considered as its new neighbours (default: 15).
+         */
+        public Builder setNoNeighbors(int noNeighbors) {
+            if (noNeighbors < 1) throw new IllegalArgumentException("number of neighbors must be positive");
+            this.noNeighbors = noNeighbors;
+            return this;
+        }
+
+        /**
+         * Sets the max. number of passes over all jobs (default: 10). Since soft constraints such as insertion noise
+         * can change the costs of moves, a local optimum is not guaranteed to be reached otherwise.
+         */
+        public Builder setMaxPasses(int maxPasses) {
+            if (maxPasses < 1) throw new IllegalArgumentException("max. number of passes must be positive");
+            this.maxPasses = maxPasses;
+            return this;
+        }
+
+        /**
+         * Enables or disables or-opt and 2-opt*. These moves are checked with route segments, i.e. only against time
+         * windows, capacities and hard route constraints, thus they must only be enabled if there are no other hard
+         * activity constraints. If enabled, the state manager updates route
+         * segments (see {@link StateManager#updateRouteSegmentStates()}).
+         * <p>
+         * <p>By default, they are enabled if the module creates its own state and constraint manager, and disabled
+         * otherwise.
+         *
+         * @param segmentMoves true if segment moves are to be applied
+         * @return this builder
+         */
+        public Builder setSegmentMoves(boolean segmentMoves) {
+            this.segmentMoves = segmentMoves;
+            return this;
+        }
+
+        public Builder setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public LocalSearchModule build() {
+            if ((stateManager == null) != (constraintManager == null)) {
+                throw new IllegalArgumentException("state manager and constraint manager need to be set both or none of them");
+            }
+            if (stateManager == null) {
+                stateManager = new StateManager(vrp);
+                constraintManager = new ConstraintManager(vrp, stateManager);
+                AlgorithmUtil.addCoreConstraints(constraintManager, stateManager, vrp);
+                if (segmentMoves == null) segmentMoves = true;
+            }
+            if (segmentMoves == null) segmentMoves = false;
+            if (segmentMoves) stateManager.updateRouteSegmentStates();
+            if (jobNeighborhoods == null) {
+                jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), Math.min(noNeighbors, vrp.getJobs().size()));
+                jobNeighborhoods.initialise();
+            }
+            if (activityInsertionCostsCalculator == null) {
+                activityInsertionCostsCalculator = new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), stateManager);
+            }
+            return new LocalSearchModule(this);
+        }
+
+    }
+
+    private static class Removal {
+
+        final VehicleRoute route;
+
+        final int index;
+
+        final TourActivity activity;
+
+        final double earliestStart;
+
+        final double latestStart;
+
+        Removal(VehicleRoute route, int index, TourActivity activity) {
+            this.route = route;
+            this.index = index;
+            this.activity = activity;
+            this.earliestStart = activity.getTheoreticalEarliestOperationStartTime();
+            this.latestStart = activity.getTheoreticalLatestOperationStartTime();
+        }
+
+    }
+
+    private static class Insertion {
+
+        final VehicleRoute route;
+
+        final int index;
+
+        final double earliestStart;
+
+        final double latestStart;
+
+        final double costs;
+
+        final boolean estimated;
+
+        Insertion(VehicleRoute route, int index, double earliestStart, double latestStart, double costs, boolean estimated) {
+            this.route = route;
+            this.index = index;
+            this.earliestStart = earliestStart;
+            this.latestStart = latestStart;
+            this.costs = costs;
+            this.estimated = estimated;
+        }
+
+    }
+
+    private static final double EPSILON = 1e-6;
+
+    private static final int MAX_CHAIN_LENGTH = 3;
+
+    private final VehicleRoutingProblem vrp;
+
+    private final StateManager stateManager;
+
+    private final ConstraintManager constraintManager;
+
+    private final JobNeighborhoods jobNeighborhoods;
+
+    private final ActivityInsertionCostsCalculator activityInsertionCostsCalculator;
+
+    private final int noNeighbors;
+
+    private final int maxPasses;
+
+    private final boolean segmentMoves;
+
+    private final String name;
+
+    private Map<Job, VehicleRoute> routeOf;
+
+    private Map<Job, Integer> lastEvaluated;
+
+    private Map<VehicleRoute, Integer> lastModified;
+
+    private Map<VehicleRoute, Integer> lastFixedPosition;
+
+    private int noMoves;
+
+    private LocalSearchModule(Builder builder) {
+        this.vrp = builder.vrp;
+        this.stateManager = builder.stateManager;
+        this.constraintManager = builder.constraintManager;
+        this.jobNeighborhoods = builder.jobNeighborhoods;
+        this.activityInsertionCostsCalculator = builder.activityInsertionCostsCalculator;
+        this.noNeighbors = builder.noNeighbors;
+        this.maxPasses = builder.maxPasses;
+        this.segmentMoves = builder.segmentMoves;
+        this.name = builder.name;
+    }
+
+    @Override
+    public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
+        stateManager.informInsertionStarts(vrpSolution.getRoutes(), vrpSolution.getUnassignedJobs());
+        routeOf = new HashMap<Job, VehicleRoute>();
+        List<Service> services = new ArrayList<Service>();
+        for (VehicleRoute route : vrpSolution.getRoutes()) {
+            for (TourActivity act : route.getActivities()) {
+                if (!(act instanceof JobActivity)) continue;
+                Job job = ((JobActivity) act).getJob();
+                if (job instanceof Service && !(job instanceof Break) && vrp.getJobs().containsKey(job.getId())) {
+                    routeOf.put(job, route);
+                    services.add((Service) job);
+                }
+            }
+        }
+        lastEvaluated = new HashMap<Job, Integer>();
+        lastModified = new HashMap<VehicleRoute, Integer>();
+        lastFixedPosition = new HashMap<VehicleRoute, Integer>();
+        for (VehicleRoute route : vrpSolution.getRoutes()) {
+            lastFixedPosition.put(route, findLastFixedPosition(route));
+        }
+        noMoves = 0;
+        boolean improved = true;
+        int pass = 0;
+        while (improved && pass < maxPasses) {
+            improved = false;
+            pass++;
+            for (Service service : services) {
+                if (!isWorthEvaluating(service)) continue;
+                lastEvaluated.put(service, noMoves);
+                if (improve(service)) improved = true;
+            }
+        }
+        Iterator<VehicleRoute> routeIterator = vrpSolution.getRoutes().iterator();
+        while (routeIterator.hasNext()) {
+            if (routeIterator.next().isEmpty()) routeIterator.remove();
+        }
+        routeOf = null;
+        lastEvaluated = null;
+        lastModified = null;
+        lastFixedPosition = null;
+        return vrpSolution;
+    }
+
+    /**
+     * Tries to relocate the job, to swap it with its neighbours in other routes and, if enabled, to apply or-opt and
+     * 2-opt*. Relocations to other routes are insertions into routes that do not change otherwise, thus they are
+     * checked right away. Relocations within the route and swaps are only checked if their estimated costs are
+     * improving.
+     */
+    private boolean improve(Service job) {
+        VehicleRoute route = routeOf.get(job);
+        int index = route.getTourActivities().indexOf(job);
+        TourActivity activity = route.getActivities().get(index);
+        double savings = removalSavings(route, job, activity, index);
+        // the activity to be inserted is a copy, since its time window is changed when evaluating insertions
+        TourActivity moved = activity.duplicate();
+        Insertion best = bestInsertion(job, moved, activity, null, route, null);
+        boolean relocate = best != null && best.costs - savings < -EPSILON;
+        if (relocate && !best.estimated) {
+            removeActivities(route, index, index + 1);
+            insert(job, moved, best);
+            changed(route);
+            changed(best.route);
+            return true;
+        }
+        List<Service> swapCandidates = new ArrayList<Service>();
+        Iterator<Job> neighbors = jobNeighborhoods.getNearestNeighborsIterator(noNeighbors, job);
+        while (neighbors.hasNext()) {
+            Job neighbor = neighbors.next();
+            if (!routeOf.containsKey(neighbor) || routeOf.get(neighbor) == route) continue;
+            if (isSwapPromising(job, route, index, activity, moved, savings, (Service) neighbor)) {
+                swapCandidates.add((Service) neighbor);
+            }
+        }
+        if ((relocate || !swapCandidates.isEmpty()) && improveExactly(job, relocate, swapCandidates)) return true;
+        if (!segmentMoves) return false;
+        return orOpt(job, route, index) || twoOptStar(job, route, index);
+    }
+
+    /**
+     * Estimates the costs of swapping the jobs on the routes as they are, i.e. without checking hard constraints.
+     */
+    private boolean isSwapPromising(Service job, VehicleRoute route, int index, TourActivity activity, TourActivity moved, double savings, Service other) {
+        VehicleRoute otherRoute = routeOf.get(other);
+        int otherIndex = otherRoute.getTourActivities().indexOf(other);
+        TourActivity otherActivity = otherRoute.getActivities().get(otherIndex);
+        double totalSavings = savings + removalSavings(otherRoute, other, otherActivity, otherIndex);
+        Insertion insertion = bestInsertion(job, moved, otherActivity, otherRoute, otherRoute,
+            evaluate(otherRoute, job, moved, otherIndex, activityAt(otherRoute, otherIndex), activityAt(otherRoute, otherIndex + 2), true));
+        if (insertion == null) return false;
+        TourActivity otherMoved = otherActivity.duplicate();
+        Insertion otherInsertion = bestInsertion(other, otherMoved, activity, route, route,
+            evaluate(route, other, otherMoved, index, activityAt(route, index), activityAt(route, index + 2), true));
+        return otherInsertion != null && insertion.costs + otherInsertion.costs - totalSavings < -EPSILON;
+    }
+
+    /**
+     * Removes the job, and checks relocations (if specified) and swaps with the specified candidates. The job is
+     * removed only once for all moves, and it is restored if no move is improving.
+     */
+    private boolean improveExactly(Service job, boolean relocate, List<Service> swapCandidates) {
+        Removal removal = remove(job);
+        Insertion reinsertion = evaluate(removal.route, job, removal.activity, removal.index, null, false);
+        if (reinsertion == null) {
+            //savings unknown, thus the job is not moved at all
+            restore(job, removal);
+            return false;
+        }
+        double savings = reinsertion.costs;
+        if (relocate) {
+            Insertion best = bestInsertion(job, removal.activity, null, null, null, null);
+            if (best != null && best.costs - savings < -EPSILON) {
+                insert(job, removal.activity, best);
+                changed(removal.route);
+                if (best.route != removal.route) changed(best.route);
+                return true;
+            }
+        }
+        for (Service other : swapCandidates) {
+            if (swap(job, removal, savings, other)) return true;
+        }
+        restore(job, removal);
+        return false;
+    }
+
+    private boolean swap(Service job, Removal removal, double savings, Service other) {
+        Removal otherRemoval = remove(other);
+        Insertion otherReinsertion = evaluate(otherRemoval.route, other, otherRemoval.activity, otherRemoval.index, null, false);
+        if (otherReinsertion == null) {
+            restore(other, otherRemoval);
+            return false;
+        }
+        double totalSavings = savings + otherReinsertion.costs;
+        Insertion insertion = bestInsertion(job, removal.activity, null, otherRemoval.route, null,
+            evaluate(otherRemoval.route, job, removal.activity, otherRemoval.index, null, false));
+        Insertion otherInsertion = bestInsertion(other, otherRemoval.activity, null, removal.route, null,
+            evaluate(removal.route, other, otherRemoval.activity, removal.index, null, false));
+        if (insertion != null && otherInsertion != null && insertion.costs + otherInsertion.costs - totalSavings < -EPSILON) {
+            insert(job, removal.activity, insertion);
+            insert(other, otherRemoval.activity, otherInsertion);
+            changed(removal.route);
+            changed(otherRemoval.route);
+            return true;
+        }
+        restore(other, otherRemoval);
+        return false;
+    }
+
+    /**
+     * Moves a chain of consecutive jobs starting with the job behind a neighbour, or a chain ending with the job in
+     * front of a neighbour, in another route.
+     */
+    private boolean orOpt(Service job, VehicleRoute route, int index) {
+        RouteSegments segments = getSegments(route);
+        if (segments == null) return false;
+        List<TourActivity> activities = route.getActivities();
+        VehicleRoute bestRoute = null;
+        int bestFirst = -1;
+        int bestLast = -1;
+        int bestIndex = -1;
+        double bestCosts = -EPSILON;
+        for (int length = 2; length <= MAX_CHAIN_LENGTH; length++) {
+            for (int first : new int[]{index, index - length + 1}) {
+                int last = first + length - 1;
+                if (first < 0 || last >= activities.size() || !isMovable(activities, first, last)) continue;
+                if (!segments.isRemovalFeasible(first + 1, last + 1)) continue;
+                double savings = chainRemovalSavings(route, first, last);
+                Iterator<Job> neighbors = jobNeighborhoods.getNearestNeighborsIterator(noNeighbors, job);
+                while (neighbors.hasNext()) {
+                    Job neighbor = neighbors.next();
+                    VehicleRoute otherRoute = routeOf.get(neighbor);
+                    if (otherRoute == null || otherRoute == route) continue;
+                    RouteSegments otherSegments = getSegments(otherRoute);
+                    if (otherSegments == null) continue;
+                    int neighborIndex = otherRoute.getTourActivities().indexOf(neighbor);
+                    int insertionIndex = first == index ? neighborIndex + 1 : neighborIndex;
+                    Double costs = chainInsertionCosts(otherRoute, otherSegments, activities, first, last, insertionIndex);
+                    if (costs != null && costs - savings < bestCosts) {
+                        bestCosts = costs - savings;
+                        bestRoute = otherRoute;
+                        bestFirst = first;
+                        bestLast = last;
+                        bestIndex = insertionIndex;
+                    }
+                }
+            }
+        }
+        if (bestRoute == null) return false;
+        moveChain(route, bestFirst, bestLast, bestRoute, bestIndex);
+        return true;
+    }
+
+    /**
+     * Exchanges the tails of the job's route and of a neighbour's route such that the job is followed by the
+     * neighbour, or the neighbour by the job.
+     */
+    private boolean twoOptStar(Service job, VehicleRoute route, int index) {
+        RouteSegments segments = getSegments(route);
+        if (segments == null) return false;
+        VehicleRoute bestRoute = null;
+        int bestCut = -1;
+        int bestOtherCut = -1;
+        double bestCosts = -EPSILON;
+        Iterator<Job> neighbors = jobNeighborhoods.getNearestNeighborsIterator(noNeighbors, job);
+        while (neighbors.hasNext()) {
+            Job neighbor = neighbors.next();
+            VehicleRoute otherRoute = routeOf.get(neighbor);
+            if (otherRoute == null || otherRoute == route) continue;
+            if (!otherRoute.getVehicle().getVehicleTypeIdentifier().equals(route.getVehicle().getVehicleTypeIdentifier())) continue;
+            RouteSegments otherSegments = getSegments(otherRoute);
+            if (otherSegments == null) continue;
+            int neighborIndex = otherRoute.getTourActivities().indexOf(neighbor);
+            // positions are activity indices + 1, a route is cut behind the position specified
+            int[][] cuts = {{index + 1, neighborIndex}, {index, neighborIndex + 1}};
+            for (int[] cut : cuts) {
+                Double costs = crossoverCosts(route, segments, cut[0], otherRoute, otherSegments, cut[1]);
+                if (costs != null && costs < bestCosts) {
+                    bestCosts = costs;
+                    bestRoute = otherRoute;
+                    bestCut = cut[0];
+                    bestOtherCut = cut[1];
+                }
+            }
+        }
+        if (bestRoute == null) return false;
+        crossover(route, bestCut, bestRoute, bestOtherCut);
+        return true;
+    }
+
+    /**
+     * A job is evaluated again only if its route or a route of one of its neighbours has been modified since its last
+     * evaluation.
+     */
+    private boolean isWorthEvaluating(Service job) {
+        Integer evaluated = lastEvaluated.get(job);
+        if (evaluated == null || modifiedSince(routeOf.get(job), evaluated)) return true;
+        Iterator<Job> neighbors = jobNeighborhoods.getNearestNeighborsIterator(noNeighbors, job);
+        while (neighbors.hasNext()) {
+            VehicleRoute route = routeOf.get(neighbors.next());
+            if (route != null && modifiedSince(route, evaluated)) return true;
+        }
+        return false;
+    }
+
+    private boolean modifiedSince(VehicleRoute route, int move) {
+        Integer modified = lastModified.get(route);
+        return modified != null && modified > move;
+    }
+
+    private void changed(VehicleRoute route) {
+        stateManager.reCalculateStates(route);
+        lastFixedPosition.put(route, findLastFixedPosition(route));
+        lastModified.put(route, ++noMoves);
+    }
+
+    /**
+     * Returns the savings of removing the activity, i.e. the costs of inserting it at its current position, based on
+     * the current states of the route.
+     */
+    private double removalSavings(VehicleRoute route, Service job, TourActivity activity, int index) {
+        JobInsertionContext insertionContext = new JobInsertionContext(route, job, route.getVehicle(), route.getDriver(), route.getDepartureTime());
+        insertionContext.getAssociatedActivities().add(activity);
+        ActivityContext activityContext = new ActivityContext();
+        activityContext.setInsertionIndex(index);
+        insertionContext.setActivityContext(activityContext);
+        TourActivity prevAct = activityAt(route, index);
+        TourActivity nextAct = activityAt(route, index + 2);
+        double prevActDepTime = prevAct.getEndTime();
+        double savings = constraintManager.getCosts(insertionContext)
+            + constraintManager.getCosts(insertionContext, prevAct, activity, nextAct, prevActDepTime)
+            + activityInsertionCostsCalculator.getCosts(insertionContext, prevAct, nextAct, activity, prevActDepTime);
+        if (route.getActivities().size() == 1) savings += route.getVehicle().getType().getVehicleCostParams().fix;
+        return savings;
+    }
+
+    /**
+     * Evaluates the positions before and after the neighbours of the specified job, except for positions next to
+     * the excluded activity, which is going to be removed. If route is not null, only neighbours in this route are
+     * considered. Insertions into estimatedRoute are only estimated, i.e. hard constraints are not checked.
+     */
+    private Insertion bestInsertion(Service job, TourActivity activity, TourActivity excluded, VehicleRoute route, VehicleRoute estimatedRoute, Insertion best) {
+        Iterator<Job> neighbors = jobNeighborhoods.getNearestNeighborsIterator(noNeighbors, job);
+        while (neighbors.hasNext()) {
+            Job neighbor = neighbors.next();
+            VehicleRoute neighborRoute = routeOf.get(neighbor);
+            if (neighborRoute == null || (route != null && neighborRoute != route)) continue;
+            int index = neighborRoute.getTourActivities().indexOf(neighbor);
+            if (index < 0) continue;
+            best = better(best, evaluate(neighborRoute, job, activity, index, excluded, neighborRoute == estimatedRoute));
+            best = better(best, evaluate(neighborRoute, job, activity, index + 1, excluded, neighborRoute == estimatedRoute));
+        }
+        return best;
+    }
+
+    private Insertion evaluate(VehicleRoute route, Service job, TourActivity activity, int index, TourActivity excluded, boolean estimate) {
+        TourActivity prevAct = activityAt(route, index);
+        TourActivity nextAct = activityAt(route, index + 1);
+        if (prevAct == excluded || nextAct == excluded) return null;
+        return evaluate(route, job, activity, index, prevAct, nextAct, estimate);
+    }
+
+    /**
+     * Evaluates inserting the job between prevAct and nextAct. If the insertion is only to be estimated, hard
+     * constraints are not checked.
+     */
+    private Insertion evaluate(VehicleRoute route, Service job, TourActivity activity, int index, TourActivity prevAct, TourActivity nextAct, boolean estimate) {
+        JobInsertionContext insertionContext = new JobInsertionContext(route, job, route.getVehicle(), route.getDriver(), route.getDepartureTime());
+        insertionContext.getAssociatedActivities().add(activity);
+        if (!estimate && !constraintManager.fulfilled(insertionContext)) return null;
+        double routeCosts = constraintManager.getCosts(insertionContext);
+        if (route.isEmpty()) routeCosts += route.getVehicle().getType().getVehicleCostParams().fix;
+        double prevActDepTime = prevAct.getEndTime();
+        Insertion best = null;
+        for (TimeWindow timeWindow : job.getTimeWindows()) {
+            activity.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
+            activity.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
+            ActivityContext activityContext = new ActivityContext();
+            activityContext.setInsertionIndex(index);
+            insertionContext.setActivityContext(activityContext);
+            if (!estimate) {
+                ConstraintsStatus status = constraintManager.fulfilled(insertionContext, prevAct, activity, nextAct, prevActDepTime);
+                if (!status.equals(ConstraintsStatus.FULFILLED)) continue;
+            }
+            double costs = routeCosts + constraintManager.getCosts(insertionContext, prevAct, activity, nextAct, prevActDepTime)
+                + activityInsertionCostsCalculator.getCosts(insertionContext, prevAct, nextAct, activity, prevActDepTime);
+            best = better(best, new Insertion(route, index, timeWindow.getStart(), timeWindow.getEnd(), costs, estimate));
+        }
+        return best;
+    }
+
+    private static Insertion better(Insertion best, Insertion candidate) {
+        if (candidate == null) return best;
+        if (best == null || candidate.costs < best.costs) return candidate;
+        return best;
+    }
+
+    private double chainRemovalSavings(VehicleRoute route, int first, int last) {
+        List<TourActivity> activities = route.getActivities();
+        double savings = transportCosts(route, activityAt(route, first), activities.get(first))
+            + transportCosts(route, activities.get(last), activityAt(route, last + 2))
+            - transportCosts(route, activityAt(route, first), activityAt(route, last + 2));
+        for (int i = first + 1; i <= last; i++) {
+            savings += transportCosts(route, activities.get(i - 1), activities.get(i));
+        }
+        if (last - first + 1 == activities.size()) savings += route.getVehicle().getType().getVehicleCostParams().fix;
+        return savings;
+    }
+
+    /**
+     * Returns the costs of inserting the chain first..last of activities in front of the activity at index, or null
+     * if this is not feasible.
+     */
+    private Double chainInsertionCosts(VehicleRoute route, RouteSegments segments, List<TourActivity> activities, int first, int last, int index) {
+        for (int i = first; i <= last; i++) {
+            JobInsertionContext insertionContext = new JobInsertionContext(route, ((JobActivity) activities.get(i)).getJob(), route.getVehicle(), route.getDriver(), route.getDepartureTime());
+            insertionContext.getAssociatedActivities().add(activities.get(i));
+            if (!constraintManager.fulfilled(insertionContext)) return null;
+        }
+        RouteSegment chain = segments.createSegment(activities.get(first));
+        double costs = 0.;
+        for (int i = first + 1; i <= last; i++) {
+            chain = chain.concat(segments.createSegment(activities.get(i)), segments.getTransportTime(activities.get(i - 1).getLocation(), activities.get(i).getLocation()));
+            costs += transportCosts(route, activities.get(i - 1), activities.get(i));
+        }
+        if (!segments.isInsertionFeasible(index, chain, activities.get(first).getLocation(), activities.get(last).getLocation())) return null;
+        TourActivity prevAct = activityAt(route, index);
+        TourActivity nextAct = activityAt(route, index + 1);
+        return costs + transportCosts(route, prevAct, activities.get(first)) + transportCosts(route, activities.get(last), nextAct)
+            - transportCosts(route, prevAct, nextAct);
+    }
+
+    /**
+     * Returns the cost change of cutting both routes behind the positions specified and exchanging their tails, or
+     * null if this is not feasible or does not change anything.
+     */
+    private Double crossoverCosts(VehicleRoute route, RouteSegments segments, int cut, VehicleRoute otherRoute, RouteSegments otherSegments, int otherCut) {
+        int size = route.getActivities().size();
+        int otherSize = otherRoute.getActivities().size();
+        if ((cut == size && otherCut == otherSize) || (cut == 0 && otherCut == 0)) return null;
+        if (lastFixedPosition.get(route) > cut || lastFixedPosition.get(otherRoute) > otherCut) return null;
+        RouteSegment newRoute = segments.getForward(cut).concat(otherSegments.getBackward(otherCut + 1),
+            otherSegments.getTransportTime(segments.getLocation(cut), otherCut + 1));
+        if (!segments.isFeasible(newRoute)) return null;
+        RouteSegment newOtherRoute = otherSegments.getForward(otherCut).concat(segments.getBackward(cut + 1),
+            segments.getTransportTime(otherSegments.getLocation(otherCut), cut + 1));
+        if (!otherSegments.isFeasible(newOtherRoute)) return null;
+        double costs = transportCosts(route, activityAt(route, cut), activityAt(otherRoute, otherCut + 1))
+            + transportCosts(otherRoute, activityAt(otherRoute, otherCut), activityAt(route, cut + 1))
+            - transportCosts(route, activityAt(route, cut), activityAt(route, cut + 1))
+            - transportCosts(otherRoute, activityAt(otherRoute, otherCut), activityAt(otherRoute, otherCut + 1));
+        if (cut == 0 && otherCut == otherSize) costs -= route.getVehicle().getType().getVehicleCostParams().fix;
+        if (otherCut == 0 && cut == size) costs -= otherRoute.getVehicle().getType().getVehicleCostParams().fix;
+        return costs;
+    }
+
+    private double transportCosts(VehicleRoute route, TourActivity from, TourActivity to) {
+        if (to instanceof End && !route.getVehicle().isReturnToDepot()) return 0.;
+        return vrp.getTransportCosts().getTransportCost(from.getLocation(), to.getLocation(), from.getEndTime(), route.getDriver(), route.getVehicle());
+    }
+
+    /**
+     * Returns the activity at position, i.e. start for 0, the activity at index position - 1 and end for the number
+     * of activities + 1.
+     */
+    private static TourActivity activityAt(VehicleRoute route, int position) {
+        if (position == 0) return route.getStart();
+        List<TourActivity> activities = route.getActivities();
+        if (position > activities.size()) return route.getEnd();
+        return activities.get(position - 1);
+    }
+
+    private RouteSegments getSegments(VehicleRoute route) {
+        RouteSegments segments = stateManager.getRouteState(route, InternalStates.ROUTE_SEGMENTS, RouteSegments.class);
+        if (segments == null || segments.getVehicle() != route.getVehicle() || segments.size() != route.getActivities().size() + 2) return null;
+        return segments;
+    }
+
+    private boolean isMovable(List<TourActivity> activities, int first, int last) {
+        for (int i = first; i <= last; i++) {
+            if (!isMovable(activities.get(i))) return false;
+        }
+        return true;
+    }
+
+    private boolean isMovable(TourActivity activity) {
+        return activity instanceof JobActivity && routeOf.containsKey(((JobActivity) activity).getJob());
+    }
+
+    /**
+     * Returns the position of the last activity that must not be moved, or 0 if all activities can be moved.
+     */
+    private int findLastFixedPosition(VehicleRoute route) {
+        List<TourActivity> activities = route.getActivities();
+        for (int i = activities.size() - 1; i >= 0; i--) {
+            if (!isMovable(activities.get(i))) return i + 1;
+        }
+        return 0;
+    }
+
+    private Removal remove(Service job) {
+        VehicleRoute route = routeOf.get(job);
+        TourActivities tourActivities = route.getTourActivities();
+        // activities are duplicated when detaching a shared sequence, thus the activity to move is taken afterwards
+        tourActivities.detach();
+        int index = tourActivities.indexOf(job);
+        Removal removal = new Removal(route, index, tourActivities.getActivities().get(index));
+        tourActivities.removeActivity(removal.activity);
+        stateManager.reCalculateStates(route);
+        return removal;
+    }
+
+    private void restore(Service job, Removal removal) {
+        insert(job, removal.activity, new Insertion(removal.route, removal.index, removal.earliestStart, removal.latestStart, 0., false));
+        stateManager.reCalculateStates(removal.route);
+    }
+
+    private void insert(Service job, TourActivity activity, Insertion insertion) {
+        activity.setTheoreticalEarliestOperationStartTime(insertion.earliestStart);
+        activity.setTheoreticalLatestOperationStartTime(insertion.latestStart);
+        insertion.route.getTourActivities().addActivity(insertion.index, activity);
+        routeOf.put(job, insertion.route);
+    }
+
+    private void moveChain(VehicleRoute route, int first, int last, VehicleRoute otherRoute, int index) {
+        List<TourActivity> chain = removeActivities(route, first, last + 1);
+        TourActivities otherActivities = otherRoute.getTourActivities();
+        for (int i = 0; i < chain.size(); i++) {
+            otherActivities.addActivity(index + i, chain.get(i));
+            routeOf.put(((JobActivity) chain.get(i)).getJob(), otherRoute);
+        }
+        changed(route);
+        changed(otherRoute);
+    }
+
+    private void crossover(VehicleRoute route, int cut, VehicleRoute otherRoute, int otherCut) {
+        List<TourActivity> tail = removeActivities(route, cut, route.getActivities().size());
+        List<TourActivity> otherTail = removeActivities(otherRoute, otherCut, otherRoute.getActivities().size());
+        append(route, otherTail);
+        append(otherRoute, tail);
+        changed(route);
+        changed(otherRoute);
+    }
+
+    /**
+     * Removes the activities from index (inclusive) to toIndex (exclusive) and returns them.
+     */
+    private static List<TourActivity> removeActivities(VehicleRoute route, int fromIndex, int toIndex) {
+        TourActivities tourActivities = route.getTourActivities();
+        tourActivities.detach();
+        List<TourActivity> removed = new ArrayList<TourActivity>(tourActivities.getActivities().subList(fromIndex, toIndex));
+        for (int i = removed.size() - 1; i >= 0; i--) {
+            tourActivities.removeActivity(removed.get(i));
+        }
+        return removed;
+    }
+
+    private void append(VehicleRoute route, List<TourActivity> activities) {
+        TourActivities tourActivities = route.getTourActivities();
+        for (TourActivity activity : activities) {
+            tourActivities.addActivity(tourActivities.getActivities().size(), activity);
+            routeOf.put(((JobActivity) activity).getJob(), route);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void addModuleListener(SearchStrategyModuleListener moduleListener) {
+        // states are kept up to date by the module itself
+    }
+
+}
@@ -38,6 +38,8 @@ public final class BestInsertion extends AbstractInsertionStrategy {
 
     private JobInsertionCostsCalculator bestInsertionCostCalculator;
 
+    private InsertionCostsLowerBound lowerBound;
+
     private NoiseMaker noiseMaker = new NoiseMaker() {
 
         @Override
@@ -53,6 +55,14 @@ public final class BestInsertion extends AbstractInsertionStrategy {
         logger.debug("initialise {}", this);
     }
 
+    /**
+     * Sets a lower bound of insertion costs. Routes are then evaluated in ascending order of their lower bounds, and
+     * evaluation stops once the lower bound exceeds the best insertion costs found so far.
+     */
+    void setLowerBound(InsertionCostsLowerBound lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
     @Override
     public String toString() {
         return "[name=bestInsertion]";
@@ -67,7 +77,16 @@ public final class BestInsertion extends AbstractInsertionStrategy {
         for (Job unassignedJob : unassignedJobList) {
             Insertion bestInsertion = null;
             double bestInsertionCost = Double.MAX_VALUE;
-            for (VehicleRoute vehicleRoute : vehicleRoutes) {
+            Collection<VehicleRoute> routes = vehicleRoutes;
+            double[] lowerBounds = null;
+            if (lowerBound != null) {
+                List<VehicleRoute> sortedRoutes = new ArrayList<VehicleRoute>(vehicleRoutes.size());
+                lowerBounds = lowerBound.sort(vehicleRoutes, unassignedJob, sortedRoutes);
+                routes = sortedRoutes;
+            }
+            int routeIndex = 0;
+            for (VehicleRoute vehicleRoute : routes) {
+                if (lowerBounds != null && lowerBounds[routeIndex++] >= bestInsertionCost) break;
                 InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
                 if (iData instanceof InsertionData.NoInsertionFound) {
                     continue;
@@ -80,6 +80,8 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
 
     private ExecutorCompletionService<Insertion> completionService;
 
+    private InsertionCostsLowerBound lowerBound;
+
     public BestInsertionConcurrent(JobInsertionCostsCalculator jobInsertionCalculator, ExecutorService executorService, int nuOfBatches, VehicleRoutingProblem vehicleRoutingProblem) {
         super(vehicleRoutingProblem);
         this.insertionsListeners = new InsertionListeners();
@@ -89,6 +91,14 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
         logger.debug("initialise {}", this);
     }
 
+    /**
+     * Sets a lower bound of insertion costs. Routes of a batch are then evaluated in ascending order of their lower
+     * bounds, and evaluation stops once the lower bound exceeds the best insertion costs found in this batch.
+     */
+    void setLowerBound(InsertionCostsLowerBound lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
     @Override
     public String toString() {
         return "[name=bestInsertion]";
@@ -156,7 +166,16 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
     private Insertion getBestInsertion(Batch batch, Job unassignedJob) {
         Insertion bestInsertion = null;
         double bestInsertionCost = Double.MAX_VALUE;
-        for (VehicleRoute vehicleRoute : batch.routes) {
+        Collection<VehicleRoute> routes = batch.routes;
+        double[] lowerBounds = null;
+        if (lowerBound != null) {
+            List<VehicleRoute> sortedRoutes = new ArrayList<VehicleRoute>(batch.routes.size());
+            lowerBounds = lowerBound.sort(batch.routes, unassignedJob, sortedRoutes);
+            routes = sortedRoutes;
+        }
+        int routeIndex = 0;
+        for (VehicleRoute vehicleRoute : routes) {
+            if (lowerBounds != null && lowerBounds[routeIndex++] >= bestInsertionCost) break;
             InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
             if (iData instanceof NoInsertionFound) {
                 continue;
@@ -76,6 +76,12 @@ public class InsertionBuilder {
 
     private boolean isFastRegret = false;
 
+    private int regretK = 2;
+
+    private boolean routeLowerBoundPruning = false;
+
+    private boolean routeSegmentsFastPath = false;
+
     public InsertionBuilder(VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, StateManager stateManager, ConstraintManager constraintManager) {
         super();
         this.vrp = vrp;
@@ -110,6 +116,52 @@ public class InsertionBuilder {
     }
 
 
+    /**
+     * Sets k of the regret insertion. If k is greater than 2, a k-regret insertion is built that considers the k best
+     * route alternatives of a job instead of just the best and the second best.
+     *
+     * @param k number of alternatives to be considered
+     * @return builder
+     */
+    public InsertionBuilder setRegretK(int k) {
+        if (k < 2) throw new IllegalArgumentException("k must be at least 2");
+        this.regretK = k;
+        return this;
+    }
+
+    /**
+     * If true, best insertion skips routes whose lower bound of insertion costs is not lower than the best insertion
+     * costs found so far. The lower bound is derived from route summary states, i.e. it does not need to iterate
+     * over the route's activities. It only applies to the best insertion strategy.
+     * <p>
+     * <p>Pruning assumes that transport costs and times satisfy the triangle inequality and are not time-dependent, and
+     * that activity costs and soft constraints do not decrease insertion costs. Since the bound is determined with the
+     * route's current vehicle, vehicle switch must not be allowed.
+     *
+     * @param routeLowerBoundPruning true if routes should be pruned by lower bounds
+     * @return builder
+     */
+    public InsertionBuilder setRouteLowerBoundPruning(boolean routeLowerBoundPruning) {
+        this.routeLowerBoundPruning = routeLowerBoundPruning;
+        return this;
+    }
+
+    /**
+     * If true, forward and backward route segments are maintained as route states, and service and shipment
+     * insertion calculators reject insertion positions that violate time windows or capacity in constant time before
+     * hard activity constraints are evaluated. It only applies to local level insertion.
+     * <p>
+     * <p>Segments assume that transport times satisfy the triangle inequality and that transport times and activity
+     * durations do not depend on time.
+     *
+     * @param routeSegmentsFastPath true if route segments should be used
+     * @return builder
+     */
+    public InsertionBuilder setRouteSegmentsFastPath(boolean routeSegmentsFastPath) {
+        this.routeSegmentsFastPath = routeSegmentsFastPath;
+        return this;
+    }
+
     public InsertionBuilder setLocalLevel() {
         local = true;
         return this;
@@ -167,17 +219,42 @@ public class InsertionBuilder {
             calcBuilder.experimentalTimeScheduler(timeSlice, nNeighbors);
         }
         calcBuilder.setAllowVehicleSwitch(allowVehicleSwitch);
+        if (routeSegmentsFastPath) {
+            stateManager.updateRouteSegmentStates();
+            calcBuilder.setRouteSegmentsFastPath(true);
+        }
         JobInsertionCostsCalculator costCalculator = calcBuilder.build();
 
+        InsertionCostsLowerBound lowerBound = null;
+        if (routeLowerBoundPruning && strategy.equals(Strategy.BEST)) {
+            if (allowVehicleSwitch) {
+                throw new IllegalStateException("route lower bound pruning requires vehicle switch to be disabled");
+            }
+            stateManager.updateRouteSummaryStates();
+            lowerBound = new InsertionCostsLowerBound(stateManager, vrp.getTransportCosts(), constraintManager.isLoadConstraintSet(), constraintManager.isTimeWindowConstraintSet());
+        }
         InsertionStrategy insertion;
         if (strategy.equals(Strategy.BEST)) {
             if (executor == null) {
-                insertion = new BestInsertion(costCalculator, vrp);
+                BestInsertion bestInsertion = new BestInsertion(costCalculator, vrp);
+                bestInsertion.setLowerBound(lowerBound);
+                insertion = bestInsertion;
             } else {
-                insertion = new BestInsertionConcurrent(costCalculator, executor, nuOfThreads, vrp);
+                BestInsertionConcurrent bestInsertion = new BestInsertionConcurrent(costCalculator, executor, nuOfThreads, vrp);
+                bestInsertion.setLowerBound(lowerBound);
+                insertion = bestInsertion;
             }
         } else if (strategy.equals(Strategy.REGRET)) {
-            if (executor == null) {
+            if (regretK > 2) {
+                KRegretInsertion regret;
+                if (executor == null) {
+                    regret = new KRegretInsertion(costCalculator, vrp, fleetManager, regretK);
+                } else {
+                    regret = new KRegretInsertionConcurrent(costCalculator, vrp, executor, fleetManager, regretK);
+                }
+                regret.setSwitchAllowed(allowVehicleSwitch);
+                insertion = regret;
+            } else if (executor == null) {
                 if(isFastRegret){
                     RegretInsertionFast regret = new RegretInsertionFast(costCalculator, vrp, fleetManager);
                     regret.setSwitchAllowed(allowVehicleSwitch);
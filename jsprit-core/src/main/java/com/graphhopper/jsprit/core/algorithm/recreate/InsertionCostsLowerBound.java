@@ -0,0 +1,188 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.RouteSummary;
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.*;
+
+/**
+ * Lower bound of the costs of inserting a job into an existing route, determined in constant time from route states.
+ * <p>
+ * <p>Let c be the center of a route (see {@link RouteSummary}), R_out and R_in the max. transport costs from and to the
+ * center, and L the max. leg costs. Inserting x between i and j costs at least
+ * c(i,x) + c(x,j) - c(i,j) >= (c(c,x) - R_out) + (c(x,c) - R_in) - L. Additionally, a job is rejected if the route
+ * cannot carry its size (service jobs only) or if it cannot be reached within its time windows when travelling
+ * directly from the start or back to the end of the route.
+ * <p>
+ * <p>The bound is only valid if transport costs and times satisfy the triangle inequality and do not depend on time,
+ * if activity costs and soft constraints never decrease the insertion costs, and if the vehicle of a route is not
+ * switched during insertion.
+ */
+final class InsertionCostsLowerBound {
+
+    private final RouteAndActivityStateGetter stateGetter;
+
+    private final VehicleRoutingTransportCosts transportCosts;
+
+    private final boolean considerLoad;
+
+    private final boolean considerTimeWindows;
+
+    InsertionCostsLowerBound(RouteAndActivityStateGetter stateGetter, VehicleRoutingTransportCosts transportCosts, boolean considerLoad, boolean considerTimeWindows) {
+        this.stateGetter = stateGetter;
+        this.transportCosts = transportCosts;
+        this.considerLoad = considerLoad;
+        this.considerTimeWindows = considerTimeWindows;
+    }
+
+    /**
+     * Returns the lower bound of inserting job into route. It is 0 if nothing is known about the route, and
+     * Double.MAX_VALUE if the job cannot be inserted at all.
+     *
+     * @param route the route
+     * @param job   the job to be inserted
+     * @return lower bound of insertion costs
+     */
+    double getLowerBound(VehicleRoute route, Job job) {
+        if (route.isEmpty() || route.getVehicle() == null || job instanceof Break) return 0.;
+        RouteSummary summary = stateGetter.getRouteState(route, InternalStates.ROUTE_SUMMARY, RouteSummary.class);
+        if (summary == null) return 0.;
+        Vehicle vehicle = route.getVehicle();
+        if (considerLoad && !fitsIntoVehicle(route, job)) return Double.MAX_VALUE;
+        if (job instanceof Service) {
+            Service service = (Service) job;
+            if (considerTimeWindows && !reachable(route, service.getLocation(), service.getTimeWindows())) {
+                return Double.MAX_VALUE;
+            }
+            return Math.max(0., singleInsertion(route, summary, service.getLocation()));
+        } else if (job instanceof Shipment) {
+            Shipment shipment = (Shipment) job;
+            if (considerTimeWindows) {
+                if (!reachable(route, shipment.getPickupLocation(), shipment.getPickupTimeWindows())) {
+                    return Double.MAX_VALUE;
+                }
+                if (!reachable(route, shipment.getDeliveryLocation(), shipment.getDeliveryTimeWindows())) {
+                    return Double.MAX_VALUE;
+                }
+            }
+            double pickup = Math.max(0., singleInsertion(route, summary, shipment.getPickupLocation()));
+            double delivery = Math.max(0., singleInsertion(route, summary, shipment.getDeliveryLocation()));
+            //pickup and delivery inserted one after another, i.e. c(i,p) + c(p,d) + c(d,j) - c(i,j)
+            double backToRoute = costs(shipment.getDeliveryLocation(), summary.getCenter(), route) - summary.getRadiusToCenter() - summary.getMaxLegCosts();
+            if (!vehicle.isReturnToDepot()) backToRoute = Math.min(0., backToRoute);
+            double consecutive = costs(summary.getCenter(), shipment.getPickupLocation(), route) - summary.getRadiusFromCenter() + backToRoute;
+            return Math.max(0., Math.min(consecutive, pickup + delivery));
+        }
+        return 0.;
+    }
+
+    /**
+     * Sorts routes by ascending lower bounds. Lower bounds are written to the returned array in the order of
+     * sortedRoutes.
+     */
+    double[] sort(Collection<VehicleRoute> routes, Job job, List<VehicleRoute> sortedRoutes) {
+        List<BoundedRoute> boundedRoutes = new ArrayList<BoundedRoute>(routes.size());
+        for (VehicleRoute route : routes) {
+            boundedRoutes.add(new BoundedRoute(route, getLowerBound(route, job)));
+        }
+        Collections.sort(boundedRoutes, new Comparator<BoundedRoute>() {
+
+            @Override
+            public int compare(BoundedRoute o1, BoundedRoute o2) {
+                return Double.compare(o1.lowerBound, o2.lowerBound);
+            }
+
+        });
+        double[] lowerBounds = new double[boundedRoutes.size()];
+        for (int i = 0; i < boundedRoutes.size(); i++) {
+            sortedRoutes.add(boundedRoutes.get(i).route);
+            lowerBounds[i] = boundedRoutes.get(i).lowerBound;
+        }
+        return lowerBounds;
+    }
+
+    private double singleInsertion(VehicleRoute route, RouteSummary summary, Location location) {
+        double fromCenter = costs(summary.getCenter(), location, route) - summary.getRadiusFromCenter();
+        if (!route.getVehicle().isReturnToDepot()) {
+            //job can be appended to the end of the route where it only costs c(last,x)
+            return Math.min(fromCenter, fromCenter + costs(location, summary.getCenter(), route) - summary.getRadiusToCenter() - summary.getMaxLegCosts());
+        }
+        return fromCenter + costs(location, summary.getCenter(), route) - summary.getRadiusToCenter() - summary.getMaxLegCosts();
+    }
+
+    private boolean fitsIntoVehicle(VehicleRoute route, Job job) {
+        Capacity capacity = route.getVehicle().getType().getCapacityDimensions();
+        if (!job.getSize().isLessOrEqual(capacity)) return false;
+        if (!(job instanceof Service)) return true;
+        Capacity load;
+        if (job instanceof Delivery) {
+            load = stateGetter.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
+        } else {
+            load = stateGetter.getRouteState(route, InternalStates.LOAD_AT_END, Capacity.class);
+        }
+        return load == null || Capacity.addup(load, job.getSize()).isLessOrEqual(capacity);
+    }
+
+    private boolean reachable(VehicleRoute route, Location location, Collection<TimeWindow> timeWindows) {
+        Vehicle vehicle = route.getVehicle();
+        double earliestArrival = vehicle.getEarliestDeparture() + transportCosts.getTransportTime(vehicle.getStartLocation(), location, vehicle.getEarliestDeparture(), route.getDriver(), vehicle);
+        double timeBackToEnd = 0.;
+        if (vehicle.isReturnToDepot()) {
+            timeBackToEnd = transportCosts.getTransportTime(location, vehicle.getEndLocation(), 0., route.getDriver(), vehicle);
+        }
+        for (TimeWindow timeWindow : timeWindows) {
+            if (earliestArrival > timeWindow.getEnd()) continue;
+            double earliestEnd = Math.max(earliestArrival, timeWindow.getStart()) + timeBackToEnd;
+            if (earliestEnd <= vehicle.getLatestArrival()) return true;
+        }
+        return false;
+    }
+
+    private double costs(Location from, Location to, VehicleRoute route) {
+        return transportCosts.getTransportCost(from, to, 0., route.getDriver(), route.getVehicle());
+    }
+
+    private static class BoundedRoute {
+
+        private final VehicleRoute route;
+
+        private final double lowerBound;
+
+        BoundedRoute(VehicleRoute route, double lowerBound) {
+            this.route = route;
+            this.lowerBound = lowerBound;
+        }
+
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+import java.util.Arrays;
+
+/**
+ * Array based binary min-heap of versioned insertion data, keyed by insertion costs.
+ * <p>
+ * <p>Entries are stored in parallel arrays (costs, versions, insertion data, routes) such that adding an entry does
+ * not allocate anything but the insertion data itself. Stale entries, i.e. entries whose version is older than the
+ * version of their route, are not removed on update but dropped lazily once they come to the top.
+ * <p>
+ * <p>Polled entries can be kept aside with keep() and pushed back with restore(). This allows looking at the best
+ * valid entries of a job without losing them.
+ * <p>
+ * <p>The heap is not thread-safe. RegretInsertionConcurrentFast updates each heap from one task only.
+ */
+class InsertionDataHeap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] costs;
+
+    private int[] versions;
+
+    private InsertionData[] insertionData;
+
+    private VehicleRoute[] routes;
+
+    private int size = 0;
+
+    private double[] keptCosts;
+
+    private int[] keptVersions;
+
+    private InsertionData[] keptInsertionData;
+
+    private VehicleRoute[] keptRoutes;
+
+    private int keptSize = 0;
+
+    private double polledCosts;
+
+    private int polledVersion;
+
+    private InsertionData polledInsertionData;
+
+    private VehicleRoute polledRoute;
+
+    InsertionDataHeap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    InsertionDataHeap(int initialCapacity) {
+        int capacity = Math.max(2, initialCapacity);
+        costs = new double[capacity];
+        versions = new int[capacity];
+        insertionData = new InsertionData[capacity];
+        routes = new VehicleRoute[capacity];
+        keptCosts = new double[4];
+        keptVersions = new int[4];
+        keptInsertionData = new InsertionData[4];
+        keptRoutes = new VehicleRoute[4];
+    }
+
+    void add(InsertionData iData, int version, VehicleRoute route) {
+        add(iData.getInsertionCost(), iData, version, route);
+    }
+
+    private void add(double cost, InsertionData iData, int version, VehicleRoute route) {
+        if (size == costs.length) grow();
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (costs[parent] <= cost) break;
+            set(index, costs[parent], versions[parent], insertionData[parent], routes[parent]);
+            index = parent;
+        }
+        set(index, cost, version, iData, route);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes the entry with the lowest costs. It can then be read with getPolledX() and kept with keep().
+     */
+    void poll() {
+        if (size == 0) throw new IllegalStateException("heap is empty");
+        polledCosts = costs[0];
+        polledVersion = versions[0];
+        polledInsertionData = insertionData[0];
+        polledRoute = routes[0];
+        size--;
+        double cost = costs[size];
+        int version = versions[size];
+        InsertionData iData = insertionData[size];
+        VehicleRoute route = routes[size];
+        insertionData[size] = null;
+        routes[size] = null;
+        if (size > 0) siftDown(cost, version, iData, route);
+    }
+
+    double getPolledCosts() {
+        return polledCosts;
+    }
+
+    int getPolledVersion() {
+        return polledVersion;
+    }
+
+    InsertionData getPolledInsertionData() {
+        return polledInsertionData;
+    }
+
+    VehicleRoute getPolledRoute() {
+        return polledRoute;
+    }
+
+    /**
+     * Keeps the last polled entry aside until restore() is called.
+     */
+    void keep() {
+        if (keptSize == keptCosts.length) {
+            int capacity = keptSize * 2;
+            keptCosts = Arrays.copyOf(keptCosts, capacity);
+            keptVersions = Arrays.copyOf(keptVersions, capacity);
+            keptInsertionData = Arrays.copyOf(keptInsertionData, capacity);
+            keptRoutes = Arrays.copyOf(keptRoutes, capacity);
+        }
+        keptCosts[keptSize] = polledCosts;
+        keptVersions[keptSize] = polledVersion;
+        keptInsertionData[keptSize] = polledInsertionData;
+        keptRoutes[keptSize] = polledRoute;
+        keptSize++;
+    }
+
+    /**
+     * Pushes all kept entries back to the heap.
+     */
+    void restore() {
+        for (int i = 0; i < keptSize; i++) {
+            add(keptCosts[i], keptInsertionData[i], keptVersions[i], keptRoutes[i]);
+            keptInsertionData[i] = null;
+            keptRoutes[i] = null;
+        }
+        keptSize = 0;
+    }
+
+    private void siftDown(double cost, int version, InsertionData iData, VehicleRoute route) {
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && costs[right] < costs[child]) child = right;
+            if (cost <= costs[child]) break;
+            set(index, costs[child], versions[child], insertionData[child], routes[child]);
+            index = child;
+        }
+        set(index, cost, version, iData, route);
+    }
+
+    private void set(int index, double cost, int version, InsertionData iData, VehicleRoute route) {
+        costs[index] = cost;
+        versions[index] = version;
+        insertionData[index] = iData;
+        routes[index] = route;
+    }
+
+    private void grow() {
+        int capacity = costs.length * 2;
+        costs = Arrays.copyOf(costs, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        insertionData = Arrays.copyOf(insertionData, capacity);
+        routes = Arrays.copyOf(routes, capacity);
+    }
+
+}
@@ -31,7 +31,7 @@ import java.util.*;
  */
 class InsertionDataUpdater {
 
-    static boolean update(boolean addAllAvailable, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, TreeSet<VersionedInsertionData> insertionDataSet, int updateRound, Job unassignedJob, Collection<VehicleRoute> routes) {
+    static boolean update(boolean addAllAvailable, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, InsertionDataHeap insertionDataHeap, int updateRound, Job unassignedJob, Collection<VehicleRoute> routes) {
         for(VehicleRoute route : routes) {
             Collection<Vehicle> relevantVehicles = new ArrayList<Vehicle>();
             if (!(route.getVehicle() instanceof VehicleImpl.NoVehicle)) {
@@ -46,7 +46,7 @@ class InsertionDataUpdater {
                 if (iData instanceof InsertionData.NoInsertionFound) {
                     continue;
                 }
-                insertionDataSet.add(new VersionedInsertionData(iData, updateRound, route));
+                insertionDataHeap.add(iData, updateRound, route);
             }
         }
         return true;
@@ -61,68 +61,40 @@ class InsertionDataUpdater {
         return null;
     }
 
-    static Comparator<VersionedInsertionData> getComparator(){
-        return new Comparator<VersionedInsertionData>() {
-            @Override
-            public int compare(VersionedInsertionData o1, VersionedInsertionData o2) {
-                if(o1.getiData().getInsertionCost() < o2.getiData().getInsertionCost()) return -1;
-                return 1;
-            }
-        };
-    }
-
-    static ScoredJob getBest(boolean switchAllowed, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, ScoringFunction scoringFunction, TreeSet<VersionedInsertionData>[] priorityQueues, Map<VehicleRoute, Integer> updates, List<Job> unassignedJobList, List<Job> badJobs) {
+    static ScoredJob getBest(boolean switchAllowed, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, JobInsertionCostsCalculator insertionCostsCalculator, ScoringFunction scoringFunction, InsertionDataHeap[] priorityQueues, Map<VehicleRoute, Integer> updates, List<Job> unassignedJobList, List<Job> badJobs) {
         ScoredJob bestScoredJob = null;
         for(Job j : unassignedJobList){
             VehicleRoute bestRoute = null;
             InsertionData best = null;
             InsertionData secondBest = null;
-            TreeSet<VersionedInsertionData> priorityQueue = priorityQueues[j.getIndex()];
-            Iterator<VersionedInsertionData> iterator = priorityQueue.iterator();
-            while(iterator.hasNext()){
-                VersionedInsertionData versionedIData = iterator.next();
+            InsertionDataHeap priorityQueue = priorityQueues[j.getIndex()];
+            while(!priorityQueue.isEmpty()){
+                priorityQueue.poll();
+                VehicleRoute route = priorityQueue.getPolledRoute();
+                InsertionData iData = priorityQueue.getPolledInsertionData();
+                int currentDataVersion = updates.get(route);
+                if(priorityQueue.getPolledVersion() != currentDataVersion){
+                    //stale - there is newer data for this route, thus drop it for good
+                    continue;
+                }
+                priorityQueue.keep();
                 if(bestRoute != null){
-                    if(versionedIData.getRoute() == bestRoute){
+                    if(route == bestRoute){
                         continue;
                     }
                 }
-                if(versionedIData.getiData() instanceof InsertionData.NoInsertionFound) continue;
-                if(!(versionedIData.getRoute().getVehicle() instanceof VehicleImpl.NoVehicle)) {
-                    if (versionedIData.getiData().getSelectedVehicle() != versionedIData.getRoute().getVehicle()) {
-                        if (!switchAllowed) continue;
-                        if (initialVehicleIds.contains(versionedIData.getRoute().getVehicle().getId())) continue;
-                    }
-                }
-                if(versionedIData.getiData().getSelectedVehicle() != versionedIData.getRoute().getVehicle()) {
-                    if (fleetManager.isLocked(versionedIData.getiData().getSelectedVehicle())) {
-                        Vehicle available = fleetManager.getAvailableVehicle(versionedIData.getiData().getSelectedVehicle().getVehicleTypeIdentifier());
-                        if (available != null) {
-                            InsertionData oldData = versionedIData.getiData();
-                            InsertionData newData = new InsertionData(oldData.getInsertionCost(), oldData.getPickupInsertionIndex(),
-                                oldData.getDeliveryInsertionIndex(), available, oldData.getSelectedDriver());
-                            newData.setVehicleDepartureTime(oldData.getVehicleDepartureTime());
-                            for(Event e : oldData.getEvents()){
-                                if(e instanceof SwitchVehicle){
-                                    newData.getEvents().add(new SwitchVehicle(versionedIData.getRoute(),available,oldData.getVehicleDepartureTime()));
-                                }
-                                else newData.getEvents().add(e);
-                            }
-                            versionedIData = new VersionedInsertionData(newData, versionedIData.getVersion(), versionedIData.getRoute());
-                        } else continue;
-                    }
+                iData = getApplicable(switchAllowed, initialVehicleIds, fleetManager, iData, route);
+                if(iData == null) continue;
+                if(best == null) {
+                    best = iData;
+                    bestRoute = route;
                 }
-                int currentDataVersion = updates.get(versionedIData.getRoute());
-                if(versionedIData.getVersion() == currentDataVersion){
-                    if(best == null) {
-                        best = versionedIData.getiData();
-                        bestRoute = versionedIData.getRoute();
-                    }
-                    else {
-                        secondBest = versionedIData.getiData();
-                        break;
-                    }
+                else {
+                    secondBest = iData;
+                    break;
                 }
             }
+            priorityQueue.restore();
             VehicleRoute emptyRoute = VehicleRoute.emptyRoute();
             InsertionData iData = insertionCostsCalculator.getInsertionData(emptyRoute, j, null, -1, null, Double.MAX_VALUE);
             if(!(iData instanceof InsertionData.NoInsertionFound)){
@@ -157,6 +129,40 @@ class InsertionDataUpdater {
         return bestScoredJob;
     }
 
+    /**
+     * Checks whether insertion data is still applicable, i.e. whether its vehicle can (still) be used.
+     *
+     * @return the applicable insertion data (with an available vehicle of the same type if the selected one is
+     * locked meanwhile) or null if it is not applicable
+     */
+    static InsertionData getApplicable(boolean switchAllowed, Set<String> initialVehicleIds, VehicleFleetManager fleetManager, InsertionData iData, VehicleRoute route) {
+        if(iData instanceof InsertionData.NoInsertionFound) return null;
+        if(!(route.getVehicle() instanceof VehicleImpl.NoVehicle)) {
+            if (iData.getSelectedVehicle() != route.getVehicle()) {
+                if (!switchAllowed) return null;
+                if (initialVehicleIds.contains(route.getVehicle().getId())) return null;
+            }
+        }
+        if(iData.getSelectedVehicle() != route.getVehicle()) {
+            if (fleetManager.isLocked(iData.getSelectedVehicle())) {
+                Vehicle available = fleetManager.getAvailableVehicle(iData.getSelectedVehicle().getVehicleTypeIdentifier());
+                if (available != null) {
+                    InsertionData newData = new InsertionData(iData.getInsertionCost(), iData.getPickupInsertionIndex(),
+                        iData.getDeliveryInsertionIndex(), available, iData.getSelectedDriver());
+                    newData.setVehicleDepartureTime(iData.getVehicleDepartureTime());
+                    for(Event e : iData.getEvents()){
+                        if(e instanceof SwitchVehicle){
+                            newData.getEvents().add(new SwitchVehicle(route,available,iData.getVehicleDepartureTime()));
+                        }
+                        else newData.getEvents().add(e);
+                    }
+                    return newData;
+                } else return null;
+            }
+        }
+        return iData;
+    }
+
     static double score(Job unassignedJob, InsertionData best, InsertionData secondBest, ScoringFunction scoringFunction) {
         return Scorer.score(unassignedJob,best,secondBest,scoringFunction);
     }
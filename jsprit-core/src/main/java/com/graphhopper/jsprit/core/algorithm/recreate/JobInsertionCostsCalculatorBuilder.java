@@ -94,6 +94,8 @@ public class JobInsertionCostsCalculatorBuilder {
 
     private boolean addDefaultCostCalc = true;
 
+    private boolean routeSegmentsFastPath = false;
+
     /**
      * Constructs the builder.
      * <p>
@@ -291,6 +293,11 @@ public class JobInsertionCostsCalculatorBuilder {
         shipmentInsertion.setJobActivityFactory(activityFactory);
         ServiceInsertionCalculator serviceInsertion = new ServiceInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), actInsertionCalc, constraintManager);
         serviceInsertion.setJobActivityFactory(activityFactory);
+        if (routeSegmentsFastPath) {
+            RouteSegmentsFastPath fastPath = new RouteSegmentsFastPath(statesManager);
+            shipmentInsertion.setRouteSegmentsFastPath(fastPath);
+            serviceInsertion.setRouteSegmentsFastPath(fastPath);
+        }
 
         BreakInsertionCalculator breakInsertionCalculator = new BreakInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), actInsertionCalc, constraintManager);
         breakInsertionCalculator.setJobActivityFactory(activityFactory);
@@ -367,6 +374,18 @@ public class JobInsertionCostsCalculatorBuilder {
         return this;
     }
 
+    /**
+     * Sets a flag to let service and shipment insertion calculators reject infeasible insertion positions based on
+     * route segments (InternalStates.ROUTE_SEGMENTS). Route segment states must be updated by the state manager.
+     *
+     * @param routeSegmentsFastPath true if insertion positions are to be checked against route segments first
+     * @return this builder
+     */
+    public JobInsertionCostsCalculatorBuilder setRouteSegmentsFastPath(boolean routeSegmentsFastPath) {
+        this.routeSegmentsFastPath = routeSegmentsFastPath;
+        return this;
+    }
+
 }
 
 
@@ -0,0 +1,305 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.DependencyType;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Insertion based on a generalized k-regret approach.
+ * <p>
+ * <p>Each job is scored by the sum of differences between its k-1 next best route alternatives and its best
+ * alternative (plus additional scoring variables defined in the ScoringFunction). With k=2 this is the regular regret
+ * insertion.
+ * <p>
+ * <p>Insertion data is calculated once for all routes and kept in a heap per job. Each route carries a version that
+ * is increased when a job is inserted into it. Only when a job is scored and one of its k best alternatives refers to
+ * an outdated route version, the insertion data of this route is re-calculated. Thus, after an insertion only the jobs
+ * whose top-k involved the modified route are re-evaluated. This assumes that inserting a job into a route does not
+ * make it significantly more attractive for jobs that do not consider it among their k best alternatives anyway.
+ * Jobs with inter- or intra-route dependencies are re-evaluated for all routes in each round.
+ */
+public class KRegretInsertion extends AbstractInsertionStrategy {
+
+    private static Logger logger = LoggerFactory.getLogger(KRegretInsertion.class);
+
+    protected ScoringFunction scoringFunction;
+
+    protected final JobInsertionCostsCalculator insertionCostsCalculator;
+
+    protected final VehicleFleetManager fleetManager;
+
+    protected final Set<String> initialVehicleIds;
+
+    protected boolean switchAllowed = true;
+
+    protected final int k;
+
+    private DependencyType[] dependencyTypes = null;
+
+    public KRegretInsertion(JobInsertionCostsCalculator jobInsertionCalculator, VehicleRoutingProblem vehicleRoutingProblem, VehicleFleetManager fleetManager, int k) {
+        super(vehicleRoutingProblem);
+        if (k < 2) throw new IllegalArgumentException("k must be at least 2");
+        this.scoringFunction = new DefaultScorer(vehicleRoutingProblem);
+        this.insertionCostsCalculator = jobInsertionCalculator;
+        this.fleetManager = fleetManager;
+        this.k = k;
+        this.initialVehicleIds = getInitialVehicleIds(vehicleRoutingProblem);
+        logger.debug("initialise {}", this);
+    }
+
+    /**
+     * Sets the scoring function.
+     * <p>
+     * <p>By default, the DefaultScorer is used.
+     *
+     * @param scoringFunction to score
+     */
+    public void setScoringFunction(ScoringFunction scoringFunction) {
+        this.scoringFunction = scoringFunction;
+    }
+
+    public void setSwitchAllowed(boolean switchAllowed) {
+        this.switchAllowed = switchAllowed;
+    }
+
+    public void setDependencyTypes(DependencyType[] dependencyTypes) {
+        this.dependencyTypes = dependencyTypes;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    private Set<String> getInitialVehicleIds(VehicleRoutingProblem vehicleRoutingProblem) {
+        Set<String> ids = new HashSet<String>();
+        for (VehicleRoute r : vehicleRoutingProblem.getInitialVehicleRoutes()) {
+            ids.add(r.getVehicle().getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=kRegretInsertion][k=" + k + "][additionalScorer=" + scoringFunction + "]";
+    }
+
+    /**
+     * Runs insertion.
+     * <p>
+     * <p>Before inserting a job, all unassigned jobs are scored according to their k best insertion alternatives plus
+     * additional scoring variables.
+     */
+    @Override
+    public Collection<Job> insertUnassignedJobs(Collection<VehicleRoute> routes, Collection<Job> unassignedJobs) {
+        List<Job> badJobs = new ArrayList<Job>(unassignedJobs.size());
+
+        Iterator<Job> jobIterator = unassignedJobs.iterator();
+        while (jobIterator.hasNext()) {
+            Job job = jobIterator.next();
+            if (job instanceof Break) {
+                VehicleRoute route = InsertionDataUpdater.findRoute(routes, job);
+                if (route == null) {
+                    badJobs.add(job);
+                } else {
+                    InsertionData iData = insertionCostsCalculator.getInsertionData(route, job, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, Double.MAX_VALUE);
+                    if (iData instanceof InsertionData.NoInsertionFound) {
+                        badJobs.add(job);
+                    } else {
+                        insertJob(job, iData, route);
+                    }
+                }
+                jobIterator.remove();
+            }
+        }
+
+        List<Job> jobs = new ArrayList<Job>(unassignedJobs);
+        InsertionDataHeap[] priorityQueues = new InsertionDataHeap[vrp.getJobIndexCapacity() + 1];
+        Map<VehicleRoute, Integer> routeVersions = new HashMap<VehicleRoute, Integer>();
+        int version = 0;
+        for (VehicleRoute r : routes) routeVersions.put(r, version);
+        for (Job j : jobs) priorityQueues[j.getIndex()] = new InsertionDataHeap();
+        updateInsertionData(priorityQueues, jobs, routes, routeVersions);
+        while (!jobs.isEmpty()) {
+            if (version > 0) {
+                List<Job> dependentJobs = getJobsWithRouteDependencies(jobs);
+                if (!dependentJobs.isEmpty()) {
+                    updateInsertionData(priorityQueues, dependentJobs, routes, routeVersions);
+                }
+            }
+            List<Job> badJobList = new ArrayList<Job>();
+            ScoredJob bestScoredJob = nextJob(priorityQueues, routeVersions, jobs, badJobList);
+            for (Job bad : badJobList) {
+                jobs.remove(bad);
+                badJobs.add(bad);
+            }
+            if (bestScoredJob == null) continue;
+            version++;
+            VehicleRoute modified = bestScoredJob.getRoute();
+            if (bestScoredJob.isNewRoute()) {
+                routes.add(modified);
+            }
+            insertJob(bestScoredJob.getJob(), bestScoredJob.getInsertionData(), modified);
+            jobs.remove(bestScoredJob.getJob());
+            routeVersions.put(modified, version);
+            if (bestScoredJob.isNewRoute()) {
+                //the new route is an additional alternative for all remaining jobs
+                updateInsertionData(priorityQueues, jobs, Arrays.asList(modified), routeVersions);
+            }
+        }
+        return badJobs;
+    }
+
+    private List<Job> getJobsWithRouteDependencies(List<Job> jobs) {
+        List<Job> dependentJobs = new ArrayList<Job>();
+        if (dependencyTypes == null) return dependentJobs;
+        for (Job j : jobs) {
+            DependencyType dependencyType = dependencyTypes[j.getIndex()];
+            if (dependencyType == null) continue;
+            if (dependencyType.equals(DependencyType.INTER_ROUTE) || dependencyType.equals(DependencyType.INTRA_ROUTE)) {
+                dependentJobs.add(j);
+            }
+        }
+        return dependentJobs;
+    }
+
+    /**
+     * Calculates the insertion data of the specified jobs for the specified routes and adds them to the jobs' heaps.
+     */
+    void updateInsertionData(InsertionDataHeap[] priorityQueues, List<Job> jobs, Collection<VehicleRoute> routes, Map<VehicleRoute, Integer> routeVersions) {
+        for (Job j : jobs) {
+            update(priorityQueues[j.getIndex()], j, routes, routeVersions);
+        }
+    }
+
+    /**
+     * Scores all jobs and returns the best scored one. Jobs that cannot be inserted anywhere are added to badJobs.
+     */
+    ScoredJob nextJob(InsertionDataHeap[] priorityQueues, Map<VehicleRoute, Integer> routeVersions, List<Job> jobs, List<Job> badJobs) {
+        ScoredJob bestScoredJob = null;
+        for (Job j : jobs) {
+            ScoredJob scoredJob = score(priorityQueues[j.getIndex()], j, routeVersions);
+            if (scoredJob instanceof ScoredJob.BadJob) {
+                badJobs.add(j);
+                continue;
+            }
+            bestScoredJob = better(bestScoredJob, scoredJob);
+        }
+        return bestScoredJob;
+    }
+
+    static ScoredJob better(ScoredJob bestScoredJob, ScoredJob scoredJob) {
+        if (bestScoredJob == null) return scoredJob;
+        if (scoredJob.getScore() > bestScoredJob.getScore()) return scoredJob;
+        if (scoredJob.getScore() == bestScoredJob.getScore()) {
+            if (scoredJob.getJob().getId().compareTo(bestScoredJob.getJob().getId()) <= 0) return scoredJob;
+        }
+        return bestScoredJob;
+    }
+
+    void update(InsertionDataHeap priorityQueue, Job job, Collection<VehicleRoute> routes, Map<VehicleRoute, Integer> routeVersions) {
+        for (VehicleRoute route : routes) {
+            InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, routeVersions.get(route), job, Collections.singletonList(route));
+        }
+    }
+
+    /**
+     * Determines the k best route alternatives of a job and scores it. Alternatives that refer to outdated route
+     * versions are re-calculated on the fly, i.e. the job's heap is modified. Other jobs' heaps and routes are only
+     * read, thus different jobs can be scored concurrently.
+     * <p>
+     * <p>A re-calculated alternative can be cheaper than alternatives collected before. Therefore, collecting starts
+     * over after each re-calculation such that the alternatives are always in ascending order of costs. Since each
+     * route is re-calculated at most once, this terminates.
+     */
+    ScoredJob score(InsertionDataHeap priorityQueue, Job job, Map<VehicleRoute, Integer> routeVersions) {
+        double[] costs = new double[k];
+        VehicleRoute[] alternatives = new VehicleRoute[k];
+        int nuOfAlternatives = 0;
+        InsertionData best = null;
+        List<VehicleRoute> recalculated = null;
+        while (nuOfAlternatives < k && !priorityQueue.isEmpty()) {
+            priorityQueue.poll();
+            VehicleRoute route = priorityQueue.getPolledRoute();
+            Integer currentVersion = routeVersions.get(route);
+            if (currentVersion == null) continue;
+            if (priorityQueue.getPolledVersion() != currentVersion) {
+                if (recalculated == null) recalculated = new ArrayList<VehicleRoute>();
+                if (!recalculated.contains(route)) {
+                    recalculated.add(route);
+                    InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, currentVersion, job, Collections.singletonList(route));
+                    priorityQueue.restore();
+                    nuOfAlternatives = 0;
+                    best = null;
+                }
+                continue;
+            }
+            priorityQueue.keep();
+            if (contains(alternatives, nuOfAlternatives, route)) continue;
+            InsertionData iData = InsertionDataUpdater.getApplicable(switchAllowed, initialVehicleIds, fleetManager, priorityQueue.getPolledInsertionData(), route);
+            if (iData == null) continue;
+            if (best == null) best = iData;
+            alternatives[nuOfAlternatives] = route;
+            costs[nuOfAlternatives] = iData.getInsertionCost();
+            nuOfAlternatives++;
+        }
+        priorityQueue.restore();
+
+        VehicleRoute bestRoute = nuOfAlternatives > 0 ? alternatives[0] : null;
+        VehicleRoute emptyRoute = VehicleRoute.emptyRoute();
+        InsertionData emptyRouteData = insertionCostsCalculator.getInsertionData(emptyRoute, job, NO_NEW_VEHICLE_YET, -1, NO_NEW_DRIVER_YET, Double.MAX_VALUE);
+        if (!(emptyRouteData instanceof InsertionData.NoInsertionFound)) {
+            double c = emptyRouteData.getInsertionCost();
+            if (nuOfAlternatives < k || c < costs[k - 1]) {
+                int index = Math.min(nuOfAlternatives, k - 1);
+                while (index > 0 && costs[index - 1] > c) {
+                    costs[index] = costs[index - 1];
+                    index--;
+                }
+                costs[index] = c;
+                if (nuOfAlternatives < k) nuOfAlternatives++;
+                if (index == 0) {
+                    best = emptyRouteData;
+                    bestRoute = emptyRoute;
+                }
+            }
+        }
+        if (best == null) {
+            return new ScoredJob.BadJob(job);
+        }
+        double score = Scorer.score(job, best, costs, nuOfAlternatives, scoringFunction);
+        return new ScoredJob(job, score, best, bestRoute, bestRoute == emptyRoute);
+    }
+
+    private static boolean contains(VehicleRoute[] routes, int size, VehicleRoute route) {
+        for (int i = 0; i < size; i++) {
+            if (routes[i] == route) return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Concurrent version of {@link KRegretInsertion}.
+ * <p>
+ * <p>Calculating insertion data and scoring is distributed over jobs. Each job's heap is only touched by one task
+ * at a time. Results are reduced in job order, i.e. the outcome does not depend on the number of threads.
+ */
+public class KRegretInsertionConcurrent extends KRegretInsertion {
+
+    private final ExecutorService executor;
+
+    public KRegretInsertionConcurrent(JobInsertionCostsCalculator jobInsertionCalculator, VehicleRoutingProblem vehicleRoutingProblem, ExecutorService executorService, VehicleFleetManager fleetManager, int k) {
+        super(jobInsertionCalculator, vehicleRoutingProblem, fleetManager, k);
+        this.executor = executorService;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=kRegretInsertionConcurrent][k=" + k + "][additionalScorer=" + scoringFunction + "]";
+    }
+
+    @Override
+    void updateInsertionData(final InsertionDataHeap[] priorityQueues, List<Job> jobs, final Collection<VehicleRoute> routes, final Map<VehicleRoute, Integer> routeVersions) {
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(jobs.size());
+        for (final Job j : jobs) {
+            tasks.add(new Callable<Boolean>() {
+
+                @Override
+                public Boolean call() throws Exception {
+                    update(priorityQueues[j.getIndex()], j, routes, routeVersions);
+                    return true;
+                }
+
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    @Override
+    ScoredJob nextJob(final InsertionDataHeap[] priorityQueues, final Map<VehicleRoute, Integer> routeVersions, List<Job> jobs, List<Job> badJobs) {
+        List<Callable<ScoredJob>> tasks = new ArrayList<Callable<ScoredJob>>(jobs.size());
+        for (final Job j : jobs) {
+            tasks.add(new Callable<ScoredJob>() {
+
+                @Override
+                public ScoredJob call() throws Exception {
+                    return score(priorityQueues[j.getIndex()], j, routeVersions);
+                }
+
+            });
+        }
+        ScoredJob bestScoredJob = null;
+        for (Future<ScoredJob> future : invokeAll(tasks)) {
+            ScoredJob scoredJob;
+            try {
+                scoredJob = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+            if (scoredJob instanceof ScoredJob.BadJob) {
+                badJobs.add(scoredJob.getJob());
+                continue;
+            }
+            bestScoredJob = better(bestScoredJob, scoredJob);
+        }
+        return bestScoredJob;
+    }
+
+    private <T> List<Future<T>> invokeAll(List<Callable<T>> tasks) {
+        try {
+            List<Future<T>> futures = executor.invokeAll(tasks);
+            for (Future<T> f : futures) f.get();
+            return futures;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.RouteSegments;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+/**
+ * Provides route segments to insertion calculators such that they can reject insertion positions that violate
+ * time windows or capacity in constant time, before hard activity constraints are evaluated.
+ * <p>
+ * <p>Segments are only used if they have been calculated for the vehicle and departure time to be evaluated, and if
+ * the route itself is feasible. Otherwise the calculators fall back to hard constraints only.
+ */
+final class RouteSegmentsFastPath {
+
+    private final RouteAndActivityStateGetter stateGetter;
+
+    RouteSegmentsFastPath(RouteAndActivityStateGetter stateGetter) {
+        this.stateGetter = stateGetter;
+    }
+
+    RouteSegments getSegments(VehicleRoute route, Vehicle vehicle, double departureTime) {
+        RouteSegments segments = stateGetter.getRouteState(route, InternalStates.ROUTE_SEGMENTS, RouteSegments.class);
+        if (segments == null) return null;
+        if (segments.getVehicle() != vehicle || segments.getDepartureTime() != departureTime) return null;
+        if (segments.size() != route.getActivities().size() + 2 || !segments.isFeasible()) return null;
+        return segments;
+    }
+
+}
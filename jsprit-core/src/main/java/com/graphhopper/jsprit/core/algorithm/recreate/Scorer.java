@@ -39,4 +39,28 @@ class Scorer {
         }
         return score;
     }
+
+    /**
+     * Scores a job according to its k-regret, i.e. the sum of differences between the costs of the k-1 next best
+     * alternatives and the costs of the best alternative.
+     *
+     * @param costs ascending insertion costs of the alternatives, costs[0] is the costs of best
+     * @param nuOfAlternatives number of valid entries in costs
+     */
+    static double score(Job unassignedJob, InsertionData best, double[] costs, int nuOfAlternatives, ScoringFunction scoringFunction){
+        if (best == null) {
+            throw new IllegalStateException("cannot insert job " + unassignedJob.getId());
+        }
+        double score;
+        if (nuOfAlternatives < 2) {
+            score = (4 - unassignedJob.getPriority()) * (Integer.MAX_VALUE - best.getInsertionCost()) + scoringFunction.score(best, unassignedJob);
+        } else {
+            double regret = 0.;
+            for (int i = 1; i < nuOfAlternatives; i++) {
+                regret += costs[i] - costs[0];
+            }
+            score = (4 - unassignedJob.getPriority()) * regret + scoringFunction.score(best, unassignedJob);
+        }
+        return score;
+    }
 }
@@ -17,6 +17,8 @@
  */
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.algorithm.state.RouteSegment;
+import com.graphhopper.jsprit.core.algorithm.state.RouteSegments;
 import com.graphhopper.jsprit.core.problem.JobActivityFactory;
 import com.graphhopper.jsprit.core.problem.constraint.*;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
@@ -65,6 +67,8 @@ final class ServiceInsertionCalculator implements JobInsertionCostsCalculator {
 
     private AdditionalAccessEgressCalculator additionalAccessEgressCalculator;
 
+    private RouteSegmentsFastPath routeSegmentsFastPath;
+
     public ServiceInsertionCalculator(VehicleRoutingTransportCosts routingCosts, VehicleRoutingActivityCosts activityCosts, ActivityInsertionCostsCalculator additionalTransportCostsCalculator, ConstraintManager constraintManager) {
         super();
         this.transportCosts = routingCosts;
@@ -82,6 +86,10 @@ final class ServiceInsertionCalculator implements JobInsertionCostsCalculator {
         this.activityFactory = jobActivityFactory;
     }
 
+    void setRouteSegmentsFastPath(RouteSegmentsFastPath routeSegmentsFastPath) {
+        this.routeSegmentsFastPath = routeSegmentsFastPath;
+    }
+
     @Override
     public String toString() {
         return "[name=calculatesServiceInsertion]";
@@ -123,6 +131,11 @@ final class ServiceInsertionCalculator implements JobInsertionCostsCalculator {
         start.setEndTime(newVehicleDepartureTime);
         End end = new End(newVehicle.getEndLocation(), 0.0, newVehicle.getLatestArrival());
 
+        RouteSegments segments = null;
+        if (routeSegmentsFastPath != null) {
+            segments = routeSegmentsFastPath.getSegments(currentRoute, newVehicle, newVehicleDepartureTime);
+        }
+
         TourActivity prevAct = start;
         double prevActStartTime = newVehicleDepartureTime;
         int actIndex = 0;
@@ -139,6 +152,17 @@ final class ServiceInsertionCalculator implements JobInsertionCostsCalculator {
 			for(TimeWindow timeWindow : service.getTimeWindows()) {
                 deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
                 deliveryAct2Insert.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
+                if (segments != null) {
+                    RouteSegment head = segments.getForward(actIndex).concat(segments.createSegment(deliveryAct2Insert),
+                        segments.getTransportTime(segments.getLocation(actIndex), deliveryAct2Insert.getLocation()));
+                    //arrival is already too late, and it can only get later at subsequent positions
+                    if (!head.isTimeFeasible()) continue;
+                    RouteSegment routeWithNewAct = head.concat(segments.getBackward(actIndex + 1), segments.getTransportTime(deliveryAct2Insert.getLocation(), actIndex + 1));
+                    if (!segments.isFeasible(routeWithNewAct)) {
+                        not_fulfilled_break = false;
+                        continue;
+                    }
+                }
                 ActivityContext activityContext = new ActivityContext();
                 activityContext.setInsertionIndex(actIndex);
                 insertionContext.setActivityContext(activityContext);
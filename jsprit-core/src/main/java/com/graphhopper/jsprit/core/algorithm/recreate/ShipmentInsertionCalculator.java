@@ -17,6 +17,8 @@
  */
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.algorithm.state.RouteSegment;
+import com.graphhopper.jsprit.core.algorithm.state.RouteSegments;
 import com.graphhopper.jsprit.core.problem.JobActivityFactory;
 import com.graphhopper.jsprit.core.problem.constraint.*;
 import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint.ConstraintsStatus;
@@ -61,6 +63,8 @@ final class ShipmentInsertionCalculator implements JobInsertionCostsCalculator {
 
     private AdditionalAccessEgressCalculator additionalAccessEgressCalculator;
 
+    private RouteSegmentsFastPath routeSegmentsFastPath;
+
     public ShipmentInsertionCalculator(VehicleRoutingTransportCosts routingCosts, VehicleRoutingActivityCosts activityCosts, ActivityInsertionCostsCalculator activityInsertionCostsCalculator, ConstraintManager constraintManager) {
         super();
         this.activityInsertionCostsCalculator = activityInsertionCostsCalculator;
@@ -78,6 +82,10 @@ final class ShipmentInsertionCalculator implements JobInsertionCostsCalculator {
         this.activityFactory = activityFactory;
     }
 
+    void setRouteSegmentsFastPath(RouteSegmentsFastPath routeSegmentsFastPath) {
+        this.routeSegmentsFastPath = routeSegmentsFastPath;
+    }
+
     @Override
     public String toString() {
         return "[name=calculatesServiceInsertion]";
@@ -123,6 +131,11 @@ final class ShipmentInsertionCalculator implements JobInsertionCostsCalculator {
 
         ActivityContext pickupContext = new ActivityContext();
 
+        RouteSegments segments = null;
+        if (routeSegmentsFastPath != null) {
+            segments = routeSegmentsFastPath.getSegments(currentRoute, newVehicle, newVehicleDepartureTime);
+        }
+
         TourActivity prevAct = start;
         double prevActEndTime = newVehicleDepartureTime;
 
@@ -145,6 +158,13 @@ final class ShipmentInsertionCalculator implements JobInsertionCostsCalculator {
             for(TimeWindow pickupTimeWindow : shipment.getPickupTimeWindows()) {
                 pickupShipment.setTheoreticalEarliestOperationStartTime(pickupTimeWindow.getStart());
                 pickupShipment.setTheoreticalLatestOperationStartTime(pickupTimeWindow.getEnd());
+                RouteSegment head_deliveryLoop = null;
+                if (segments != null) {
+                    head_deliveryLoop = segments.getForward(i).concat(segments.createSegment(pickupShipment),
+                        segments.getTransportTime(segments.getLocation(i), pickupShipment.getLocation()));
+                    //arrival is already too late, and it can only get later at subsequent positions
+                    if (!head_deliveryLoop.isTimeFeasible()) continue;
+                }
                 ActivityContext activityContext = new ActivityContext();
                 activityContext.setInsertionIndex(i);
                 insertionContext.setActivityContext(activityContext);
@@ -191,6 +211,16 @@ final class ShipmentInsertionCalculator implements JobInsertionCostsCalculator {
                     for (TimeWindow deliveryTimeWindow : shipment.getDeliveryTimeWindows()) {
                         deliverShipment.setTheoreticalEarliestOperationStartTime(deliveryTimeWindow.getStart());
                         deliverShipment.setTheoreticalLatestOperationStartTime(deliveryTimeWindow.getEnd());
+                        if (head_deliveryLoop != null) {
+                            RouteSegment head = head_deliveryLoop.concat(segments.createSegment(deliverShipment),
+                                segments.getTransportTime(prevAct_deliveryLoop.getLocation(), deliverShipment.getLocation()));
+                            if (!head.isTimeFeasible()) continue;
+                            RouteSegment routeWithNewActs = head.concat(segments.getBackward(j + 1), segments.getTransportTime(deliverShipment.getLocation(), j + 1));
+                            if (!segments.isFeasible(routeWithNewActs)) {
+                                deliveryInsertionNotFulfilledBreak = false;
+                                continue;
+                            }
+                        }
                         ActivityContext activityContext_ = new ActivityContext();
                         activityContext_.setInsertionIndex(j);
                         insertionContext.setActivityContext(activityContext_);
@@ -216,6 +246,9 @@ final class ShipmentInsertionCalculator implements JobInsertionCostsCalculator {
                     //update prevAct and endTime
                     double nextActArrTime = prevActEndTime_deliveryLoop + transportCosts.getTransportTime(prevAct_deliveryLoop.getLocation(), nextAct_deliveryLoop.getLocation(), prevActEndTime_deliveryLoop, newDriver, newVehicle);
                     prevActEndTime_deliveryLoop = Math.max(nextActArrTime, nextAct_deliveryLoop.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(nextAct_deliveryLoop,nextActArrTime,newDriver,newVehicle);
+                    if (head_deliveryLoop != null && !tourEnd_deliveryLoop) {
+                        head_deliveryLoop = head_deliveryLoop.concat(segments.getSingle(j + 1), segments.getTransportTime(prevAct_deliveryLoop.getLocation(), j + 1));
+                    }
                     prevAct_deliveryLoop = nextAct_deliveryLoop;
                     j++;
                 }
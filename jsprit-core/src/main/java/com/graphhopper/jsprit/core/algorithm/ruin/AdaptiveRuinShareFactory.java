@@ -0,0 +1,230 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * Ruin share factory that learns which ruin sizes pay off on the current instance.
+ * <p>
+ * <p>The range [minShare,maxShare] is divided into a few levels. Each time a number of jobs to be removed is
+ * requested, a level is selected and the number is drawn uniformly from it. When the iteration ends, the improvement
+ * of the solution the ruin started from, divided by the wall time of the iteration, is credited to the selected level
+ * (exponential smoothing with the reaction factor). Levels are selected proportional to their improvement rate, with a
+ * small probability of selecting a level uniformly at random. Thus, expensive large ruins are only selected as long
+ * as they improve solutions correspondingly more than cheap small ruins.
+ * <p>
+ * <p>If a time budget is set, the exploration probability decays linearly over the budget, and larger levels are not
+ * selected anymore once their average iteration time exceeds the remaining budget.
+ * <p>
+ * <p>The factory needs to be registered as listener at the algorithm. It should not be shared by several ruin
+ * strategies, since improvements are credited to the last level selected in an iteration.
+ */
+public class AdaptiveRuinShareFactory implements RuinShareFactory, AlgorithmStartsListener, IterationStartsListener, StrategySelectedListener {
+
+    private static Logger logger = LoggerFactory.getLogger(AdaptiveRuinShareFactory.class);
+
+    private static final int DEFAULT_NO_LEVELS = 5;
+
+    private static final double MIN_EXPLORATION = 0.02;
+
+    private final int minShare;
+
+    private final int[] lowerBounds;
+
+    private final int[] upperBounds;
+
+    private final double[] rates;
+
+    private final double[] times;
+
+    private final int[] counts;
+
+    private Random random = RandomNumberGeneration.getRandom();
+
+    private double reactionFactor = 0.1;
+
+    private double exploration = 0.2;
+
+    private double timeBudget = 0.;
+
+    private long algorithmStart;
+
+    private long iterationStart;
+
+    private double costsAtIterationStart;
+
+    private int selectedLevel = -1;
+
+    public AdaptiveRuinShareFactory(int minShare, int maxShare) {
+        this(minShare, maxShare, DEFAULT_NO_LEVELS);
+    }
+
+    public AdaptiveRuinShareFactory(int minShare, int maxShare, int noLevels) {
+        if (maxShare < minShare)
+            throw new IllegalArgumentException("maxShare must be equal or greater than minShare");
+        if (noLevels < 1) throw new IllegalArgumentException("noLevels must be at least 1");
+        this.minShare = minShare;
+        int levels = Math.min(noLevels, maxShare - minShare + 1);
+        lowerBounds = new int[levels];
+        upperBounds = new int[levels];
+        double width = (maxShare - minShare + 1) / (double) levels;
+        for (int l = 0; l < levels; l++) {
+            lowerBounds[l] = minShare + (int) Math.round(l * width);
+            upperBounds[l] = minShare + (int) Math.round((l + 1) * width) - 1;
+        }
+        rates = new double[levels];
+        times = new double[levels];
+        counts = new int[levels];
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Sets the weight of the latest observation in the smoothed improvement rates. Default is 0.1.
+     */
+    public void setReactionFactor(double reactionFactor) {
+        if (reactionFactor <= 0. || reactionFactor > 1.)
+            throw new IllegalArgumentException("reactionFactor must be in (0,1]");
+        this.reactionFactor = reactionFactor;
+    }
+
+    /**
+     * Sets the probability of selecting a level uniformly at random. Default is 0.2.
+     */
+    public void setExploration(double exploration) {
+        if (exploration < 0. || exploration > 1.) throw new IllegalArgumentException("exploration must be in [0,1]");
+        this.exploration = exploration;
+    }
+
+    /**
+     * Sets the time budget in seconds. Zero means no budget, which is the default.
+     */
+    public void setTimeBudget(double timeBudget) {
+        if (timeBudget < 0.) throw new IllegalArgumentException("timeBudget must not be negative");
+        this.timeBudget = timeBudget;
+    }
+
+    public int getNoLevels() {
+        return rates.length;
+    }
+
+    /**
+     * Returns the smoothed improvement per second of the specified level.
+     */
+    public double getImprovementRate(int level) {
+        return rates[level];
+    }
+
+    @Override
+    public int createNumberToBeRemoved() {
+        selectedLevel = selectLevel();
+        int lower = lowerBounds[selectedLevel];
+        return lower + random.nextInt(upperBounds[selectedLevel] - lower + 1);
+    }
+
+    private int selectLevel() {
+        for (int l = 0; l < counts.length; l++) {
+            if (counts[l] == 0) return l;
+        }
+        double remaining = Double.MAX_VALUE;
+        double explorationProbability = exploration;
+        if (timeBudget > 0.) {
+            double elapsed = (System.nanoTime() - algorithmStart) / 1e9;
+            remaining = Math.max(0., timeBudget - elapsed);
+            explorationProbability = Math.max(MIN_EXPLORATION, exploration * remaining / timeBudget);
+        }
+        int noFeasibleLevels = 1;
+        while (noFeasibleLevels < times.length && times[noFeasibleLevels] <= remaining) noFeasibleLevels++;
+        if (random.nextDouble() < explorationProbability) return random.nextInt(noFeasibleLevels);
+        double sum = 0.;
+        for (int l = 0; l < noFeasibleLevels; l++) sum += rates[l];
+        if (sum <= 0.) return random.nextInt(noFeasibleLevels);
+        double r = random.nextDouble() * sum;
+        double cumulated = 0.;
+        for (int l = 0; l < noFeasibleLevels; l++) {
+            cumulated += rates[l];
+            if (r < cumulated) return l;
+        }
+        return noFeasibleLevels - 1;
+    }
+
+    /**
+     * Credits the improvement achieved within the specified time to the last selected level.
+     */
+    void record(double improvement, double seconds) {
+        if (selectedLevel < 0) return;
+        double rate = Math.max(0., improvement) / Math.max(seconds, 1e-6);
+        if (counts[selectedLevel] == 0) {
+            rates[selectedLevel] = rate;
+            times[selectedLevel] = seconds;
+        } else {
+            rates[selectedLevel] = (1. - reactionFactor) * rates[selectedLevel] + reactionFactor * rate;
+            times[selectedLevel] = (1. - reactionFactor) * times[selectedLevel] + reactionFactor * seconds;
+        }
+        counts[selectedLevel]++;
+        selectedLevel = -1;
+    }
+
+    @Override
+    public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+        algorithmStart = System.nanoTime();
+    }
+
+    @Override
+    public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+        selectedLevel = -1;
+        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+        costsAtIterationStart = best == null ? Double.MAX_VALUE : best.getCost();
+        iterationStart = System.nanoTime();
+    }
+
+    @Override
+    public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+        if (selectedLevel < 0 || discoveredSolution == null) return;
+        double improvement = 0.;
+        if (costsAtIterationStart != Double.MAX_VALUE) {
+            improvement = costsAtIterationStart - discoveredSolution.getSolution().getCost();
+        }
+        int level = selectedLevel;
+        record(improvement, (System.nanoTime() - iterationStart) / 1e9);
+        logger.trace("level {} [{},{}]: rate={}", level, lowerBounds[level], upperBounds[level], rates[level]);
+    }
+
+    @Override
+    public String toString() {
+        return "[name=adaptiveRuinShareFactory][minShare=" + minShare + "][levels=" + rates.length + "]";
+    }
+
+}
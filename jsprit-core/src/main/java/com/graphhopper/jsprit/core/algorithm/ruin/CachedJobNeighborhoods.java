@@ -0,0 +1,168 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.EuclideanServiceDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.util.Fingerprint;
+import com.graphhopper.jsprit.core.util.PreprocessingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Job neighborhoods that are read from a {@link PreprocessingCache} if they have been calculated before for the same
+ * locations, transport costs, job distance and capacity. Otherwise, they are calculated by the delegate and stored
+ * in the cache.
+ */
+class CachedJobNeighborhoods implements JobNeighborhoods {
+
+    static final String KIND = "neighborhoods";
+
+    private static Logger logger = LoggerFactory.getLogger(CachedJobNeighborhoods.class);
+
+    /**
+     * Returns the fingerprint identifying the neighborhoods, or null if they cannot be identified, i.e. if the job
+     * distance is unknown or is based on other costs than the transport costs of the problem.
+     */
+    static String fingerprint(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
+        VehicleRoutingTransportCosts costs;
+        if (jobDistance.getClass() == EuclideanServiceDistance.class) {
+            costs = vrp.getTransportCosts();
+        } else if (jobDistance.getClass() == AvgServiceAndShipmentDistance.class) {
+            costs = ((AvgServiceAndShipmentDistance) jobDistance).getTransportCosts();
+        } else if (jobDistance.getClass() == AvgServiceDistance.class) {
+            costs = ((AvgServiceDistance) jobDistance).getTransportCosts();
+        } else return null;
+        if (costs != vrp.getTransportCosts()) return null;
+        Fingerprint fingerprint = Fingerprint.ofLocations(vrp);
+        if (fingerprint == null) return null;
+        return fingerprint.add(jobDistance.getClass().getName()).add(capacity).toHexString();
+    }
+
+    private final JobNeighborhoods delegate;
+
+    private final PreprocessingCache cache;
+
+    private final String fingerprint;
+
+    private final int capacity;
+
+    private final Job[] jobs;
+
+    private int[][] neighbors;
+
+    private double maxDistance;
+
+    CachedJobNeighborhoods(VehicleRoutingProblem vrp, JobNeighborhoods delegate, int capacity, PreprocessingCache cache, String fingerprint) {
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.cache = cache;
+        this.fingerprint = fingerprint;
+        jobs = new Job[vrp.getJobIndexCapacity()];
+        for (Job job : vrp.getJobsInclusiveInitialJobsInRoutes().values()) jobs[job.getIndex()] = job;
+    }
+
+    @Override
+    public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
+        return new JobNeighborhoodsOptimized.ArrayIterator(nNeighbors, neighbors[neighborTo.getIndex() - 1], jobs);
+    }
+
+    @Override
+    public void initialise() {
+        if (read()) {
+            logger.debug("read neighborhoods from {}", cache);
+            return;
+        }
+        delegate.initialise();
+        maxDistance = delegate.getMaxDistance();
+        neighbors = new int[jobs.length - 1][];
+        int nuOfNeighbors = Math.min(capacity, jobs.length - 2);
+        for (int index = 1; index < jobs.length; index++) {
+            if (jobs[index] == null) {
+                neighbors[index - 1] = new int[0];
+                continue;
+            }
+            int[] row = new int[Math.max(0, nuOfNeighbors)];
+            Iterator<Job> iterator = delegate.getNearestNeighborsIterator(row.length, jobs[index]);
+            int n = 0;
+            while (iterator.hasNext() && n < row.length) row[n++] = iterator.next().getIndex();
+            neighbors[index - 1] = n < row.length ? Arrays.copyOf(row, n) : row;
+        }
+        cache.put(KIND, fingerprint, new PreprocessingCache.ArtefactWriter() {
+
+            @Override
+            public void write(DataOutput out) throws IOException {
+                out.writeInt(jobs.length);
+                out.writeDouble(maxDistance);
+                for (int[] row : neighbors) {
+                    out.writeInt(row.length);
+                    for (int index : row) out.writeInt(index);
+                }
+            }
+
+        });
+    }
+
+    private boolean read() {
+        int[][] cached = cache.get(KIND, fingerprint, new PreprocessingCache.ArtefactReader<int[][]>() {
+
+            @Override
+            public int[][] read(DataInput in) throws IOException {
+                if (in.readInt() != jobs.length) throw new IOException("number of jobs does not match");
+                maxDistance = in.readDouble();
+                int[][] rows = new int[jobs.length - 1][];
+                for (int i = 0; i < rows.length; i++) {
+                    int[] row = new int[in.readInt()];
+                    for (int n = 0; n < row.length; n++) {
+                        row[n] = in.readInt();
+                        if (row[n] < 1 || row[n] >= jobs.length) throw new IOException("invalid job index " + row[n]);
+                    }
+                    rows[i] = row;
+                }
+                return rows;
+            }
+
+        });
+        if (cached == null) return false;
+        neighbors = cached;
+        return true;
+    }
+
+    @Override
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=cachedNeighborhoods][cache=" + cache + "][delegate=" + delegate + "]";
+    }
+
+}
@@ -18,109 +18,106 @@
 
 package com.graphhopper.jsprit.core.algorithm.ruin;
 
-import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.RandomNumberGeneration;
 import com.graphhopper.jsprit.core.util.RandomUtils;
-import org.apache.commons.math3.ml.clustering.Cluster;
-import org.apache.commons.math3.ml.clustering.Clusterable;
-import org.apache.commons.math3.ml.distance.DistanceMeasure;
 
 import java.util.*;
 
 /**
+ * Density based clustering (DBSCAN) of the jobs of a route.
+ * <p>
+ * <p>The distance between two jobs is the average transport cost between their locations. Distances are calculated
+ * once per route and memorized together with the last clustering. The memo is keyed by the sequence of jobs in a
+ * route, i.e. routes that have not changed since they were clustered the last time (even if they are copies) are
+ * neither re-measured nor re-clustered as long as eps and minPts do not change. The memo is bounded by the total
+ * number of memorized distances, i.e. n<sup>2</sup> for a route with n jobs, least recently used routes are dropped
+ * first.
+ * <p>
+ * <p>If eps is not set explicitly, it is epsFactor times the difference between the average and the min. distance
+ * between two activities of a route.
+ * <p>
+ * <p>This class is not thread-safe.
+ *
  * Created by schroeder on 04/02/15.
  */
 public class DBSCANClusterer {
 
-    private static class LocationWrapper implements Clusterable {
+    private static final int NOISE = 1;
 
-        private static int objCounter = 0;
+    private static final int PART_OF_CLUSTER = 2;
 
-        private final Job job;
+    private static class RouteKey {
 
-        private List<Location> locations;
+        private final Job[] jobs;
 
-        private int id;
+        private final int hashCode;
 
-        public LocationWrapper(Job job, List<Location> locations) {
-            this.locations = locations;
-            objCounter++;
-            this.job = job;
-            this.id = objCounter;
+        RouteKey(Job[] jobs) {
+            this.jobs = jobs;
+            this.hashCode = Arrays.hashCode(jobs);
         }
 
-//        private List<Location> getLocations(Job job){
-//            List<Location> locs = new ArrayList<Location>();
-//            if(job instanceof Service) {
-//                locs.add(((Service) job).getLocation());
-//            }
-//            else if(job instanceof Shipment){
-//                locs.add(((Shipment) job).getPickupLocation());
-//                locs.add(((Shipment) job).getDeliveryLocation());
-//            }
-//            return locs;
-//        }
-
-        public List<Location> getLocations() {
-            return locations;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RouteKey)) return false;
+            RouteKey routeKey = (RouteKey) o;
+            return hashCode == routeKey.hashCode && Arrays.equals(jobs, routeKey.jobs);
         }
 
         @Override
-        public double[] getPoint() {
-            return new double[]{id};
+        public int hashCode() {
+            return hashCode;
         }
 
-        public Job getJob() {
-            return job;
-        }
     }
 
-    private static class MyDistance implements DistanceMeasure {
+    private static class RouteDistances {
 
-        private Map<Integer, LocationWrapper> locations;
+        private final Job[] jobs;
 
-        private VehicleRoutingTransportCosts costs;
+        private final double[][] distances;
 
-        public MyDistance(List<LocationWrapper> locations, VehicleRoutingTransportCosts costs) {
-            this.locations = new HashMap<Integer, LocationWrapper>();
-            for (LocationWrapper lw : locations) {
-                this.locations.put((int) lw.getPoint()[0], lw);
-            }
-            this.costs = costs;
+        private final double distanceSpread;
+
+        private double clusteredEps = -1.;
+
+        private int clusteredMinPts = -1;
+
+        private List<List<Job>> clusters;
+
+        RouteDistances(Job[] jobs, double[][] distances, double distanceSpread) {
+            this.jobs = jobs;
+            this.distances = distances;
+            this.distanceSpread = distanceSpread;
         }
 
-        @Override
-        public double compute(double[] doubles, double[] doubles1) {
-            LocationWrapper l1 = locations.get((int) doubles[0]);
-            LocationWrapper l2 = locations.get((int) doubles1[0]);
-            int count = 0;
-            double sum = 0;
-            for (Location loc_1 : l1.getLocations()) {
-                for (Location loc_2 : l2.getLocations()) {
-                    sum += costs.getTransportCost(loc_1, loc_2, 0, null, null);
-                    count++;
-                }
-            }
-            return sum / (double) count;
+        long size() {
+            return (long) jobs.length * jobs.length;
         }
+
     }
 
     private VehicleRoutingTransportCosts costs;
 
     private int minNoOfJobsInCluster = 1;
 
-    private int noDistanceSamples = 10;
-
     private double epsFactor = 0.8;
 
     private Double epsDistance;
 
+    private long maxMemorizedDistances = 1 << 20;
+
+    private long noMemorizedDistances = 0;
+
     private Random random = RandomNumberGeneration.getRandom();
 
+    private final Map<RouteKey, RouteDistances> memorizedRoutes = new LinkedHashMap<RouteKey, RouteDistances>(16, 0.75f, true);
+
     public void setRandom(Random random) {
         this.random = random;
     }
@@ -141,78 +138,179 @@ public class DBSCANClusterer {
         this.epsDistance = epsDistance;
     }
 
+    /**
+     * Sets the max. number of memorized distances, i.e. the sum of n<sup>2</sup> over all memorized routes with n jobs
+     * (default is 2<sup>20</sup>, i.e. 8 MB). Routes with more distances are not memorized at all.
+     *
+     * @param maxMemorizedDistances max. number of memorized distances
+     */
+    public void setMaxMemorizedDistances(long maxMemorizedDistances) {
+        if (maxMemorizedDistances < 0) throw new IllegalArgumentException("max. number of memorized distances must not be negative");
+        this.maxMemorizedDistances = maxMemorizedDistances;
+        memorizedRoutes.clear();
+        noMemorizedDistances = 0;
+    }
+
     public List<List<Job>> getClusters(VehicleRoute route) {
-        List<LocationWrapper> locations = getLocationWrappers(route);
-        List<Cluster<LocationWrapper>> clusterResults = getClusters(route, locations);
-        return makeList(clusterResults);
+        if (route.isEmpty()) return new ArrayList<List<Job>>();
+        return copy(getClusters(getRouteDistances(route)));
     }
 
-    private List<LocationWrapper> getLocationWrappers(VehicleRoute route) {
-        List<LocationWrapper> locations = new ArrayList<LocationWrapper>(route.getTourActivities().getJobs().size());
-        Map<Job, List<Location>> jobs2locations = new HashMap<Job, List<Location>>();
+    public List<Job> getRandomCluster(VehicleRoute route) {
+        if (route.isEmpty()) return Collections.emptyList();
+        List<List<Job>> clusters = getClusters(getRouteDistances(route));
+        if (clusters.isEmpty()) return Collections.emptyList();
+        return new ArrayList<Job>(RandomUtils.nextItem(clusters, random));
+    }
+
+    private List<List<Job>> copy(List<List<Job>> clusters) {
+        List<List<Job>> copy = new ArrayList<List<Job>>(clusters.size());
+        for (List<Job> cluster : clusters) copy.add(new ArrayList<Job>(cluster));
+        return copy;
+    }
+
+    private RouteDistances getRouteDistances(VehicleRoute route) {
+        List<Job> jobList = new ArrayList<Job>();
         for (TourActivity act : route.getActivities()) {
             if (act instanceof TourActivity.JobActivity) {
-                Job job = ((TourActivity.JobActivity) act).getJob();
-                if (!jobs2locations.containsKey(job)) {
-                    jobs2locations.put(job, new ArrayList<Location>());
-                }
-                jobs2locations.get(job).add(act.getLocation());
+                jobList.add(((TourActivity.JobActivity) act).getJob());
             }
         }
-        for (Job j : jobs2locations.keySet()) {
-            locations.add(new LocationWrapper(j, jobs2locations.get(j)));
+        RouteKey key = new RouteKey(jobList.toArray(new Job[jobList.size()]));
+        RouteDistances routeDistances = memorizedRoutes.get(key);
+        if (routeDistances == null) {
+            routeDistances = calculateDistances(route.getActivities());
+            memorize(key, routeDistances);
         }
-        return locations;
+        return routeDistances;
     }
 
-    private List<Cluster<LocationWrapper>> getClusters(VehicleRoute route, List<LocationWrapper> locations) {
-        double sampledDistance;
-        if (epsDistance != null) sampledDistance = epsDistance;
-        else sampledDistance = Math.max(0, sample(costs, route));
-        org.apache.commons.math3.ml.clustering.DBSCANClusterer<LocationWrapper> clusterer = new org.apache.commons.math3.ml.clustering.DBSCANClusterer<LocationWrapper>(sampledDistance, minNoOfJobsInCluster, new MyDistance(locations, costs));
-        return clusterer.cluster(locations);
+    private void memorize(RouteKey key, RouteDistances routeDistances) {
+        if (routeDistances.size() > maxMemorizedDistances) return;
+        memorizedRoutes.put(key, routeDistances);
+        noMemorizedDistances += routeDistances.size();
+        Iterator<RouteDistances> leastRecentlyUsed = memorizedRoutes.values().iterator();
+        while (noMemorizedDistances > maxMemorizedDistances) {
+            noMemorizedDistances -= leastRecentlyUsed.next().size();
+            leastRecentlyUsed.remove();
+        }
     }
 
-    private List<List<Job>> makeList(List<Cluster<LocationWrapper>> clusterResults) {
-        List<List<Job>> l = new ArrayList<List<Job>>();
-        for (Cluster<LocationWrapper> c : clusterResults) {
-            List<Job> l_ = getJobList(c);
-            l.add(l_);
+    /**
+     * Measures the distances between all activities once. The distance between two jobs is the average distance
+     * between their activities.
+     */
+    private RouteDistances calculateDistances(List<TourActivity> activities) {
+        int m = activities.size();
+        double[][] activityDistances = new double[m][m];
+        double sum = 0.;
+        double min = Double.MAX_VALUE;
+        Map<Job, List<Integer>> jobs2activities = new LinkedHashMap<Job, List<Integer>>();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) {
+                if (i == j) continue;
+                double distance = costs.getTransportCost(activities.get(i).getLocation(), activities.get(j).getLocation(), 0., null, null);
+                activityDistances[i][j] = distance;
+                sum += distance;
+                min = Math.min(min, distance);
+            }
+            if (activities.get(i) instanceof TourActivity.JobActivity) {
+                Job job = ((TourActivity.JobActivity) activities.get(i)).getJob();
+                if (!jobs2activities.containsKey(job)) {
+                    jobs2activities.put(job, new ArrayList<Integer>(2));
+                }
+                jobs2activities.get(job).add(i);
+            }
+        }
+        double distanceSpread = m < 2 ? 0. : sum / ((double) m * (m - 1)) - min;
+        Job[] jobs = jobs2activities.keySet().toArray(new Job[jobs2activities.size()]);
+        List<List<Integer>> activityIndices = new ArrayList<List<Integer>>(jobs2activities.values());
+        double[][] distances = new double[jobs.length][jobs.length];
+        for (int i = 0; i < jobs.length; i++) {
+            for (int j = 0; j < jobs.length; j++) {
+                if (i != j) distances[i][j] = avgDistance(activityDistances, activityIndices.get(i), activityIndices.get(j));
+            }
         }
-        return l;
+        return new RouteDistances(jobs, distances, distanceSpread);
     }
 
-    private List<Job> getJobList(Cluster<LocationWrapper> c) {
-        List<Job> l_ = new ArrayList<Job>();
-        if (c == null) return l_;
-        for (LocationWrapper lw : c.getPoints()) {
-            l_.add(lw.getJob());
+    private double avgDistance(double[][] activityDistances, List<Integer> activities1, List<Integer> activities2) {
+        double sum = 0.;
+        for (int act1 : activities1) {
+            for (int act2 : activities2) {
+                sum += activityDistances[act1][act2];
+            }
         }
-        return l_;
+        return sum / (activities1.size() * activities2.size());
     }
 
-    public List<Job> getRandomCluster(VehicleRoute route) {
-        if (route.isEmpty()) return Collections.emptyList();
-        List<LocationWrapper> locations = getLocationWrappers(route);
-        List<Cluster<LocationWrapper>> clusterResults = getClusters(route, locations);
-        if (clusterResults.isEmpty()) return Collections.emptyList();
-        Cluster<LocationWrapper> randomCluster = RandomUtils.nextItem(clusterResults, random);
-        return getJobList(randomCluster);
+    private List<List<Job>> getClusters(RouteDistances routeDistances) {
+        double eps;
+        if (epsDistance != null) eps = epsDistance;
+        else eps = Math.max(0, routeDistances.distanceSpread * epsFactor);
+        if (routeDistances.clusters == null || routeDistances.clusteredEps != eps || routeDistances.clusteredMinPts != minNoOfJobsInCluster) {
+            routeDistances.clusters = cluster(routeDistances, eps);
+            routeDistances.clusteredEps = eps;
+            routeDistances.clusteredMinPts = minNoOfJobsInCluster;
+        }
+        return routeDistances.clusters;
     }
 
-    private double sample(VehicleRoutingTransportCosts costs, VehicleRoute r) {
-        double min = Double.MAX_VALUE;
-        double sum = 0;
-        for (int i = 0; i < noDistanceSamples; i++) {
-            TourActivity act1 = RandomUtils.nextItem(r.getActivities(), random);
-            TourActivity act2 = RandomUtils.nextItem(r.getActivities(), random);
-            double dist = costs.getTransportCost(act1.getLocation(), act2.getLocation(),
-                0., null, r.getVehicle());
-            if (dist < min) min = dist;
-            sum += dist;
+    /**
+     * Standard DBSCAN: a job with at least minPts other jobs within eps is a core job. Clusters consist of core jobs
+     * that are density-reachable from each other plus the jobs within eps of them. Remaining jobs are noise and do
+     * not belong to any cluster.
+     */
+    private List<List<Job>> cluster(RouteDistances routeDistances, double eps) {
+        int n = routeDistances.jobs.length;
+        int[] status = new int[n];
+        boolean[] isSeed = new boolean[n];
+        int[] seeds = new int[n];
+        List<List<Job>> clusters = new ArrayList<List<Job>>();
+        for (int point = 0; point < n; point++) {
+            if (status[point] != 0) continue;
+            int noNeighbors = addNeighbors(routeDistances, point, eps, null, null, 0);
+            if (noNeighbors < minNoOfJobsInCluster) {
+                status[point] = NOISE;
+                continue;
+            }
+            List<Job> cluster = new ArrayList<Job>();
+            cluster.add(routeDistances.jobs[point]);
+            status[point] = PART_OF_CLUSTER;
+            Arrays.fill(isSeed, false);
+            int noSeeds = addNeighbors(routeDistances, point, eps, seeds, isSeed, 0);
+            for (int index = 0; index < noSeeds; index++) {
+                int current = seeds[index];
+                if (status[current] == 0) {
+                    if (addNeighbors(routeDistances, current, eps, null, null, 0) >= minNoOfJobsInCluster) {
+                        noSeeds = addNeighbors(routeDistances, current, eps, seeds, isSeed, noSeeds);
+                    }
+                }
+                if (status[current] != PART_OF_CLUSTER) {
+                    status[current] = PART_OF_CLUSTER;
+                    cluster.add(routeDistances.jobs[current]);
+                }
+            }
+            clusters.add(cluster);
+        }
+        return clusters;
+    }
+
+    /**
+     * Counts the neighbors of point within eps and, if seeds is not null, appends those that are not yet seeds.
+     * Returns the number of neighbors or the new number of seeds respectively.
+     */
+    private int addNeighbors(RouteDistances routeDistances, int point, double eps, int[] seeds, boolean[] isSeed, int noSeeds) {
+        int count = noSeeds;
+        for (int neighbor = 0; neighbor < routeDistances.jobs.length; neighbor++) {
+            if (neighbor == point || routeDistances.distances[neighbor][point] > eps) continue;
+            if (seeds == null) count++;
+            else if (!isSeed[neighbor]) {
+                isSeed[neighbor] = true;
+                seeds[count++] = neighbor;
+            }
         }
-        double avg = sum / ((double) noDistanceSamples);
-        return (avg - min) * epsFactor;
+        return count;
     }
 
 }
@@ -20,19 +20,55 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.util.PreprocessingCache;
 
 /**
  * Created by schroeder on 05/03/15.
  */
 public class JobNeighborhoodsFactory {
 
+    private boolean parallel = false;
+
+    /**
+     * Sets whether neighborhoods of large problems may be calculated in parallel, in the shared fork/join pool
+     * (default: false). The job distance and the transport costs it is based on need to be thread-safe then.
+     *
+     * @param parallel true if neighborhoods may be calculated in parallel
+     * @return this factory
+     */
+    public JobNeighborhoodsFactory setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
     public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance) {
         return new JobNeighborhoodsImpl(vrp, jobDistance);
     }
 
     public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
 //        return new JobNeighborhoodsImplWithCapRestriction(vrp, jobDistance, capacity);
-        return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
+        if (JobNeighborhoodsSpatial.isApplicable(vrp, jobDistance)) {
+            JobNeighborhoodsSpatial neighborhoods = new JobNeighborhoodsSpatial(vrp, jobDistance, capacity);
+            neighborhoods.setParallel(parallel);
+            return neighborhoods;
+        }
+        JobNeighborhoodsOptimized neighborhoods = new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
+        neighborhoods.setParallel(parallel);
+        return neighborhoods;
+    }
+
+    /**
+     * Creates neighborhoods that are read from cache if they have been calculated before for the same locations,
+     * transport costs, job distance and capacity. If cache is null or the neighborhoods cannot be identified by a
+     * fingerprint (e.g. since transport costs are not {@link com.graphhopper.jsprit.core.util.Fingerprintable}), it
+     * falls back to {@link #createNeighborhoods(VehicleRoutingProblem, JobDistance, int)}.
+     */
+    public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, PreprocessingCache cache) {
+        JobNeighborhoods neighborhoods = createNeighborhoods(vrp, jobDistance, capacity);
+        if (cache == null) return neighborhoods;
+        String fingerprint = CachedJobNeighborhoods.fingerprint(vrp, jobDistance, capacity);
+        if (fingerprint == null) return neighborhoods;
+        return new CachedJobNeighborhoods(vrp, neighborhoods, capacity, cache, fingerprint);
     }
 
 }
@@ -21,13 +21,22 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.util.ExecutorServiceProviders;
 import com.graphhopper.jsprit.core.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.RecursiveTask;
 
 /**
+ * Job neighborhoods that are determined by calculating the distance between each pair of jobs.
+ * <p>
+ * <p>Neighborhoods are calculated sequentially unless parallel calculation is enabled. Then, rows of large problems
+ * are calculated in the shared fork/join pool, i.e. the job distance and the transport costs it is based on are
+ * called concurrently and must be thread-safe.
+ *
  * Created by schroeder on 07/01/15.
  */
 class JobNeighborhoodsOptimized implements JobNeighborhoods {
@@ -71,6 +80,10 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
     private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsOptimized.class);
 
+    private static final int PARALLEL_THRESHOLD = 500;
+
+    private static final int ROWS_PER_TASK = 32;
+
     private VehicleRoutingProblem vrp;
 
     private int[][] neighbors;
@@ -83,16 +96,26 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
     private double maxDistance = 0.;
 
+    private boolean parallel = false;
+
     public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
         super();
         this.vrp = vrp;
         this.jobDistance = jobDistance;
         this.capacity = capacity;
-        neighbors = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1][capacity];
-        jobs = new Job[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1];
+        neighbors = new int[vrp.getJobIndexCapacity()][capacity];
+        jobs = new Job[vrp.getJobIndexCapacity()];
         logger.debug("initialize {}", this);
     }
 
+    /**
+     * Enables calculating the neighborhoods of large problems in parallel (default: false). The job distance and the
+     * transport costs need to be thread-safe then.
+     */
+    void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     @Override
     public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
         int[] neighbors = this.neighbors[neighborTo.getIndex()-1];
@@ -115,39 +138,135 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         logger.debug("pre-process distances between locations ...");
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        for (Job job_i : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-            jobs[job_i.getIndex()] = job_i;
-            List<ReferencedJob> jobList = new ArrayList<ReferencedJob>(vrp.getJobsInclusiveInitialJobsInRoutes().values().size());
-            for (Job job_j : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-                if (job_i == job_j) continue;
-                double distance = jobDistance.getDistance(job_i, job_j);
-                if (distance > maxDistance) maxDistance = distance;
-                ReferencedJob referencedJob = new ReferencedJob(job_j, distance);
-                jobList.add(referencedJob);
-            }
-            Collections.sort(jobList,getComparator());
-            int[] jobIndices = new int[capacity];
-            for(int index=0;index<capacity;index++){
-                jobIndices[index] = jobList.get(index).getJob().getIndex();
+        Collection<Job> jobCollection = vrp.getJobsInclusiveInitialJobsInRoutes().values();
+        Job[] jobList = jobCollection.toArray(new Job[jobCollection.size()]);
+        for (Job job : jobList) jobs[job.getIndex()] = job;
+        int nuOfNeighbors = Math.min(capacity, jobList.length - 1);
+        if (nuOfNeighbors > 0) {
+            RowsTask task = new RowsTask(jobList, nuOfNeighbors, 0, jobList.length);
+            if (!parallel || jobList.length < PARALLEL_THRESHOLD) {
+                maxDistance = task.calculateRows();
+            } else {
+                maxDistance = ExecutorServiceProviders.getSharedForkJoinPool().invoke(task);
             }
-            neighbors[job_i.getIndex()-1] = jobIndices;
         }
         stopWatch.stop();
         logger.debug("pre-processing comp-time: {}", stopWatch);
     }
 
-    private Comparator<ReferencedJob> getComparator(){
-        return new Comparator<ReferencedJob>() {
-            @Override
-            public int compare(ReferencedJob o1, ReferencedJob o2) {
-                if (o1.getDistance() < o2.getDistance()) {
-                    return -1;
-                } else if (o1.getDistance() > o2.getDistance()){
-                    return 1;
+    /**
+     * Calculates the nearest neighbors of the jobs in [from,to) and returns the max. distance found. Rows are split
+     * recursively such that they can be processed in parallel.
+     * <p>
+     * <p>The nearest neighbors of a job are determined with a bounded max-heap of size nuOfNeighbors that is kept in
+     * primitive arrays. Thus, there is no object per pair of jobs, and determining the neighbors of one job takes
+     * O(n log nuOfNeighbors). Ties are broken by the order of jobs in the problem.
+     */
+    private class RowsTask extends RecursiveTask<Double> {
+
+        private final Job[] jobList;
+
+        private final int nuOfNeighbors;
+
+        private final int from;
+
+        private final int to;
+
+        private double[] heapDistances;
+
+        private int[] heapPositions;
+
+        private int heapSize;
+
+        RowsTask(Job[] jobList, int nuOfNeighbors, int from, int to) {
+            this.jobList = jobList;
+            this.nuOfNeighbors = nuOfNeighbors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                return calculateRows();
+            }
+            int mid = (from + to) >>> 1;
+            RowsTask left = new RowsTask(jobList, nuOfNeighbors, from, mid);
+            RowsTask right = new RowsTask(jobList, nuOfNeighbors, mid, to);
+            left.fork();
+            double rightMax = right.compute();
+            return Math.max(left.join(), rightMax);
+        }
+
+        double calculateRows() {
+            heapDistances = new double[nuOfNeighbors];
+            heapPositions = new int[nuOfNeighbors];
+            double max = 0.;
+            for (int i = from; i < to; i++) {
+                Job job_i = jobList[i];
+                heapSize = 0;
+                for (int j = 0; j < jobList.length; j++) {
+                    if (i == j) continue;
+                    double distance = jobDistance.getDistance(job_i, jobList[j]);
+                    if (distance > max) max = distance;
+                    offer(distance, j);
+                }
+                int[] jobIndices = new int[nuOfNeighbors];
+                while (heapSize > 0) {
+                    jobIndices[heapSize - 1] = jobList[heapPositions[0]].getIndex();
+                    removeTop();
+                }
+                neighbors[job_i.getIndex() - 1] = jobIndices;
+            }
+            return max;
+        }
+
+        private boolean greater(double distance1, int position1, double distance2, int position2) {
+            if (distance1 > distance2) return true;
+            if (distance1 < distance2) return false;
+            return position1 > position2;
+        }
+
+        private void offer(double distance, int position) {
+            if (heapSize < nuOfNeighbors) {
+                int index = heapSize++;
+                while (index > 0) {
+                    int parent = (index - 1) >>> 1;
+                    if (!greater(distance, position, heapDistances[parent], heapPositions[parent])) break;
+                    heapDistances[index] = heapDistances[parent];
+                    heapPositions[index] = heapPositions[parent];
+                    index = parent;
                 }
-                else return 0;
+                heapDistances[index] = distance;
+                heapPositions[index] = position;
+            } else if (greater(heapDistances[0], heapPositions[0], distance, position)) {
+                siftDown(distance, position);
             }
-        };
+        }
+
+        private void removeTop() {
+            heapSize--;
+            if (heapSize > 0) siftDown(heapDistances[heapSize], heapPositions[heapSize]);
+        }
+
+        private void siftDown(double distance, int position) {
+            int index = 0;
+            int half = heapSize >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                int right = child + 1;
+                if (right < heapSize && greater(heapDistances[right], heapPositions[right], heapDistances[child], heapPositions[child])) {
+                    child = right;
+                }
+                if (!greater(heapDistances[child], heapPositions[child], distance, position)) break;
+                heapDistances[index] = heapDistances[child];
+                heapPositions[index] = heapPositions[child];
+                index = child;
+            }
+            heapDistances[index] = distance;
+            heapPositions[index] = position;
+        }
+
     }
 
     @Override
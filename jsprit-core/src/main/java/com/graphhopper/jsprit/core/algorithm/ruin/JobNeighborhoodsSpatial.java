@@ -0,0 +1,220 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.EuclideanServiceDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Job neighborhoods that are determined with a {@link SpatialIndex} rather than by calculating the distance between
+ * each pair of jobs. Thus, building the neighborhoods takes O(n log n + n k log k) instead of O(n^2).
+ * <p>
+ * <p>This only yields the same neighborhoods as {@link JobNeighborhoodsOptimized} if the job distance grows
+ * monotonically with the euclidean or great circle distance between job locations. Use isApplicable(...) to check
+ * this. Ties are broken by the order of jobs in the problem.
+ * <p>
+ * <p>Like {@link JobNeighborhoodsOptimized}, neighborhoods are calculated sequentially unless parallel calculation is
+ * enabled, which requires the job distance to be thread-safe.
+ */
+class JobNeighborhoodsSpatial implements JobNeighborhoods {
+
+    private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsSpatial.class);
+
+    private static final int PARALLEL_THRESHOLD = 500;
+
+    private static final int ROWS_PER_TASK = 64;
+
+    /**
+     * Returns true if all jobs are services with coordinates and the job distance is a (scaled) euclidean or great
+     * circle distance between their locations.
+     */
+    static boolean isApplicable(VehicleRoutingProblem vrp, JobDistance jobDistance) {
+        if (getMetric(jobDistance) == null) return false;
+        for (Job job : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
+            if (!(job instanceof Service)) return false;
+            Location location = ((Service) job).getLocation();
+            if (location == null || location.getCoordinate() == null) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the class of the transport costs job distances are calculated with, or null if they are no crow fly
+     * distances. Subclasses of transport costs are not considered since they might calculate costs differently.
+     */
+    private static Class<?> getMetric(JobDistance jobDistance) {
+        if (jobDistance instanceof EuclideanServiceDistance) return EuclideanCosts.class;
+        VehicleRoutingTransportCosts costs = null;
+        if (jobDistance instanceof AvgServiceAndShipmentDistance) {
+            costs = ((AvgServiceAndShipmentDistance) jobDistance).getTransportCosts();
+        } else if (jobDistance instanceof AvgServiceDistance) {
+            costs = ((AvgServiceDistance) jobDistance).getTransportCosts();
+        }
+        if (costs == null) return null;
+        if (costs.getClass() == CrowFlyCosts.class || costs.getClass() == EuclideanCosts.class) {
+            return EuclideanCosts.class;
+        }
+        if (costs.getClass() == GreatCircleCosts.class) return GreatCircleCosts.class;
+        return null;
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private int[][] neighbors;
+
+    private Job[] jobs;
+
+    private JobDistance jobDistance;
+
+    private int capacity;
+
+    private double maxDistance = 0.;
+
+    private boolean parallel = false;
+
+    private SpatialIndex spatialIndex;
+
+    public JobNeighborhoodsSpatial(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
+        super();
+        if (!isApplicable(vrp, jobDistance)) {
+            throw new IllegalArgumentException("spatial neighborhoods require services with coordinates and a crow fly job distance");
+        }
+        this.vrp = vrp;
+        this.jobDistance = jobDistance;
+        this.capacity = capacity;
+        neighbors = new int[vrp.getJobIndexCapacity()][];
+        jobs = new Job[vrp.getJobIndexCapacity()];
+        logger.debug("initialize {}", this);
+    }
+
+    /**
+     * Enables calculating the neighborhoods of large problems in parallel (default: false). The job distance needs to
+     * be thread-safe then.
+     */
+    void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
+        int[] neighbors = this.neighbors[neighborTo.getIndex() - 1];
+        if (neighbors == null) neighbors = new int[0];
+        return new JobNeighborhoodsOptimized.ArrayIterator(nNeighbors, neighbors, jobs);
+    }
+
+    @Override
+    public void initialise() {
+        logger.debug("pre-process neighborhoods with spatial index ...");
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        Collection<Job> jobCollection = vrp.getJobsInclusiveInitialJobsInRoutes().values();
+        Job[] jobList = jobCollection.toArray(new Job[jobCollection.size()]);
+        Coordinate[] coordinates = new Coordinate[jobList.length];
+        for (int i = 0; i < jobList.length; i++) {
+            jobs[jobList[i].getIndex()] = jobList[i];
+            coordinates[i] = ((Service) jobList[i]).getLocation().getCoordinate();
+        }
+        if (getMetric(jobDistance) == GreatCircleCosts.class) {
+            spatialIndex = SpatialIndex.newGreatCircleInstance(coordinates, DistanceUnit.Kilometer);
+        } else spatialIndex = SpatialIndex.newEuclideanInstance(coordinates);
+        RowsTask task = new RowsTask(jobList, Math.max(0, capacity), 0, jobList.length);
+        if (!parallel || jobList.length < PARALLEL_THRESHOLD) {
+            maxDistance = task.calculateRows();
+        } else {
+            maxDistance = ExecutorServiceProviders.getSharedForkJoinPool().invoke(task);
+        }
+        stopWatch.stop();
+        logger.debug("pre-processing comp-time: {}", stopWatch);
+    }
+
+    @Override
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Determines the nearest neighbors of the jobs in [from,to) and returns the max. distance between any of these jobs
+     * and its farthest job.
+     */
+    private class RowsTask extends RecursiveTask<Double> {
+
+        private final Job[] jobList;
+
+        private final int nuOfNeighbors;
+
+        private final int from;
+
+        private final int to;
+
+        RowsTask(Job[] jobList, int nuOfNeighbors, int from, int to) {
+            this.jobList = jobList;
+            this.nuOfNeighbors = nuOfNeighbors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                return calculateRows();
+            }
+            int mid = (from + to) >>> 1;
+            RowsTask left = new RowsTask(jobList, nuOfNeighbors, from, mid);
+            RowsTask right = new RowsTask(jobList, nuOfNeighbors, mid, to);
+            left.fork();
+            double rightMax = right.compute();
+            return Math.max(left.join(), rightMax);
+        }
+
+        double calculateRows() {
+            double max = 0.;
+            for (int i = from; i < to; i++) {
+                Job job_i = jobList[i];
+                int[] positions = spatialIndex.getNearestNeighbors(i, nuOfNeighbors);
+                int[] jobIndices = new int[positions.length];
+                for (int p = 0; p < positions.length; p++) jobIndices[p] = jobList[positions[p]].getIndex();
+                neighbors[job_i.getIndex() - 1] = jobIndices;
+                double distance = jobDistance.getDistance(job_i, jobList[spatialIndex.getFarthest(i)]);
+                if (distance > max) max = distance;
+            }
+            return max;
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "[name=spatialNeighborhood][capacity=" + capacity + "]";
+    }
+
+}
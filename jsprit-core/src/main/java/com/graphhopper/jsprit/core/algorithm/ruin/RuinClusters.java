@@ -77,6 +77,8 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
 
     private double epsFactor = 0.8;
 
+    private final DBSCANClusterer dbscan;
+
     public RuinClusters(VehicleRoutingProblem vrp, final int initialNumberJobsToRemove, JobNeighborhoods jobNeighborhoods) {
         super(vrp);
         this.vrp = vrp;
@@ -87,6 +89,7 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
             }
         });
         this.jobNeighborhoods = jobNeighborhoods;
+        this.dbscan = new DBSCANClusterer(vrp.getTransportCosts());
         logger.debug("initialise {}", this);
     }
 
@@ -140,7 +143,6 @@ public final class RuinClusters extends AbstractRuinStrategy implements Iteratio
                 cycleCandidates.add(targetRoute);
                 break;
             }
-            DBSCANClusterer dbscan = new DBSCANClusterer(vrp.getTransportCosts());
             dbscan.setRandom(random);
             dbscan.setMinPts(minPts);
             dbscan.setEpsFactor(epsFactor);
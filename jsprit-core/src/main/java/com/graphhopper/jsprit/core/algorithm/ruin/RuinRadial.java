@@ -64,9 +64,8 @@ public final class RuinRadial extends AbstractRuinStrategy {
             }
 
         };
-        JobNeighborhoodsImplWithCapRestriction jobNeighborhoodsImpl = new JobNeighborhoodsImplWithCapRestriction(vrp, jobDistance, noJobsToMemorize);
-        jobNeighborhoodsImpl.initialise();
-        jobNeighborhoods = jobNeighborhoodsImpl;
+        jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, noJobsToMemorize);
+        jobNeighborhoods.initialise();
         logger.debug("initialise {}", this);
     }
 
@@ -83,9 +82,8 @@ public final class RuinRadial extends AbstractRuinStrategy {
             }
 
         };
-        JobNeighborhoodsImplWithCapRestriction jobNeighborhoodsImpl = new JobNeighborhoodsImplWithCapRestriction(vrp, jobDistance, noJobsToMemorize);
-        jobNeighborhoodsImpl.initialise();
-        jobNeighborhoods = jobNeighborhoodsImpl;
+        jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, noJobsToMemorize);
+        jobNeighborhoods.initialise();
         logger.debug("initialise {}", this);
     }
 
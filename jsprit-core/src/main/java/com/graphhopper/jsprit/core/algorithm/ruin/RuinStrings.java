@@ -0,0 +1,197 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+
+/**
+ * Ruin strategy that removes strings, i.e. sequences of consecutive activities, from adjacent routes (slack induction by
+ * string removals, SISR).
+ * <p>
+ * <p>A seed job is selected randomly. Its nearest neighbors are then visited in ascending distance and for each
+ * neighbor in a route that has not been ruined yet, a string containing the neighbor is removed from this route. With
+ * probability splitRate a split-string is removed instead, i.e. a string from which a random number of consecutive
+ * activities is preserved.
+ * <p>
+ * <p>The number of strings and their max. length are derived from the average number of jobs to be removed (which
+ * is determined by the ruin share factory), the max. string length and the average number of jobs per route as
+ * suggested by Christiaens and Vanden Berghe (2020).
+ * <p>
+ * <p>The seed is drawn from a random position of a random non-empty route. The route of each visited neighbor is
+ * looked up by asking the routes that have not been ruined yet whether they serve it, i.e. a ruin does not scan all
+ * jobs.
+ */
+public final class RuinStrings extends AbstractRuinStrategy {
+
+    private static Logger logger = LoggerFactory.getLogger(RuinStrings.class);
+
+    private final JobNeighborhoods jobNeighborhoods;
+
+    private int maxStringLength = 10;
+
+    private double splitRate = 0.5;
+
+    private double splitDepth = 0.01;
+
+    public RuinStrings(VehicleRoutingProblem vrp, final int initialNumberJobsToRemove, JobNeighborhoods jobNeighborhoods) {
+        super(vrp);
+        this.jobNeighborhoods = jobNeighborhoods;
+        setRuinShareFactory(new RuinShareFactory() {
+            @Override
+            public int createNumberToBeRemoved() {
+                return initialNumberJobsToRemove;
+            }
+        });
+        logger.debug("initialise {}", this);
+    }
+
+    /**
+     * Sets the max. number of activities of a string (default is 10).
+     *
+     * @param maxStringLength max. string length
+     */
+    public void setMaxStringLength(int maxStringLength) {
+        if (maxStringLength < 1) throw new IllegalArgumentException("max. string length must be at least 1");
+        this.maxStringLength = maxStringLength;
+    }
+
+    /**
+     * Sets the probability of removing a split-string rather than a string (default is 0.5).
+     *
+     * @param splitRate probability of split-strings
+     */
+    public void setSplitRate(double splitRate) {
+        if (splitRate < 0 || splitRate > 1) throw new IllegalArgumentException("split rate must be within [0,1]");
+        this.splitRate = splitRate;
+    }
+
+    /**
+     * Sets the probability of not preserving one more activity of a split-string (default is 0.01). The lower the
+     * depth, the more activities are preserved.
+     *
+     * @param splitDepth split depth
+     */
+    public void setSplitDepth(double splitDepth) {
+        if (splitDepth < 0 || splitDepth > 1) throw new IllegalArgumentException("split depth must be within [0,1]");
+        this.splitDepth = splitDepth;
+    }
+
+    @Override
+    public Collection<Job> ruinRoutes(Collection<VehicleRoute> vehicleRoutes) {
+        int avgNoJobsToRemove = getRuinShareFactory().createNumberToBeRemoved();
+        if (vehicleRoutes.isEmpty() || avgNoJobsToRemove <= 0) return Collections.emptyList();
+        List<VehicleRoute> candidateRoutes = new ArrayList<VehicleRoute>(vehicleRoutes.size());
+        int noJobsInRoutes = 0;
+        for (VehicleRoute route : vehicleRoutes) {
+            if (route.isEmpty()) continue;
+            noJobsInRoutes += route.getTourActivities().getJobs().size();
+            candidateRoutes.add(route);
+        }
+        if (noJobsInRoutes == 0) return Collections.emptyList();
+        Job seed = drawSeed(candidateRoutes);
+        double maxCardinality = Math.min(maxStringLength, noJobsInRoutes / (double) candidateRoutes.size());
+        double maxNoStrings = 4. * avgNoJobsToRemove / (1. + maxCardinality) - 1.;
+        int noStrings = (int) (1. + random.nextDouble() * Math.max(0., maxNoStrings));
+
+        List<Job> unassignedJobs = new ArrayList<Job>();
+        Set<Job> removed = new HashSet<Job>();
+        if (ruin(seed, candidateRoutes, maxCardinality, removed, unassignedJobs)) noStrings--;
+        Iterator<Job> neighborIterator = jobNeighborhoods.getNearestNeighborsIterator(vrp.getJobs().size(), seed);
+        while (noStrings > 0 && neighborIterator.hasNext()) {
+            Job neighbor = neighborIterator.next();
+            if (removed.contains(neighbor)) continue;
+            if (ruin(neighbor, candidateRoutes, maxCardinality, removed, unassignedJobs)) noStrings--;
+        }
+        return unassignedJobs;
+    }
+
+    /**
+     * Draws a random position of a random route, and returns the job of the first job activity from there on.
+     */
+    private Job drawSeed(List<VehicleRoute> routes) {
+        int firstRoute = random.nextInt(routes.size());
+        for (int r = 0; r < routes.size(); r++) {
+            List<TourActivity> activities = routes.get((firstRoute + r) % routes.size()).getActivities();
+            int firstPosition = random.nextInt(activities.size());
+            for (int i = 0; i < activities.size(); i++) {
+                TourActivity act = activities.get((firstPosition + i) % activities.size());
+                if (act instanceof TourActivity.JobActivity) return ((TourActivity.JobActivity) act).getJob();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes a string containing job from its route unless the route has already been ruined. Returns true if a
+     * route has been ruined.
+     */
+    private boolean ruin(Job job, List<VehicleRoute> candidateRoutes, double maxCardinality, Set<Job> removed, List<Job> unassignedJobs) {
+        VehicleRoute route = null;
+        for (int i = 0; i < candidateRoutes.size(); i++) {
+            if (candidateRoutes.get(i).getTourActivities().servesJob(job)) {
+                route = candidateRoutes.remove(i);
+                break;
+            }
+        }
+        if (route == null) return false;
+        List<TourActivity> activities = route.getActivities();
+        int noActivities = activities.size();
+        int position = route.getTourActivities().indexOf(job);
+        int stringLength = Math.min(noActivities, (int) (1. + random.nextDouble() * Math.min(noActivities, maxCardinality)));
+        int noPreserved = 0;
+        if (stringLength < noActivities && random.nextDouble() < splitRate) {
+            noPreserved = 1;
+            while (noPreserved < noActivities - stringLength && random.nextDouble() > splitDepth) noPreserved++;
+        }
+        int windowLength = stringLength + noPreserved;
+        int firstStart = Math.max(0, position - windowLength + 1);
+        int lastStart = Math.min(position, noActivities - windowLength);
+        int start = firstStart + random.nextInt(lastStart - firstStart + 1);
+        int preservedStart = start + random.nextInt(stringLength + 1);
+        List<Job> string = new ArrayList<Job>(windowLength);
+        for (int i = start; i < start + windowLength; i++) {
+            if (i >= preservedStart && i < preservedStart + noPreserved) continue;
+            TourActivity act = activities.get(i);
+            if (!(act instanceof TourActivity.JobActivity)) continue;
+            Job jobToRemove = ((TourActivity.JobActivity) act).getJob();
+            if (!string.contains(jobToRemove)) string.add(jobToRemove);
+        }
+        for (Job jobToRemove : string) {
+            if (removeJob(jobToRemove, route)) {
+                removed.add(jobToRemove);
+                unassignedJobs.add(jobToRemove);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=stringRuin][maxStringLength=" + maxStringLength + "][splitRate=" + splitRate + "]";
+    }
+
+}
@@ -80,67 +80,242 @@ public final class RuinWorst extends AbstractRuinStrategy {
         return unassignedJobs;
     }
 
+    /**
+     * Removes the jobs with the highest savings one after another. Savings are calculated once for all jobs in
+     * vehicleRoutes and maintained in an indexed max-heap. Removing a job only changes the savings of the jobs whose
+     * activities are adjacent to the removed activities, i.e. only these are re-calculated.
+     * <p>
+     * <p>Noise is added to the savings of each activity whenever savings are calculated, i.e. jobs compete on noisy
+     * savings as if all savings were re-calculated.
+     */
     private void ruin(Collection<VehicleRoute> vehicleRoutes, int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
-        LinkedList<Job> availableJobs = new LinkedList<Job>(vrp.getJobs().values());
+        if (nOfJobs2BeRemoved <= 0) return;
+        ActivityChain chain = new ActivityChain(vehicleRoutes, vrp.getJobIndexCapacity());
+        SavingsHeap heap = new SavingsHeap(chain.jobs.length);
+        for (int jobIndex = 0; jobIndex < chain.jobs.length; jobIndex++) {
+            Job job = chain.jobs[jobIndex];
+            if (job == null || !vrp.getJobs().containsKey(job.getId())) continue;
+            heap.put(jobIndex, savings(chain, jobIndex));
+        }
         int toRemove = nOfJobs2BeRemoved;
-        while (toRemove > 0) {
-            Job worst = getWorst(vehicleRoutes);
-            if (worst == null) break;
-            if (removeJob(worst, vehicleRoutes)) {
-                availableJobs.remove(worst);
+        while (toRemove > 0 && !heap.isEmpty()) {
+            int jobIndex = heap.peek();
+            if (heap.getSavings(jobIndex) <= 0) break;
+            heap.remove(jobIndex);
+            Job worst = chain.jobs[jobIndex];
+            if (removeJob(worst, chain.getRoute(jobIndex))) {
                 unassignedJobs.add(worst);
+                for (int neighborJobIndex : chain.remove(jobIndex)) {
+                    if (heap.contains(neighborJobIndex)) {
+                        heap.put(neighborJobIndex, savings(chain, neighborJobIndex));
+                    }
+                }
             }
             toRemove--;
         }
     }
 
-    private Job getWorst(Collection<VehicleRoute> copied) {
-        Job worst = null;
-        double bestSavings = Double.MIN_VALUE;
-
-        for (VehicleRoute route : copied) {
-            if (route.isEmpty()) continue;
-            Map<Job, Double> savingsMap = new HashMap<Job, Double>();
-            TourActivity actBefore = route.getStart();
-            TourActivity actToEval = null;
-            for (TourActivity act : route.getActivities()) {
-                if (actToEval == null) {
-                    actToEval = act;
-                    continue;
+    private double savings(ActivityChain chain, int jobIndex) {
+        double savings = 0.;
+        for (int node : chain.getNodes(jobIndex)) {
+            if (node < 0) continue;
+            TourActivity actBefore = chain.activities[chain.prev[node]];
+            TourActivity actToEval = chain.activities[node];
+            TourActivity act = chain.activities[chain.next[node]];
+            Vehicle vehicle = chain.routes[node].getVehicle();
+            savings += Math.max(0, c(actBefore, actToEval, vehicle) + c(actToEval, act, vehicle) - c(actBefore, act, vehicle) + noiseMaker.makeNoise());
+        }
+        return savings;
+    }
+
+    /**
+     * Doubly linked list of the activities of all routes (inclusive start and end) that allows to determine the
+     * neighbors of an activity in constant time while jobs are removed.
+     */
+    private static class ActivityChain {
+
+        private final TourActivity[] activities;
+
+        private final VehicleRoute[] routes;
+
+        private final int[] prev;
+
+        private final int[] next;
+
+        private final Job[] jobs;
+
+        private final int[][] jobNodes;
+
+        ActivityChain(Collection<VehicleRoute> vehicleRoutes, int noJobIndices) {
+            int noNodes = 0;
+            for (VehicleRoute route : vehicleRoutes) noNodes += route.getActivities().size() + 2;
+            activities = new TourActivity[noNodes];
+            routes = new VehicleRoute[noNodes];
+            prev = new int[noNodes];
+            next = new int[noNodes];
+            jobs = new Job[noJobIndices];
+            jobNodes = new int[noJobIndices][];
+            int node = 0;
+            for (VehicleRoute route : vehicleRoutes) {
+                int first = node;
+                add(node++, route.getStart(), route);
+                for (TourActivity act : route.getActivities()) {
+                    add(node++, act, route);
+                    if (act instanceof TourActivity.JobActivity) {
+                        Job job = ((TourActivity.JobActivity) act).getJob();
+                        int jobIndex = job.getIndex();
+                        if (jobIndex >= jobs.length) continue;
+                        jobs[jobIndex] = job;
+                        if (jobNodes[jobIndex] == null) jobNodes[jobIndex] = new int[]{node - 1, -1};
+                        else jobNodes[jobIndex][1] = node - 1;
+                    }
                 }
-                double savings = savings(route, actBefore, actToEval, act);
-                Job job = ((TourActivity.JobActivity) actToEval).getJob();
-                if (!savingsMap.containsKey(job)) {
-                    savingsMap.put(job, savings);
-                } else {
-                    double s = savingsMap.get(job);
-                    savingsMap.put(job, s + savings);
+                add(node++, route.getEnd(), route);
+                for (int n = first; n < node; n++) {
+                    prev[n] = n - 1;
+                    next[n] = n + 1;
                 }
-                actBefore = actToEval;
-                actToEval = act;
             }
-            double savings = savings(route, actBefore, actToEval, route.getEnd());
-            Job job = ((TourActivity.JobActivity) actToEval).getJob();
-            if (!savingsMap.containsKey(job)) {
-                savingsMap.put(job, savings);
-            } else {
-                double s = savingsMap.get(job);
-                savingsMap.put(job, s + savings);
+        }
+
+        private void add(int node, TourActivity act, VehicleRoute route) {
+            activities[node] = act;
+            routes[node] = route;
+        }
+
+        int[] getNodes(int jobIndex) {
+            return jobNodes[jobIndex];
+        }
+
+        VehicleRoute getRoute(int jobIndex) {
+            return routes[jobNodes[jobIndex][0]];
+        }
+
+        /**
+         * Unlinks the activities of the specified job and returns the indices of the jobs whose activities were
+         * adjacent to them.
+         */
+        List<Integer> remove(int jobIndex) {
+            List<Integer> neighbors = new ArrayList<Integer>(4);
+            int[] nodes = jobNodes[jobIndex];
+            for (int node : nodes) {
+                if (node < 0) continue;
+                next[prev[node]] = next[node];
+                prev[next[node]] = prev[node];
             }
-            //getCounts best
-            for (Job j : savingsMap.keySet()) {
-                if (savingsMap.get(j) > bestSavings) {
-                    bestSavings = savingsMap.get(j);
-                    worst = j;
-                }
+            for (int node : nodes) {
+                if (node < 0) continue;
+                addNeighbor(prev[node], jobIndex, neighbors);
+                addNeighbor(next[node], jobIndex, neighbors);
             }
+            return neighbors;
+        }
+
+        private void addNeighbor(int node, int removedJobIndex, List<Integer> neighbors) {
+            TourActivity act = activities[node];
+            if (!(act instanceof TourActivity.JobActivity)) return;
+            int jobIndex = ((TourActivity.JobActivity) act).getJob().getIndex();
+            if (jobIndex >= jobs.length || jobIndex == removedJobIndex) return;
+            if (!neighbors.contains(jobIndex)) neighbors.add(jobIndex);
         }
-        return worst;
+
     }
 
-    private double savings(VehicleRoute route, TourActivity actBefore, TourActivity actToEval, TourActivity act) {
-        double savings = c(actBefore, actToEval, route.getVehicle()) + c(actToEval, act, route.getVehicle()) - c(actBefore, act, route.getVehicle());
-        return Math.max(0, savings + noiseMaker.makeNoise());
+    /**
+     * Indexed binary max-heap of job indices keyed by savings. Among equal savings, lower job indices come first.
+     */
+    private static class SavingsHeap {
+
+        private final int[] heap;
+
+        private final int[] positions;
+
+        private final double[] savings;
+
+        private int size = 0;
+
+        SavingsHeap(int noJobIndices) {
+            heap = new int[noJobIndices];
+            positions = new int[noJobIndices];
+            Arrays.fill(positions, -1);
+            savings = new double[noJobIndices];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int jobIndex) {
+            return positions[jobIndex] >= 0;
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        double getSavings(int jobIndex) {
+            return savings[jobIndex];
+        }
+
+        void put(int jobIndex, double jobSavings) {
+            savings[jobIndex] = jobSavings;
+            int position = positions[jobIndex];
+            if (position < 0) {
+                position = size++;
+                heap[position] = jobIndex;
+                positions[jobIndex] = position;
+            }
+            siftDown(siftUp(position));
+        }
+
+        void remove(int jobIndex) {
+            int position = positions[jobIndex];
+            positions[jobIndex] = -1;
+            size--;
+            if (position == size) return;
+            int last = heap[size];
+            heap[position] = last;
+            positions[last] = position;
+            siftDown(siftUp(position));
+        }
+
+        private boolean before(int jobIndex1, int jobIndex2) {
+            if (savings[jobIndex1] > savings[jobIndex2]) return true;
+            if (savings[jobIndex1] < savings[jobIndex2]) return false;
+            return jobIndex1 < jobIndex2;
+        }
+
+        private int siftUp(int position) {
+            int jobIndex = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!before(jobIndex, heap[parent])) break;
+                move(heap[parent], position);
+                position = parent;
+            }
+            move(jobIndex, position);
+            return position;
+        }
+
+        private void siftDown(int position) {
+            int jobIndex = heap[position];
+            int half = size >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                int right = child + 1;
+                if (right < size && before(heap[right], heap[child])) child = right;
+                if (!before(heap[child], jobIndex)) break;
+                move(heap[child], position);
+                position = child;
+            }
+            move(jobIndex, position);
+        }
+
+        private void move(int jobIndex, int position) {
+            heap[position] = jobIndex;
+            positions[jobIndex] = position;
+        }
+
     }
 
     private double c(TourActivity from, TourActivity to, Vehicle vehicle) {
@@ -39,6 +39,10 @@ public class AvgServiceDistance implements JobDistance {
 
     }
 
+    public VehicleRoutingTransportCosts getTransportCosts() {
+        return costs;
+    }
+
     /**
      * Calculates and returns the average distance between two jobs based on the input-transport costs.
      * <p>
@@ -0,0 +1,145 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+
+/**
+ * Concatenation data of a sequence of activities (Vidal et al. 2013, "A hybrid genetic algorithm with adaptive
+ * diversity management for a large class of vehicle routing problems with time-windows").
+ * <p>
+ * <p>Time data consists of the min. duration of the sequence, its time warp, i.e. the time that needs to be travelled
+ * back in time to meet all time windows, and the earliest and latest start of the first activity such that duration
+ * and time warp are minimal. Load data consists of the goods that need to be loaded at the start of the route
+ * (delivery services), the net load change and the max. cumulative load change within the sequence.
+ * <p>
+ * <p>Two segments are concatenated in constant time. A sequence is feasible if its time warp is zero and
+ * delivered + maxLoad does not exceed the vehicle's capacity.
+ */
+public final class RouteSegment {
+
+    private static final double EPSILON = 1e-6;
+
+    private static final Capacity EMPTY = Capacity.Builder.newInstance().build();
+
+    /**
+     * Creates a segment consisting of a single activity.
+     *
+     * @param earliest      earliest operation start time
+     * @param latest        latest operation start time
+     * @param duration      operation time
+     * @param size          size of the activity, i.e. negative for deliveries
+     * @param loadedAtStart true if goods need to be loaded at the start of the route, i.e. for delivery services
+     * @return segment
+     */
+    public static RouteSegment newInstance(double earliest, double latest, double duration, Capacity size, boolean loadedAtStart) {
+        Capacity delivered = loadedAtStart ? Capacity.invert(size) : EMPTY;
+        return new RouteSegment(duration, 0., earliest, latest, delivered, size, Capacity.max(EMPTY, size));
+    }
+
+    private final double duration;
+
+    private final double timeWarp;
+
+    private final double earliest;
+
+    private final double latest;
+
+    private final Capacity delivered;
+
+    private final Capacity net;
+
+    private final Capacity maxLoad;
+
+    private RouteSegment(double duration, double timeWarp, double earliest, double latest, Capacity delivered, Capacity net, Capacity maxLoad) {
+        this.duration = duration;
+        this.timeWarp = timeWarp;
+        this.earliest = earliest;
+        this.latest = latest;
+        this.delivered = delivered;
+        this.net = net;
+        this.maxLoad = maxLoad;
+    }
+
+    /**
+     * Concatenates this segment and next.
+     *
+     * @param next       the segment to be appended
+     * @param travelTime transport time from the last activity of this segment to the first activity of next
+     * @return the concatenated segment
+     */
+    public RouteSegment concat(RouteSegment next, double travelTime) {
+        double delta = duration - timeWarp + travelTime;
+        double deltaWaiting = Math.max(next.earliest - delta - latest, 0.);
+        double deltaTimeWarp = Math.max(earliest + delta - next.latest, 0.);
+        return new RouteSegment(duration + next.duration + travelTime + deltaWaiting,
+            timeWarp + next.timeWarp + deltaTimeWarp,
+            Math.max(next.earliest - delta, earliest) - deltaWaiting,
+            Math.min(next.latest - delta, latest) + deltaTimeWarp,
+            Capacity.addup(delivered, next.delivered),
+            Capacity.addup(net, next.net),
+            Capacity.max(maxLoad, Capacity.addup(net, next.maxLoad)));
+    }
+
+    public boolean isTimeFeasible() {
+        return timeWarp <= EPSILON;
+    }
+
+    public boolean isLoadFeasible(Capacity capacity) {
+        return Capacity.addup(delivered, maxLoad).isLessOrEqual(capacity);
+    }
+
+    public boolean isFeasible(Capacity capacity) {
+        return isTimeFeasible() && isLoadFeasible(capacity);
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public double getTimeWarp() {
+        return timeWarp;
+    }
+
+    public double getEarliest() {
+        return earliest;
+    }
+
+    public double getLatest() {
+        return latest;
+    }
+
+    public Capacity getDelivered() {
+        return delivered;
+    }
+
+    public Capacity getNet() {
+        return net;
+    }
+
+    public Capacity getMaxLoad() {
+        return maxLoad;
+    }
+
+    @Override
+    public String toString() {
+        return "[duration=" + duration + "][timeWarp=" + timeWarp + "][earliest=" + earliest + "][latest=" + latest
+            + "][delivered=" + delivered + "][net=" + net + "][maxLoad=" + maxLoad + "]";
+    }
+}
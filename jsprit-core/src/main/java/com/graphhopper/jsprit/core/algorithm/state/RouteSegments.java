@@ -0,0 +1,168 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliverService;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+/**
+ * Forward and backward {@link RouteSegment}s of a route, i.e. InternalStates.ROUTE_SEGMENTS.
+ * <p>
+ * <p>Positions are 0 for start, 1..n for the route's activities and n+1 for end. The forward segment at position i
+ * covers start..i, the backward segment covers i..end. Thus, inserting, removing or exchanging activities can be
+ * checked in constant time by concatenating forward, single and backward segments.
+ * <p>
+ * <p>Segments are only valid for the vehicle, driver and departure time they have been calculated with. They assume
+ * that transport times and activity durations do not depend on time.
+ */
+public final class RouteSegments {
+
+    private final Vehicle vehicle;
+
+    private final Driver driver;
+
+    private final double departureTime;
+
+    private final VehicleRoutingTransportCosts transportCosts;
+
+    private final VehicleRoutingActivityCosts activityCosts;
+
+    private final Location[] locations;
+
+    private final RouteSegment[] singles;
+
+    private final RouteSegment[] forward;
+
+    private final RouteSegment[] backward;
+
+    RouteSegments(Vehicle vehicle, Driver driver, double departureTime, VehicleRoutingTransportCosts transportCosts, VehicleRoutingActivityCosts activityCosts,
+                  Location[] locations, RouteSegment[] singles, RouteSegment[] forward, RouteSegment[] backward) {
+        this.vehicle = vehicle;
+        this.driver = driver;
+        this.departureTime = departureTime;
+        this.transportCosts = transportCosts;
+        this.activityCosts = activityCosts;
+        this.locations = locations;
+        this.singles = singles;
+        this.forward = forward;
+        this.backward = backward;
+    }
+
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    public double getDepartureTime() {
+        return departureTime;
+    }
+
+    /**
+     * @return number of positions, i.e. number of activities + 2
+     */
+    public int size() {
+        return locations.length;
+    }
+
+    public Location getLocation(int position) {
+        return locations[position];
+    }
+
+    public RouteSegment getSingle(int position) {
+        return singles[position];
+    }
+
+    public RouteSegment getForward(int position) {
+        return forward[position];
+    }
+
+    public RouteSegment getBackward(int position) {
+        return backward[position];
+    }
+
+    /**
+     * Creates the single segment of an activity that is not yet part of the route. Its time window is the activity's
+     * theoretical earliest and latest operation start time.
+     *
+     * @param activity the activity
+     * @return segment
+     */
+    public RouteSegment createSegment(TourActivity activity) {
+        double duration = activityCosts.getActivityDuration(activity, activity.getTheoreticalEarliestOperationStartTime(), driver, vehicle);
+        return RouteSegment.newInstance(activity.getTheoreticalEarliestOperationStartTime(), activity.getTheoreticalLatestOperationStartTime(),
+            duration, activity.getSize(), activity instanceof DeliverService);
+    }
+
+    /**
+     * Returns transport time from a location to the activity at position. If the vehicle does not return to depot,
+     * the transport time to end is 0.
+     */
+    public double getTransportTime(Location from, int position) {
+        if (position == locations.length - 1 && !vehicle.isReturnToDepot()) return 0.;
+        return transportCosts.getTransportTime(from, locations[position], 0., driver, vehicle);
+    }
+
+    public double getTransportTime(Location from, Location to) {
+        return transportCosts.getTransportTime(from, to, 0., driver, vehicle);
+    }
+
+    /**
+     * @return true if time warp of segment is zero and its load does not exceed the vehicle's capacity
+     */
+    public boolean isFeasible(RouteSegment segment) {
+        return segment.isFeasible(vehicle.getType().getCapacityDimensions());
+    }
+
+    /**
+     * Checks whether a segment can be inserted between position and position + 1.
+     *
+     * @param position      position after which the segment is inserted
+     * @param inserted      segment to be inserted
+     * @param firstLocation location of the first activity of the inserted segment
+     * @param lastLocation  location of the last activity of the inserted segment
+     * @return true if the resulting route is feasible
+     */
+    public boolean isInsertionFeasible(int position, RouteSegment inserted, Location firstLocation, Location lastLocation) {
+        RouteSegment head = forward[position].concat(inserted, getTransportTime(locations[position], firstLocation));
+        return isFeasible(head.concat(backward[position + 1], getTransportTime(lastLocation, position + 1)));
+    }
+
+    /**
+     * Checks whether the activities at positions from..to (inclusive) can be removed.
+     *
+     * @param from first position to be removed, at least 1
+     * @param to   last position to be removed, at most size() - 2
+     * @return true if the resulting route is feasible
+     */
+    public boolean isRemovalFeasible(int from, int to) {
+        if (from < 1 || to > locations.length - 2 || from > to) throw new IllegalArgumentException("cannot remove positions " + from + ".." + to);
+        return isFeasible(forward[from - 1].concat(backward[to + 1], getTransportTime(locations[from - 1], to + 1)));
+    }
+
+    /**
+     * @return true if the route is feasible as it is
+     */
+    public boolean isFeasible() {
+        return isFeasible(forward[forward.length - 1]);
+    }
+}
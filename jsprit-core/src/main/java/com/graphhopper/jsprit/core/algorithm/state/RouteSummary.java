@@ -0,0 +1,80 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Location;
+
+/**
+ * Cost-based summary of a route's geometry.
+ * <p>
+ * <p>It consists of a center location (one of the route's locations), the max. transport costs from the center to any
+ * location of the route, the max. transport costs from any location of the route back to the center and the max.
+ * transport costs of a leg of the route. Start and end location are part of the route unless the vehicle does not
+ * return to depot, in which case the end location is ignored.
+ * <p>
+ * <p>Insertion strategies can derive a lower bound of the insertion costs of a job from it without looking at each
+ * activity (see {@link com.graphhopper.jsprit.core.algorithm.recreate.InsertionBuilder#setRouteLowerBoundPruning(boolean)}).
+ */
+public final class RouteSummary {
+
+    private final Location center;
+
+    private final double radiusFromCenter;
+
+    private final double radiusToCenter;
+
+    private final double maxLegCosts;
+
+    public RouteSummary(Location center, double radiusFromCenter, double radiusToCenter, double maxLegCosts) {
+        this.center = center;
+        this.radiusFromCenter = radiusFromCenter;
+        this.radiusToCenter = radiusToCenter;
+        this.maxLegCosts = maxLegCosts;
+    }
+
+    public Location getCenter() {
+        return center;
+    }
+
+    /**
+     * @return max. transport costs from center to any location of the route
+     */
+    public double getRadiusFromCenter() {
+        return radiusFromCenter;
+    }
+
+    /**
+     * @return max. transport costs from any location of the route to center
+     */
+    public double getRadiusToCenter() {
+        return radiusToCenter;
+    }
+
+    /**
+     * @return max. transport costs of a leg of the route
+     */
+    public double getMaxLegCosts() {
+        return maxLegCosts;
+    }
+
+    @Override
+    public String toString() {
+        return "[center=" + center + "][radiusFromCenter=" + radiusFromCenter + "][radiusToCenter=" + radiusToCenter + "][maxLegCosts=" + maxLegCosts + "]";
+    }
+}
@@ -62,6 +62,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private boolean updateTWs = false;
 
+    private boolean updateRouteSummaries = false;
+
+    private boolean updateRouteSegments = false;
+
     private final int initialNoStates = 21;
 
     private int stateIndexCounter;
@@ -109,8 +113,8 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         if (stateIndexCounter >= activityStates[0].length) {
             activityStates = new Object[nuActivities][stateIndexCounter + 1];
             vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][stateIndexCounter + 1];
-            routeStatesArr = new Object[vrp.getVehicles().size() + 2][stateIndexCounter+1];
-            vehicleDependentRouteStatesArr = new Object[vrp.getVehicles().size() + 2][nuVehicleTypeKeys][stateIndexCounter+1];
+            routeStatesArr = new Object[vrp.getVehicleIndexCapacity() + 1][stateIndexCounter+1];
+            vehicleDependentRouteStatesArr = new Object[vrp.getVehicleIndexCapacity() + 1][nuVehicleTypeKeys][stateIndexCounter+1];
             problemStates = new Object[stateIndexCounter+1];
         }
         StateId id = StateFactory.createId(name, stateIndexCounter);
@@ -187,8 +191,11 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     /**
      * Clears all states, i.e. set all value to null.
+     * <p>
+     * <p>If the problem is dynamic, state arrays grow here if jobs or vehicles with new indices have been added.
      */
     public void clear() {
+        if (vrp.isDynamic() && ensureCapacity()) return;
         fill_twoDimArr(activityStates, null);
         fill_threeDimArr(vehicleDependentActivityStates, null);
         if(isIndexedBased) {
@@ -202,6 +209,26 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         Arrays.fill(problemStates,null);
     }
 
+    private boolean ensureCapacity() {
+        int requiredNuActivities = vrp.getNuActivities() + 1;
+        int requiredNuVehicleTypeKeys = getNuVehicleTypes(vrp) + 2;
+        if (requiredNuActivities <= nuActivities && requiredNuVehicleTypeKeys <= nuVehicleTypeKeys) return false;
+        nuActivities = Math.max(nuActivities, requiredNuActivities);
+        nuVehicleTypeKeys = Math.max(nuVehicleTypeKeys, requiredNuVehicleTypeKeys);
+        int stateArrayLength = activityStates[0].length;
+        activityStates = new Object[nuActivities][stateArrayLength];
+        vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][stateArrayLength];
+        if (isIndexedBased) {
+            routeStatesArr = new Object[vrp.getVehicleIndexCapacity() + 1][stateArrayLength];
+            vehicleDependentRouteStatesArr = new Object[vrp.getVehicleIndexCapacity() + 1][nuVehicleTypeKeys][stateArrayLength];
+        } else {
+            routeStateMap.clear();
+            vehicleDependentRouteStateMap.clear();
+        }
+        Arrays.fill(problemStates, null);
+        return true;
+    }
+
     private void fill_threeDimArr(Object[][][] states, Object o) {
         for (Object[][] twoDimArr : states) {
             for (Object[] oneDimArr : twoDimArr) {
@@ -639,4 +666,24 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         addActivityVisitor(new UpdateSkills(this));
     }
 
+    /**
+     * Updates route summary states, i.e. center, radius and max. leg costs of each route (see {@link RouteSummary}).
+     */
+    public void updateRouteSummaryStates() {
+        if (!updateRouteSummaries) {
+            updateRouteSummaries = true;
+            addActivityVisitor(new UpdateRouteSummary(this, vrp.getTransportCosts()));
+        }
+    }
+
+    /**
+     * Updates forward and backward route segments of each route (see {@link RouteSegments}).
+     */
+    public void updateRouteSegmentStates() {
+        if (!updateRouteSegments) {
+            updateRouteSegments = true;
+            addActivityVisitor(new UpdateRouteSegments(this, vrp.getTransportCosts(), vrp.getActivityCosts()));
+        }
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliverService;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Updates {@link RouteSegments} at route level, i.e. InternalStates.ROUTE_SEGMENTS.
+ */
+class UpdateRouteSegments implements ActivityVisitor, StateUpdater {
+
+    private StateManager stateManager;
+
+    private VehicleRoutingTransportCosts transportCosts;
+
+    private VehicleRoutingActivityCosts activityCosts;
+
+    private VehicleRoute route;
+
+    private List<TourActivity> activities = new ArrayList<TourActivity>();
+
+    private Capacity empty = Capacity.Builder.newInstance().build();
+
+    public UpdateRouteSegments(StateManager stateManager, VehicleRoutingTransportCosts transportCosts, VehicleRoutingActivityCosts activityCosts) {
+        super();
+        this.stateManager = stateManager;
+        this.transportCosts = transportCosts;
+        this.activityCosts = activityCosts;
+    }
+
+    @Override
+    public void begin(VehicleRoute route) {
+        this.route = route;
+        activities.clear();
+    }
+
+    @Override
+    public void visit(TourActivity activity) {
+        activities.add(activity);
+    }
+
+    @Override
+    public void finish() {
+        int size = activities.size() + 2;
+        Location[] locations = new Location[size];
+        RouteSegment[] singles = new RouteSegment[size];
+        double departureTime = route.getDepartureTime();
+        locations[0] = route.getStart().getLocation();
+        singles[0] = RouteSegment.newInstance(departureTime, departureTime, 0., empty, false);
+        for (int i = 0; i < activities.size(); i++) {
+            TourActivity act = activities.get(i);
+            locations[i + 1] = act.getLocation();
+            double duration = activityCosts.getActivityDuration(act, act.getArrTime(), route.getDriver(), route.getVehicle());
+            singles[i + 1] = RouteSegment.newInstance(act.getTheoreticalEarliestOperationStartTime(), act.getTheoreticalLatestOperationStartTime(),
+                duration, act.getSize(), act instanceof DeliverService);
+        }
+        locations[size - 1] = route.getEnd().getLocation();
+        singles[size - 1] = RouteSegment.newInstance(0., route.getVehicle().getLatestArrival(), 0., empty, false);
+        double[] transportTimes = new double[size - 1];
+        for (int i = 0; i < size - 1; i++) {
+            if (i == size - 2 && !route.getVehicle().isReturnToDepot()) transportTimes[i] = 0.;
+            else transportTimes[i] = transportCosts.getTransportTime(locations[i], locations[i + 1], 0., route.getDriver(), route.getVehicle());
+        }
+        RouteSegment[] forward = new RouteSegment[size];
+        forward[0] = singles[0];
+        for (int i = 1; i < size; i++) {
+            forward[i] = forward[i - 1].concat(singles[i], transportTimes[i - 1]);
+        }
+        RouteSegment[] backward = new RouteSegment[size];
+        backward[size - 1] = singles[size - 1];
+        for (int i = size - 2; i >= 0; i--) {
+            backward[i] = singles[i].concat(backward[i + 1], transportTimes[i]);
+        }
+        RouteSegments segments = new RouteSegments(route.getVehicle(), route.getDriver(), departureTime, transportCosts, activityCosts,
+            locations, singles, forward, backward);
+        stateManager.putTypedInternalRouteState(route, InternalStates.ROUTE_SEGMENTS, segments);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.util.Coordinate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Updates {@link RouteSummary} at route level, i.e. InternalStates.ROUTE_SUMMARY.
+ * <p>
+ * <p>The center is the location closest to the centroid of the route's coordinates. If a location has no coordinate,
+ * the start location is the center. Transport costs are determined with the route's vehicle and departure time 0.
+ */
+class UpdateRouteSummary implements ActivityVisitor, StateUpdater {
+
+    private StateManager stateManager;
+
+    private VehicleRoutingTransportCosts transportCosts;
+
+    private VehicleRoute route;
+
+    private List<Location> locations = new ArrayList<Location>();
+
+    public UpdateRouteSummary(StateManager stateManager, VehicleRoutingTransportCosts transportCosts) {
+        super();
+        this.stateManager = stateManager;
+        this.transportCosts = transportCosts;
+    }
+
+    @Override
+    public void begin(VehicleRoute route) {
+        this.route = route;
+        locations.clear();
+        locations.add(route.getStart().getLocation());
+    }
+
+    @Override
+    public void visit(TourActivity activity) {
+        locations.add(activity.getLocation());
+    }
+
+    @Override
+    public void finish() {
+        if (route.getVehicle().isReturnToDepot()) locations.add(route.getEnd().getLocation());
+        Location center = findCenter();
+        double radiusFromCenter = 0.;
+        double radiusToCenter = 0.;
+        double maxLegCosts = 0.;
+        Location prev = null;
+        for (Location location : locations) {
+            radiusFromCenter = Math.max(radiusFromCenter, costs(center, location));
+            radiusToCenter = Math.max(radiusToCenter, costs(location, center));
+            if (prev != null) maxLegCosts = Math.max(maxLegCosts, costs(prev, location));
+            prev = location;
+        }
+        stateManager.putTypedInternalRouteState(route, InternalStates.ROUTE_SUMMARY, new RouteSummary(center, radiusFromCenter, radiusToCenter, maxLegCosts));
+    }
+
+    private Location findCenter() {
+        double sumX = 0.;
+        double sumY = 0.;
+        for (Location location : locations) {
+            if (location.getCoordinate() == null) return locations.get(0);
+            sumX += location.getCoordinate().getX();
+            sumY += location.getCoordinate().getY();
+        }
+        double x = sumX / locations.size();
+        double y = sumY / locations.size();
+        Location center = locations.get(0);
+        double minDistance = Double.MAX_VALUE;
+        for (Location location : locations) {
+            Coordinate coordinate = location.getCoordinate();
+            double distance = (coordinate.getX() - x) * (coordinate.getX() - x) + (coordinate.getY() - y) * (coordinate.getY() - y);
+            if (distance < minDistance) {
+                minDistance = distance;
+                center = location;
+            }
+        }
+        return center;
+    }
+
+    private double costs(Location from, Location to) {
+        return transportCosts.getTransportCost(from, to, 0., route.getDriver(), route.getVehicle());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.problem;
+
+import java.util.BitSet;
+
+/**
+ * Hands out indices starting at 1 and recycles released indices, lowest first.
+ * <p>
+ * <p>Indices thus never exceed the maximum number of objects that have been in use at the same time, and index-based
+ * arrays sized to getCapacity() stay valid as long as objects come and go without this peak being exceeded.
+ */
+class IndexPool {
+
+    private final BitSet used = new BitSet();
+
+    private int capacity;
+
+    /**
+     * @param noIndicesInUse number of indices, i.e. 1..noIndicesInUse, that are already in use
+     */
+    IndexPool(int noIndicesInUse) {
+        used.set(1, noIndicesInUse + 1);
+        capacity = noIndicesInUse + 1;
+    }
+
+    int acquire() {
+        int index = used.nextClearBit(1);
+        used.set(index);
+        if (index >= capacity) capacity = index + 1;
+        return index;
+    }
+
+    void release(int index) {
+        if (index < 1 || !used.get(index)) throw new IllegalStateException("index " + index + " is not in use");
+        used.clear(index);
+    }
+
+    /**
+     * @return the highest index ever handed out plus one
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of indices in use
+     */
+    int size() {
+        return used.cardinality();
+    }
+
+}
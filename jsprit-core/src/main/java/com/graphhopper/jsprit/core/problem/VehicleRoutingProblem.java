@@ -97,6 +97,8 @@ public class VehicleRoutingProblem {
 
         private boolean hasBreaks = false;
 
+        private boolean dynamic = false;
+
         private JobActivityFactory jobActivityFactory = new JobActivityFactory() {
 
             @Override
@@ -193,6 +195,19 @@ public class VehicleRoutingProblem {
             return this;
         }
 
+        /**
+         * Makes the problem dynamic, i.e. jobs and vehicles can be added and removed after the problem has been built
+         * (see {@link VehicleRoutingProblem#addJob(Job)}). Indices of removed jobs, activities and vehicles are
+         * recycled. By default, problems are static.
+         *
+         * @param dynamic true if problem is dynamic
+         * @return this builder
+         */
+        public Builder setDynamic(boolean dynamic) {
+            this.dynamic = dynamic;
+            return this;
+        }
+
         /**
          * Sets the type of fleetSize.
          * <p>
@@ -383,6 +398,12 @@ public class VehicleRoutingProblem {
                 vehicle.setIndex(vehicleIndexCounter);
                 incVehicleIndexCounter();
             }
+            uniqueVehicles.add(vehicle);
+            addTypeAndLocations(vehicle);
+            return this;
+        }
+
+        private void addTypeAndLocations(AbstractVehicle vehicle) {
             if (typeKeyIndices.containsKey(vehicle.getVehicleTypeIdentifier())) {
                 vehicle.getVehicleTypeIdentifier().setIndex(typeKeyIndices.get(vehicle.getVehicleTypeIdentifier()));
             } else {
@@ -390,7 +411,6 @@ public class VehicleRoutingProblem {
                 typeKeyIndices.put(vehicle.getVehicleTypeIdentifier(), vehicleTypeIdIndexCounter);
                 incVehicleTypeIdIndexCounter();
             }
-            uniqueVehicles.add(vehicle);
             if (!vehicleTypes.contains(vehicle.getType())) {
                 vehicleTypes.add(vehicle.getType());
             }
@@ -401,7 +421,6 @@ public class VehicleRoutingProblem {
                 addLocationToTentativeLocations(vehicle.getEndLocation());
 //                tentative_coordinates.put(vehicle.getEndLocation().getId(), vehicle.getEndLocation().getCoordinate());
             }
-            return this;
         }
 
         private void incVehicleIndexCounter() {
@@ -574,6 +593,21 @@ public class VehicleRoutingProblem {
 
     private int nuActivities;
 
+    private final int jobIndexCapacity;
+
+    private final int vehicleIndexCapacity;
+
+    /**
+     * builder this problem has been built with, only kept if problem is dynamic
+     */
+    private final Builder builder;
+
+    private final IndexPool jobIndices;
+
+    private final IndexPool activityIndices;
+
+    private final IndexPool vehicleIndices;
+
     private final JobActivityFactory jobActivityFactory = new JobActivityFactory() {
 
         @Override
@@ -596,6 +630,19 @@ public class VehicleRoutingProblem {
         this.nuActivities = builder.activityIndexCounter;
         this.allLocations = builder.allLocations;
         this.allJobs = builder.tentativeJobs;
+        this.jobIndexCapacity = builder.jobIndexCounter;
+        this.vehicleIndexCapacity = builder.vehicleIndexCounter;
+        if (builder.dynamic) {
+            this.builder = builder;
+            jobIndices = new IndexPool(builder.jobIndexCounter - 1);
+            activityIndices = new IndexPool(builder.activityIndexCounter - 1);
+            vehicleIndices = new IndexPool(builder.vehicleIndexCounter - 1);
+        } else {
+            this.builder = null;
+            jobIndices = null;
+            activityIndices = null;
+            vehicleIndices = null;
+        }
         logger.info("setup problem: {}", this);
     }
 
@@ -694,12 +741,161 @@ public class VehicleRoutingProblem {
 //    public Map<Job,List<AbstractActivity>> getActivityMap() { return Collections.unmodifiableMap(activityMap); }
 
     /**
+     * Returns the total number of activities, or, more precisely, the highest activity index plus one. Thus,
+     * index-based activity arrays need this length.
+     *
      * @return total number of activities
      */
     public int getNuActivities() {
+        if (isDynamic()) return activityIndices.getCapacity();
         return nuActivities;
     }
 
+    /**
+     * Returns the highest job index plus one, i.e. the length index-based job arrays need to have. Unless the problem
+     * is dynamic, this is the number of jobs (inclusive jobs in initial routes) plus one.
+     *
+     * @return highest job index plus one
+     */
+    public int getJobIndexCapacity() {
+        if (isDynamic()) return jobIndices.getCapacity();
+        return jobIndexCapacity;
+    }
+
+    /**
+     * Returns the highest vehicle index plus one, i.e. the length index-based vehicle arrays need to have.
+     *
+     * @return highest vehicle index plus one
+     */
+    public int getVehicleIndexCapacity() {
+        if (isDynamic()) return vehicleIndices.getCapacity();
+        return vehicleIndexCapacity;
+    }
+
+    /**
+     * @return true if jobs and vehicles can be added and removed after the problem has been built
+     * @see Builder#setDynamic(boolean)
+     */
+    public boolean isDynamic() {
+        return builder != null;
+    }
+
+    /**
+     * Adds a job to a dynamic problem. It gets the lowest free job index, and its activities get the lowest free
+     * activity indices.
+     * <p>
+     * <p>Structures that have been derived from the problem before, e.g. algorithms, do not know the job. Index-based
+     * structures that are sized with getJobIndexCapacity() and getNuActivities() stay valid as long as the number
+     * of jobs does not exceed its previous peak.
+     *
+     * @param job the service or shipment to be added
+     * @throws IllegalStateException    if problem is not dynamic
+     * @throws IllegalArgumentException if problem already contains a job with the same id
+     */
+    public void addJob(Job job) {
+        assertDynamic();
+        if (!(job instanceof Service || job instanceof Shipment))
+            throw new IllegalArgumentException("job must be either a service or a shipment");
+        if (allJobs.containsKey(job.getId()))
+            throw new IllegalArgumentException("vehicle routing problem already contains a service or shipment with id " + job.getId() + ". make sure you use unique ids for all services and shipments");
+        ((AbstractJob) job).setIndex(jobIndices.acquire());
+        jobs.put(job.getId(), job);
+        allJobs.put(job.getId(), job);
+        builder.addLocationToTentativeLocations(job);
+        activityMap.put(job, createActivities(job));
+    }
+
+    /**
+     * Removes a job from a dynamic problem, and releases its index and the indices of its activities.
+     *
+     * @param jobId id of the job to be removed
+     * @return the removed job
+     * @throws IllegalStateException    if problem is not dynamic
+     * @throws IllegalArgumentException if problem does not contain the job, or the job is part of an initial route
+     */
+    public Job removeJob(String jobId) {
+        assertDynamic();
+        Job job = jobs.remove(jobId);
+        if (job == null) throw new IllegalArgumentException("cannot remove job " + jobId + " since it is not part of the problem");
+        allJobs.remove(jobId);
+        jobIndices.release(job.getIndex());
+        releaseActivities(job);
+        return job;
+    }
+
+    /**
+     * Adds a vehicle to a dynamic problem. It gets the lowest free vehicle index.
+     *
+     * @param vehicle the vehicle to be added
+     * @throws IllegalStateException    if problem is not dynamic
+     * @throws IllegalArgumentException if problem already contains a vehicle with the same id
+     */
+    public void addVehicle(Vehicle vehicle) {
+        assertDynamic();
+        if (!(vehicle instanceof AbstractVehicle))
+            throw new IllegalArgumentException("vehicle must be an AbstractVehicle");
+        if (getVehicle(vehicle.getId()) != null)
+            throw new IllegalArgumentException("problem already contains a vehicle with id " + vehicle.getId() + ". choose unique ids for each vehicle.");
+        if (vehicle.getBreak() != null && fleetSize.equals(FleetSize.INFINITE))
+            throw new UnsupportedOperationException("breaks are not yet supported when dealing with infinite fleet. either set it to finite or omit breaks.");
+        AbstractVehicle abstractVehicle = (AbstractVehicle) vehicle;
+        abstractVehicle.setIndex(vehicleIndices.acquire());
+        vehicles.add(vehicle);
+        builder.addedVehicleIds.add(vehicle.getId());
+        builder.addTypeAndLocations(abstractVehicle);
+        if (vehicle.getBreak() != null) activityMap.put(vehicle.getBreak(), createActivities(vehicle.getBreak()));
+    }
+
+    /**
+     * Removes a vehicle from a dynamic problem, and releases its index. Its type is removed if no other vehicle
+     * is of this type.
+     *
+     * @param vehicleId id of the vehicle to be removed
+     * @return the removed vehicle
+     * @throws IllegalStateException    if problem is not dynamic
+     * @throws IllegalArgumentException if problem does not contain the vehicle
+     */
+    public Vehicle removeVehicle(String vehicleId) {
+        assertDynamic();
+        Vehicle vehicle = getVehicle(vehicleId);
+        if (vehicle == null) throw new IllegalArgumentException("cannot remove vehicle " + vehicleId + " since it is not part of the problem");
+        vehicles.remove(vehicle);
+        builder.addedVehicleIds.remove(vehicleId);
+        vehicleIndices.release(vehicle.getIndex());
+        if (vehicle.getBreak() != null) releaseActivities(vehicle.getBreak());
+        boolean typeInUse = false;
+        for (Vehicle v : vehicles) {
+            if (v.getType().equals(vehicle.getType())) typeInUse = true;
+        }
+        if (!typeInUse) vehicleTypes.remove(vehicle.getType());
+        return vehicle;
+    }
+
+    private Vehicle getVehicle(String vehicleId) {
+        for (Vehicle v : vehicles) {
+            if (v.getId().equals(vehicleId)) return v;
+        }
+        return null;
+    }
+
+    private List<AbstractActivity> createActivities(Job job) {
+        List<AbstractActivity> acts = builder.jobActivityFactory.createActivities(job);
+        if (acts.isEmpty()) throw new IllegalArgumentException("at least one activity for job " + job.getId() + " needs to be created by activityFactory");
+        for (AbstractActivity act : acts) act.setIndex(activityIndices.acquire());
+        return acts;
+    }
+
+    private void releaseActivities(Job job) {
+        List<AbstractActivity> acts = activityMap.remove(job);
+        if (acts == null) return;
+        for (AbstractActivity act : acts) activityIndices.release(act.getIndex());
+    }
+
+    private void assertDynamic() {
+        if (!isDynamic())
+            throw new IllegalStateException("problem is static. use VehicleRoutingProblem.Builder.setDynamic(true) to add or remove jobs and vehicles after build.");
+    }
+
     /**
      * @return factory that creates the activities associated to a job
      */
@@ -66,13 +66,13 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
     public ConstraintManager(VehicleRoutingProblem vrp, RouteAndActivityStateGetter stateManager) {
         this.vrp = vrp;
         this.stateManager = stateManager;
-        dependencyTypes = new DependencyType[vrp.getJobs().size() + 1];
+        dependencyTypes = new DependencyType[vrp.getJobIndexCapacity()];
     }
 
     public ConstraintManager(VehicleRoutingProblem vrp, RouteAndActivityStateGetter stateManager, Collection<Constraint> constraints) {
         this.vrp = vrp;
         this.stateManager = stateManager;
-        dependencyTypes = new DependencyType[vrp.getJobs().size() + 1];
+        dependencyTypes = new DependencyType[vrp.getJobIndexCapacity()];
         resolveConstraints(constraints);
     }
 
@@ -129,6 +129,14 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
     }
 
 
+    public boolean isTimeWindowConstraintSet() {
+        return timeWindowConstraintsSet;
+    }
+
+    public boolean isLoadConstraintSet() {
+        return loadConstraintsSet;
+    }
+
     public void addLoadConstraint() {
         if (!loadConstraintsSet) {
             addConstraint(new PickupAndDeliverShipmentLoadActivityLevelConstraint(stateManager), Priority.CRITICAL);
@@ -0,0 +1,131 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution;
+
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Objective function that is the sum of route costs and costs of unassigned jobs, and that only recalculates the
+ * costs of routes that changed.
+ * <p>
+ * <p>The costs of a route are memorized with the version of its activity sequence (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}), its vehicle, driver
+ * and departure time. Routes that ruin and recreate did not touch keep their version, thus evaluating a solution
+ * costs one lookup per unchanged route and one calculation per changed route.
+ * <p>
+ * <p>This requires that the costs of a route only depend on its activities, vehicle, driver and departure time. The
+ * calculator is not thread-safe, i.e. each algorithm needs its own.
+ */
+public abstract class IncrementalSolutionCostCalculator implements SolutionCostCalculator {
+
+    private static class RouteCosts {
+
+        private final Vehicle vehicle;
+
+        private final Driver driver;
+
+        private final double departureTime;
+
+        private final double costs;
+
+        RouteCosts(Vehicle vehicle, Driver driver, double departureTime, double costs) {
+            this.vehicle = vehicle;
+            this.driver = driver;
+            this.departureTime = departureTime;
+            this.costs = costs;
+        }
+
+    }
+
+    private final Map<Long, RouteCosts> routeCosts;
+
+    private int noRouteCalculations = 0;
+
+    public IncrementalSolutionCostCalculator() {
+        this(10000);
+    }
+
+    /**
+     * @param capacity max. number of route costs memorized, the least recently used ones are dropped first
+     */
+    public IncrementalSolutionCostCalculator(final int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        routeCosts = new LinkedHashMap<Long, RouteCosts>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RouteCosts> eldest) {
+                return size() > capacity;
+            }
+
+        };
+    }
+
+    /**
+     * Calculates the costs of a route.
+     *
+     * @param route the route
+     * @return costs of route
+     */
+    protected abstract double getRouteCosts(VehicleRoute route);
+
+    /**
+     * Calculates the costs of unassigned jobs.
+     *
+     * @param unassignedJobs the unassigned jobs
+     * @return costs of unassigned jobs
+     */
+    protected abstract double getUnassignedJobCosts(Collection<Job> unassignedJobs);
+
+    @Override
+    public double getCosts(VehicleRoutingProblemSolution solution) {
+        double costs = 0.;
+        for (VehicleRoute route : solution.getRoutes()) {
+            costs += getCachedRouteCosts(route);
+        }
+        costs += getUnassignedJobCosts(solution.getUnassignedJobs());
+        return costs;
+    }
+
+    private double getCachedRouteCosts(VehicleRoute route) {
+        Long version = route.getTourActivities().getVersion();
+        double departureTime = route.getStart() == null ? 0. : route.getStart().getEndTime();
+        RouteCosts cached = routeCosts.get(version);
+        if (cached != null && cached.vehicle == route.getVehicle() && cached.driver == route.getDriver() && cached.departureTime == departureTime) {
+            return cached.costs;
+        }
+        noRouteCalculations++;
+        double costs = getRouteCosts(route);
+        routeCosts.put(version, new RouteCosts(route.getVehicle(), route.getDriver(), departureTime, costs));
+        return costs;
+    }
+
+    /**
+     * Returns how often route costs were actually calculated, i.e. not read from cache.
+     */
+    public int getNoRouteCalculations() {
+        return noRouteCalculations;
+    }
+
+}
@@ -41,6 +41,22 @@ public class VehicleRoutingProblemSolution {
         return new VehicleRoutingProblemSolution(solution2copy);
     }
 
+    /**
+     * Makes a copy of the solution whose routes share their activities with the routes of the solution to be copied
+     * until a route is modified (see {@link VehicleRoute#copyOnWriteOf(VehicleRoute)}). Copying is thus independent
+     * of the number of activities, and only routes that are actually modified by ruin and recreate are duplicated.
+     *
+     * @param solution2copy solution to be copied
+     * @return solution
+     */
+    public static VehicleRoutingProblemSolution copyOnWriteOf(VehicleRoutingProblemSolution solution2copy) {
+        Collection<VehicleRoute> routes = new ArrayList<VehicleRoute>(solution2copy.getRoutes().size());
+        for (VehicleRoute r : solution2copy.getRoutes()) {
+            routes.add(VehicleRoute.copyOnWriteOf(r));
+        }
+        return new VehicleRoutingProblemSolution(routes, new ArrayList<Job>(solution2copy.getUnassignedJobs()), solution2copy.getCost());
+    }
+
     private final Collection<VehicleRoute> routes;
 
     private Collection<Job> unassignedJobs = new ArrayList<Job>();
@@ -47,6 +47,19 @@ public class VehicleRoute {
         return new VehicleRoute(route);
     }
 
+    /**
+     * Returns a copy of this vehicleRoute that shares its activities with the original route until either of them is
+     * modified (see {@link TourActivities#copyOnWriteOf(TourActivities)}). Start and end are copied.
+     *
+     * @param route route to copy
+     * @return copied route
+     * @throws IllegalArgumentException if route is null
+     */
+    public static VehicleRoute copyOnWriteOf(VehicleRoute route) {
+        if (route == null) throw new IllegalArgumentException("route must not be null");
+        return new VehicleRoute(route, true);
+    }
+
     /**
      * Returns an empty route.
      * <p>
@@ -323,9 +336,14 @@ public class VehicleRoute {
      * @param route to copy
      */
     private VehicleRoute(VehicleRoute route) {
+        this(route, false);
+    }
+
+    private VehicleRoute(VehicleRoute route, boolean copyOnWrite) {
         this.start = Start.copyOf(route.getStart());
         this.end = End.copyOf(route.getEnd());
-        this.tourActivities = TourActivities.copyOf(route.getTourActivities());
+        if (copyOnWrite) this.tourActivities = TourActivities.copyOnWriteOf(route.getTourActivities());
+        else this.tourActivities = TourActivities.copyOf(route.getTourActivities());
         this.vehicle = route.getVehicle();
         this.driver = route.getDriver();
     }
@@ -395,6 +413,8 @@ public class VehicleRoute {
      * @param vehicleDepTime of employed vehicle
      */
     public void setVehicleAndDepartureTime(Vehicle vehicle, double vehicleDepTime) {
+        // activity times change, thus activities must not be shared with other routes anymore
+        tourActivities.detach();
         this.vehicle = vehicle;
         setStartAndEnd(vehicle, vehicleDepTime);
     }
@@ -21,6 +21,7 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -33,6 +34,28 @@ public class TourActivities {
         return new TourActivities(tourActivities);
     }
 
+    /**
+     * Returns a copy that shares activities with the specified sequence until either of them is modified. The
+     * modified sequence then gets its own (deep) copy of the activities, i.e. modifying one never affects the other.
+     * <p>
+     * <p>This makes copying a sequence O(1), whereas copyOf(...) duplicates every activity.
+     *
+     * @param tourActivities sequence to copy
+     * @return copy-on-write copy
+     */
+    public static TourActivities copyOnWriteOf(TourActivities tourActivities) {
+        tourActivities.shared = true;
+        TourActivities copy = new TourActivities();
+        copy.tourActivities = tourActivities.tourActivities;
+        copy.jobs = tourActivities.jobs;
+        copy.version = tourActivities.version;
+        copy.positionIndex = tourActivities.positionIndex;
+        copy.shared = true;
+        return copy;
+    }
+
+    private static final AtomicLong versionCounter = new AtomicLong();
+
     public static class ReverseActivityIterator implements Iterator<TourActivity> {
 
         private List<TourActivity> acts;
@@ -67,12 +90,46 @@ public class TourActivities {
         }
     }
 
-    private final ArrayList<TourActivity> tourActivities = new ArrayList<TourActivity>();
+    /**
+     * Positions of activities and jobs. An index is immutable, i.e. it is rebuilt after modifications rather than
+     * updated, such that it can be read by several threads and shared with copy-on-write copies.
+     */
+    private static class PositionIndex {
+
+        private final Map<TourActivity, Integer> activityPositions;
+
+        private final Map<Job, Integer> jobPositions;
 
-    private final Set<Job> jobs = new HashSet<Job>();
+        PositionIndex(List<TourActivity> acts) {
+            activityPositions = new IdentityHashMap<TourActivity, Integer>(acts.size());
+            jobPositions = new HashMap<Job, Integer>(acts.size());
+            for (int i = 0; i < acts.size(); i++) {
+                TourActivity act = acts.get(i);
+                activityPositions.put(act, i);
+                if (act instanceof JobActivity) {
+                    Job job = ((JobActivity) act).getJob();
+                    if (!jobPositions.containsKey(job)) jobPositions.put(job, i);
+                }
+            }
+        }
+
+    }
+
+    private ArrayList<TourActivity> tourActivities = new ArrayList<TourActivity>();
+
+    /**
+     * Number of activities per job, e.g. 2 for a shipment. Its keys are the jobs served.
+     */
+    private Map<Job, Integer> jobs = new HashMap<Job, Integer>();
 
     private ReverseActivityIterator backward;
 
+    private boolean shared = false;
+
+    private long version = versionCounter.incrementAndGet();
+
+    private volatile PositionIndex positionIndex;
+
     private TourActivities(TourActivities tour2copy) {
         for (TourActivity tourAct : tour2copy.getActivities()) {
             TourActivity newAct = tourAct.duplicate();
@@ -85,12 +142,79 @@ public class TourActivities {
 
     }
 
+    /**
+     * Returns the version of this activity sequence. It changes with every modification, and two sequences with the
+     * same version consist of the same jobs in the same order, i.e. one is an unmodified copy-on-write copy of the
+     * other.
+     *
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Copies the activities if they are shared with a copy-on-write copy. This needs to be called before attributes of
+     * activities such as arrival times are changed without modifying the sequence, e.g. when switching vehicles.
+     */
+    public void detach() {
+        if (shared) {
+            ArrayList<TourActivity> acts = new ArrayList<TourActivity>(tourActivities.size());
+            for (TourActivity tourAct : tourActivities) {
+                acts.add(tourAct.duplicate());
+            }
+            this.tourActivities = acts;
+            this.jobs = new HashMap<Job, Integer>(jobs);
+            this.backward = null;
+            this.positionIndex = null;
+            this.shared = false;
+        }
+    }
+
+    private void beforeModification() {
+        detach();
+        version = versionCounter.incrementAndGet();
+        positionIndex = null;
+    }
+
     public List<TourActivity> getActivities() {
         return Collections.unmodifiableList(tourActivities);
     }
 
+    /**
+     * Returns an iterator over the activities. Removing activities through the iterator is a modification, i.e. it
+     * changes the version of this sequence.
+     *
+     * @return iterator
+     */
     public Iterator<TourActivity> iterator() {
-        return tourActivities.iterator();
+        // activities are copied here rather than on remove(), since copying invalidates the delegate
+        if (shared) beforeModification();
+        positionIndex = null;
+        final Iterator<TourActivity> delegate = tourActivities.iterator();
+        return new Iterator<TourActivity>() {
+
+            private TourActivity last;
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public TourActivity next() {
+                last = delegate.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                delegate.remove();
+                beforeModification();
+                unregister(last);
+            }
+
+        };
     }
 
     public boolean isEmpty() {
@@ -98,7 +222,7 @@ public class TourActivities {
     }
 
     public Collection<Job> getJobs() {
-        return Collections.unmodifiableSet(jobs);
+        return Collections.unmodifiableSet(jobs.keySet());
     }
 
     /**
@@ -106,7 +230,60 @@ public class TourActivities {
      * @return true if job is in jobList, otherwise false.
      */
     public boolean servesJob(Job job) {
-        return jobs.contains(job);
+        return jobs.containsKey(job);
+    }
+
+    /**
+     * Returns the position of the specified activity in this sequence, or -1 if it is not part of it. Activities are
+     * compared by identity.
+     * <p>
+     * <p>Positions are looked up in an index that is discarded on every modification and rebuilt in O(n) on the next
+     * lookup. Thus, lookups take O(1) only as long as the sequence is not modified; if lookups and modifications
+     * alternate, e.g. when removing activities one by one, each lookup takes O(n). Modifications themselves take O(n)
+     * anyway, since activities after the modified position are shifted.
+     *
+     * @param activity the activity to look up
+     * @return position of activity or -1
+     */
+    public int indexOf(TourActivity activity) {
+        Integer position = getPositionIndex().activityPositions.get(activity);
+        if (position == null) return -1;
+        return position;
+    }
+
+    /**
+     * Returns the position of the first activity of the specified job in this sequence, or -1 if the job is not
+     * served. Like {@link #indexOf(TourActivity)}, it takes O(n) on the first lookup after a modification and O(1)
+     * otherwise.
+     *
+     * @param job the job to look up
+     * @return position of first activity of job or -1
+     */
+    public int indexOf(Job job) {
+        if (!jobs.containsKey(job)) return -1;
+        Integer position = getPositionIndex().jobPositions.get(job);
+        if (position == null) return -1;
+        return position;
+    }
+
+    /**
+     * Like indexOf(activity), but without building the index if there is none, since it would be invalidated anyway.
+     */
+    private int positionOf(TourActivity activity) {
+        if (positionIndex != null) return indexOf(activity);
+        for (int i = 0; i < tourActivities.size(); i++) {
+            if (tourActivities.get(i) == activity) return i;
+        }
+        return -1;
+    }
+
+    private PositionIndex getPositionIndex() {
+        PositionIndex index = positionIndex;
+        if (index == null) {
+            index = new PositionIndex(tourActivities);
+            positionIndex = index;
+        }
+        return index;
     }
 
     @Override
@@ -115,34 +292,37 @@ public class TourActivities {
     }
 
     /**
-     * Removes job AND belonging activity from tour. Note that if job is a Service, it is assumed that there is only one belonging activity,
-     * thus, it stops trying to remove activities once the first is found.
-     * If you want to always look for belonging activities to be removed in the entire route, use removeJob(Job job, boolean enforceEntireRoute)
+     * Removes job AND belonging activities from tour. It stops looking for activities once all activities of the job
+     * are removed.
      *
      * @param job to be removed
      * @return true if job has been removed, otherwise false.
      */
     public boolean removeJob(Job job) {
-        boolean jobRemoved = false;
-        if (!jobs.contains(job)) {
+        Integer noActivities = jobs.get(job);
+        if (noActivities == null) {
             return false;
-        } else {
-            jobRemoved = jobs.remove(job);
-        }
-        boolean activityRemoved = false;
-        Iterator<TourActivity> iterator = tourActivities.iterator();
-        while (iterator.hasNext()) {
-            TourActivity c = iterator.next();
-            if (c instanceof JobActivity) {
-                Job underlyingJob = ((JobActivity) c).getJob();
-                if (job.equals(underlyingJob)) {
-                    iterator.remove();
-                    activityRemoved = true;
-                }
+        }
+        PositionIndex index = positionIndex;
+        int position = 0;
+        if (index != null) {
+            Integer first = index.jobPositions.get(job);
+            if (first != null) position = first;
+        }
+        beforeModification();
+        jobs.remove(job);
+        int noRemoved = 0;
+        while (noRemoved < noActivities && position < tourActivities.size()) {
+            TourActivity c = tourActivities.get(position);
+            if (c instanceof JobActivity && job.equals(((JobActivity) c).getJob())) {
+                tourActivities.remove(position);
+                noRemoved++;
+            } else {
+                position++;
             }
         }
-        assert jobRemoved == activityRemoved : "job removed, but belonging activity not.";
-        return activityRemoved;
+        assert noRemoved == noActivities : "job removed, but belonging activity not.";
+        return noRemoved > 0;
     }
 
 
@@ -150,34 +330,31 @@ public class TourActivities {
     /**
      * Removes activity from this activity sequence. Removes its corresponding job as well, if there are no other activities
      * related to this job.
+     * <p>
+     * <p>This takes O(n): the activity is looked up in the position index if there is one (otherwise by a linear
+     * scan), subsequent activities are shifted, and the index is discarded.
      *
      * @param activity to be removed
      * @return true if activity has been removed, false otherwise
      */
     public boolean removeActivity(TourActivity activity) {
-        Job job = null;
-        if (activity instanceof JobActivity) {
-            job = ((JobActivity) activity).getJob();
-        }
-        boolean jobIsAlsoAssociateToOtherActs = false;
-        boolean actRemoved = false;
-        List<TourActivity> acts = new ArrayList<TourActivity>(tourActivities);
-        for (TourActivity act : acts) {
-            if (act == activity) {
-                tourActivities.remove(act);
-                actRemoved = true;
-            } else {
-                if (act instanceof JobActivity && job != null) {
-                    if (((JobActivity) act).getJob().equals(job)) {
-                        jobIsAlsoAssociateToOtherActs = true;
-                    }
-                }
+        // activities are duplicated if they are shared, thus the activity needs to be looked up by position
+        int position = positionOf(activity);
+        if (position < 0) return false;
+        beforeModification();
+        unregister(tourActivities.remove(position));
+        return true;
+    }
+
+    private void unregister(TourActivity removed) {
+        if (removed instanceof JobActivity) {
+            Job job = ((JobActivity) removed).getJob();
+            Integer noActivities = jobs.get(job);
+            if (noActivities != null) {
+                if (noActivities <= 1) jobs.remove(job);
+                else jobs.put(job, noActivities - 1);
             }
         }
-        if (!jobIsAlsoAssociateToOtherActs && actRemoved) {
-            jobs.remove(job);
-        }
-        return actRemoved;
     }
 
 
@@ -194,6 +371,7 @@ public class TourActivities {
     public void addActivity(int insertionIndex, TourActivity act) {
 
         assert insertionIndex >= 0 : "insertionIndex < 0, this cannot be";
+        beforeModification();
 
 		/*
          * if 1 --> between start and act(0) --> act(0)
@@ -220,6 +398,7 @@ public class TourActivities {
     public void addActivity(TourActivity act) {
         if (tourActivities.contains(act))
             throw new IllegalArgumentException("act " + act + " already in tour. cannot add act twice.");
+        beforeModification();
         tourActivities.add(act);
         addJob(act);
     }
@@ -227,8 +406,8 @@ public class TourActivities {
     private void addJob(TourActivity act) {
         if (act instanceof JobActivity) {
             Job job = ((JobActivity) act).getJob();
-//            if(job instanceof Service) assert !jobs.contains(job);
-            jobs.add(job);
+            Integer noActivities = jobs.get(job);
+            jobs.put(job, noActivities == null ? 1 : noActivities + 1);
         }
     }
 
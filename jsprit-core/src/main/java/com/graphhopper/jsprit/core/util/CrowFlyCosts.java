@@ -30,7 +30,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 /**
  * @author stefan schroeder
  */
-public class CrowFlyCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+public class CrowFlyCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance, Fingerprintable {
 
     public int speed = 1;
 
@@ -98,4 +98,14 @@ public class CrowFlyCosts extends AbstractForwardVehicleRoutingTransportCosts im
     public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
         return calculateDistance(from, to);
     }
+
+    /**
+     * Adds speed and detour factor. Coordinates that are looked up in locations are assumed to be the coordinates of
+     * the problem's locations (which is the case if these costs are set up by the problem builder).
+     */
+    @Override
+    public void addTo(Fingerprint fingerprint) {
+        fingerprint.add(getClass().getName()).add(speed).add(detourFactor);
+    }
+
 }
@@ -30,7 +30,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 /**
  * @author stefan schroeder
  */
-public class EuclideanCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+public class EuclideanCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance, Fingerprintable {
 
     public int speed = 1;
 
@@ -88,4 +88,10 @@ public class EuclideanCosts extends AbstractForwardVehicleRoutingTransportCosts
     public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
         return calculateDistance(from, to);
     }
+
+    @Override
+    public void addTo(Fingerprint fingerprint) {
+        fingerprint.add(getClass().getName()).add(speed).add(detourFactor);
+    }
+
 }
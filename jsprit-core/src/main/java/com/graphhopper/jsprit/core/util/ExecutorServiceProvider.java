@@ -0,0 +1,47 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides the executor the concurrent insertion strategies run their tasks on.
+ * <p>
+ * <p>An algorithm acquires its executor once when it is built and releases it when it ends. Whether releasing
+ * shuts down the executor is up to the provider, i.e. a provider handing out a shared pool must not shut it down.
+ * See {@link ExecutorServiceProviders} for the default implementations.
+ */
+public interface ExecutorServiceProvider {
+
+    /**
+     * Returns the executor to be used by one algorithm instance.
+     *
+     * @param nuOfThreads the number of tasks the algorithm submits concurrently
+     * @return executor
+     */
+    public ExecutorService acquire(int nuOfThreads);
+
+    /**
+     * Informs the provider that the algorithm does not need the executor anymore.
+     *
+     * @param executorService the executor that has been acquired before
+     */
+    public void release(ExecutorService executorService);
+
+}
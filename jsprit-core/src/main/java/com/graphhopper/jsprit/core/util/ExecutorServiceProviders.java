@@ -0,0 +1,189 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Default {@link ExecutorServiceProvider}s.
+ */
+public class ExecutorServiceProviders {
+
+    private static Logger logger = LoggerFactory.getLogger(ExecutorServiceProviders.class);
+
+    private static ForkJoinPool sharedForkJoinPool;
+
+    /**
+     * Provider that creates a fixed thread pool per algorithm and shuts it down when the algorithm ends. This is
+     * what jsprit does if no provider is set.
+     *
+     * @return provider
+     */
+    public static ExecutorServiceProvider fixedThreadPool() {
+        return new ExecutorServiceProvider() {
+
+            @Override
+            public ExecutorService acquire(int nuOfThreads) {
+                return Executors.newFixedThreadPool(nuOfThreads);
+            }
+
+            @Override
+            public void release(ExecutorService executorService) {
+                executorService.shutdown();
+            }
+
+        };
+    }
+
+    /**
+     * Provider that hands out one fork-join pool shared by all algorithms. The pool has as many threads as
+     * processors are available and is never shut down.
+     *
+     * @return provider
+     */
+    public static ExecutorServiceProvider sharedForkJoinPool() {
+        return shared(getSharedForkJoinPool());
+    }
+
+    /**
+     * Provider that hands out the specified executor to all algorithms. The executor is not shut down when an
+     * algorithm ends, i.e. the caller remains its owner.
+     *
+     * @param executorService the shared executor
+     * @return provider
+     */
+    public static ExecutorServiceProvider shared(final ExecutorService executorService) {
+        return new ExecutorServiceProvider() {
+
+            @Override
+            public ExecutorService acquire(int nuOfThreads) {
+                return executorService;
+            }
+
+            @Override
+            public void release(ExecutorService executorService) {
+
+            }
+
+        };
+    }
+
+    /**
+     * Provider that creates an executor starting a new virtual thread per task. Virtual threads are only available
+     * on Java 21 and later. On older runtimes it falls back to a cached thread pool.
+     *
+     * @return provider
+     */
+    public static ExecutorServiceProvider virtualThreadPerTask() {
+        return new ExecutorServiceProvider() {
+
+            @Override
+            public ExecutorService acquire(int nuOfThreads) {
+                ExecutorService executorService = newVirtualThreadPerTaskExecutor();
+                if (executorService == null) return Executors.newCachedThreadPool();
+                return executorService;
+            }
+
+            @Override
+            public void release(ExecutorService executorService) {
+                executorService.shutdown();
+            }
+
+        };
+    }
+
+    /**
+     * Provider that limits the executors of the specified provider such that not more tasks run at the same time
+     * than permits are available. Share the semaphore across algorithms to limit their overall parallelism.
+     *
+     * @param provider the provider whose executors are limited
+     * @param permits  the semaphore controlling the parallelism
+     * @return provider
+     */
+    public static ExecutorServiceProvider limited(final ExecutorServiceProvider provider, final Semaphore permits) {
+        return new ExecutorServiceProvider() {
+
+            @Override
+            public ExecutorService acquire(int nuOfThreads) {
+                return new ParallelismLimitedExecutorService(provider.acquire(nuOfThreads), permits);
+            }
+
+            @Override
+            public void release(ExecutorService executorService) {
+                executorService.shutdown();
+                if (executorService instanceof ParallelismLimitedExecutorService) {
+                    provider.release(((ParallelismLimitedExecutorService) executorService).getExecutorService());
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Returns true if the runtime supports virtual threads.
+     *
+     * @return true if virtual threads are supported
+     */
+    public static boolean isVirtualThreadSupported() {
+        return getVirtualThreadFactoryMethod() != null;
+    }
+
+    /**
+     * Returns the fork-join pool that is shared by all algorithms and by preprocessing tasks. It is created lazily
+     * and never shut down.
+     *
+     * @return shared fork-join pool
+     */
+    public static synchronized ForkJoinPool getSharedForkJoinPool() {
+        if (sharedForkJoinPool == null) {
+            sharedForkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return sharedForkJoinPool;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        Method method = getVirtualThreadFactoryMethod();
+        if (method == null) {
+            logger.warn("virtual threads are not supported by this runtime. use cached thread pool instead.");
+            return null;
+        }
+        try {
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            logger.warn("cannot create virtual thread executor. use cached thread pool instead.", e);
+            return null;
+        }
+    }
+
+    private static Method getVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+}
@@ -32,7 +32,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
  *
  * @author schroeder
  */
-public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance, Fingerprintable {
 
     /**
      * Builder that builds the matrix.
@@ -169,4 +169,14 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
         return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from, to, departureTime, driver, vehicle);
     }
 
+    @Override
+    public void addTo(Fingerprint fingerprint) {
+        fingerprint.add(getClass().getName()).add(isSymmetric).add(matrix.length);
+        for (double[][] row : matrix) {
+            for (double[] entry : row) {
+                fingerprint.add(entry[0]).add(entry[1]);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,171 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * SHA-256 based content fingerprint, e.g. of the locations and transport costs of a problem. It identifies
+ * preprocessing results in a {@link PreprocessingCache}.
+ */
+public class Fingerprint {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Returns a fingerprint of the jobs and vehicle locations of vrp and its transport costs, or null if the
+     * transport costs are not {@link Fingerprintable}. Jobs are added in the order of their index, since results
+     * like neighborhoods refer to job indices.
+     *
+     * @param vrp the problem
+     * @return fingerprint of locations and transport costs or null
+     */
+    public static Fingerprint ofLocations(VehicleRoutingProblem vrp) {
+        if (!(vrp.getTransportCosts() instanceof Fingerprintable)) return null;
+        Fingerprint fingerprint = new Fingerprint();
+        ((Fingerprintable) vrp.getTransportCosts()).addTo(fingerprint);
+        List<Job> jobs = new ArrayList<Job>(vrp.getJobsInclusiveInitialJobsInRoutes().values());
+        Collections.sort(jobs, new Comparator<Job>() {
+
+            @Override
+            public int compare(Job o1, Job o2) {
+                return o1.getIndex() - o2.getIndex();
+            }
+
+        });
+        fingerprint.add(jobs.size());
+        for (Job job : jobs) {
+            fingerprint.add(job.getId()).add(job.getIndex()).add(job.getClass().getName());
+            if (job instanceof Service) {
+                fingerprint.add(((Service) job).getLocation());
+            } else if (job instanceof Shipment) {
+                fingerprint.add(((Shipment) job).getPickupLocation()).add(((Shipment) job).getDeliveryLocation());
+            }
+        }
+        fingerprint.add(vrp.getVehicles().size());
+        for (Vehicle vehicle : vrp.getVehicles()) {
+            fingerprint.add(vehicle.getId()).add(vehicle.getStartLocation()).add(vehicle.getEndLocation());
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns a fingerprint of the whole problem, i.e. locations, transport costs, jobs, vehicles and fleet size, or
+     * null if the transport costs are not {@link Fingerprintable}. Jobs and vehicles are added with their string
+     * representation.
+     *
+     * @param vrp the problem
+     * @return fingerprint of problem or null
+     */
+    public static Fingerprint ofProblem(VehicleRoutingProblem vrp) {
+        Fingerprint fingerprint = ofLocations(vrp);
+        if (fingerprint == null) return null;
+        List<String> jobs = new ArrayList<String>();
+        for (Job job : vrp.getJobsInclusiveInitialJobsInRoutes().values()) jobs.add(job.toString());
+        Collections.sort(jobs);
+        for (String job : jobs) fingerprint.add(job);
+        List<String> vehicles = new ArrayList<String>();
+        for (Vehicle vehicle : vrp.getVehicles()) vehicles.add(vehicle.toString());
+        Collections.sort(vehicles);
+        for (String vehicle : vehicles) fingerprint.add(vehicle);
+        fingerprint.add(vrp.getFleetSize().toString()).add(vrp.getActivityCosts().getClass().getName());
+        return fingerprint;
+    }
+
+    private final MessageDigest digest;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(8);
+
+    public Fingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Fingerprint add(String value) {
+        if (value == null) return add(-1);
+        byte[] bytes = value.getBytes(UTF8);
+        add(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    public Fingerprint add(int value) {
+        // Buffer.clear() rather than ByteBuffer.clear(), which does not exist on Java 8 runtimes
+        ((Buffer) buffer).clear();
+        buffer.putInt(value);
+        digest.update(buffer.array(), 0, 4);
+        return this;
+    }
+
+    public Fingerprint add(long value) {
+        ((Buffer) buffer).clear();
+        buffer.putLong(value);
+        digest.update(buffer.array(), 0, 8);
+        return this;
+    }
+
+    public Fingerprint add(double value) {
+        return add(Double.doubleToLongBits(value));
+    }
+
+    public Fingerprint add(boolean value) {
+        return add(value ? 1 : 0);
+    }
+
+    public Fingerprint add(Location location) {
+        if (location == null) return add(-1);
+        add(location.getId()).add(location.getIndex());
+        Coordinate coordinate = location.getCoordinate();
+        if (coordinate == null) return add(false);
+        return add(true).add(coordinate.getX()).add(coordinate.getY());
+    }
+
+    /**
+     * Returns the fingerprint as hex string. The fingerprint cannot be extended afterwards.
+     *
+     * @return hex string
+     */
+    public String toHexString() {
+        byte[] hash = digest.digest();
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+}
@@ -16,36 +16,19 @@
  * limitations under the License.
  */
 
-package com.graphhopper.jsprit.core.algorithm.recreate;
-
-import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+package com.graphhopper.jsprit.core.util;
 
 /**
- * Created by schroeder on 15/10/15.
+ * Objects whose content can be added to a {@link Fingerprint}, e.g. transport costs. Two objects with the same
+ * fingerprint must yield the same results.
  */
-class VersionedInsertionData {
-
-    private InsertionData iData;
-
-    private VehicleRoute route;
-
-    private int version;
-
-    public VersionedInsertionData(InsertionData iData, int version, VehicleRoute route) {
-        this.iData = iData;
-        this.version = version;
-        this.route = route;
-    }
-
-    public InsertionData getiData() {
-        return iData;
-    }
+public interface Fingerprintable {
 
-    public int getVersion() {
-        return version;
-    }
+    /**
+     * Adds everything the results of this object depend on to the fingerprint.
+     *
+     * @param fingerprint the fingerprint to be extended
+     */
+    public void addTo(Fingerprint fingerprint);
 
-    public VehicleRoute getRoute() {
-        return route;
-    }
 }
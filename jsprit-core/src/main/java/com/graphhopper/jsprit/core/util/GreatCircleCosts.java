@@ -28,7 +28,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
  * @author stefan schroeder
  */
 
-public class GreatCircleCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+public class GreatCircleCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance, Fingerprintable {
 
     private double speed = 1.;
 
@@ -99,4 +99,10 @@ public class GreatCircleCosts extends AbstractForwardVehicleRoutingTransportCost
     public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
         return calculateDistance(from, to);
     }
+
+    @Override
+    public void addTo(Fingerprint fingerprint) {
+        fingerprint.add(getClass().getName()).add(speed).add(detour).add(distanceUnit.toString());
+    }
+
 }
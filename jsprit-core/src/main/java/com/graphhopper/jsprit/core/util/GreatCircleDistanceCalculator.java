@@ -23,7 +23,7 @@ package com.graphhopper.jsprit.core.util;
  */
 public class GreatCircleDistanceCalculator {
 
-    private static final double R = 6372.8; // km
+    static final double R = 6372.8; // km
 
     /**
      * Harversine method.
@@ -28,7 +28,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
  * @author stefan schroeder
  */
 
-public class ManhattanCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance {
+public class ManhattanCosts extends AbstractForwardVehicleRoutingTransportCosts implements TransportDistance, Fingerprintable {
 
     public double speed = 1;
 
@@ -87,4 +87,14 @@ public class ManhattanCosts extends AbstractForwardVehicleRoutingTransportCosts
     public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
         return calculateDistance(from, to);
     }
+
+    /**
+     * Adds speed. Coordinates that are looked up in locations are assumed to be the coordinates of the problem's
+     * locations.
+     */
+    @Override
+    public void addTo(Fingerprint fingerprint) {
+        fingerprint.add(getClass().getName()).add(speed);
+    }
+
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * View on an executor that never runs more tasks at the same time than permits are available in a semaphore.
+ * <p>
+ * <p>If the same semaphore is shared by several views, it limits the parallelism of all of them together, e.g.
+ * of many algorithms solving concurrently in one service. The submitting thread blocks until a permit is free.
+ * <p>
+ * <p>Shutting down the view does not shut down the underlying executor.
+ */
+public class ParallelismLimitedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService executorService;
+
+    private final Semaphore permits;
+
+    private final Object lock = new Object();
+
+    private int activeTasks = 0;
+
+    private volatile boolean shutdown = false;
+
+    public ParallelismLimitedExecutorService(ExecutorService executorService, Semaphore permits) {
+        if (executorService == null) throw new IllegalArgumentException("executorService must not be null");
+        if (permits == null) throw new IllegalArgumentException("permits must not be null");
+        this.executorService = executorService;
+        this.permits = permits;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (shutdown) throw new RejectedExecutionException("executor has been shut down");
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+        synchronized (lock) {
+            activeTasks++;
+        }
+        try {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        command.run();
+                    } finally {
+                        taskDone();
+                    }
+                }
+
+            });
+        } catch (RejectedExecutionException e) {
+            taskDone();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the underlying executor
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    private void taskDone() {
+        permits.release();
+        synchronized (lock) {
+            activeTasks--;
+            if (activeTasks == 0) lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (lock) {
+            return shutdown && activeTasks == 0;
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (!(shutdown && activeTasks == 0)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            return true;
+        }
+    }
+
+}
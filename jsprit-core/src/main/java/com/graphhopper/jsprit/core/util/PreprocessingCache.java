@@ -0,0 +1,161 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * Store of preprocessing results (artefacts) on local disk, e.g. job neighborhoods or initial thresholds, that allows
+ * reusing them across solver runs.
+ * <p>
+ * <p>Each artefact is identified by its kind and a content fingerprint of everything it depends on (see
+ * {@link Fingerprint}). It is stored in a binary file named kind-fingerprint.bin. Thus, an artefact is invalidated
+ * implicitly as soon as locations or transport costs change, since the fingerprint changes as well.
+ * <p>
+ * <p>Files are written to a temporary file first and then moved, i.e. concurrent runs never read partially written
+ * artefacts. Unreadable or corrupt artefacts are treated as missing.
+ */
+public class PreprocessingCache {
+
+    /**
+     * Writes the payload of an artefact.
+     */
+    public interface ArtefactWriter {
+
+        public void write(DataOutput out) throws IOException;
+
+    }
+
+    /**
+     * Reads the payload of an artefact.
+     */
+    public interface ArtefactReader<T> {
+
+        public T read(DataInput in) throws IOException;
+
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(PreprocessingCache.class);
+
+    private static final int MAGIC = 0x4a535052;
+
+    private static final int VERSION = 1;
+
+    private static final Pattern KIND_PATTERN = Pattern.compile("[a-zA-Z0-9_.]+");
+
+    private final File directory;
+
+    public PreprocessingCache(File directory) {
+        if (directory == null) throw new IllegalArgumentException("directory must not be null");
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the artefact of the specified kind and fingerprint, or null if it does not exist or cannot be read.
+     */
+    public <T> T get(String kind, String fingerprint, ArtefactReader<T> reader) {
+        File file = getFile(kind, fingerprint);
+        if (!file.isFile()) return null;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (!kind.equals(in.readUTF()) || !fingerprint.equals(in.readUTF())) return null;
+            T artefact = reader.read(in);
+            logger.debug("read {} from {}", kind, file);
+            return artefact;
+        } catch (IOException e) {
+            logger.warn("cannot read preprocessing artefact {}: {}", file, e.toString());
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores the artefact of the specified kind and fingerprint. Failures are logged but not thrown, since the cache
+     * is only an optimization.
+     */
+    public void put(String kind, String fingerprint, ArtefactWriter writer) {
+        File file = getFile(kind, fingerprint);
+        File tmp = null;
+        DataOutputStream out = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("cannot create directory " + directory);
+            }
+            tmp = File.createTempFile(kind + "-", ".tmp", directory);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(kind);
+            out.writeUTF(fingerprint);
+            writer.write(out);
+            out.close();
+            out = null;
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.debug("wrote {} to {}", kind, file);
+        } catch (IOException e) {
+            logger.warn("cannot write preprocessing artefact {}: {}", file, e.toString());
+        } finally {
+            close(out);
+            if (tmp != null && tmp.exists() && !tmp.delete()) tmp.deleteOnExit();
+        }
+    }
+
+    private File getFile(String kind, String fingerprint) {
+        if (kind == null || !KIND_PATTERN.matcher(kind).matches()) {
+            throw new IllegalArgumentException("kind must only consist of letters, digits, '_' and '.'");
+        }
+        if (fingerprint == null || !KIND_PATTERN.matcher(fingerprint).matches()) {
+            throw new IllegalArgumentException("fingerprint must only consist of letters, digits, '_' and '.'");
+        }
+        return new File(directory, kind + "-" + fingerprint + ".bin");
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            logger.debug("cannot close stream: {}", e.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[name=preprocessingCache][directory=" + directory + "]";
+    }
+
+}
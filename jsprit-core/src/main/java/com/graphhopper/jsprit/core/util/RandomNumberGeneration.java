@@ -19,6 +19,12 @@ package com.graphhopper.jsprit.core.util;
 
 import java.util.Random;
 
+/**
+ * Default source of random numbers.
+ * <p>
+ * <p>getRandom() returns one generator that is shared by all components that are not given a generator explicitly.
+ * Parallel algorithms should rather give each component its own stream, see {@link RandomStreams}.
+ */
 public class RandomNumberGeneration {
 
     private static long DEFAULT_SEED = 4711L;
@@ -29,6 +35,13 @@ public class RandomNumberGeneration {
         return new Random(DEFAULT_SEED);
     }
 
+    /**
+     * Returns streams derived from the default seed.
+     */
+    public static RandomStreams newStreams() {
+        return RandomStreams.newInstance(DEFAULT_SEED);
+    }
+
     public static Random getRandom() {
         return random;
     }
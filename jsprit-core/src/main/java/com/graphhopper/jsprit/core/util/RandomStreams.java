@@ -0,0 +1,203 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.algorithm.Checkpointable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Derives independent random number generators (streams) from a single master seed.
+ * <p>
+ * <p>Each component gets its own stream, identified by a name and optionally an index (e.g. a worker or thread). The
+ * seed of a stream only depends on the master seed, the name and the index, thus a component's random numbers neither
+ * depend on how many numbers other components draw nor on the order in which streams are created. Since no stream is
+ * shared, there is no contention on a common seed. Seeds are derived with the SplitMix64 finalizer.
+ * <p>
+ * <p>Streams are {@link Random}s producing the same numbers as java.util.Random with the same seed, but they are not
+ * synchronized, i.e. each stream should only be used by one thread at a time. Their state can be read and set,
+ * thus the states of all streams created by newRandom(...) can be checkpointed (see {@link Checkpointable}).
+ */
+public class RandomStreams implements Checkpointable {
+
+    /**
+     * Linear congruential generator of java.util.Random with a readable state and without atomic updates.
+     */
+    public static class Stream extends Random {
+
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+
+        private static final long ADDEND = 0xBL;
+
+        private static final long MASK = (1L << 48) - 1;
+
+        // no field initializers, since Random's constructor calls setSeed before they would run
+        private long state;
+
+        private double nextNextGaussian;
+
+        private boolean haveNextNextGaussian;
+
+        public Stream(long seed) {
+            super(seed);
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            state = (seed ^ MULTIPLIER) & MASK;
+            haveNextNextGaussian = false;
+        }
+
+        @Override
+        protected int next(int bits) {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+
+        @Override
+        public double nextGaussian() {
+            if (haveNextNextGaussian) {
+                haveNextNextGaussian = false;
+                return nextNextGaussian;
+            }
+            double v1, v2, s;
+            do {
+                v1 = 2 * nextDouble() - 1;
+                v2 = 2 * nextDouble() - 1;
+                s = v1 * v1 + v2 * v2;
+            } while (s >= 1 || s == 0);
+            double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+            nextNextGaussian = v2 * multiplier;
+            haveNextNextGaussian = true;
+            return v1 * multiplier;
+        }
+
+        public long getState() {
+            return state;
+        }
+
+        /**
+         * Sets the state read with getState(), i.e. the stream continues from where it was then.
+         */
+        public void setState(long state) {
+            this.state = state & MASK;
+            haveNextNextGaussian = false;
+        }
+
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    public static RandomStreams newInstance(long seed) {
+        return new RandomStreams(seed);
+    }
+
+    private final long seed;
+
+    private final List<Stream> streams = new ArrayList<Stream>();
+
+    private RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a new generator for the specified component. Calling this twice with the same name yields two
+     * generators producing the same sequence.
+     *
+     * @param component name of component
+     * @return random number generator
+     */
+    public Random newRandom(String component) {
+        return register(new Stream(seedOf(component, 0)));
+    }
+
+    /**
+     * Returns a new generator for the index-th instance of the specified component, e.g. for the index-th thread.
+     *
+     * @param component name of component
+     * @param index     index of instance
+     * @return random number generator
+     */
+    public Random newRandom(String component, int index) {
+        return register(new Stream(seedOf(component, index + 1)));
+    }
+
+    private synchronized Stream register(Stream stream) {
+        streams.add(stream);
+        return stream;
+    }
+
+    /**
+     * Returns streams derived from this one, e.g. for the index-th of several algorithms that run in parallel.
+     *
+     * @param component name of component
+     * @param index     index of instance
+     * @return derived streams
+     */
+    public RandomStreams split(String component, int index) {
+        return new RandomStreams(seedOf(component, -(index + 1)));
+    }
+
+    private long seedOf(String component, long index) {
+        long key = mix64(component.hashCode() * GOLDEN_GAMMA + index);
+        return mix64(seed + GOLDEN_GAMMA * (key | 1L));
+    }
+
+    /**
+     * Writes the states of all streams created so far, in the order of their creation.
+     */
+    @Override
+    public synchronized void writeState(DataOutput out) throws IOException {
+        out.writeInt(streams.size());
+        for (Stream stream : streams) {
+            out.writeLong(stream.state);
+            out.writeBoolean(stream.haveNextNextGaussian);
+            out.writeDouble(stream.nextNextGaussian);
+        }
+    }
+
+    @Override
+    public synchronized void readState(DataInput in) throws IOException {
+        int noStreams = in.readInt();
+        if (noStreams != streams.size()) {
+            throw new IllegalStateException("checkpoint has " + noStreams + " random streams, but " + streams.size() + " have been created");
+        }
+        for (Stream stream : streams) {
+            stream.state = in.readLong();
+            stream.haveNextNextGaussian = in.readBoolean();
+            stream.nextNextGaussian = in.readDouble();
+        }
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,497 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Static k-d tree over coordinates that answers k-nearest-neighbor, radius and farthest-point queries.
+ * <p>
+ * <p>Points are referred to by their position in the array of coordinates the index is built from. The euclidean
+ * variant indexes (x,y) as is. The great-circle variant interprets x as longitude and y as latitude (just like
+ * {@link GreatCircleDistanceCalculator}), maps each coordinate to the unit sphere and searches with chord distances.
+ * Since the chord grows monotonically with the great-circle distance, neighbors come in the same order.
+ * <p>
+ * <p>Building the index takes O(n log n), a nearest neighbor query takes O(log n + k log k) on average. Ties are broken
+ * by position, thus results are deterministic. The index is immutable and can be queried from several threads.
+ */
+public class SpatialIndex {
+
+    private static final int LEAF_SIZE = 8;
+
+    /**
+     * Returns an index that measures euclidean distances between coordinates.
+     *
+     * @param coordinates the coordinates to be indexed
+     * @return spatial index
+     */
+    public static SpatialIndex newEuclideanInstance(Coordinate[] coordinates) {
+        return new SpatialIndex(coordinates, false, 0.);
+    }
+
+    /**
+     * Returns an index that measures great circle distances between coordinates, where x is the longitude and y
+     * the latitude. Distances and radii are in the specified distance unit.
+     *
+     * @param coordinates  the coordinates to be indexed
+     * @param distanceUnit the unit of distances and radii
+     * @return spatial index
+     */
+    public static SpatialIndex newGreatCircleInstance(Coordinate[] coordinates, DistanceUnit distanceUnit) {
+        double earthRadius = GreatCircleDistanceCalculator.R;
+        if (distanceUnit.equals(DistanceUnit.Meter)) earthRadius = earthRadius * 1000.;
+        return new SpatialIndex(coordinates, true, earthRadius);
+    }
+
+    /**
+     * Bounded max-heap of (squared distance, position) that keeps the k best candidates of a query.
+     */
+    private static class Candidates {
+
+        private final double[] distances;
+
+        private final int[] positions;
+
+        private int size = 0;
+
+        Candidates(int capacity) {
+            distances = new double[capacity];
+            positions = new int[capacity];
+        }
+
+        boolean isFull() {
+            return size == distances.length;
+        }
+
+        double worstDistance() {
+            return distances[0];
+        }
+
+        void offer(double distance, int position) {
+            if (size < distances.length) {
+                int index = size++;
+                while (index > 0) {
+                    int parent = (index - 1) >>> 1;
+                    if (!greater(distance, position, distances[parent], positions[parent])) break;
+                    distances[index] = distances[parent];
+                    positions[index] = positions[parent];
+                    index = parent;
+                }
+                distances[index] = distance;
+                positions[index] = position;
+            } else if (greater(distances[0], positions[0], distance, position)) {
+                siftDown(distance, position);
+            }
+        }
+
+        int[] toSortedArray() {
+            int[] sorted = new int[size];
+            while (size > 0) {
+                sorted[size - 1] = positions[0];
+                size--;
+                if (size > 0) siftDown(distances[size], positions[size]);
+            }
+            return sorted;
+        }
+
+        private void siftDown(double distance, int position) {
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                int right = child + 1;
+                if (right < size && greater(distances[right], positions[right], distances[child], positions[child])) {
+                    child = right;
+                }
+                if (!greater(distances[child], positions[child], distance, position)) break;
+                distances[index] = distances[child];
+                positions[index] = positions[child];
+                index = child;
+            }
+            distances[index] = distance;
+            positions[index] = position;
+        }
+
+        private static boolean greater(double distance1, int position1, double distance2, int position2) {
+            if (distance1 > distance2) return true;
+            if (distance1 < distance2) return false;
+            return position1 > position2;
+        }
+
+    }
+
+    private final int size;
+
+    private final int dimensions;
+
+    private final boolean greatCircle;
+
+    private final double earthRadius;
+
+    private final double[] points;
+
+    private final int[] order;
+
+    private final int[] nodeFrom;
+
+    private final int[] nodeTo;
+
+    private final int[] nodeLeft;
+
+    private final int[] nodeRight;
+
+    private final double[] nodeMin;
+
+    private final double[] nodeMax;
+
+    private int noNodes = 0;
+
+    private SpatialIndex(Coordinate[] coordinates, boolean greatCircle, double earthRadius) {
+        this.size = coordinates.length;
+        this.greatCircle = greatCircle;
+        this.earthRadius = earthRadius;
+        this.dimensions = greatCircle ? 3 : 2;
+        points = new double[size * dimensions];
+        for (int i = 0; i < size; i++) {
+            if (coordinates[i] == null) throw new IllegalArgumentException("coordinate at position " + i + " is missing");
+            toPoint(coordinates[i], points, i * dimensions);
+        }
+        order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        int capacity = 2 * (size / (LEAF_SIZE / 2)) + 2;
+        nodeFrom = new int[capacity];
+        nodeTo = new int[capacity];
+        nodeLeft = new int[capacity];
+        nodeRight = new int[capacity];
+        nodeMin = new double[capacity * dimensions];
+        nodeMax = new double[capacity * dimensions];
+        build(0, size);
+    }
+
+    private void toPoint(Coordinate coordinate, double[] point, int offset) {
+        if (greatCircle) {
+            double lon = Math.toRadians(coordinate.getX());
+            double lat = Math.toRadians(coordinate.getY());
+            point[offset] = Math.cos(lat) * Math.cos(lon);
+            point[offset + 1] = Math.cos(lat) * Math.sin(lon);
+            point[offset + 2] = Math.sin(lat);
+        } else {
+            point[offset] = coordinate.getX();
+            point[offset + 1] = coordinate.getY();
+        }
+    }
+
+    private int build(int from, int to) {
+        int node = noNodes++;
+        nodeFrom[node] = from;
+        nodeTo[node] = to;
+        nodeLeft[node] = -1;
+        nodeRight[node] = -1;
+        int splitDimension = 0;
+        double widestSpread = -1.;
+        for (int d = 0; d < dimensions; d++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                double value = points[order[i] * dimensions + d];
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            nodeMin[node * dimensions + d] = min;
+            nodeMax[node * dimensions + d] = max;
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                splitDimension = d;
+            }
+        }
+        if (to - from > LEAF_SIZE) {
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, splitDimension);
+            int left = build(from, mid);
+            int right = build(mid, to);
+            nodeLeft[node] = left;
+            nodeRight[node] = right;
+        }
+        return node;
+    }
+
+    /**
+     * Partially sorts order[left..right] such that the point at position k is the one it would be at if sorted by the
+     * given dimension (quickselect).
+     */
+    private void select(int left, int right, int k, int dimension) {
+        while (right > left) {
+            double pivot = points[order[(left + right) >>> 1] * dimensions + dimension];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[order[i] * dimensions + dimension] < pivot) i++;
+                while (points[order[j] * dimensions + dimension] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    /**
+     * @return number of indexed coordinates
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the distance between the coordinates at positions i and j. It is the euclidean distance or the great
+     * circle distance in the distance unit of this index.
+     */
+    public double getDistance(int i, int j) {
+        return toDistance(squaredDistance(points, i * dimensions, j));
+    }
+
+    /**
+     * Returns the positions of the k coordinates that are nearest to the coordinate at the specified position, sorted
+     * by ascending distance. The coordinate itself is not part of its neighborhood.
+     *
+     * @param position position of the coordinate whose neighbors are requested
+     * @param k        number of neighbors
+     * @return positions of the nearest neighbors (at most k)
+     */
+    public int[] getNearestNeighbors(int position, int k) {
+        checkPosition(position);
+        return nearest(points, position * dimensions, k, position);
+    }
+
+    /**
+     * Returns the positions of the k coordinates that are nearest to the specified coordinate, sorted by ascending
+     * distance.
+     *
+     * @param coordinate the coordinate whose neighbors are requested
+     * @param k          number of neighbors
+     * @return positions of the nearest neighbors (at most k)
+     */
+    public int[] getNearestNeighbors(Coordinate coordinate, int k) {
+        double[] query = new double[dimensions];
+        toPoint(coordinate, query, 0);
+        return nearest(query, 0, k, -1);
+    }
+
+    /**
+     * Returns the positions of all coordinates whose distance to the coordinate at the specified position is lower
+     * than or equal to radius, sorted by ascending distance. The coordinate itself is not part of the result.
+     *
+     * @param position position of the coordinate whose neighbors are requested
+     * @param radius   max. distance
+     * @return positions of neighbors within the radius
+     */
+    public int[] getNeighborsWithinRadius(int position, double radius) {
+        checkPosition(position);
+        return withinRadius(points, position * dimensions, radius, position);
+    }
+
+    /**
+     * Returns the positions of all coordinates whose distance to the specified coordinate is lower than or equal to
+     * radius, sorted by ascending distance.
+     *
+     * @param coordinate the coordinate whose neighbors are requested
+     * @param radius     max. distance
+     * @return positions of neighbors within the radius
+     */
+    public int[] getNeighborsWithinRadius(Coordinate coordinate, double radius) {
+        double[] query = new double[dimensions];
+        toPoint(coordinate, query, 0);
+        return withinRadius(query, 0, radius, -1);
+    }
+
+    /**
+     * Returns the position of the coordinate that is farthest from the coordinate at the specified position.
+     *
+     * @param position position of the coordinate
+     * @return position of the farthest coordinate
+     */
+    public int getFarthest(int position) {
+        checkPosition(position);
+        double[] best = new double[]{-1., -1.};
+        farthest(0, points, position * dimensions, best);
+        return (int) best[1];
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size)
+            throw new IllegalArgumentException("position " + position + " is not within [0," + size + ")");
+    }
+
+    private int[] nearest(double[] query, int offset, int k, int exclude) {
+        int noCandidates = Math.min(k, exclude < 0 ? size : size - 1);
+        if (noCandidates <= 0) return new int[0];
+        Candidates candidates = new Candidates(noCandidates);
+        nearest(0, query, offset, exclude, candidates);
+        return candidates.toSortedArray();
+    }
+
+    private void nearest(int node, double[] query, int offset, int exclude, Candidates candidates) {
+        if (nodeLeft[node] < 0) {
+            for (int i = nodeFrom[node]; i < nodeTo[node]; i++) {
+                int position = order[i];
+                if (position == exclude) continue;
+                candidates.offer(squaredDistance(query, offset, position), position);
+            }
+            return;
+        }
+        int first = nodeLeft[node];
+        int second = nodeRight[node];
+        double firstDistance = minSquaredDistance(first, query, offset);
+        double secondDistance = minSquaredDistance(second, query, offset);
+        if (secondDistance < firstDistance) {
+            int tmpNode = first;
+            first = second;
+            second = tmpNode;
+            double tmpDistance = firstDistance;
+            firstDistance = secondDistance;
+            secondDistance = tmpDistance;
+        }
+        if (!candidates.isFull() || firstDistance <= candidates.worstDistance()) {
+            nearest(first, query, offset, exclude, candidates);
+        }
+        if (!candidates.isFull() || secondDistance <= candidates.worstDistance()) {
+            nearest(second, query, offset, exclude, candidates);
+        }
+    }
+
+    private int[] withinRadius(double[] query, int offset, double radius, int exclude) {
+        if (size == 0 || radius < 0) return new int[0];
+        double maxSquaredDistance;
+        if (greatCircle) {
+            double angle = Math.min(radius / earthRadius, Math.PI);
+            double chord = 2. * Math.sin(angle / 2.);
+            maxSquaredDistance = chord * chord;
+        } else maxSquaredDistance = radius * radius;
+        List<Integer> positions = new ArrayList<Integer>();
+        withinRadius(0, query, offset, maxSquaredDistance, exclude, positions);
+        final double[] distances = new double[size];
+        for (Integer position : positions) distances[position] = squaredDistance(query, offset, position);
+        Collections.sort(positions, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int result = Double.compare(distances[o1], distances[o2]);
+                if (result != 0) return result;
+                return o1.compareTo(o2);
+            }
+
+        });
+        int[] result = new int[positions.size()];
+        for (int i = 0; i < result.length; i++) result[i] = positions.get(i);
+        return result;
+    }
+
+    private void withinRadius(int node, double[] query, int offset, double maxSquaredDistance, int exclude, List<Integer> positions) {
+        if (minSquaredDistance(node, query, offset) > maxSquaredDistance) return;
+        if (nodeLeft[node] < 0) {
+            for (int i = nodeFrom[node]; i < nodeTo[node]; i++) {
+                int position = order[i];
+                if (position == exclude) continue;
+                if (squaredDistance(query, offset, position) <= maxSquaredDistance) positions.add(position);
+            }
+            return;
+        }
+        withinRadius(nodeLeft[node], query, offset, maxSquaredDistance, exclude, positions);
+        withinRadius(nodeRight[node], query, offset, maxSquaredDistance, exclude, positions);
+    }
+
+    /**
+     * best[0] is the squared distance of the farthest coordinate found so far, best[1] its position.
+     */
+    private void farthest(int node, double[] query, int offset, double[] best) {
+        if (maxSquaredDistance(node, query, offset) < best[0]) return;
+        if (nodeLeft[node] < 0) {
+            for (int i = nodeFrom[node]; i < nodeTo[node]; i++) {
+                int position = order[i];
+                double distance = squaredDistance(query, offset, position);
+                if (distance > best[0] || (distance == best[0] && position < best[1])) {
+                    best[0] = distance;
+                    best[1] = position;
+                }
+            }
+            return;
+        }
+        int first = nodeLeft[node];
+        int second = nodeRight[node];
+        if (maxSquaredDistance(second, query, offset) > maxSquaredDistance(first, query, offset)) {
+            first = second;
+            second = nodeLeft[node];
+        }
+        farthest(first, query, offset, best);
+        farthest(second, query, offset, best);
+    }
+
+    private double squaredDistance(double[] query, int offset, int position) {
+        double sum = 0.;
+        int pointOffset = position * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            double diff = query[offset + d] - points[pointOffset + d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private double minSquaredDistance(int node, double[] query, int offset) {
+        double sum = 0.;
+        for (int d = 0; d < dimensions; d++) {
+            double value = query[offset + d];
+            double diff = 0.;
+            if (value < nodeMin[node * dimensions + d]) diff = nodeMin[node * dimensions + d] - value;
+            else if (value > nodeMax[node * dimensions + d]) diff = value - nodeMax[node * dimensions + d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private double maxSquaredDistance(int node, double[] query, int offset) {
+        double sum = 0.;
+        for (int d = 0; d < dimensions; d++) {
+            double value = query[offset + d];
+            double diff = Math.max(Math.abs(value - nodeMin[node * dimensions + d]), Math.abs(value - nodeMax[node * dimensions + d]));
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private double toDistance(double squaredDistance) {
+        double distance = Math.sqrt(squaredDistance);
+        if (greatCircle) return 2. * earthRadius * Math.asin(Math.min(1., distance / 2.));
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=spatialIndex][size=" + size + "][greatCircle=" + greatCircle + "]";
+    }
+
+}
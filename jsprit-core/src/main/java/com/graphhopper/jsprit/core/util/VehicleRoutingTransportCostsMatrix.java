@@ -25,8 +25,7 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl.VehicleCostPa
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 
 /**
@@ -39,7 +38,7 @@ import java.util.Map;
  *
  * @author schroeder
  */
-public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts {
+public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts implements Fingerprintable {
     static class RelationKey {
 
         static RelationKey newKey(String from, String to) {
@@ -261,4 +260,33 @@ public class VehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRo
         return costParams.perDistanceUnit * getDistance(from.getId(), to.getId()) + costParams.perTransportTimeUnit * getTime(from.getId(), to.getId());
     }
 
+    /**
+     * Adds all distances and times sorted by relation, i.e. the fingerprint does not depend on the order in which
+     * relations were added.
+     */
+    @Override
+    public void addTo(Fingerprint fingerprint) {
+        fingerprint.add(getClass().getName()).add(isSymmetric).add(distancesSet).add(timesSet);
+        addTo(fingerprint, distances);
+        addTo(fingerprint, times);
+    }
+
+    private static void addTo(Fingerprint fingerprint, Map<RelationKey, Double> values) {
+        List<RelationKey> keys = new ArrayList<RelationKey>(values.keySet());
+        Collections.sort(keys, new Comparator<RelationKey>() {
+
+            @Override
+            public int compare(RelationKey o1, RelationKey o2) {
+                int result = o1.from.compareTo(o2.from);
+                if (result != 0) return result;
+                return o1.to.compareTo(o2.to);
+            }
+
+        });
+        fingerprint.add(keys.size());
+        for (RelationKey key : keys) {
+            fingerprint.add(key.from).add(key.to).add(values.get(key));
+        }
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveStrategyWeightsTest {
+
+    private SearchStrategyManager createManager(double... weights) {
+        SearchStrategyManager manager = new SearchStrategyManager();
+        for (int i = 0; i < weights.length; i++) {
+            SearchStrategy strategy = mock(SearchStrategy.class);
+            when(strategy.getId()).thenReturn("s" + i);
+            manager.addStrategy(strategy, weights[i]);
+        }
+        return manager;
+    }
+
+    @Test
+    public void strategyWithHigherScorePerSecondShouldGainWeight() {
+        SearchStrategyManager manager = createManager(1., 1.);
+        AdaptiveStrategyWeights adaptiveWeights = new AdaptiveStrategyWeights(manager);
+        adaptiveWeights.setSegmentLength(2);
+        adaptiveWeights.setReactionFactor(0.5);
+        // same score, but s1 takes ten times longer
+        adaptiveWeights.record("s0", 10., 0.1);
+        adaptiveWeights.record("s1", 10., 1.);
+        Assert.assertTrue(manager.getWeight("s0") > manager.getWeight("s1"));
+        Assert.assertEquals(2., manager.getWeight("s0") + manager.getWeight("s1"), 0.0001);
+    }
+
+    @Test
+    public void weightsShouldNotBeUpdatedBeforeSegmentEnds() {
+        SearchStrategyManager manager = createManager(1., 1.);
+        AdaptiveStrategyWeights adaptiveWeights = new AdaptiveStrategyWeights(manager);
+        adaptiveWeights.setSegmentLength(3);
+        adaptiveWeights.record("s0", 10., 0.1);
+        adaptiveWeights.record("s1", 0., 1.);
+        Assert.assertEquals(1., manager.getWeight("s0"), 0.);
+        Assert.assertEquals(1., manager.getWeight("s1"), 0.);
+    }
+
+    @Test
+    public void weightsShouldNotFallBelowMinShareAndSwitchedOffStrategiesShouldStayOff() {
+        SearchStrategyManager manager = createManager(1., 1., 0.);
+        AdaptiveStrategyWeights adaptiveWeights = new AdaptiveStrategyWeights(manager);
+        adaptiveWeights.setSegmentLength(3);
+        adaptiveWeights.setReactionFactor(1.);
+        adaptiveWeights.setMinWeightShare(0.1);
+        for (int i = 0; i < 10; i++) {
+            adaptiveWeights.record("s0", 10., 1.);
+            adaptiveWeights.record("s1", 0., 1.);
+            adaptiveWeights.record("s2", 10., 1.);
+        }
+        Assert.assertEquals(0.1, manager.getWeight("s1"), 0.0001);
+        Assert.assertEquals(0., manager.getWeight("s2"), 0.);
+    }
+
+    @Test
+    public void jspritWithAdaptiveWeightsShouldAssignAllJobs() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(5);
+        for (int i = 0; i < 40; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(50, 50)).build());
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrpBuilder.build())
+            .setProperty(Jsprit.Parameter.ADAPTIVE_WEIGHTS, "true")
+            .setProperty(Jsprit.Parameter.ADAPTIVE_WEIGHTS_SEGMENT, "10")
+            .buildAlgorithm();
+        vra.setMaxIterations(100);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+    }
+
+}
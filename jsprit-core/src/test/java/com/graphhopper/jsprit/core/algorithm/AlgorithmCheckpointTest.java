@@ -0,0 +1,211 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.listener.AlgorithmStartsListener;
+import com.graphhopper.jsprit.core.algorithm.listener.StrategySelectedListener;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class AlgorithmCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(3);
+        for (int i = 0; i < 30; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        for (int i = 0; i < 5; i++) {
+            vrpBuilder.addJob(Shipment.Builder.newInstance("p" + i).addSizeDimension(0, 1)
+                .setPickupLocation(Location.newInstance(random.nextInt(100), random.nextInt(100)))
+                .setDeliveryLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(50, 50))
+            .setType(VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 8).build()).build());
+        return vrpBuilder.build();
+    }
+
+    private VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp) {
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp).setRandom(new Random(11)).buildAlgorithm();
+        vra.setMaxIterations(60);
+        return vra;
+    }
+
+    private List<String> toString(VehicleRoutingProblemSolution solution) {
+        List<String> routes = new ArrayList<String>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            StringBuilder b = new StringBuilder();
+            for (TourActivity act : route.getActivities()) {
+                b.append(((TourActivity.JobActivity) act).getJob().getId()).append(" ");
+            }
+            routes.add(b.toString());
+        }
+        Collections.sort(routes);
+        return routes;
+    }
+
+    private List<String> recordDiscoveredSolutions(VehicleRoutingAlgorithm vra) {
+        final List<String> record = new ArrayList<String>();
+        vra.addListener(new StrategySelectedListener() {
+
+            @Override
+            public void informSelectedStrategy(SearchStrategy.DiscoveredSolution discoveredSolution, VehicleRoutingProblem vehicleRoutingProblem, Collection<VehicleRoutingProblemSolution> vehicleRoutingProblemSolutions) {
+                record.add(discoveredSolution.getStrategyId() + " " + discoveredSolution.getSolution().getCost() + " " + discoveredSolution.isAccepted());
+            }
+
+        });
+        return record;
+    }
+
+    @Test
+    public void resumedSearchShouldContinueExactlyLikeUninterruptedSearch() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingAlgorithm vra = createAlgorithm(vrp);
+        List<String> uninterruptedRecord = recordDiscoveredSolutions(vra);
+        VehicleRoutingProblemSolution uninterrupted = Solutions.bestOf(vra.searchSolutions());
+
+        File file = new File(folder.getRoot(), "search.checkpoint");
+        VehicleRoutingAlgorithm killed = createAlgorithm(vrp);
+        killed.setCheckpoint(file, 10);
+        killed.addTerminationCriterion(new PrematureAlgorithmTermination() {
+
+            private int iteration = 0;
+
+            @Override
+            public boolean isPrematureBreak(SearchStrategy.DiscoveredSolution discoveredSolution) {
+                // stops in iteration 36, i.e. the last checkpoint is the one after 30 iterations
+                return ++iteration == 36;
+            }
+
+        });
+        killed.searchSolutions();
+        Assert.assertTrue(file.exists());
+
+        VehicleRoutingAlgorithm resumed = createAlgorithm(vrp);
+        List<String> resumedRecord = recordDiscoveredSolutions(resumed);
+        resumed.resumeFrom(file);
+        VehicleRoutingProblemSolution best = Solutions.bestOf(resumed.searchSolutions());
+        Assert.assertEquals(uninterruptedRecord.subList(30, 60), resumedRecord);
+        Assert.assertEquals(uninterrupted.getCost(), best.getCost(), 0.);
+        Assert.assertEquals(toString(uninterrupted), toString(best));
+    }
+
+    @Test
+    public void checkpointShouldContainSolutionsAndIteration() throws Exception {
+        VehicleRoutingProblem vrp = createProblem();
+        File file = new File(folder.getRoot(), "search.checkpoint");
+        VehicleRoutingAlgorithm vra = createAlgorithm(vrp);
+        vra.setMaxIterations(20);
+        vra.setCheckpoint(file, 20);
+        VehicleRoutingProblemSolution best = Solutions.bestOf(vra.searchSolutions());
+        AlgorithmCheckpoint checkpoint = AlgorithmCheckpoint.read(file, vrp);
+        Assert.assertEquals(20, checkpoint.getIteration());
+        Assert.assertEquals(best.getCost(), checkpoint.getBestEver().getCost(), 0.);
+        Assert.assertEquals(toString(best), toString(checkpoint.getBestEver()));
+        Assert.assertFalse(checkpoint.getSolutions().isEmpty());
+    }
+
+    @Test
+    public void whenProblemHasInitialRoutes_resumeShouldFindTheirJobs() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 10; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(10 * i, 5)).build());
+        }
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(50, 50)).build();
+        Service initialJob = Service.Builder.newInstance("i").setLocation(Location.newInstance(20, 20)).build();
+        vrpBuilder.addJob(initialJob).addInitialVehicleRoute(VehicleRoute.Builder.newInstance(vehicle).addService(initialJob).build());
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        File file = new File(folder.getRoot(), "search.checkpoint");
+        VehicleRoutingAlgorithm vra = createAlgorithm(vrp);
+        vra.setMaxIterations(10);
+        vra.setCheckpoint(file, 10);
+        vra.searchSolutions();
+
+        VehicleRoutingAlgorithm resumed = createAlgorithm(vrp);
+        resumed.resumeFrom(file);
+        VehicleRoutingProblemSolution best = Solutions.bestOf(resumed.searchSolutions());
+        Assert.assertTrue(best.getUnassignedJobs().isEmpty());
+        Assert.assertTrue(toString(best).get(0).contains("i "));
+    }
+
+    @Test
+    public void whenResuming_algorithmStartsListenersShouldKnow() {
+        VehicleRoutingProblem vrp = createProblem();
+        File file = new File(folder.getRoot(), "search.checkpoint");
+        VehicleRoutingAlgorithm vra = createAlgorithm(vrp);
+        vra.setMaxIterations(5);
+        vra.setCheckpoint(file, 5);
+        vra.searchSolutions();
+
+        VehicleRoutingAlgorithm resumed = createAlgorithm(vrp);
+        final List<Boolean> resuming = new ArrayList<Boolean>();
+        resumed.addListener(new AlgorithmStartsListener() {
+
+            @Override
+            public void informAlgorithmStarts(VehicleRoutingProblem problem, VehicleRoutingAlgorithm algorithm, Collection<VehicleRoutingProblemSolution> solutions) {
+                resuming.add(algorithm.isResuming());
+            }
+
+        });
+        resumed.resumeFrom(file);
+        resumed.searchSolutions();
+        Assert.assertEquals(Collections.singletonList(true), resuming);
+        Assert.assertFalse(resumed.isResuming());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenProblemDiffers_resumeShouldFail() {
+        VehicleRoutingProblem vrp = createProblem();
+        File file = new File(folder.getRoot(), "search.checkpoint");
+        VehicleRoutingAlgorithm vra = createAlgorithm(vrp);
+        vra.setMaxIterations(5);
+        vra.setCheckpoint(file, 5);
+        vra.searchSolutions();
+        VehicleRoutingProblem other = VehicleRoutingProblem.Builder.newInstance()
+            .addJob(Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 1)).build())
+            .addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build()).build();
+        createAlgorithm(other).resumeFrom(file);
+    }
+
+}
@@ -20,16 +20,24 @@ package com.graphhopper.jsprit.core.algorithm;
 import com.graphhopper.jsprit.core.algorithm.acceptor.SolutionAcceptor;
 import com.graphhopper.jsprit.core.algorithm.listener.SearchStrategyModuleListener;
 import com.graphhopper.jsprit.core.algorithm.selector.SolutionSelector;
+import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -231,5 +239,43 @@ public class SearchStrategyTest {
         assertEquals(runs.size(), N);
     }
 
+    @Test
+    public void whenModuleModifiesRoutes_selectedSolutionShouldNotChange() {
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 1)).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        final VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).addService(service).build();
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(Arrays.asList(route)), 10.);
+        final TourActivity activity = route.getActivities().get(0);
+
+        SolutionSelector select = mock(SolutionSelector.class);
+        when(select.selectSolution(null)).thenReturn(solution);
+        SearchStrategy strat = new SearchStrategy("strat", select, mock(SolutionAcceptor.class), mock(SolutionCostCalculator.class));
+        strat.addModule(new SearchStrategyModule() {
+
+            @Override
+            public VehicleRoutingProblemSolution runAndGetSolution(VehicleRoutingProblemSolution vrpSolution) {
+                VehicleRoute copiedRoute = vrpSolution.getRoutes().iterator().next();
+                assertSame(activity, copiedRoute.getActivities().get(0));
+                copiedRoute.getTourActivities().removeActivity(copiedRoute.getActivities().get(0));
+                return vrpSolution;
+            }
+
+            @Override
+            public String getName() {
+                return "remove";
+            }
+
+            @Override
+            public void addModuleListener(SearchStrategyModuleListener moduleListener) {
+
+            }
+
+        });
+        VehicleRoutingProblemSolution newSolution = strat.run(mock(VehicleRoutingProblem.class), null).getSolution();
+
+        assertTrue(newSolution.getRoutes().iterator().next().isEmpty());
+        assertEquals(1, route.getActivities().size());
+        assertSame(activity, route.getActivities().get(0));
+    }
 
 }
@@ -0,0 +1,173 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class DecompositionSearchTest {
+
+    private VehicleRoutingProblem createProblem(VehicleRoutingProblem.FleetSize fleetSize) {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setFleetSize(fleetSize);
+        Random random = new Random(23);
+        for (int i = 0; i < 120; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(200), random.nextInt(200))).build());
+        }
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 10).build();
+        int noVehicles = fleetSize.equals(VehicleRoutingProblem.FleetSize.FINITE) ? 15 : 1;
+        for (int i = 0; i < noVehicles; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v" + i).setStartLocation(Location.newInstance(100, 100)).setType(type).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    private VehicleRoutingProblemSolution construct(VehicleRoutingProblem vrp) {
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp).setRandom(new Random(1)).buildAlgorithm();
+        vra.setMaxIterations(0);
+        return Solutions.bestOf(vra.searchSolutions());
+    }
+
+    private double distance(VehicleRoutingProblem vrp, VehicleRoutingProblemSolution solution) {
+        double distance = 0.;
+        for (VehicleRoute route : solution.getRoutes()) {
+            Location prev = route.getStart().getLocation();
+            for (TourActivity act : route.getActivities()) {
+                distance += vrp.getTransportCosts().getTransportCost(prev, act.getLocation(), 0., null, route.getVehicle());
+                prev = act.getLocation();
+            }
+            distance += vrp.getTransportCosts().getTransportCost(prev, route.getEnd().getLocation(), 0., null, route.getVehicle());
+        }
+        return distance;
+    }
+
+    private List<String> toString(VehicleRoutingProblemSolution solution) {
+        List<String> routes = new ArrayList<String>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            StringBuilder b = new StringBuilder(route.getVehicle().getId()).append(": ");
+            for (TourActivity act : route.getActivities()) {
+                b.append(((TourActivity.JobActivity) act).getJob().getId()).append(" ");
+            }
+            routes.add(b.toString());
+        }
+        Collections.sort(routes);
+        return routes;
+    }
+
+    private void assertValid(VehicleRoutingProblem vrp, VehicleRoutingProblemSolution solution) {
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+        Set<Job> served = new HashSet<Job>();
+        Set<Vehicle> vehicles = new HashSet<Vehicle>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            Assert.assertTrue(route.getTourActivities().getJobs().size() <= 10);
+            if (vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE)) Assert.assertTrue(vehicles.add(route.getVehicle()));
+            for (TourActivity act : route.getActivities()) {
+                Job job = ((TourActivity.JobActivity) act).getJob();
+                Assert.assertTrue(served.add(job));
+                Assert.assertEquals(vrp.getActivities(job).get(0).getIndex(), act.getIndex());
+            }
+        }
+        Assert.assertEquals(vrp.getJobs().size(), served.size());
+    }
+
+    @Test
+    public void decompositionShouldServeAllJobsAndNotIncreaseDistance() {
+        VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        VehicleRoutingProblemSolution initial = construct(vrp);
+        Map<Job, Integer> jobIndices = new HashMap<Job, Integer>();
+        for (Job job : vrp.getJobs().values()) jobIndices.put(job, job.getIndex());
+        Map<Vehicle, Integer> vehicleIndices = new HashMap<Vehicle, Integer>();
+        for (Vehicle vehicle : vrp.getVehicles()) vehicleIndices.put(vehicle, vehicle.getIndex());
+
+        DecompositionSearch search = DecompositionSearch.Builder.newInstance(vrp).setNoThreads(2)
+            .setRoutesPerSubProblem(3).setSubProblemIterations(30).build();
+        search.setMaxIterations(3);
+        search.addInitialSolution(initial);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(search.searchSolutions());
+
+        assertValid(vrp, solution);
+        Assert.assertTrue(distance(vrp, solution) < distance(vrp, initial));
+        Assert.assertTrue(search.getNoSubProblems() >= 3 * 4);
+        for (Job job : vrp.getJobs().values()) Assert.assertEquals(jobIndices.get(job).intValue(), job.getIndex());
+        for (Vehicle vehicle : vrp.getVehicles()) Assert.assertEquals(vehicleIndices.get(vehicle).intValue(), vehicle.getIndex());
+    }
+
+    @Test
+    public void decompositionShouldWorkWithInfiniteFleet() {
+        VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.INFINITE);
+        DecompositionSearch search = DecompositionSearch.Builder.newInstance(vrp).setNoThreads(2)
+            .setRoutesPerSubProblem(4).setSubProblemIterations(20).build();
+        search.setMaxIterations(2);
+        assertValid(vrp, Solutions.bestOf(search.searchSolutions()));
+    }
+
+    @Test
+    public void costsShouldBeTheOnesOfTheWholeProblem() {
+        final VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        DecompositionSearch search = DecompositionSearch.Builder.newInstance(vrp).setNoThreads(2)
+            .setRoutesPerSubProblem(4).setSubProblemIterations(20).setObjectiveFunction(new SolutionCostCalculator() {
+
+                @Override
+                public double getCosts(VehicleRoutingProblemSolution solution) {
+                    return distance(vrp, solution) + 1000. * solution.getUnassignedJobs().size();
+                }
+
+            }).build();
+        search.setMaxIterations(2);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(search.searchSolutions());
+        Assert.assertEquals(distance(vrp, solution) + 1000. * solution.getUnassignedJobs().size(), solution.getCost(), 0.001);
+    }
+
+    @Test
+    public void resultShouldNotDependOnNumberOfThreads() {
+        VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.FINITE);
+        List<String> routes = null;
+        for (int noThreads = 1; noThreads <= 3; noThreads += 2) {
+            DecompositionSearch search = DecompositionSearch.Builder.newInstance(vrp).setNoThreads(noThreads)
+                .setRoutesPerSubProblem(3).setSubProblemIterations(20).setSeed(7).build();
+            search.setMaxIterations(2);
+            search.addInitialSolution(construct(vrp));
+            List<String> current = toString(Solutions.bestOf(search.searchSolutions()));
+            if (routes != null) Assert.assertEquals(routes, current);
+            routes = current;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenProblemIsDynamic_itShouldThrowException() {
+        DecompositionSearch.Builder.newInstance(VehicleRoutingProblem.Builder.newInstance().setDynamic(true).build()).build();
+    }
+
+}
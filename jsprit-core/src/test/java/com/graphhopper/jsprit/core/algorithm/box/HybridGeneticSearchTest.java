@@ -0,0 +1,153 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class HybridGeneticSearchTest {
+
+    private VehicleRoutingProblem createProblem(VehicleRoutingProblem.FleetSize fleetSize, boolean withShipments) {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setFleetSize(fleetSize);
+        Random random = new Random(23);
+        for (int i = 0; i < 40; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(200), random.nextInt(200))).build());
+        }
+        if (withShipments) {
+            for (int i = 0; i < 6; i++) {
+                vrpBuilder.addJob(Shipment.Builder.newInstance("p" + i).addSizeDimension(0, 1)
+                    .setPickupLocation(Location.newInstance(random.nextInt(200), random.nextInt(200)))
+                    .setDeliveryLocation(Location.newInstance(random.nextInt(200), random.nextInt(200))).build());
+            }
+        }
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 10).build();
+        int noVehicles = fleetSize.equals(VehicleRoutingProblem.FleetSize.FINITE) ? 8 : 1;
+        for (int i = 0; i < noVehicles; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v" + i).setStartLocation(Location.newInstance(100, 100)).setType(type).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    private HybridGeneticSearch createSearch(VehicleRoutingProblem vrp, int noThreads) {
+        HybridGeneticSearch search = HybridGeneticSearch.Builder.newInstance(vrp).setNoThreads(noThreads)
+            .setPopulationSize(6).setGenerationSize(6).setOffspringPerIteration(4).setSeed(7).build();
+        search.setMaxIterations(4);
+        return search;
+    }
+
+    private double distance(VehicleRoutingProblem vrp, VehicleRoutingProblemSolution solution) {
+        double distance = 0.;
+        for (VehicleRoute route : solution.getRoutes()) {
+            Location prev = route.getStart().getLocation();
+            for (TourActivity act : route.getActivities()) {
+                distance += vrp.getTransportCosts().getTransportCost(prev, act.getLocation(), 0., null, route.getVehicle());
+                prev = act.getLocation();
+            }
+            distance += vrp.getTransportCosts().getTransportCost(prev, route.getEnd().getLocation(), 0., null, route.getVehicle());
+        }
+        return distance;
+    }
+
+    private List<String> toString(VehicleRoutingProblemSolution solution) {
+        List<String> routes = new ArrayList<String>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            StringBuilder b = new StringBuilder(route.getVehicle().getId()).append(": ");
+            for (TourActivity act : route.getActivities()) {
+                b.append(((TourActivity.JobActivity) act).getJob().getId()).append(" ");
+            }
+            routes.add(b.toString());
+        }
+        Collections.sort(routes);
+        return routes;
+    }
+
+    private void assertValid(VehicleRoutingProblem vrp, VehicleRoutingProblemSolution solution) {
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+        Set<Job> served = new HashSet<Job>();
+        Set<Vehicle> vehicles = new HashSet<Vehicle>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            if (vrp.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE)) Assert.assertTrue(vehicles.add(route.getVehicle()));
+            int noServices = 0;
+            for (Job job : route.getTourActivities().getJobs()) {
+                if (job instanceof Service) noServices++;
+                Assert.assertTrue(served.add(job));
+            }
+            Assert.assertTrue(noServices <= 10);
+        }
+        Assert.assertEquals(vrp.getJobs().size(), served.size());
+    }
+
+    @Test
+    public void searchShouldServeAllJobsAndImproveConstruction() {
+        VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.FINITE, false);
+        VehicleRoutingAlgorithm construction = Jsprit.Builder.newInstance(vrp).setRandom(new Random(1)).buildAlgorithm();
+        construction.setMaxIterations(0);
+        VehicleRoutingProblemSolution initial = Solutions.bestOf(construction.searchSolutions());
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(createSearch(vrp, 2).searchSolutions());
+        assertValid(vrp, solution);
+        Assert.assertTrue(distance(vrp, solution) < distance(vrp, initial));
+        Assert.assertEquals(distance(vrp, solution), solution.getCost(), 0.01);
+    }
+
+    @Test
+    public void searchShouldWorkWithInfiniteFleet() {
+        VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.INFINITE, false);
+        assertValid(vrp, Solutions.bestOf(createSearch(vrp, 2).searchSolutions()));
+    }
+
+    @Test
+    public void searchShouldWorkWithShipments() {
+        VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.FINITE, true);
+        assertValid(vrp, Solutions.bestOf(createSearch(vrp, 2).searchSolutions()));
+    }
+
+    @Test
+    public void resultShouldNotDependOnNumberOfThreads() {
+        VehicleRoutingProblem vrp = createProblem(VehicleRoutingProblem.FleetSize.FINITE, false);
+        List<String> routes = null;
+        for (int noThreads = 1; noThreads <= 3; noThreads += 2) {
+            List<String> current = toString(Solutions.bestOf(createSearch(vrp, noThreads).searchSolutions()));
+            if (routes != null) Assert.assertEquals(routes, current);
+            routes = current;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenProblemIsDynamic_itShouldThrowException() {
+        HybridGeneticSearch.Builder.newInstance(VehicleRoutingProblem.Builder.newInstance().setDynamic(true).build()).build();
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.acceptor.SolutionAcceptor;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Random;
+
+public class IslandModelTest {
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(50, 50))
+            .setType(VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 8).build()).build());
+        return vrpBuilder.build();
+    }
+
+    @Test
+    public void islandsShouldReturnSolutionsOfAllIslands() {
+        VehicleRoutingProblem vrp = createProblem();
+        IslandModel islandModel = IslandModel.Builder.newInstance(vrp).setNoIslands(3).setMigrationInterval(10).build();
+        Assert.assertEquals(3, islandModel.getIslands().size());
+        islandModel.setMaxIterations(100);
+        Collection<VehicleRoutingProblemSolution> solutions = islandModel.searchSolutions();
+        Assert.assertTrue(solutions.size() >= 3);
+        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+        Assert.assertTrue(best.getUnassignedJobs().isEmpty());
+        for (Job job : vrp.getJobs().values()) {
+            int count = 0;
+            for (VehicleRoute route : best.getRoutes()) if (route.getTourActivities().servesJob(job)) count++;
+            Assert.assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void islandThatCannotImproveShouldAdoptSolutionOfOtherIsland() {
+        VehicleRoutingProblem vrp = createProblem();
+        IslandModel islandModel = IslandModel.Builder.newInstance(vrp).setNoIslands(2).setMigrationInterval(1)
+            .setIslandFactory(new IslandModel.IslandFactory() {
+
+                private int island = 0;
+
+                @Override
+                public VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, Random random) {
+                    Jsprit.Builder builder = Jsprit.Builder.newInstance(vrp).setRandom(random);
+                    if (island++ == 0) {
+                        builder.setProperty(Jsprit.Parameter.ITERATIONS, "50");
+                    } else {
+                        // the second island never accepts anything
+                        builder.setProperty(Jsprit.Parameter.ITERATIONS, "2000");
+                        builder.setCustomAcceptor(new SolutionAcceptor() {
+
+                            @Override
+                            public boolean acceptSolution(Collection<VehicleRoutingProblemSolution> solutions, VehicleRoutingProblemSolution newSolution) {
+                                return false;
+                            }
+
+                        });
+                    }
+                    return builder.buildAlgorithm();
+                }
+
+            }).build();
+        islandModel.searchSolutions();
+        Assert.assertTrue(islandModel.getNoAdoptions() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNoIslandsIsZero_itShouldThrowException() {
+        IslandModel.Builder.newInstance(createProblem()).setNoIslands(0);
+    }
+
+}
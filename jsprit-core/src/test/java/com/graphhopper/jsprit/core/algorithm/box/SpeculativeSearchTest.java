@@ -0,0 +1,120 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
+import com.graphhopper.jsprit.core.algorithm.termination.PrematureAlgorithmTermination;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class SpeculativeSearchTest {
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(13);
+        for (int i = 0; i < 40; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(50, 50))
+            .setType(VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 8).build()).build());
+        return vrpBuilder.build();
+    }
+
+    private List<String> toString(VehicleRoutingProblemSolution solution) {
+        List<String> routes = new ArrayList<String>();
+        for (VehicleRoute route : solution.getRoutes()) {
+            StringBuilder b = new StringBuilder();
+            for (TourActivity act : route.getActivities()) {
+                b.append(((TourActivity.JobActivity) act).getJob().getId()).append(" ");
+            }
+            routes.add(b.toString());
+        }
+        Collections.sort(routes);
+        return routes;
+    }
+
+    private VehicleRoutingProblemSolution search(VehicleRoutingProblem vrp, int noWorkers) {
+        SpeculativeSearch search = SpeculativeSearch.Builder.newInstance(vrp).setNoWorkers(noWorkers).setSeed(42).build();
+        search.setMaxIterations(120);
+        return Solutions.bestOf(search.searchSolutions());
+    }
+
+    @Test
+    public void bestSolutionShouldServeAllJobsOnce() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingProblemSolution best = search(vrp, 3);
+        Assert.assertTrue(best.getUnassignedJobs().isEmpty());
+        for (Job job : vrp.getJobs().values()) {
+            int count = 0;
+            for (VehicleRoute route : best.getRoutes()) if (route.getTourActivities().servesJob(job)) count++;
+            Assert.assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void runsWithSameSeedAndNoWorkersShouldYieldSameSolution() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingProblemSolution first = search(vrp, 4);
+        VehicleRoutingProblemSolution second = search(vrp, 4);
+        Assert.assertEquals(first.getCost(), second.getCost(), 0.);
+        Assert.assertEquals(toString(first), toString(second));
+    }
+
+    @Test
+    public void itShouldCommitMaxIterations() {
+        VehicleRoutingProblem vrp = createProblem();
+        SpeculativeSearch search = SpeculativeSearch.Builder.newInstance(vrp).setNoWorkers(4).build();
+        search.setMaxIterations(30);
+        final int[] commits = {0};
+        search.addTerminationCriterion(new PrematureAlgorithmTermination() {
+
+            @Override
+            public boolean isPrematureBreak(SearchStrategy.DiscoveredSolution discoveredSolution) {
+                commits[0]++;
+                return false;
+            }
+
+        });
+        search.searchSolutions();
+        Assert.assertEquals(30, commits[0]);
+        Assert.assertEquals(8, search.getWorkers().get(0).getMaxIterations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNoWorkersIsZero_itShouldThrowException() {
+        SpeculativeSearch.Builder.newInstance(createProblem()).setNoWorkers(0);
+    }
+
+}
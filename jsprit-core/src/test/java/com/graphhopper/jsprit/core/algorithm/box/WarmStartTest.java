@@ -0,0 +1,202 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.box;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class WarmStartTest {
+
+    private final VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 12).build();
+
+    private VehicleImpl vehicle(String id) {
+        return VehicleImpl.Builder.newInstance(id).setStartLocation(Location.newInstance(50, 50)).setType(type).build();
+    }
+
+    private Service service(String id, Random random) {
+        return Service.Builder.newInstance(id).addSizeDimension(0, 1)
+            .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build();
+    }
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        Random random = new Random(17);
+        for (int i = 0; i < 36; i++) vrpBuilder.addJob(service("s" + i, random));
+        vrpBuilder.addJob(Shipment.Builder.newInstance("sh").addSizeDimension(0, 1)
+            .setPickupLocation(Location.newInstance(10, 10)).setDeliveryLocation(Location.newInstance(90, 90)).build());
+        for (int i = 0; i < 5; i++) vrpBuilder.addVehicle(vehicle("v" + i));
+        return vrpBuilder.build();
+    }
+
+    private VehicleRoutingProblemSolution solve(VehicleRoutingProblem vrp) {
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp).setProperty(Jsprit.Parameter.ITERATIONS, "100").buildAlgorithm();
+        return Solutions.bestOf(vra.searchSolutions());
+    }
+
+    private List<String> sequence(VehicleRoute route) {
+        List<String> ids = new ArrayList<String>();
+        for (TourActivity act : route.getActivities()) {
+            ids.add(((TourActivity.JobActivity) act).getJob().getId() + ":" + act.getName());
+        }
+        return ids;
+    }
+
+    private VehicleRoute routeOf(VehicleRoutingProblemSolution solution, String jobId) {
+        for (VehicleRoute route : solution.getRoutes()) {
+            for (Job job : route.getTourActivities().getJobs()) {
+                if (job.getId().equals(jobId)) return route;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void applyShouldShareCostsAndUnchangedJobsAndVehicles() {
+        VehicleRoutingProblem vrp = createProblem();
+        Job s0 = vrp.getJobs().get("s0");
+        Service modified = Service.Builder.newInstance("s1").addSizeDimension(0, 1).setLocation(Location.newInstance(0, 0)).build();
+        WarmStart.Delta delta = WarmStart.Delta.Builder.newInstance().addJob(service("new", new Random(1)))
+            .removeJob("s2").modifyJob(modified).removeVehicle("v4").addVehicle(vehicle("v5")).build();
+        VehicleRoutingProblem changed = WarmStart.apply(vrp, delta);
+        Assert.assertSame(vrp.getTransportCosts(), changed.getTransportCosts());
+        Assert.assertSame(vrp.getActivityCosts(), changed.getActivityCosts());
+        Assert.assertEquals(VehicleRoutingProblem.FleetSize.FINITE, changed.getFleetSize());
+        Assert.assertEquals(vrp.getJobs().size(), changed.getJobs().size());
+        Assert.assertSame(s0, changed.getJobs().get("s0"));
+        Assert.assertSame(modified, changed.getJobs().get("s1"));
+        Assert.assertFalse(changed.getJobs().containsKey("s2"));
+        Assert.assertTrue(changed.getJobs().containsKey("new"));
+        Assert.assertEquals(5, changed.getVehicles().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenRemovingUnknownJob_itShouldThrowException() {
+        WarmStart.apply(createProblem(), WarmStart.Delta.Builder.newInstance().removeJob("unknown").build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenChangingJobTwice_itShouldThrowException() {
+        WarmStart.Delta.Builder.newInstance().removeJob("s0").removeJob("s0");
+    }
+
+    @Test
+    public void repairShouldKeepRoutesAndUnassignChangedJobs() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingProblemSolution solution = solve(vrp);
+        VehicleRoute shipmentRoute = routeOf(solution, "sh");
+        String removedVehicle = null;
+        for (VehicleRoute route : solution.getRoutes()) {
+            if (route != shipmentRoute) removedVehicle = route.getVehicle().getId();
+        }
+        List<String> expectedShipmentSequence = sequence(shipmentRoute);
+        String removedJob = null;
+        for (Job job : shipmentRoute.getTourActivities().getJobs()) {
+            if (!job.getId().equals("sh")) removedJob = job.getId();
+        }
+        expectedShipmentSequence.remove(removedJob + ":service");
+
+        Service added = service("new", new Random(3));
+        WarmStart warmStart = WarmStart.Builder.newInstance(vrp, solution).setDelta(WarmStart.Delta.Builder.newInstance()
+            .addJob(added).removeJob(removedJob).removeVehicle(removedVehicle).build()).build();
+        VehicleRoutingProblemSolution initial = warmStart.getInitialSolution();
+
+        Assert.assertEquals(Double.MAX_VALUE, initial.getCost(), 0.);
+        Assert.assertEquals(solution.getRoutes().size() - 1, initial.getRoutes().size());
+        VehicleRoute mapped = routeOf(initial, "sh");
+        Assert.assertEquals(shipmentRoute.getVehicle().getId(), mapped.getVehicle().getId());
+        Assert.assertEquals(expectedShipmentSequence, sequence(mapped));
+        Assert.assertTrue(initial.getUnassignedJobs().contains(added));
+        int noJobs = initial.getUnassignedJobs().size();
+        for (VehicleRoute route : initial.getRoutes()) {
+            Assert.assertNotEquals(removedVehicle, route.getVehicle().getId());
+            noJobs += route.getTourActivities().getJobs().size();
+            for (TourActivity act : route.getActivities()) Assert.assertTrue(act.getIndex() > 0);
+        }
+        Assert.assertEquals(warmStart.getProblem().getJobs().size(), noJobs);
+    }
+
+    @Test
+    public void warmStartShouldServeAllJobsOfChangedProblem() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingProblemSolution solution = solve(vrp);
+        Service modified = Service.Builder.newInstance("s5").addSizeDimension(0, 1).setLocation(Location.newInstance(1, 99)).build();
+        WarmStart warmStart = WarmStart.Builder.newInstance(vrp, solution).setIterations(0).setDelta(WarmStart.Delta.Builder.newInstance()
+            .addJob(service("new1", new Random(5))).addJob(service("new2", new Random(7)))
+            .removeJob("s3").modifyJob(modified).build()).build();
+
+        VehicleRoutingProblemSolution repaired = Solutions.bestOf(warmStart.createAlgorithm().searchSolutions());
+
+        VehicleRoutingProblem changed = warmStart.getProblem();
+        Assert.assertTrue(repaired.getUnassignedJobs().isEmpty());
+        Assert.assertTrue(repaired.getCost() < Double.MAX_VALUE);
+        for (Job job : changed.getJobs().values()) {
+            int count = 0;
+            for (VehicleRoute route : repaired.getRoutes()) {
+                for (Job j : route.getTourActivities().getJobs()) if (j == job) count++;
+            }
+            Assert.assertEquals(1, count);
+        }
+        Assert.assertEquals(Double.MAX_VALUE, warmStart.getInitialSolution().getCost(), 0.);
+    }
+
+
+    @Test
+    public void warmStartShouldRepairSolutionOfDynamicProblemChangedInPlace() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setDynamic(true)
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        Random random = new Random(19);
+        for (int i = 0; i < 30; i++) vrpBuilder.addJob(service("s" + i, random));
+        for (int i = 0; i < 4; i++) vrpBuilder.addVehicle(vehicle("v" + i));
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        VehicleRoutingProblemSolution solution = solve(vrp);
+
+        Job removed = vrp.removeJob("s0");
+        vrp.addJob(service("new", random));
+        vrp.removeVehicle(solution.getRoutes().iterator().next().getVehicle().getId());
+        WarmStart warmStart = WarmStart.Builder.newInstance(vrp, solution).setProblem(vrp).setIterations(10).build();
+        VehicleRoutingProblemSolution repaired = Solutions.bestOf(warmStart.createAlgorithm().searchSolutions());
+
+        Assert.assertTrue(repaired.getUnassignedJobs().isEmpty());
+        Assert.assertEquals(3, repaired.getRoutes().size());
+        int noJobs = 0;
+        for (VehicleRoute route : repaired.getRoutes()) {
+            Assert.assertFalse(route.getTourActivities().servesJob(removed));
+            noJobs += route.getTourActivities().getJobs().size();
+        }
+        Assert.assertEquals(30, noJobs);
+    }
+}
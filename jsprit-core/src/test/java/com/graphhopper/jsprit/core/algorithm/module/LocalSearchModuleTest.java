@@ -0,0 +1,209 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.module;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.analysis.SolutionAnalyser;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.TransportDistance;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class LocalSearchModuleTest {
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 5).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        Random random = new Random(11);
+        for (int i = 0; i < 20; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        for (int i = 0; i < 5; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v" + i).setType(type).setStartLocation(Location.newInstance(50, 50)).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    /**
+     * Assigns jobs round robin to the vehicles, i.e. creates a feasible but poor solution.
+     */
+    private VehicleRoutingProblemSolution createSolution(VehicleRoutingProblem vrp) {
+        List<VehicleRoute.Builder> builders = new ArrayList<VehicleRoute.Builder>();
+        for (Vehicle vehicle : vrp.getVehicles()) {
+            builders.add(VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory()));
+        }
+        for (int i = 0; i < 20; i++) {
+            builders.get(i % 5).addService((Service) vrp.getJobs().get("s" + i));
+        }
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (VehicleRoute.Builder builder : builders) routes.add(builder.build());
+        return new VehicleRoutingProblemSolution(routes, Double.MAX_VALUE);
+    }
+
+    private double distance(VehicleRoutingProblem vrp, VehicleRoutingProblemSolution solution) {
+        double distance = 0.;
+        for (VehicleRoute route : solution.getRoutes()) {
+            Location prev = route.getStart().getLocation();
+            for (TourActivity act : route.getActivities()) {
+                distance += vrp.getTransportCosts().getTransportCost(prev, act.getLocation(), 0., null, route.getVehicle());
+                prev = act.getLocation();
+            }
+            distance += vrp.getTransportCosts().getTransportCost(prev, route.getEnd().getLocation(), 0., null, route.getVehicle());
+        }
+        return distance;
+    }
+
+    private void assertAllJobsServedOnce(VehicleRoutingProblem vrp, VehicleRoutingProblemSolution solution) {
+        for (VehicleRoute r : solution.getRoutes()) {
+            Assert.assertTrue(r.getActivities().size() <= 5);
+        }
+        for (Job j : vrp.getJobs().values()) {
+            int count = 0;
+            for (VehicleRoute r : solution.getRoutes()) if (r.getTourActivities().servesJob(j)) count++;
+            Assert.assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void itShouldImproveSolutionAndRespectCapacities() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingProblemSolution solution = createSolution(vrp);
+        double before = distance(vrp, solution);
+        LocalSearchModule localSearch = LocalSearchModule.Builder.newInstance(vrp).build();
+        localSearch.runAndGetSolution(solution);
+        Assert.assertTrue(distance(vrp, solution) < 0.8 * before);
+        assertAllJobsServedOnce(vrp, solution);
+    }
+
+    @Test
+    public void localOptimumShouldNotBeChangedAnymore() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingProblemSolution solution = createSolution(vrp);
+        LocalSearchModule localSearch = LocalSearchModule.Builder.newInstance(vrp).setMaxPasses(1000).build();
+        localSearch.runAndGetSolution(solution);
+        double localOptimum = distance(vrp, solution);
+        localSearch.runAndGetSolution(solution);
+        Assert.assertEquals(localOptimum, distance(vrp, solution), 0.001);
+    }
+
+    @Test
+    public void segmentMovesShouldImproveLocalOptimumOfRelocateAndSwap() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 10).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        Random random = new Random(0);
+        for (int i = 0; i < 40; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(200), random.nextInt(200))).build());
+        }
+        for (int i = 0; i < 8; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v" + i).setType(type).setStartLocation(Location.newInstance(100, 100)).build());
+        }
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        List<VehicleRoute.Builder> builders = new ArrayList<VehicleRoute.Builder>();
+        for (Vehicle vehicle : vrp.getVehicles()) {
+            builders.add(VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory()));
+        }
+        for (int i = 0; i < 40; i++) {
+            builders.get(i % 8).addService((Service) vrp.getJobs().get("s" + i));
+        }
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (VehicleRoute.Builder builder : builders) routes.add(builder.build());
+        VehicleRoutingProblemSolution solution = new VehicleRoutingProblemSolution(routes, Double.MAX_VALUE);
+
+        LocalSearchModule.Builder.newInstance(vrp).setSegmentMoves(false).setMaxPasses(1000).build().runAndGetSolution(solution);
+        double localOptimum = distance(vrp, solution);
+        LocalSearchModule.Builder.newInstance(vrp).setSegmentMoves(true).setMaxPasses(1000).build().runAndGetSolution(solution);
+        Assert.assertTrue(distance(vrp, solution) < localOptimum - 0.001);
+        for (VehicleRoute route : solution.getRoutes()) {
+            Assert.assertTrue(route.getActivities().size() <= 10);
+        }
+        int noServed = 0;
+        for (VehicleRoute route : solution.getRoutes()) noServed += route.getTourActivities().getJobs().size();
+        Assert.assertEquals(40, noServed);
+    }
+
+    @Test
+    public void itShouldRespectTimeWindows() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 5).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            double start = random.nextInt(300);
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1).setServiceTime(10.)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100)))
+                .addTimeWindow(start, start + 60.).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(Location.newInstance(50, 50)).build());
+        final VehicleRoutingProblem vrp = vrpBuilder.build();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.LOCAL_SEARCH, "true")
+            .buildAlgorithm();
+        vra.setMaxIterations(50);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        SolutionAnalyser analyser = new SolutionAnalyser(vrp, solution, new TransportDistance() {
+
+            @Override
+            public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+                return vrp.getTransportCosts().getTransportCost(from, to, departureTime, null, vehicle);
+            }
+
+        });
+        Assert.assertEquals(0., analyser.getTimeWindowViolation(), 0.001);
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenOnlyStateManagerIsSet_itShouldThrowException() {
+        VehicleRoutingProblem vrp = createProblem();
+        LocalSearchModule.Builder.newInstance(vrp).setStateAndConstraintManager(new StateManager(vrp), null).build();
+    }
+
+    @Test
+    public void jspritWithLocalSearchShouldAssignAllJobs() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.LOCAL_SEARCH, "true")
+            .buildAlgorithm();
+        vra.setMaxIterations(50);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+        assertAllJobsServedOnce(vrp, solution);
+    }
+
+}
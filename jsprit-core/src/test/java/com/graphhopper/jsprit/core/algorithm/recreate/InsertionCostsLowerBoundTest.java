@@ -0,0 +1,152 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.InfiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class InsertionCostsLowerBoundTest {
+
+    private VehicleRoutingProblem createProblem(boolean returnToDepot) {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 6).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(7);
+        for (int i = 0; i < 60; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100)).build());
+        }
+        for (int i = 0; i < 10; i++) {
+            vrpBuilder.addJob(Shipment.Builder.newInstance("sh" + i).addSizeDimension(0, 2)
+                .setPickupLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100))
+                .setDeliveryLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100)).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setType(type).setReturnToDepot(returnToDepot)
+            .setStartLocation(Location.newInstance(50, 50)).build());
+        return vrpBuilder.build();
+    }
+
+    private List<VehicleRoute> insert(VehicleRoutingProblem vrp, boolean pruning) {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        stateManager.updateTimeWindowStates();
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        constraintManager.addLoadConstraint();
+        constraintManager.addTimeWindowConstraint();
+        VehicleFleetManager fm = new InfiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        AbstractInsertionStrategy insertion = (AbstractInsertionStrategy) new InsertionBuilder(vrp, fm, stateManager, constraintManager)
+            .setInsertionStrategy(InsertionBuilder.Strategy.BEST).setAllowVehicleSwitch(false)
+            .setRouteLowerBoundPruning(pruning).build();
+        insertion.addListener(stateManager);
+        insertion.setRandom(new Random(1));
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        Collection<Job> unassigned = insertion.insertJobs(routes, new ArrayList<Job>(vrp.getJobs().values()));
+        Assert.assertTrue(unassigned.isEmpty());
+        return routes;
+    }
+
+    private double transportCosts(VehicleRoutingProblem vrp, List<VehicleRoute> routes) {
+        double costs = 0.;
+        for (VehicleRoute route : routes) {
+            TourActivity prev = route.getStart();
+            for (TourActivity act : route.getActivities()) {
+                costs += vrp.getTransportCosts().getTransportCost(prev.getLocation(), act.getLocation(), 0., null, route.getVehicle());
+                prev = act;
+            }
+            if (route.getVehicle().isReturnToDepot()) {
+                costs += vrp.getTransportCosts().getTransportCost(prev.getLocation(), route.getEnd().getLocation(), 0., null, route.getVehicle());
+            }
+        }
+        return costs;
+    }
+
+    @Test
+    public void pruningShouldNotChangeInsertionResult() {
+        VehicleRoutingProblem vrp = createProblem(true);
+        List<VehicleRoute> routes = insert(vrp, false);
+        List<VehicleRoute> prunedRoutes = insert(vrp, true);
+        Assert.assertEquals(routes.size(), prunedRoutes.size());
+        Assert.assertEquals(transportCosts(vrp, routes), transportCosts(vrp, prunedRoutes), 0.001);
+    }
+
+    @Test
+    public void pruningShouldNotChangeInsertionResultWithOpenRoutes() {
+        VehicleRoutingProblem vrp = createProblem(false);
+        List<VehicleRoute> routes = insert(vrp, false);
+        List<VehicleRoute> prunedRoutes = insert(vrp, true);
+        Assert.assertEquals(routes.size(), prunedRoutes.size());
+        Assert.assertEquals(transportCosts(vrp, routes), transportCosts(vrp, prunedRoutes), 0.001);
+    }
+
+    @Test
+    public void lowerBoundShouldRejectTooBigJobsAndBoundFarJobs() {
+        VehicleRoutingProblem vrp = createProblem(true);
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        stateManager.updateRouteSummaryStates();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vrp.getVehicles().iterator().next())
+            .setJobActivityFactory(vrp.getJobActivityFactory()).addService((Service) vrp.getJobs().get("s0")).build();
+        stateManager.informInsertionStarts(Collections.singletonList(route), Collections.<Job>emptyList());
+        InsertionCostsLowerBound lowerBound = new InsertionCostsLowerBound(stateManager, vrp.getTransportCosts(), true, false);
+        Service bigService = Service.Builder.newInstance("big").addSizeDimension(0, 6).setLocation(Location.newInstance(50, 50)).build();
+        Assert.assertEquals(Double.MAX_VALUE, lowerBound.getLowerBound(route, bigService), 0.);
+        Service farService = Service.Builder.newInstance("far").addSizeDimension(0, 1).setLocation(Location.newInstance(1000, 1000)).build();
+        Assert.assertTrue(lowerBound.getLowerBound(route, farService) > 1000.);
+    }
+
+    @Test
+    public void whenVehicleSwitchIsAllowed_pruningShouldThrowExceptionNamingBothParameters() {
+        VehicleRoutingProblem vrp = createProblem(true);
+        try {
+            Jsprit.Builder.newInstance(vrp).setProperty(Jsprit.Parameter.ROUTE_PRUNING, "true").buildAlgorithm();
+            Assert.fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains(Jsprit.Parameter.ROUTE_PRUNING.toString()));
+            Assert.assertTrue(e.getMessage().contains(Jsprit.Parameter.VEHICLE_SWITCH.toString()));
+        }
+    }
+
+    @Test
+    public void whenVehicleSwitchIsDisabled_pruningShouldBeBuilt() {
+        VehicleRoutingProblem vrp = createProblem(true);
+        Assert.assertNotNull(Jsprit.Builder.newInstance(vrp).setProperty(Jsprit.Parameter.ROUTE_PRUNING, "true")
+            .setProperty(Jsprit.Parameter.VEHICLE_SWITCH, "false").buildAlgorithm());
+    }
+
+}
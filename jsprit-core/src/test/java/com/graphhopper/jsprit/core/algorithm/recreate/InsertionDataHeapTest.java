@@ -0,0 +1,77 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class InsertionDataHeapTest {
+
+    private InsertionData iData(double costs) {
+        return new InsertionData(costs, -1, 0, null, null);
+    }
+
+    @Test
+    public void pollShouldReturnEntriesInAscendingOrder() {
+        InsertionDataHeap heap = new InsertionDataHeap(2);
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            heap.add(iData(random.nextDouble() * 100), i, VehicleRoute.emptyRoute());
+        }
+        Assert.assertEquals(100, heap.size());
+        double last = -1;
+        while (!heap.isEmpty()) {
+            heap.poll();
+            Assert.assertTrue(heap.getPolledCosts() >= last);
+            Assert.assertEquals(heap.getPolledCosts(), heap.getPolledInsertionData().getInsertionCost(), 0.);
+            last = heap.getPolledCosts();
+        }
+    }
+
+    @Test
+    public void keptEntriesShouldBeRestored() {
+        InsertionDataHeap heap = new InsertionDataHeap();
+        VehicleRoute r1 = VehicleRoute.emptyRoute();
+        VehicleRoute r2 = VehicleRoute.emptyRoute();
+        heap.add(iData(3.), 1, r1);
+        heap.add(iData(1.), 0, r1);
+        heap.add(iData(2.), 1, r2);
+        heap.poll();
+        Assert.assertEquals(0, heap.getPolledVersion());
+        heap.poll();
+        Assert.assertSame(r2, heap.getPolledRoute());
+        heap.keep();
+        heap.restore();
+        Assert.assertEquals(2, heap.size());
+        heap.poll();
+        Assert.assertEquals(2., heap.getPolledCosts(), 0.01);
+        heap.poll();
+        Assert.assertEquals(3., heap.getPolledCosts(), 0.01);
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void pollingEmptyHeapShouldThrowException() {
+        new InsertionDataHeap().poll();
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.InfiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KRegretInsertionTest {
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 5).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(11);
+        for (int i = 0; i < 30; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setType(type).setStartLocation(Location.newInstance(50, 50)).build());
+        return vrpBuilder.build();
+    }
+
+    private KRegretInsertion createInsertion(VehicleRoutingProblem vrp, ExecutorService executor, int k) {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        constraintManager.addLoadConstraint();
+        VehicleFleetManager fm = new InfiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        InsertionBuilder builder = new InsertionBuilder(vrp, fm, stateManager, constraintManager)
+            .setInsertionStrategy(InsertionBuilder.Strategy.REGRET).setRegretK(k);
+        if (executor != null) builder.setConcurrentMode(executor, 2);
+        KRegretInsertion insertion = (KRegretInsertion) builder.build();
+        insertion.addListener(stateManager);
+        return insertion;
+    }
+
+    private void assertAllJobsInsertedOnce(VehicleRoutingProblem vrp, Collection<VehicleRoute> routes) {
+        int nuOfActivities = 0;
+        for (VehicleRoute r : routes) {
+            nuOfActivities += r.getActivities().size();
+            Assert.assertTrue(r.getActivities().size() <= 5);
+        }
+        Assert.assertEquals(vrp.getJobs().size(), nuOfActivities);
+        for (Job j : vrp.getJobs().values()) {
+            int count = 0;
+            for (VehicleRoute r : routes) if (r.getTourActivities().servesJob(j)) count++;
+            Assert.assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void builderShouldCreateKRegretInsertion() {
+        VehicleRoutingProblem vrp = createProblem();
+        KRegretInsertion insertion = createInsertion(vrp, null, 3);
+        Assert.assertEquals(3, insertion.getK());
+        Assert.assertFalse(insertion instanceof KRegretInsertionConcurrent);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenKIsLowerThanTwo_itShouldThrowException() {
+        new InsertionBuilder(mock(VehicleRoutingProblem.class), null, null, null).setRegretK(1);
+    }
+
+    @Test
+    public void allJobsShouldBeInsertedExactlyOnce() {
+        VehicleRoutingProblem vrp = createProblem();
+        KRegretInsertion insertion = createInsertion(vrp, null, 4);
+        Collection<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        Collection<Job> unassigned = insertion.insertJobs(routes, new ArrayList<Job>(vrp.getJobs().values()));
+        Assert.assertTrue(unassigned.isEmpty());
+        assertAllJobsInsertedOnce(vrp, routes);
+    }
+
+    @Test
+    public void concurrentVersionShouldYieldSameRoutesAsSequentialVersion() {
+        VehicleRoutingProblem vrp = createProblem();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Collection<VehicleRoute> concurrentRoutes = new ArrayList<VehicleRoute>();
+        createInsertion(vrp, executor, 3).insertJobs(concurrentRoutes, new ArrayList<Job>(vrp.getJobs().values()));
+        executor.shutdown();
+        Collection<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        createInsertion(vrp, null, 3).insertJobs(routes, new ArrayList<Job>(vrp.getJobs().values()));
+        assertAllJobsInsertedOnce(vrp, concurrentRoutes);
+        Assert.assertEquals(routes.size(), concurrentRoutes.size());
+    }
+
+    @Test
+    public void kRegretScoreShouldSumUpDifferencesToBest() {
+        Job job = mock(Job.class);
+        when(job.getPriority()).thenReturn(2);
+        ScoringFunction scoringFunction = mock(ScoringFunction.class);
+        InsertionData best = new InsertionData(1., 0, 0, null, null);
+        double score = Scorer.score(job, best, new double[]{1., 3., 6.}, 3, scoringFunction);
+        Assert.assertEquals(2 * (2. + 5.), score, 0.001);
+    }
+
+    @Test
+    public void whenStaleAlternativeBecomesCheapest_itShouldBeBestAndScoreShouldBeNonNegative() {
+        VehicleRoutingProblem vrp = createProblem();
+        final Vehicle vehicle = vrp.getVehicles().iterator().next();
+        final VehicleRoute r1 = VehicleRoute.Builder.newInstance(vehicle).build();
+        final VehicleRoute r2 = VehicleRoute.Builder.newInstance(vehicle).build();
+        VehicleRoute r3 = VehicleRoute.Builder.newInstance(vehicle).build();
+        JobInsertionCostsCalculator calculator = new JobInsertionCostsCalculator() {
+            @Override
+            public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+                if (currentRoute == r2) return new InsertionData(0.5, 0, 0, vehicle, null);
+                return InsertionData.createEmptyInsertionData();
+            }
+        };
+        KRegretInsertion insertion = new KRegretInsertion(calculator, vrp, new InfiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager(), 3);
+        insertion.setSwitchAllowed(false);
+        insertion.setScoringFunction(mock(ScoringFunction.class));
+        Job job = mock(Job.class);
+        when(job.getPriority()).thenReturn(2);
+
+        InsertionDataHeap heap = new InsertionDataHeap();
+        heap.add(new InsertionData(1., 0, 0, vehicle, null), 1, r1);
+        heap.add(new InsertionData(3., 0, 0, vehicle, null), 0, r2);
+        heap.add(new InsertionData(10., 0, 0, vehicle, null), 1, r3);
+        Map<VehicleRoute, Integer> routeVersions = new HashMap<VehicleRoute, Integer>();
+        routeVersions.put(r1, 1);
+        routeVersions.put(r2, 1);
+        routeVersions.put(r3, 1);
+
+        ScoredJob scoredJob = insertion.score(heap, job, routeVersions);
+        Assert.assertSame(r2, scoredJob.getRoute());
+        Assert.assertEquals(0.5, scoredJob.getInsertionData().getInsertionCost(), 0.001);
+        Assert.assertEquals(2 * ((1. - 0.5) + (10. - 0.5)), scoredJob.getScore(), 0.001);
+    }
+
+    @Test
+    public void jspritWithKRegretShouldAssignAllJobs() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.REGRET_K, "3")
+            .setProperty(Jsprit.Parameter.THREADS, "2")
+            .buildAlgorithm();
+        vra.setMaxIterations(50);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+    }
+
+}
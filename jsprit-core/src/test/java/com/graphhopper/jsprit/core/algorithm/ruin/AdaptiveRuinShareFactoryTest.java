@@ -0,0 +1,95 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class AdaptiveRuinShareFactoryTest {
+
+    @Test
+    public void numbersToBeRemovedShouldBeWithinShares() {
+        AdaptiveRuinShareFactory factory = new AdaptiveRuinShareFactory(3, 17);
+        factory.setRandom(new Random(1));
+        boolean[] drawn = new boolean[18];
+        for (int i = 0; i < 1000; i++) {
+            int n = factory.createNumberToBeRemoved();
+            Assert.assertTrue(n >= 3 && n <= 17);
+            drawn[n] = true;
+            factory.record(1., 1.);
+        }
+        for (int n = 3; n <= 17; n++) Assert.assertTrue(drawn[n]);
+    }
+
+    @Test
+    public void whenShareRangeIsSmall_itShouldReduceNumberOfLevels() {
+        Assert.assertEquals(2, new AdaptiveRuinShareFactory(4, 5).getNoLevels());
+        Assert.assertEquals(5, new AdaptiveRuinShareFactory(4, 50).getNoLevels());
+    }
+
+    @Test
+    public void levelWithHighestImprovementPerSecondShouldBeSelectedMostOften() {
+        AdaptiveRuinShareFactory factory = new AdaptiveRuinShareFactory(0, 49);
+        factory.setRandom(new Random(2));
+        int[] selected = new int[factory.getNoLevels()];
+        for (int i = 0; i < 2000; i++) {
+            int level = factory.createNumberToBeRemoved() / 10;
+            // level 1 improves as much as level 4, but takes only a fraction of time
+            factory.record(level == 1 || level == 4 ? 10. : 1., 0.1 * (level + 1));
+            if (i >= 1000) selected[level]++;
+        }
+        for (int l = 0; l < selected.length; l++) {
+            if (l != 1) Assert.assertTrue(selected[1] > selected[l]);
+        }
+        Assert.assertTrue(factory.getImprovementRate(1) > factory.getImprovementRate(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxShareIsLowerThanMinShare_itShouldThrowException() {
+        new AdaptiveRuinShareFactory(10, 5);
+    }
+
+    @Test
+    public void jspritWithAdaptiveRuinShareShouldAssignAllJobs() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(3);
+        for (int i = 0; i < 40; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(50, 50)).build());
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrpBuilder.build())
+            .setProperty(Jsprit.Parameter.ADAPTIVE_RUIN_SHARE, "true")
+            .setProperty(Jsprit.Parameter.ADAPTIVE_RUIN_TIME_BUDGET, "10")
+            .buildAlgorithm();
+        vra.setMaxIterations(100);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+    }
+
+}
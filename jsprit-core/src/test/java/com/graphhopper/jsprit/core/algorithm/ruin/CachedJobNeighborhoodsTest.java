@@ -0,0 +1,97 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.util.ManhattanCosts;
+import com.graphhopper.jsprit.core.util.PreprocessingCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.mockito.Mockito.*;
+
+public class CachedJobNeighborhoodsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        builder.setRoutingCost(new ManhattanCosts(builder.getLocations()));
+        return builder.build();
+    }
+
+    @Test
+    public void whenCalculatedBefore_neighborhoodsShouldBeReadFromCache() {
+        VehicleRoutingProblem vrp = createProblem();
+        JobDistance jobDistance = new AvgServiceAndShipmentDistance(vrp.getTransportCosts());
+        PreprocessingCache cache = new PreprocessingCache(folder.getRoot());
+        JobNeighborhoods calculated = new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, 10, cache);
+        Assert.assertTrue(calculated instanceof CachedJobNeighborhoods);
+        calculated.initialise();
+
+        JobNeighborhoods delegate = mock(JobNeighborhoods.class);
+        String fingerprint = CachedJobNeighborhoods.fingerprint(vrp, jobDistance, 10);
+        JobNeighborhoods cached = new CachedJobNeighborhoods(vrp, delegate, 10, cache, fingerprint);
+        cached.initialise();
+        verify(delegate, never()).initialise();
+
+        JobNeighborhoods expected = new JobNeighborhoodsOptimized(vrp, jobDistance, 10);
+        expected.initialise();
+        Assert.assertEquals(expected.getMaxDistance(), cached.getMaxDistance(), 0.);
+        for (Job job : vrp.getJobs().values()) {
+            Iterator<Job> expectedIterator = expected.getNearestNeighborsIterator(10, job);
+            Iterator<Job> cachedIterator = cached.getNearestNeighborsIterator(10, job);
+            while (expectedIterator.hasNext()) {
+                Assert.assertEquals(expectedIterator.next(), cachedIterator.next());
+            }
+            Assert.assertFalse(cachedIterator.hasNext());
+        }
+    }
+
+    @Test
+    public void whenCapacityDiffers_fingerprintShouldDiffer() {
+        VehicleRoutingProblem vrp = createProblem();
+        JobDistance jobDistance = new AvgServiceAndShipmentDistance(vrp.getTransportCosts());
+        Assert.assertNotEquals(CachedJobNeighborhoods.fingerprint(vrp, jobDistance, 10), CachedJobNeighborhoods.fingerprint(vrp, jobDistance, 11));
+    }
+
+    @Test
+    public void whenJobDistanceIsUnknown_neighborhoodsShouldNotBeCached() {
+        VehicleRoutingProblem vrp = createProblem();
+        JobDistance jobDistance = mock(JobDistance.class);
+        Assert.assertNull(CachedJobNeighborhoods.fingerprint(vrp, jobDistance, 10));
+        Assert.assertFalse(new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, 10, new PreprocessingCache(folder.getRoot())) instanceof CachedJobNeighborhoods);
+    }
+
+}
@@ -23,11 +23,16 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.util.EuclideanCosts;
 import junit.framework.Assert;
+import org.apache.commons.math3.ml.clustering.Cluster;
+import org.apache.commons.math3.ml.clustering.Clusterable;
+import org.apache.commons.math3.ml.clustering.DoublePoint;
 import org.junit.Test;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Created by schroeder on 06/03/15.
@@ -86,4 +91,107 @@ public class DBSCANClustererTest {
         Assert.assertEquals(3, cluster.size());
 
     }
+
+    @Test
+    public void itShouldFindSameClustersAsCommonsMathDBSCAN() {
+        Random random = new Random(1);
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(v);
+        final Map<String, Service> services = new HashMap<String, Service>();
+        List<Clusterable> points = new ArrayList<Clusterable>();
+        for (int i = 0; i < 80; i++) {
+            final Service s = Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build();
+            routeBuilder.addService(s);
+            services.put(s.getId(), s);
+            points.add(new DoublePoint(new double[]{s.getLocation().getCoordinate().getX(), s.getLocation().getCoordinate().getY()}));
+        }
+        VehicleRoute r = routeBuilder.build();
+        DBSCANClusterer c = new DBSCANClusterer(new EuclideanCosts());
+        for (int minPts = 1; minPts <= 3; minPts++) {
+            c.setMinPts(minPts);
+            c.setEpsDistance(9);
+            Set<Set<String>> clusters = new HashSet<Set<String>>();
+            for (List<Job> cluster : c.getClusters(r)) {
+                Set<String> ids = new HashSet<String>();
+                for (Job j : cluster) ids.add(j.getId());
+                clusters.add(ids);
+            }
+            Set<Set<String>> expected = new HashSet<Set<String>>();
+            for (Cluster<Clusterable> cluster : new org.apache.commons.math3.ml.clustering.DBSCANClusterer<Clusterable>(9, minPts).cluster(points)) {
+                Set<String> ids = new HashSet<String>();
+                for (Clusterable p : cluster.getPoints()) {
+                    for (Service s : services.values()) {
+                        if (s.getLocation().getCoordinate().getX() == p.getPoint()[0] && s.getLocation().getCoordinate().getY() == p.getPoint()[1]) {
+                            ids.add(s.getId());
+                        }
+                    }
+                }
+                expected.add(ids);
+            }
+            Assert.assertEquals(expected, clusters);
+        }
+    }
+
+    @Test
+    public void whenRouteIsUnchanged_itShouldReuseMemorizedDistances() {
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(10, 10)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(9, 9)).build();
+
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoute r = VehicleRoute.Builder.newInstance(v).addService(s1).addService(s2).addService(s3).build();
+
+        final int[] noCostCalls = {0};
+        DBSCANClusterer c = new DBSCANClusterer(new EuclideanCosts() {
+
+            @Override
+            public double getTransportCost(Location from, Location to, double time, Driver driver, Vehicle vehicle) {
+                noCostCalls[0]++;
+                return super.getTransportCost(from, to, time, driver, vehicle);
+            }
+
+        });
+        c.setEpsDistance(3);
+        Assert.assertEquals(1, c.getClusters(r).size());
+        int noCalls = noCostCalls[0];
+        c.setMinPts(2);
+        Assert.assertEquals(0, c.getClusters(VehicleRoute.copyOf(r)).size());
+        Assert.assertEquals(noCalls, noCostCalls[0]);
+        r.getTourActivities().removeJob(s1);
+        Assert.assertEquals(0, c.getClusters(r).size());
+        Assert.assertTrue(noCostCalls[0] > noCalls);
+    }
+
+    @Test
+    public void whenRouteExceedsMaxMemorizedDistances_itShouldNotBeMemorized() {
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(10, 10)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(9, 9)).build();
+
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoute r = VehicleRoute.Builder.newInstance(v).addService(s1).addService(s2).addService(s3).build();
+
+        final int[] noCostCalls = {0};
+        DBSCANClusterer c = new DBSCANClusterer(new EuclideanCosts() {
+
+            @Override
+            public double getTransportCost(Location from, Location to, double time, Driver driver, Vehicle vehicle) {
+                noCostCalls[0]++;
+                return super.getTransportCost(from, to, time, driver, vehicle);
+            }
+
+        });
+        c.setEpsDistance(3);
+        c.setMaxMemorizedDistances(8);
+        c.getClusters(r);
+        int noCalls = noCostCalls[0];
+        c.getClusters(r);
+        Assert.assertEquals(2 * noCalls, noCostCalls[0]);
+
+        c.setMaxMemorizedDistances(9);
+        c.getClusters(r);
+        noCalls = noCostCalls[0];
+        c.getClusters(r);
+        Assert.assertEquals(noCalls, noCostCalls[0]);
+    }
 }
@@ -28,8 +28,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -141,6 +143,71 @@ public class JobNeighborhoodsOptimizedTest {
         assertEquals(2, services.size());
     }
 
+    @Test
+    public void whenCapacityExceedsNumberOfJobs_itShouldReturnAllOtherJobs() {
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(vrp, jobDistance, 10);
+        jn.initialise();
+        Iterator<Job> iter = jn.getNearestNeighborsIterator(10, target);
+        List<Service> services = new ArrayList<Service>();
+        while (iter.hasNext()) {
+            services.add((Service) iter.next());
+        }
+        assertEquals(6, services.size());
+        Assert.assertEquals(s7, services.get(5));
+    }
 
+    @Test
+    public void whenProblemIsLarge_neighborsShouldBeSortedByDistance() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(1);
+        for (int i = 0; i < 700; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100)).build());
+        }
+        VehicleRoutingProblem largeVrp = builder.build();
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(largeVrp, jobDistance, 50);
+        jn.setParallel(true);
+        jn.initialise();
+        double maxDistance = 0.;
+        for (Job job : largeVrp.getJobs().values()) {
+            List<Double> distances = new ArrayList<Double>();
+            for (Job other : largeVrp.getJobs().values()) {
+                if (other == job) continue;
+                distances.add(jobDistance.getDistance(job, other));
+                maxDistance = Math.max(maxDistance, jobDistance.getDistance(job, other));
+            }
+            Collections.sort(distances);
+            Iterator<Job> iter = jn.getNearestNeighborsIterator(50, job);
+            int index = 0;
+            while (iter.hasNext()) {
+                assertEquals(distances.get(index), jobDistance.getDistance(job, iter.next()), 0.);
+                index++;
+            }
+            assertEquals(50, index);
+        }
+        assertEquals(maxDistance, jn.getMaxDistance(), 0.);
+    }
+
+    @Test
+    public void byDefault_itShouldCalculateNeighborhoodsInCallingThread() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(1);
+        for (int i = 0; i < 700; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextDouble() * 100, random.nextDouble() * 100)).build());
+        }
+        VehicleRoutingProblem largeVrp = builder.build();
+        final Thread caller = Thread.currentThread();
+        final boolean[] calledConcurrently = {false};
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(largeVrp, new JobDistance() {
+
+            @Override
+            public double getDistance(Job i, Job j) {
+                if (Thread.currentThread() != caller) calledConcurrently[0] = true;
+                return jobDistance.getDistance(i, j);
+            }
+
+        }, 50);
+        jn.initialise();
+        Assert.assertFalse(calledConcurrently[0]);
+    }
 
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.util.GreatCircleCosts;
+import com.graphhopper.jsprit.core.util.ManhattanCosts;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+
+public class JobNeighborhoodsSpatialTest {
+
+    private VehicleRoutingProblem.Builder randomServices(int n, Random random) {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < n; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextDouble() * 10, 45 + random.nextDouble() * 10)).build());
+        }
+        return builder;
+    }
+
+    private void assertSameNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
+        JobNeighborhoods spatial = new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, capacity);
+        Assert.assertTrue(spatial instanceof JobNeighborhoodsSpatial);
+        spatial.initialise();
+        JobNeighborhoods optimized = new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
+        optimized.initialise();
+        for (Job job : vrp.getJobs().values()) {
+            Iterator<Job> spatialIterator = spatial.getNearestNeighborsIterator(capacity, job);
+            Iterator<Job> optimizedIterator = optimized.getNearestNeighborsIterator(capacity, job);
+            while (optimizedIterator.hasNext()) {
+                Assert.assertTrue(spatialIterator.hasNext());
+                Assert.assertEquals(optimizedIterator.next(), spatialIterator.next());
+            }
+            Assert.assertFalse(spatialIterator.hasNext());
+        }
+        Assert.assertEquals(optimized.getMaxDistance(), spatial.getMaxDistance(), 0.0001);
+    }
+
+    @Test
+    public void whenUsingCrowFlyCosts_neighborhoodsShouldBeEqualToBruteForce() {
+        VehicleRoutingProblem vrp = randomServices(600, new Random(1)).build();
+        assertSameNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), 40);
+    }
+
+    @Test
+    public void whenUsingGreatCircleCosts_neighborhoodsShouldBeEqualToBruteForce() {
+        VehicleRoutingProblem vrp = randomServices(300, new Random(2)).setRoutingCost(new GreatCircleCosts()).build();
+        assertSameNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), 20);
+    }
+
+    @Test
+    public void whenProblemContainsShipments_itShouldNotBeApplicable() {
+        VehicleRoutingProblem vrp = randomServices(10, new Random(3)).addJob(Shipment.Builder.newInstance("sh")
+            .setPickupLocation(Location.newInstance(0, 0)).setDeliveryLocation(Location.newInstance(1, 1)).build()).build();
+        Assert.assertFalse(JobNeighborhoodsSpatial.isApplicable(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts())));
+    }
+
+    @Test
+    public void whenCostsAreNoCrowFlyCosts_itShouldNotBeApplicable() {
+        VehicleRoutingProblem vrp = randomServices(10, new Random(4)).setRoutingCost(new ManhattanCosts()).build();
+        Assert.assertFalse(JobNeighborhoodsSpatial.isApplicable(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts())));
+        Assert.assertTrue(new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), 5) instanceof JobNeighborhoodsOptimized);
+    }
+
+}
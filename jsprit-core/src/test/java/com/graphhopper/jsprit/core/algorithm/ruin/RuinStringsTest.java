@@ -0,0 +1,179 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class RuinStringsTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private List<VehicleRoute> routes;
+
+    private void createRoutes(int noRoutes, int noJobsPerRoute) {
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(v);
+        List<List<Service>> services = new ArrayList<List<Service>>();
+        for (int r = 0; r < noRoutes; r++) {
+            List<Service> routeServices = new ArrayList<Service>();
+            for (int i = 0; i < noJobsPerRoute; i++) {
+                Service s = Service.Builder.newInstance("s_" + r + "_" + i).setLocation(Location.newInstance(i, r * 2)).build();
+                routeServices.add(s);
+                vrpBuilder.addJob(s);
+            }
+            services.add(routeServices);
+        }
+        vrp = vrpBuilder.build();
+        routes = new ArrayList<VehicleRoute>();
+        for (List<Service> routeServices : services) {
+            VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(v).setJobActivityFactory(vrp.getJobActivityFactory());
+            for (Service s : routeServices) routeBuilder.addService(s);
+            routes.add(routeBuilder.build());
+        }
+    }
+
+    private RuinStrings createRuin(int avgNoJobsToRemove, long seed) {
+        JobNeighborhoods neighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), vrp.getJobs().size());
+        neighborhoods.initialise();
+        RuinStrings ruin = new RuinStrings(vrp, avgNoJobsToRemove, neighborhoods);
+        ruin.setRandom(new Random(seed));
+        return ruin;
+    }
+
+    private int routeIndex(Job job) {
+        return Integer.parseInt(job.getId().split("_")[1]);
+    }
+
+    private int position(Job job) {
+        return Integer.parseInt(job.getId().split("_")[2]);
+    }
+
+    @Test
+    public void whenSplitRateIsZero_itShouldRemoveConsecutiveJobs() {
+        for (long seed = 0; seed < 20; seed++) {
+            createRoutes(1, 30);
+            RuinStrings ruin = createRuin(10, seed);
+            ruin.setSplitRate(0.);
+            Collection<Job> unassigned = ruin.ruinRoutes(routes);
+            Assert.assertFalse(unassigned.isEmpty());
+            Assert.assertTrue(unassigned.size() <= 10);
+            int min = Integer.MAX_VALUE;
+            int max = -1;
+            for (Job job : unassigned) {
+                min = Math.min(min, position(job));
+                max = Math.max(max, position(job));
+            }
+            Assert.assertEquals(unassigned.size(), max - min + 1);
+            Assert.assertEquals(30 - unassigned.size(), routes.get(0).getActivities().size());
+        }
+    }
+
+    @Test
+    public void whenSplitRateIsOne_itShouldPreserveJobsWithinString() {
+        createRoutes(1, 30);
+        RuinStrings ruin = createRuin(10, 1);
+        ruin.setSplitRate(1.);
+        ruin.setSplitDepth(0.5);
+        int noSplits = 0;
+        for (int i = 0; i < 20; i++) {
+            createRoutes(1, 30);
+            ruin.setRandom(new Random(i));
+            Collection<Job> unassigned = ruin.ruinRoutes(routes);
+            int min = Integer.MAX_VALUE;
+            int max = -1;
+            for (Job job : unassigned) {
+                min = Math.min(min, position(job));
+                max = Math.max(max, position(job));
+            }
+            if (max - min + 1 > unassigned.size()) noSplits++;
+        }
+        Assert.assertTrue(noSplits > 0);
+    }
+
+    @Test
+    public void itShouldRemoveAtMostOneStringPerRoute() {
+        for (long seed = 0; seed < 20; seed++) {
+            createRoutes(8, 10);
+            RuinStrings ruin = createRuin(15, seed);
+            ruin.setSplitRate(0.);
+            ruin.setMaxStringLength(5);
+            Collection<Job> unassigned = ruin.ruinRoutes(routes);
+            Map<Integer, List<Integer>> positions = new HashMap<Integer, List<Integer>>();
+            for (Job job : unassigned) {
+                if (!positions.containsKey(routeIndex(job))) positions.put(routeIndex(job), new ArrayList<Integer>());
+                positions.get(routeIndex(job)).add(position(job));
+            }
+            for (List<Integer> routePositions : positions.values()) {
+                Assert.assertTrue(routePositions.size() <= 5);
+                Assert.assertEquals(routePositions.size(), Collections.max(routePositions) - Collections.min(routePositions) + 1);
+            }
+        }
+    }
+
+    @Test
+    public void jspritWithStringRuinShouldAssignAllJobs() {
+        createRoutes(4, 10);
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Strategy.STRING_REGRET, "1.")
+            .setProperty(Jsprit.Strategy.STRING_BEST, "1.")
+            .buildAlgorithm();
+        vra.setMaxIterations(50);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+    }
+
+    @Test
+    public void whenJobIsAddedToDynamicProblem_itShouldBeRuined() {
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setDynamic(true).addVehicle(v);
+        for (int i = 0; i < 5; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s_0_" + i).setLocation(Location.newInstance(i, 0)).build());
+        }
+        vrp = vrpBuilder.build();
+        RuinStrings ruin = createRuin(1, 1);
+        Service added = Service.Builder.newInstance("s_1_0").setLocation(Location.newInstance(0, 2)).build();
+        vrp.addJob(added);
+        VehicleRoute route = VehicleRoute.Builder.newInstance(v).setJobActivityFactory(vrp.getJobActivityFactory())
+            .addService(added).build();
+        Collection<Job> unassigned = ruin.ruinRoutes(Collections.singletonList(route));
+        Assert.assertEquals(Collections.<Job>singletonList(added), new ArrayList<Job>(unassigned));
+        Assert.assertTrue(route.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxStringLengthIsZero_itShouldThrowException() {
+        createRoutes(1, 3);
+        createRuin(1, 1).setMaxStringLength(0);
+    }
+
+}
@@ -24,14 +24,21 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.NoiseMaker;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -213,5 +220,84 @@ public class RuinWorstTest {
 
     }
 
+    private VehicleRoutingProblem createProblem() {
+        Random random = new Random(1);
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(50, 50)).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(v);
+        for (int i = 0; i < 60; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    private List<VehicleRoute> createRoutes(VehicleRoutingProblem vrp) {
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (int r = 0; r < 3; r++) {
+            VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vrp.getVehicles().iterator().next()).setJobActivityFactory(vrp.getJobActivityFactory());
+            for (int i = r * 20; i < (r + 1) * 20; i++) routeBuilder.addService((Service) vrp.getJobs().get("s" + i));
+            routes.add(routeBuilder.build());
+        }
+        return routes;
+    }
+
+    @Test
+    public void itShouldRemoveSameJobsAsRecalculatingAllSavings() {
+        VehicleRoutingProblem vrp = createProblem();
+        List<VehicleRoute> routes = createRoutes(vrp);
+        List<Job> expected = new ArrayList<Job>();
+        List<VehicleRoute> copiedRoutes = new ArrayList<VehicleRoute>();
+        for (VehicleRoute route : routes) copiedRoutes.add(VehicleRoute.copyOf(route));
+        for (int i = 0; i < 15; i++) {
+            Job worst = getWorstByRecalculation(vrp, copiedRoutes);
+            for (VehicleRoute route : copiedRoutes) route.getTourActivities().removeJob(worst);
+            expected.add(worst);
+        }
+
+        RuinWorst worst = new RuinWorst(vrp, 15);
+        Collection<Job> unassigned = worst.ruinRoutes(routes);
+        assertEquals(expected, new ArrayList<Job>(unassigned));
+    }
+
+    @Test
+    public void noiseShouldChangeWhichJobsAreRemoved() {
+        VehicleRoutingProblem vrp = createProblem();
+        Collection<Job> withoutNoise = new RuinWorst(vrp, 15).ruinRoutes(createRoutes(vrp));
+        final Random random = new Random(7);
+        RuinWorst noisyWorst = new RuinWorst(vrp, 15);
+        noisyWorst.setNoiseMaker(new NoiseMaker() {
+
+            @Override
+            public double makeNoise() {
+                return 100. * random.nextDouble();
+            }
+
+        });
+        Collection<Job> withNoise = noisyWorst.ruinRoutes(createRoutes(vrp));
+        assertEquals(15, withNoise.size());
+        assertNotEquals(new HashSet<Job>(withoutNoise), new HashSet<Job>(withNoise));
+    }
+
+    private Job getWorstByRecalculation(VehicleRoutingProblem vrp, List<VehicleRoute> routes) {
+        Job worst = null;
+        double bestSavings = 0;
+        for (VehicleRoute route : routes) {
+            List<TourActivity> acts = new ArrayList<TourActivity>();
+            acts.add(route.getStart());
+            acts.addAll(route.getActivities());
+            acts.add(route.getEnd());
+            for (int i = 1; i < acts.size() - 1; i++) {
+                double savings = c(vrp, acts.get(i - 1), acts.get(i)) + c(vrp, acts.get(i), acts.get(i + 1)) - c(vrp, acts.get(i - 1), acts.get(i + 1));
+                if (savings > bestSavings) {
+                    bestSavings = savings;
+                    worst = ((TourActivity.JobActivity) acts.get(i)).getJob();
+                }
+            }
+        }
+        return worst;
+    }
+
+    private double c(VehicleRoutingProblem vrp, TourActivity from, TourActivity to) {
+        return vrp.getTransportCosts().getTransportCost(from.getLocation(), to.getLocation(), 0, null, null);
+    }
 
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.algorithm.AlgorithmUtil;
+import com.graphhopper.jsprit.core.algorithm.recreate.BestInsertion;
+import com.graphhopper.jsprit.core.algorithm.recreate.InsertionBuilder;
+import com.graphhopper.jsprit.core.problem.Capacity;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Pickup;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.InfiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+public class RouteSegmentsTest {
+
+    private Capacity size(int value) {
+        return Capacity.Builder.newInstance().addDimension(0, value).build();
+    }
+
+    @Test
+    public void whenSecondActivityIsReachedInTime_concatenationShouldNotHaveTimeWarp() {
+        RouteSegment first = RouteSegment.newInstance(0., 10., 5., size(0), false);
+        RouteSegment second = RouteSegment.newInstance(0., 12., 2., size(0), false);
+        RouteSegment segment = first.concat(second, 5.);
+        Assert.assertTrue(segment.isTimeFeasible());
+        Assert.assertEquals(12., segment.getDuration(), 0.01);
+    }
+
+    @Test
+    public void whenSecondActivityIsReachedTooLate_concatenationShouldHaveTimeWarp() {
+        RouteSegment first = RouteSegment.newInstance(0., 10., 5., size(0), false);
+        RouteSegment second = RouteSegment.newInstance(0., 8., 2., size(0), false);
+        RouteSegment segment = first.concat(second, 5.);
+        Assert.assertFalse(segment.isTimeFeasible());
+        Assert.assertEquals(2., segment.getTimeWarp(), 0.01);
+    }
+
+    @Test
+    public void whenSecondActivityOpensLater_concatenationShouldConsiderWaiting() {
+        RouteSegment first = RouteSegment.newInstance(0., 10., 5., size(0), false);
+        RouteSegment second = RouteSegment.newInstance(30., 40., 2., size(0), false);
+        RouteSegment segment = first.concat(second, 5.);
+        Assert.assertTrue(segment.isTimeFeasible());
+        Assert.assertEquals(10., segment.getEarliest(), 0.01);
+        Assert.assertEquals(10., segment.getLatest(), 0.01);
+        Assert.assertEquals(22., segment.getDuration(), 0.01);
+    }
+
+    @Test
+    public void loadShouldConsiderGoodsLoadedAtStart() {
+        RouteSegment delivery = RouteSegment.newInstance(0., 100., 0., size(-3), true);
+        RouteSegment pickup = RouteSegment.newInstance(0., 100., 0., size(4), false);
+        RouteSegment segment = delivery.concat(pickup, 1.);
+        Assert.assertTrue(segment.isLoadFeasible(size(4)));
+        Assert.assertFalse(segment.isLoadFeasible(size(3)));
+        RouteSegment reversed = pickup.concat(delivery, 1.);
+        Assert.assertFalse(reversed.isLoadFeasible(size(6)));
+        Assert.assertTrue(reversed.isLoadFeasible(size(7)));
+    }
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").addCapacityDimension(0, 8).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        Random random = new Random(3);
+        for (int i = 0; i < 45; i++) {
+            Location location = Location.newInstance(random.nextInt(100), random.nextInt(100));
+            double start = random.nextInt(300);
+            TimeWindow timeWindow = TimeWindow.newInstance(start, start + 40 + random.nextInt(100));
+            Service.Builder builder;
+            if (i % 3 == 0) builder = Delivery.Builder.newInstance("d" + i);
+            else if (i % 3 == 1) builder = Pickup.Builder.newInstance("p" + i);
+            else builder = Service.Builder.newInstance("s" + i);
+            vrpBuilder.addJob(builder.addSizeDimension(0, 1 + random.nextInt(3)).setLocation(location)
+                .setServiceTime(5).setTimeWindow(timeWindow).build());
+        }
+        for (int i = 0; i < 10; i++) {
+            double start = random.nextInt(200);
+            vrpBuilder.addJob(Shipment.Builder.newInstance("sh" + i).addSizeDimension(0, 1 + random.nextInt(3))
+                .setPickupLocation(Location.newInstance(random.nextInt(100), random.nextInt(100)))
+                .setDeliveryLocation(Location.newInstance(random.nextInt(100), random.nextInt(100)))
+                .setPickupTimeWindow(TimeWindow.newInstance(start, start + 100))
+                .setDeliveryTimeWindow(TimeWindow.newInstance(start + 50, start + 250)).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setType(type).setLatestArrival(500.)
+            .setStartLocation(Location.newInstance(50, 50)).build());
+        return vrpBuilder.build();
+    }
+
+    private List<VehicleRoute> insert(VehicleRoutingProblem vrp, boolean fastPath) {
+        StateManager stateManager = new StateManager(vrp);
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        AlgorithmUtil.addCoreConstraints(constraintManager, stateManager, vrp);
+        VehicleFleetManager fm = new InfiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+        BestInsertion insertion = (BestInsertion) new InsertionBuilder(vrp, fm, stateManager, constraintManager)
+            .setInsertionStrategy(InsertionBuilder.Strategy.BEST).setRouteSegmentsFastPath(fastPath).build();
+        insertion.addListener(stateManager);
+        insertion.setRandom(new Random(1));
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        Collection<Job> unassigned = insertion.insertJobs(routes, new ArrayList<Job>(vrp.getJobs().values()));
+        Assert.assertTrue(unassigned.isEmpty());
+        if (fastPath) {
+            for (VehicleRoute route : routes) {
+                RouteSegments segments = stateManager.getRouteState(route, InternalStates.ROUTE_SEGMENTS, RouteSegments.class);
+                Assert.assertTrue(segments.isFeasible());
+                Assert.assertEquals(route.getActivities().size() + 2, segments.size());
+            }
+        }
+        return routes;
+    }
+
+    private List<String> sequence(List<VehicleRoute> routes) {
+        List<String> sequence = new ArrayList<String>();
+        for (VehicleRoute route : routes) {
+            for (TourActivity act : route.getActivities()) {
+                sequence.add(((TourActivity.JobActivity) act).getJob().getId());
+            }
+            sequence.add("|");
+        }
+        return sequence;
+    }
+
+    @Test
+    public void fastPathShouldNotChangeInsertionResult() {
+        VehicleRoutingProblem vrp = createProblem();
+        Assert.assertEquals(sequence(insert(vrp, false)), sequence(insert(vrp, true)));
+    }
+
+}
@@ -356,4 +356,24 @@ public class StateManagerTest {
         }
         stateManager.putTypedInternalRouteState(route,myState,1.);
     }
+
+    @Test
+    public void whenJobsAreAddedToDynamicProblem_activityStatesShouldGrowOnClear() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().setDynamic(true)
+            .addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build()).build();
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        Service service = null;
+        for (int i = 0; i < 20; i++) {
+            service = Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(i, i)).build();
+            vrp.addJob(service);
+        }
+        stateManager.clear();
+        TourActivity act = vrp.copyAndGetActivities(service).get(0);
+        assertEquals(20, act.getIndex());
+        stateManager.putActivityState(act, id, 5.);
+        assertEquals(5., stateManager.getActivityState(act, id, Double.class), 0.01);
+        stateManager.clear();
+        assertNull(stateManager.getActivityState(act, id, Double.class));
+    }
 }
@@ -531,4 +531,93 @@ public class VehicleRoutingProblemTest {
         assertEquals(2, veh2.getVehicleTypeIdentifier().getIndex());
 
     }
+
+    private VehicleRoutingProblem createDynamicProblem() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setDynamic(true);
+        vrpBuilder.addJob(Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build());
+        vrpBuilder.addJob(Shipment.Builder.newInstance("sh1").setPickupLocation(Location.newInstance(2, 2))
+            .setDeliveryLocation(Location.newInstance(3, 3)).build());
+        vrpBuilder.addJob(Service.Builder.newInstance("s2").setLocation(Location.newInstance(4, 4)).build());
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build());
+        return vrpBuilder.build();
+    }
+
+    @Test
+    public void staticProblemShouldReportIndexCapacities() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        vrpBuilder.addJob(Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build());
+        vrpBuilder.addJob(Service.Builder.newInstance("s2").setLocation(Location.newInstance(1, 1)).build());
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build());
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        assertFalse(vrp.isDynamic());
+        assertEquals(3, vrp.getJobIndexCapacity());
+        assertEquals(2, vrp.getVehicleIndexCapacity());
+        assertEquals(3, vrp.getNuActivities());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenAddingJobToStaticProblem_itShouldThrowException() {
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().build();
+        vrp.addJob(Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 1)).build());
+    }
+
+    @Test
+    public void whenAddingJobToDynamicProblem_itShouldGetIndexAndActivities() {
+        VehicleRoutingProblem vrp = createDynamicProblem();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(5, 5)).build();
+        vrp.addJob(s3);
+        assertSame(s3, vrp.getJobs().get("s3"));
+        assertEquals(4, s3.getIndex());
+        assertEquals(5, vrp.getJobIndexCapacity());
+        assertEquals(1, vrp.getActivities(s3).size());
+        assertEquals(5, vrp.getActivities(s3).get(0).getIndex());
+        assertEquals(6, vrp.getNuActivities());
+        assertEquals(1, vrp.copyAndGetActivities(s3).size());
+    }
+
+    @Test
+    public void removedIndicesShouldBeRecycled() {
+        VehicleRoutingProblem vrp = createDynamicProblem();
+        Shipment removed = (Shipment) vrp.removeJob("sh1");
+        assertFalse(vrp.getJobs().containsKey("sh1"));
+        assertEquals(2, vrp.getJobs().size());
+        Shipment sh2 = Shipment.Builder.newInstance("sh2").setPickupLocation(Location.newInstance(6, 6))
+            .setDeliveryLocation(Location.newInstance(7, 7)).build();
+        vrp.addJob(sh2);
+        assertEquals(removed.getIndex(), sh2.getIndex());
+        assertEquals(4, vrp.getJobIndexCapacity());
+        assertEquals(2, vrp.getActivities(sh2).get(0).getIndex());
+        assertEquals(3, vrp.getActivities(sh2).get(1).getIndex());
+        assertEquals(5, vrp.getNuActivities());
+    }
+
+    @Test
+    public void vehiclesShouldBeAddedAndRemovedFromDynamicProblem() {
+        VehicleRoutingProblem vrp = createDynamicProblem();
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("other").build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setType(type).setStartLocation(Location.newInstance(9, 9)).build();
+        vrp.addVehicle(v2);
+        assertEquals(2, v2.getIndex());
+        assertEquals(2, vrp.getVehicles().size());
+        assertTrue(vrp.getTypes().contains(type));
+        assertEquals(3, vrp.getVehicleIndexCapacity());
+        vrp.removeVehicle("v1");
+        assertEquals(1, vrp.getVehicles().size());
+        VehicleImpl v3 = VehicleImpl.Builder.newInstance("v3").setType(type).setStartLocation(Location.newInstance(9, 9)).build();
+        vrp.addVehicle(v3);
+        assertEquals(1, v3.getIndex());
+        vrp.removeVehicle("v2");
+        vrp.removeVehicle("v3");
+        assertFalse(vrp.getTypes().contains(type));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenAddingJobWithExistingId_itShouldThrowException() {
+        createDynamicProblem().addJob(Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenRemovingUnknownVehicle_itShouldThrowException() {
+        createDynamicProblem().removeVehicle("unknown");
+    }
 }
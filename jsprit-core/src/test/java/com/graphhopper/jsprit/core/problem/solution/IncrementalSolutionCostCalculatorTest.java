@@ -0,0 +1,111 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+public class IncrementalSolutionCostCalculatorTest {
+
+    private IncrementalSolutionCostCalculator calculator;
+
+    private VehicleRoutingProblemSolution solution;
+
+    private Service s1;
+
+    @Before
+    public void doBefore() {
+        calculator = new IncrementalSolutionCostCalculator() {
+
+            @Override
+            protected double getRouteCosts(VehicleRoute route) {
+                return 10. * route.getActivities().size();
+            }
+
+            @Override
+            protected double getUnassignedJobCosts(Collection<Job> unassignedJobs) {
+                return 100. * unassignedJobs.size();
+            }
+
+        };
+        s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 1)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(2, 2)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(3, 3)).build();
+        VehicleRoute r1 = VehicleRoute.Builder.newInstance(vehicle("v1")).addService(s1).addService(s2).build();
+        VehicleRoute r2 = VehicleRoute.Builder.newInstance(vehicle("v2")).addService(s3).build();
+        solution = new VehicleRoutingProblemSolution(new ArrayList<VehicleRoute>(Arrays.asList(r1, r2)), 0.);
+    }
+
+    private VehicleImpl vehicle(String id) {
+        return VehicleImpl.Builder.newInstance(id).setStartLocation(Location.newInstance(0, 0)).build();
+    }
+
+    private VehicleRoute routeOf(VehicleRoutingProblemSolution solution, String vehicleId) {
+        for (VehicleRoute route : solution.getRoutes()) {
+            if (route.getVehicle().getId().equals(vehicleId)) return route;
+        }
+        return null;
+    }
+
+    @Test
+    public void costsShouldBeSumOfRouteAndUnassignedJobCosts() {
+        solution.getUnassignedJobs().add(Service.Builder.newInstance("s4").setLocation(Location.newInstance(4, 4)).build());
+        Assert.assertEquals(130., calculator.getCosts(solution), 0.001);
+        Assert.assertEquals(2, calculator.getNoRouteCalculations());
+    }
+
+    @Test
+    public void unchangedRoutesShouldNotBeCalculatedAgain() {
+        calculator.getCosts(solution);
+        VehicleRoutingProblemSolution copy = VehicleRoutingProblemSolution.copyOnWriteOf(solution);
+        Assert.assertEquals(30., calculator.getCosts(copy), 0.001);
+        Assert.assertEquals(2, calculator.getNoRouteCalculations());
+    }
+
+    @Test
+    public void onlyModifiedRouteShouldBeCalculatedAgain() {
+        calculator.getCosts(solution);
+        VehicleRoutingProblemSolution copy = VehicleRoutingProblemSolution.copyOnWriteOf(solution);
+        routeOf(copy, "v1").getTourActivities().removeJob(s1);
+        copy.getUnassignedJobs().add(s1);
+        Assert.assertEquals(120., calculator.getCosts(copy), 0.001);
+        Assert.assertEquals(3, calculator.getNoRouteCalculations());
+        Assert.assertEquals(30., calculator.getCosts(solution), 0.001);
+        Assert.assertEquals(3, calculator.getNoRouteCalculations());
+    }
+
+    @Test
+    public void routeWithOtherVehicleShouldBeCalculatedAgain() {
+        calculator.getCosts(solution);
+        VehicleRoutingProblemSolution copy = VehicleRoutingProblemSolution.copyOnWriteOf(solution);
+        routeOf(copy, "v2").setVehicleAndDepartureTime(vehicle("v3"), 0.);
+        calculator.getCosts(copy);
+        Assert.assertEquals(3, calculator.getNoRouteCalculations());
+    }
+
+}
@@ -23,6 +23,8 @@ import com.graphhopper.jsprit.core.problem.job.Shipment;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Iterator;
+
 import static org.junit.Assert.*;
 
 
@@ -235,4 +237,96 @@ public class TestTourActivities {
         assertTrue(copiedTour.servesJob(s));
     }
 
+    @Test
+    public void copyOnWriteCopyShouldShareActivitiesUntilModified() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.copyOnWriteOf(tour);
+        assertSame(act, copy.getActivities().get(0));
+        assertEquals(tour.getVersion(), copy.getVersion());
+
+        Service anotherService = Service.Builder.newInstance("other").setLocation(Location.newInstance("loc2")).build();
+        copy.addActivity(ServiceActivity.newInstance(anotherService));
+
+        assertEquals(1, tour.getActivities().size());
+        assertSame(act, tour.getActivities().get(0));
+        assertFalse(tour.servesJob(anotherService));
+        assertEquals(2, copy.getActivities().size());
+        assertNotSame(act, copy.getActivities().get(0));
+        assertTrue(copy.servesJob(anotherService));
+        assertNotEquals(tour.getVersion(), copy.getVersion());
+    }
+
+    @Test
+    public void whenModifyingOriginal_copyOnWriteCopyShouldNotChange() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.copyOnWriteOf(tour);
+        tour.removeJob(service);
+        assertTrue(tour.isEmpty());
+        assertTrue(copy.servesJob(service));
+        assertSame(act, copy.getActivities().get(0));
+    }
+
+    @Test
+    public void removingSharedActivityFromCopyOnWriteCopyShouldWork() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.copyOnWriteOf(tour);
+        assertTrue(copy.removeActivity(copy.getActivities().get(0)));
+        assertTrue(copy.isEmpty());
+        assertFalse(copy.servesJob(service));
+        assertTrue(tour.servesJob(service));
+    }
+
+    @Test
+    public void removingThroughIteratorShouldChangeVersionAndJobs() {
+        tour.addActivity(act);
+        long version = tour.getVersion();
+        Iterator<TourActivity> iterator = tour.iterator();
+        iterator.next();
+        iterator.remove();
+        assertTrue(tour.isEmpty());
+        assertFalse(tour.servesJob(service));
+        assertTrue(tour.getJobs().isEmpty());
+        assertNotEquals(version, tour.getVersion());
+    }
+
+    @Test
+    public void indexOfShouldReturnPositionsOfActivitiesAndJobs() {
+        Shipment s = Shipment.Builder.newInstance("s").setPickupLocation(Location.newInstance("pick"))
+            .setDeliveryLocation(Location.newInstance("del")).build();
+        TourShipmentActivityFactory fac = new DefaultShipmentActivityFactory();
+        TourActivity pickup = fac.createPickup(s);
+        TourActivity delivery = fac.createDelivery(s);
+        tour.addActivity(pickup);
+        tour.addActivity(act);
+        tour.addActivity(delivery);
+
+        assertEquals(0, tour.indexOf(pickup));
+        assertEquals(1, tour.indexOf(act));
+        assertEquals(2, tour.indexOf(delivery));
+        assertEquals(0, tour.indexOf(s));
+        assertEquals(1, tour.indexOf(service));
+
+        tour.removeJob(service);
+        assertEquals(1, tour.indexOf(delivery));
+        assertEquals(-1, tour.indexOf(act));
+        assertEquals(-1, tour.indexOf(service));
+    }
+
+    @Test
+    public void removingShipmentShouldRemoveBothActivities() {
+        Shipment s = Shipment.Builder.newInstance("s").setPickupLocation(Location.newInstance("pick"))
+            .setDeliveryLocation(Location.newInstance("del")).build();
+        TourShipmentActivityFactory fac = new DefaultShipmentActivityFactory();
+        tour.addActivity(fac.createPickup(s));
+        tour.addActivity(act);
+        tour.addActivity(fac.createDelivery(s));
+        assertEquals(0, tour.indexOf(s));
+
+        assertTrue(tour.removeJob(s));
+        assertEquals(1, tour.getActivities().size());
+        assertSame(act, tour.getActivities().get(0));
+        assertFalse(tour.servesJob(s));
+        assertFalse(tour.removeJob(s));
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorServiceProvidersTest {
+
+    @Test
+    public void sharedProviderShouldNotShutDownExecutor() {
+        ExecutorServiceProvider provider = ExecutorServiceProviders.sharedForkJoinPool();
+        ExecutorService es = provider.acquire(4);
+        provider.release(es);
+        Assert.assertFalse(es.isShutdown());
+        Assert.assertSame(es, ExecutorServiceProviders.sharedForkJoinPool().acquire(2));
+    }
+
+    @Test
+    public void fixedProviderShouldShutDownExecutor() {
+        ExecutorServiceProvider provider = ExecutorServiceProviders.fixedThreadPool();
+        ExecutorService es = provider.acquire(2);
+        provider.release(es);
+        Assert.assertTrue(es.isShutdown());
+    }
+
+    @Test
+    public void virtualThreadProviderShouldRunTasks() throws Exception {
+        ExecutorServiceProvider provider = ExecutorServiceProviders.virtualThreadPerTask();
+        ExecutorService es = provider.acquire(2);
+        Assert.assertEquals(Integer.valueOf(1), es.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return 1;
+            }
+        }).get());
+        provider.release(es);
+        Assert.assertTrue(es.isShutdown());
+    }
+
+    @Test
+    public void limitedProviderShouldNotShutDownSharedExecutor() {
+        ExecutorService shared = Executors.newFixedThreadPool(2);
+        ExecutorServiceProvider provider = ExecutorServiceProviders.limited(ExecutorServiceProviders.shared(shared), new Semaphore(1));
+        ExecutorService es = provider.acquire(2);
+        provider.release(es);
+        Assert.assertTrue(es.isShutdown());
+        Assert.assertFalse(shared.isShutdown());
+        shared.shutdown();
+    }
+
+    @Test
+    public void limitedExecutorsShouldNeverExceedPermitsTogether() throws Exception {
+        ExecutorService shared = Executors.newFixedThreadPool(8);
+        Semaphore permits = new Semaphore(2);
+        ExecutorServiceProvider provider = ExecutorServiceProviders.limited(ExecutorServiceProviders.shared(shared), permits);
+        ExecutorService es1 = provider.acquire(4);
+        ExecutorService es2 = provider.acquire(4);
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    int r = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        if (r > maxRunning.get()) maxRunning.set(r);
+                    }
+                    Thread.sleep(2);
+                    running.decrementAndGet();
+                    return true;
+                }
+            });
+        }
+        ExecutorService submitters = Executors.newFixedThreadPool(2);
+        Future<List<Future<Boolean>>> f1 = submitters.submit(invokeAll(es1, tasks));
+        Future<List<Future<Boolean>>> f2 = submitters.submit(invokeAll(es2, tasks));
+        f1.get();
+        f2.get();
+        submitters.shutdown();
+        provider.release(es1);
+        provider.release(es2);
+        Assert.assertTrue(es1.awaitTermination(1, java.util.concurrent.TimeUnit.SECONDS));
+        Assert.assertTrue(es2.awaitTermination(1, java.util.concurrent.TimeUnit.SECONDS));
+        Assert.assertTrue(maxRunning.get() <= 2);
+        Assert.assertEquals(2, permits.availablePermits());
+        shared.shutdown();
+    }
+
+    private Callable<List<Future<Boolean>>> invokeAll(final ExecutorService es, final List<Callable<Boolean>> tasks) {
+        return new Callable<List<Future<Boolean>>>() {
+            @Override
+            public List<Future<Boolean>> call() throws Exception {
+                return es.invokeAll(tasks);
+            }
+        };
+    }
+
+    @Test
+    public void jspritShouldRunOnSharedForkJoinPool() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 10; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(i, 10 - i)).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build());
+        VehicleRoutingProblem vrp = vrpBuilder.build();
+        VehicleRoutingAlgorithm vra = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.THREADS, "2")
+            .setExecutorServiceProvider(ExecutorServiceProviders.sharedForkJoinPool())
+            .buildAlgorithm();
+        vra.setMaxIterations(20);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(vra.searchSolutions());
+        Assert.assertTrue(solution.getUnassignedJobs().isEmpty());
+        Assert.assertFalse(ExecutorServiceProviders.getSharedForkJoinPool().isShutdown());
+    }
+
+}
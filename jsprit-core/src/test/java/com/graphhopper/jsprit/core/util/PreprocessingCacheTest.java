@@ -0,0 +1,116 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class PreprocessingCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final PreprocessingCache.ArtefactReader<Double> DOUBLE_READER = new PreprocessingCache.ArtefactReader<Double>() {
+
+        @Override
+        public Double read(DataInput in) throws IOException {
+            return in.readDouble();
+        }
+
+    };
+
+    private static PreprocessingCache.ArtefactWriter doubleWriter(final double value) {
+        return new PreprocessingCache.ArtefactWriter() {
+
+            @Override
+            public void write(DataOutput out) throws IOException {
+                out.writeDouble(value);
+            }
+
+        };
+    }
+
+    private VehicleRoutingProblem createProblem(double x) {
+        return VehicleRoutingProblem.Builder.newInstance()
+            .addJob(Service.Builder.newInstance("s1").setLocation(Location.newInstance(x, 10)).build())
+            .addJob(Service.Builder.newInstance("s2").setLocation(Location.newInstance(20, 5)).build())
+            .addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build())
+            .build();
+    }
+
+    @Test
+    public void storedArtefactShouldBeReadAgain() {
+        PreprocessingCache cache = new PreprocessingCache(new File(folder.getRoot(), "cache"));
+        cache.put("threshold", "abc", doubleWriter(42.));
+        Assert.assertEquals(42., cache.get("threshold", "abc", DOUBLE_READER), 0.);
+        Assert.assertNull(cache.get("threshold", "abd", DOUBLE_READER));
+        Assert.assertNull(cache.get("neighborhoods", "abc", DOUBLE_READER));
+    }
+
+    @Test
+    public void corruptArtefactShouldBeTreatedAsMissing() throws IOException {
+        PreprocessingCache cache = new PreprocessingCache(folder.getRoot());
+        FileOutputStream out = new FileOutputStream(new File(folder.getRoot(), "threshold-abc.bin"));
+        try {
+            out.write(new byte[]{1, 2, 3});
+        } finally {
+            out.close();
+        }
+        Assert.assertNull(cache.get("threshold", "abc", DOUBLE_READER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenKindContainsPathSeparator_itShouldThrowException() {
+        new PreprocessingCache(folder.getRoot()).get("../threshold", "abc", DOUBLE_READER);
+    }
+
+    @Test
+    public void fingerprintShouldOnlyChangeIfLocationsChange() {
+        Assert.assertEquals(Fingerprint.ofLocations(createProblem(10)).toHexString(), Fingerprint.ofLocations(createProblem(10)).toHexString());
+        Assert.assertNotEquals(Fingerprint.ofLocations(createProblem(10)).toHexString(), Fingerprint.ofLocations(createProblem(11)).toHexString());
+    }
+
+    @Test
+    public void matrixFingerprintShouldNotDependOnInsertionOrder() {
+        VehicleRoutingTransportCostsMatrix.Builder b1 = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+        b1.addTransportDistance("a", "b", 1.);
+        b1.addTransportDistance("b", "a", 2.);
+        VehicleRoutingTransportCostsMatrix.Builder b2 = VehicleRoutingTransportCostsMatrix.Builder.newInstance(false);
+        b2.addTransportDistance("b", "a", 2.);
+        b2.addTransportDistance("a", "b", 1.);
+        Fingerprint f1 = new Fingerprint();
+        b1.build().addTo(f1);
+        Fingerprint f2 = new Fingerprint();
+        b2.build().addTo(f2);
+        Assert.assertEquals(f1.toHexString(), f2.toHexString());
+    }
+
+}
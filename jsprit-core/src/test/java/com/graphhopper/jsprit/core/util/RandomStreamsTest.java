@@ -0,0 +1,64 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class RandomStreamsTest {
+
+    @Test
+    public void streamsWithSameSeedAndNameShouldBeEqual() {
+        Random r1 = RandomStreams.newInstance(42).newRandom("ruin");
+        Random r2 = RandomStreams.newInstance(42).newRandom("ruin");
+        for (int i = 0; i < 100; i++) Assert.assertEquals(r1.nextLong(), r2.nextLong());
+    }
+
+    @Test
+    public void streamShouldNotDependOnOtherStreams() {
+        RandomStreams streams = RandomStreams.newInstance(42);
+        Random other = streams.newRandom("insertion");
+        for (int i = 0; i < 10; i++) other.nextDouble();
+        Assert.assertEquals(RandomStreams.newInstance(42).newRandom("ruin").nextLong(), streams.newRandom("ruin").nextLong());
+    }
+
+    @Test
+    public void streamsShouldDifferByNameIndexSeedAndSplit() {
+        RandomStreams streams = RandomStreams.newInstance(42);
+        Set<Long> firstNumbers = new HashSet<Long>();
+        firstNumbers.add(streams.newRandom("ruin").nextLong());
+        firstNumbers.add(streams.newRandom("insertion").nextLong());
+        firstNumbers.add(streams.newRandom("ruin", 0).nextLong());
+        firstNumbers.add(streams.newRandom("ruin", 1).nextLong());
+        firstNumbers.add(RandomStreams.newInstance(43).newRandom("ruin").nextLong());
+        firstNumbers.add(streams.split("ruin", 0).newRandom("ruin").nextLong());
+        Assert.assertEquals(6, firstNumbers.size());
+    }
+
+    @Test
+    public void splitStreamsShouldBeReproducible() {
+        long seed = RandomStreams.newInstance(7).split("worker", 3).getSeed();
+        Assert.assertEquals(seed, RandomStreams.newInstance(7).split("worker", 3).getSeed());
+    }
+
+}
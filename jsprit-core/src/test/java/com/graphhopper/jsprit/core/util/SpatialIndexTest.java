@@ -0,0 +1,128 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.graphhopper.jsprit.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class SpatialIndexTest {
+
+    private Coordinate[] randomCoordinates(int n, Random random, double minX, double maxX, double minY, double maxY) {
+        Coordinate[] coordinates = new Coordinate[n];
+        for (int i = 0; i < n; i++) {
+            coordinates[i] = Coordinate.newInstance(minX + random.nextDouble() * (maxX - minX), minY + random.nextDouble() * (maxY - minY));
+        }
+        return coordinates;
+    }
+
+    private List<Integer> sortedByDistance(final Coordinate[] coordinates, final Coordinate to, final boolean greatCircle) {
+        List<Integer> positions = new ArrayList<Integer>();
+        for (int i = 0; i < coordinates.length; i++) positions.add(i);
+        Collections.sort(positions, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(distance(coordinates[o1], to, greatCircle), distance(coordinates[o2], to, greatCircle));
+            }
+
+        });
+        return positions;
+    }
+
+    private double distance(Coordinate c1, Coordinate c2, boolean greatCircle) {
+        if (greatCircle) return GreatCircleDistanceCalculator.calculateDistance(c1, c2, DistanceUnit.Kilometer);
+        return EuclideanDistanceCalculator.calculateDistance(c1, c2);
+    }
+
+    @Test
+    public void nearestNeighborsShouldBeEqualToBruteForce() {
+        Random random = new Random(1);
+        Coordinate[] coordinates = randomCoordinates(1000, random, 0, 100, 0, 100);
+        SpatialIndex index = SpatialIndex.newEuclideanInstance(coordinates);
+        for (int i = 0; i < 50; i++) {
+            int[] neighbors = index.getNearestNeighbors(i, 20);
+            List<Integer> expected = sortedByDistance(coordinates, coordinates[i], false);
+            expected.remove(Integer.valueOf(i));
+            Assert.assertEquals(20, neighbors.length);
+            for (int n = 0; n < neighbors.length; n++) {
+                Assert.assertEquals(expected.get(n).intValue(), neighbors[n]);
+            }
+        }
+    }
+
+    @Test
+    public void greatCircleNeighborsShouldBeEqualToBruteForce() {
+        Random random = new Random(2);
+        Coordinate[] coordinates = randomCoordinates(500, random, 170, 190, -10, 10);
+        SpatialIndex index = SpatialIndex.newGreatCircleInstance(coordinates, DistanceUnit.Kilometer);
+        Coordinate query = Coordinate.newInstance(-179.5, 0.5);
+        int[] neighbors = index.getNearestNeighbors(query, 30);
+        List<Integer> expected = sortedByDistance(coordinates, query, true);
+        for (int n = 0; n < neighbors.length; n++) {
+            Assert.assertEquals(expected.get(n).intValue(), neighbors[n]);
+        }
+        Assert.assertEquals(distance(coordinates[0], coordinates[1], true), index.getDistance(0, 1), 0.001);
+    }
+
+    @Test
+    public void neighborsWithinRadiusShouldBeEqualToBruteForce() {
+        Random random = new Random(3);
+        Coordinate[] coordinates = randomCoordinates(800, random, 0, 100, 0, 100);
+        SpatialIndex index = SpatialIndex.newEuclideanInstance(coordinates);
+        int[] neighbors = index.getNeighborsWithinRadius(Coordinate.newInstance(50, 50), 10.);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (Integer position : sortedByDistance(coordinates, Coordinate.newInstance(50, 50), false)) {
+            if (distance(coordinates[position], Coordinate.newInstance(50, 50), false) <= 10.) expected.add(position);
+        }
+        Assert.assertEquals(expected.size(), neighbors.length);
+        for (int n = 0; n < neighbors.length; n++) {
+            Assert.assertEquals(expected.get(n).intValue(), neighbors[n]);
+        }
+    }
+
+    @Test
+    public void farthestShouldBeEqualToBruteForce() {
+        Random random = new Random(4);
+        Coordinate[] coordinates = randomCoordinates(300, random, 0, 100, 0, 100);
+        SpatialIndex index = SpatialIndex.newEuclideanInstance(coordinates);
+        for (int i = 0; i < coordinates.length; i++) {
+            List<Integer> expected = sortedByDistance(coordinates, coordinates[i], false);
+            Assert.assertEquals(expected.get(expected.size() - 1).intValue(), index.getFarthest(i));
+        }
+    }
+
+    @Test
+    public void tiesShouldBeBrokenByPosition() {
+        Coordinate[] coordinates = new Coordinate[20];
+        for (int i = 0; i < coordinates.length; i++) coordinates[i] = Coordinate.newInstance(1, 1);
+        SpatialIndex index = SpatialIndex.newEuclideanInstance(coordinates);
+        int[] neighbors = index.getNearestNeighbors(5, 30);
+        Assert.assertEquals(19, neighbors.length);
+        Assert.assertEquals(0, neighbors[0]);
+        Assert.assertEquals(6, neighbors[5]);
+        Assert.assertEquals(0, index.getFarthest(5));
+    }
+
+}